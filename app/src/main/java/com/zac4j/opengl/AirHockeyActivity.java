@@ -4,23 +4,38 @@ import android.app.ActivityManager;
 import android.content.pm.ConfigurationInfo;
 import android.opengl.GLSurfaceView;
 import android.os.Bundle;
+import android.util.Log;
 import android.support.v7.app.AppCompatActivity;
 import android.view.MotionEvent;
 import android.view.View;
-import android.widget.Toast;
+import com.zac4j.opengl.input.TouchQueue;
+import com.zac4j.opengl.profile.Profiler;
+import com.zac4j.opengl.render.FrameScheduler;
+import com.zac4j.opengl.render.SoftwareSurfaceView;
+import com.zac4j.opengl.util.LoggerConfig;
+import java.io.File;
+import java.io.IOException;
 
 public class AirHockeyActivity extends AppCompatActivity {
 
-  private GLSurfaceView mGLSurfaceView;
+  private static final String TAG = "AirHockeyActivity";
+
+  // 暂停时追加性能统计的文件
+  private static final String PROFILE_FILE = "profile.txt";
+
+  // 帧率上限，0 表示跟随 vsync；只在能整除显示器刷新率时生效
+  private static final int TARGET_FRAME_RATE = 0;
 
-  // 变量 rendererSet 记录 GLSurfaceView 是否可用
-  private boolean mRendererSet = false;
+  // 场景连续静止多少帧后停止渲染
+  private static final int IDLE_FRAMES = 30;
+
+  // 支持 ES 2.0 时使用 GLSurfaceView，否则使用软件渲染的 SoftwareSurfaceView，两者只有一个不为 null
+  private GLSurfaceView mGLSurfaceView;
+  private SoftwareSurfaceView mSoftwareSurfaceView;
 
   @Override protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
 
-    mGLSurfaceView = new GLSurfaceView(this);
-
     // to check if system is actually supports OpenGL ES 2.0
     // 检查系统是否支持 OpenGL ES 2.0
     final ActivityManager activityManager = (ActivityManager) getSystemService(ACTIVITY_SERVICE);
@@ -28,61 +43,141 @@ public class AirHockeyActivity extends AppCompatActivity {
     final ConfigurationInfo configInfo = activityManager.getDeviceConfigurationInfo();
 
     final boolean supportEs2 = configInfo.reqGlEsVersion >= 0x20000;
+    // 支持 ES 3.0 时使用实例化绘制，否则渲染器回退到 ES 2.0 的批量绘制
+    final boolean supportEs3 = configInfo.reqGlEsVersion >= 0x30000;
+
+    // 调试时开启性能统计，渲染器创建时据此决定是否统计 GL 调用
+    Profiler.setEnabled(LoggerConfig.ON);
 
+    final View surfaceView;
+    final AirHockeyCylinderRenderer renderer;
+    final FrameScheduler.Surface surface;
     if (supportEs2) {
-      // Request an OpenGL ES 2.0 compatible context.
-      mGLSurfaceView.setEGLContextClientVersion(2);
+      mGLSurfaceView = new GLSurfaceView(this);
+      // Request an OpenGL ES 3.0 context when available, 2.0 otherwise.
+      mGLSurfaceView.setEGLContextClientVersion(supportEs3 ? 3 : 2);
 
       // Assign renderer. 设置渲染器
-      final AirHockeyCylinderRenderer renderer = new AirHockeyCylinderRenderer(this);
+      renderer = new AirHockeyCylinderRenderer(this);
+      surface = new FrameScheduler.Surface() {
+        @Override public void setRenderContinuously(boolean continuously) {
+          mGLSurfaceView.setRenderMode(continuously ? GLSurfaceView.RENDERMODE_CONTINUOUSLY
+              : GLSurfaceView.RENDERMODE_WHEN_DIRTY);
+        }
 
-      mGLSurfaceView.setRenderer(renderer);
-      mRendererSet = true;
-
-      mGLSurfaceView.setOnTouchListener(new View.OnTouchListener() {
-        @Override public boolean onTouch(View v, MotionEvent event) {
-          // 将Android 屏幕坐标转换为标准坐标
-          if (event != null) {
-            final float normalizedX = (event.getX() / (float) v.getWidth()) * 2 - 1;
-            final float normalizedY = -((event.getY() / (float) v.getHeight()) * 2 - 1);
-
-            if (event.getAction() == MotionEvent.ACTION_DOWN) {
-              mGLSurfaceView.queueEvent(new Runnable() {
-                @Override public void run() {
-                  renderer.onClick(normalizedX, normalizedY);
-                }
-              });
-            } else if (event.getAction() == MotionEvent.ACTION_MOVE) {
-              mGLSurfaceView.queueEvent(new Runnable() {
-                @Override public void run() {
-                  renderer.onDrag(normalizedX, normalizedY);
-                }
-              });
-            }
-            return true;
-          }
-          return false;
+        @Override public void requestRender() {
+          mGLSurfaceView.requestRender();
         }
-      });
+      };
+      surfaceView = mGLSurfaceView;
     } else {
-      Toast.makeText(AirHockeyActivity.this, "This device does not support OpenGL ES 2.0",
-          Toast.LENGTH_SHORT).show();
+      // 不支持 ES 2.0 时用 CPU 渲染，每个核一个光栅化线程
+      if (LoggerConfig.ON) {
+        Log.w(TAG, "OpenGL ES 2.0 is not supported, falling back to software rendering");
+      }
+      mSoftwareSurfaceView =
+          new SoftwareSurfaceView(this, Runtime.getRuntime().availableProcessors());
+      renderer = new AirHockeyCylinderRenderer(this, mSoftwareSurfaceView.getGL());
+      surface = new FrameScheduler.Surface() {
+        @Override public void setRenderContinuously(boolean continuously) {
+          mSoftwareSurfaceView.setRenderMode(
+              continuously ? GLSurfaceView.RENDERMODE_CONTINUOUSLY
+                  : GLSurfaceView.RENDERMODE_WHEN_DIRTY);
+        }
+
+        @Override public void requestRender() {
+          mSoftwareSurfaceView.requestRender();
+        }
+      };
+      surfaceView = mSoftwareSurfaceView;
     }
 
-    setContentView(mGLSurfaceView);
+    // 场景静止时切换为按需渲染，触摸时恢复
+    final FrameScheduler frameScheduler = new FrameScheduler(surface, IDLE_FRAMES);
+    frameScheduler.setDisplayRefreshRate(getWindowManager().getDefaultDisplay().getRefreshRate());
+    frameScheduler.setTargetFrameRate(TARGET_FRAME_RATE);
+    renderer.setFrameScheduler(frameScheduler);
+
+    if (mGLSurfaceView != null) {
+      mGLSurfaceView.setRenderer(renderer);
+    } else {
+      mSoftwareSurfaceView.setRenderer(renderer);
+    }
+
+    // 触摸采样写入渲染器的环形缓冲区，GL 线程每帧取出一次，不再为每个采样创建 Runnable
+    final TouchQueue touchQueue = renderer.getTouchQueue();
+    surfaceView.setOnTouchListener(new View.OnTouchListener() {
+      @Override public boolean onTouch(View v, MotionEvent event) {
+        if (event == null) {
+          return false;
+        }
+
+        // 将Android 屏幕坐标转换为标准坐标
+        final float width = v.getWidth();
+        final float height = v.getHeight();
+
+        switch (event.getActionMasked()) {
+          case MotionEvent.ACTION_DOWN:
+            touchQueue.offer(TouchQueue.ACTION_DOWN, normalizeX(event.getX(), width),
+                normalizeY(event.getY(), height), event.getEventTime());
+            break;
+          case MotionEvent.ACTION_MOVE:
+            // 两次回调之间合并的历史采样也写入，用于估算速度
+            for (int i = 0; i < event.getHistorySize(); i++) {
+              touchQueue.offer(TouchQueue.ACTION_MOVE, normalizeX(event.getHistoricalX(i), width),
+                  normalizeY(event.getHistoricalY(i), height), event.getHistoricalEventTime(i));
+            }
+            touchQueue.offer(TouchQueue.ACTION_MOVE, normalizeX(event.getX(), width),
+                normalizeY(event.getY(), height), event.getEventTime());
+            break;
+          case MotionEvent.ACTION_UP:
+          case MotionEvent.ACTION_CANCEL:
+            touchQueue.offer(TouchQueue.ACTION_UP, normalizeX(event.getX(), width),
+                normalizeY(event.getY(), height), event.getEventTime());
+            break;
+          default:
+            break;
+        }
+        frameScheduler.requestFrames();
+        return true;
+      }
+    });
+
+    setContentView(surfaceView);
   }
 
   @Override protected void onPause() {
     super.onPause();
-    if (mRendererSet) {
+    if (mGLSurfaceView != null) {
       mGLSurfaceView.onPause();
+    } else {
+      mSoftwareSurfaceView.onPause();
+    }
+
+    if (Profiler.isEnabled()) {
+      final File file = new File(getFilesDir(), PROFILE_FILE);
+      try {
+        Profiler.dump(file);
+      } catch (IOException e) {
+        Log.w(TAG, "Could not write profile: " + file, e);
+      }
     }
   }
 
   @Override protected void onResume() {
     super.onResume();
-    if (mRendererSet) {
+    if (mGLSurfaceView != null) {
       mGLSurfaceView.onResume();
+    } else {
+      mSoftwareSurfaceView.onResume();
     }
   }
+
+  private static float normalizeX(float x, float width) {
+    return (x / width) * 2 - 1;
+  }
+
+  private static float normalizeY(float y, float height) {
+    return -((y / height) * 2 - 1);
+  }
 }
@@ -10,144 +10,462 @@ package com.zac4j.opengl;
 
 import android.content.Context;
 import android.opengl.GLSurfaceView.Renderer;
+import android.os.AsyncTask;
 import android.util.Log;
+import com.zac4j.opengl.gl.AndroidGL;
+import com.zac4j.opengl.gl.CountingGL;
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.gl.GLInfo;
+import com.zac4j.opengl.gl.StateCachingGL;
+import com.zac4j.opengl.input.TouchQueue;
+import com.zac4j.opengl.object.LodMesh;
 import com.zac4j.opengl.object.Mallet;
 import com.zac4j.opengl.object.Puck;
 import com.zac4j.opengl.object.Table;
+import com.zac4j.opengl.profile.Profiler;
 import com.zac4j.opengl.program.ColorShaderProgram;
+import com.zac4j.opengl.program.ShaderVariants;
 import com.zac4j.opengl.program.TextureShaderProgram;
+import com.zac4j.opengl.render.FrameScheduler;
+import com.zac4j.opengl.render.InstanceBatch;
+import com.zac4j.opengl.render.RenderQueue;
+import com.zac4j.opengl.scene.FrustumCuller;
+import com.zac4j.opengl.scene.LodSelector;
+import com.zac4j.opengl.scene.PhysicsWorld;
+import com.zac4j.opengl.scene.Scene;
+import com.zac4j.opengl.util.Geometry;
 import com.zac4j.opengl.util.LoggerConfig;
 import com.zac4j.opengl.util.MatrixHelper;
-import com.zac4j.opengl.util.TextureHelper;
+import com.zac4j.opengl.util.ProgramBinaryCache;
+import com.zac4j.opengl.util.ShaderSourceLoader;
+import com.zac4j.opengl.util.TextureAtlas;
+import com.zac4j.opengl.util.TextureStreamer;
+import com.zac4j.opengl.util.Transform;
+import java.io.File;
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
-import static android.opengl.GLES20.GL_COLOR_BUFFER_BIT;
-import static android.opengl.GLES20.glClear;
-import static android.opengl.GLES20.glClearColor;
-import static android.opengl.GLES20.glViewport;
-import static android.opengl.Matrix.multiplyMM;
-import static android.opengl.Matrix.rotateM;
-import static android.opengl.Matrix.setIdentityM;
+import static android.opengl.Matrix.invertM;
 import static android.opengl.Matrix.setLookAtM;
-import static android.opengl.Matrix.translateM;
+import static com.zac4j.opengl.gl.GL.GL_COLOR_BUFFER_BIT;
 
 public class AirHockeyCylinderRenderer implements Renderer {
 
   private static final String TAG = "AirHockeyCylinderRender";
 
+  // 场景中的网格
+  private static final int MESH_MALLET = 0;
+  private static final int MESH_PUCK = 1;
+
+  // 绘制层，没有深度测试，桌面必须先于棒槌与冰球绘制
+  private static final int LAYER_TABLE = 0;
+  private static final int LAYER_OBJECTS = 1;
+
+  // 场景中的棒槌与冰球数量
+  private static final int MALLET_COUNT = 2;
+  private static final int PUCK_COUNT = 1;
+
+  private static final float MALLET_RADIUS = 0.08f;
+  private static final float MALLET_HEIGHT = 0.15f;
+  private static final float PUCK_RADIUS = 0.06f;
+  private static final float PUCK_HEIGHT = 0.02f;
+  private static final float PUCK_MASS = 0.1f;
+
+  // 最精细一级允许的弓形高，棒槌底座约为 32 边形；之后每级点数减半
+  private static final float MAX_CHORD_ERROR = 0.0004f;
+  private static final int MAX_LOD_COUNT = 3;
+
+  // 桌面在 XZ 平面上的范围，与 Table 的顶点一致
+  private static final float TABLE_HALF_WIDTH = 0.5f;
+  private static final float TABLE_HALF_LENGTH = 0.8f;
+
+  // 开启 Profiler 时每隔多少帧输出一次统计
+  private static final int PROFILE_REPORT_INTERVAL = 300;
+
+  // 每帧上传纹理的时间预算，以及纹理加载完成前的占位颜色
+  private static final long TEXTURE_UPLOAD_BUDGET_NANOS = 2000000L;
+  private static final int TEXTURE_PLACEHOLDER_COLOR = 0xFF808080;
+  private static final int TEXTURE_UPLOAD_CAPACITY = 4;
+
   private final Context context;
+  private final StateCachingGL gl;
+
+  // 开启 Profiler 时统计实际发给驱动的调用，否则为 null
+  private final CountingGL countingGL;
+  private int framesSinceReport;
 
   private final float[] projectionMatrix = new float[16];
-  private final float[] modelMatrix = new float[16];
   private final float[] viewMatrix = new float[16];
   private final float[] viewProjectionMatrix = new float[16];
   private final float[] modelViewProjectionMatrix = new float[16];
+  // 视图投影矩阵的逆矩阵，将触摸点反投影为射线
+  private final float[] invertedViewProjectionMatrix = new float[16];
+  // 桌面的模型矩阵只有固定的旋转，只需计算一次
+  private final float[] tableRotationMatrix = new float[16];
 
   private Table table;
-  private Mallet mallet;
-  private Puck puck;
+  private LodMesh mallet;
+  private LodMesh puck;
+
+  // 棒槌与冰球的位置、速度与颜色，context 重建后保持不变
+  private final Scene scene = new Scene(MALLET_COUNT + PUCK_COUNT);
+
+  // 以固定步长推进冰球的运动，与渲染帧率无关
+  private final PhysicsWorld physics;
+
+  // 每帧剔除视锥体外的实体，只有可见的实体进入批次
+  private final FrustumCuller culler = new FrustumCuller();
+  // 按投影后的大小为可见实体选择 LOD 级别
+  private final LodSelector lodSelector = new LodSelector();
+  // 上一帧的时间，0 表示尚未开始计时
+  private long lastFrameNanos;
 
+  // 触摸点对应的射线，每次触摸复用
+  private final Geometry.Ray touchRay = new Geometry.Ray();
+  // 手指按住的棒槌，-1 表示没有
+  private int pickedEntity = -1;
+
+  // 场景静止时停止渲染，为 null 时一直连续渲染
+  private FrameScheduler frameScheduler;
+
+  // UI 线程写入触摸采样，每帧开始时取出
+  private final TouchQueue touchQueue = new TouchQueue(256);
+  private final TouchQueue.Listener touchListener = new TouchQueue.Listener() {
+    @Override public void onTouchDown(float normalizedX, float normalizedY) {
+      onClick(normalizedX, normalizedY);
+    }
+
+    @Override public void onTouchMove(float normalizedX, float normalizedY) {
+      onDrag(normalizedX, normalizedY);
+    }
+
+    @Override public void onTouchUp(float normalizedX, float normalizedY) {
+      onRelease();
+    }
+  };
+
+  // 由 uber shader 按需生成的 program 变体，每个绘制项只使用需要的特性
+  private final ShaderVariants<TextureShaderProgram> textureVariants;
+  private final ShaderVariants<ColorShaderProgram> colorVariants;
+
+  // 桌面只需要纹理，不需要顶点颜色与统一颜色
   private TextureShaderProgram textureProgram;
-  private ColorShaderProgram colorProgram;
 
+  // 同一网格、同一 LOD 级别的实体合并为一个批次绘制，下标为级别；
+  // ES 3.0 下 instanceProgram 为带 FEATURE_INSTANCED 的 InstancedColorShaderProgram
+  private InstanceBatch[] malletBatches;
+  private InstanceBatch[] puckBatches;
+  private ColorShaderProgram instanceProgram;
+
+  // 带纹理的物体共用一张图集，合批时不切换纹理
   private int texture;
 
+  // 在后台线程预取的 shader 源码
+  private final ShaderSourceLoader shaderSources;
+
+  // 缓存连接后的 program binary，context 重建时跳过编译与连接
+  private final ProgramBinaryCache programCache;
+
+  // 按 program、纹理和网格排序后统一绘制
+  private final RenderQueue renderQueue = new RenderQueue(16);
+
+  // 纹理在后台解码，onDrawFrame 中按预算上传
+  private final TextureStreamer textureStreamer =
+      new TextureStreamer(AsyncTask.THREAD_POOL_EXECUTOR, TEXTURE_UPLOAD_CAPACITY,
+          TEXTURE_PLACEHOLDER_COLOR);
+
   public AirHockeyCylinderRenderer(Context context) {
+    this(context, AndroidGL.INSTANCE);
+  }
+
+  /**
+   * @param context 上下文
+   * @param gl GL 调用接口，可传入 CountingGL 统计每帧的调用
+   */
+  public AirHockeyCylinderRenderer(Context context, GL gl) {
     this.context = context;
+    // The table is defined in terms of X & Y coordinates, so we rotate it
+    // 90 degrees to lie flat on the XZ plane.
+    Transform.setRotation(tableRotationMatrix, 0, -90f, 1f, 0f, 0f);
+    // 过滤每帧重复的 useProgram、bindTexture 与顶点属性设置；
+    // 计数位于状态缓存之下，只统计未被过滤的调用
+    this.countingGL = Profiler.isEnabled() ? new CountingGL(gl) : null;
+    this.gl = new StateCachingGL(countingGL != null ? countingGL : gl);
+    this.programCache =
+        new ProgramBinaryCache(this.gl, new File(context.getCacheDir(), "program_binaries"));
+
+    // 渲染器在 UI 线程创建，此时开始并行读取 shader 源码，与 EGL context 的创建同时进行
+    this.shaderSources = new ShaderSourceLoader(context, AsyncTask.THREAD_POOL_EXECUTOR);
+    shaderSources.prefetch(R.raw.uber_vertex_shader, R.raw.uber_fragment_shader,
+        R.raw.uber_varyings);
+    this.textureVariants = new ShaderVariants<>(this.gl, shaderSources, programCache,
+        R.raw.uber_vertex_shader, R.raw.uber_fragment_shader,
+        TextureShaderProgram.VARIANT_FACTORY);
+    this.colorVariants = new ShaderVariants<>(this.gl, shaderSources, programCache,
+        R.raw.uber_vertex_shader, R.raw.uber_fragment_shader,
+        ColorShaderProgram.VARIANT_FACTORY);
+
+    // The mallets and the puck sit on the same plane as the table.
+    final int redMallet = scene.add(MESH_MALLET, 0f, MALLET_HEIGHT / 2f, -0.4f, 1f, 1f, 0f, 0f);
+    final int blueMallet = scene.add(MESH_MALLET, 0f, MALLET_HEIGHT / 2f, 0.4f, 1f, 0f, 0f, 1f);
+    final int puckEntity = scene.add(MESH_PUCK, 0f, PUCK_HEIGHT / 2f, 0f, 1f, 0.8f, 0.8f, 1f);
+
+    // 棒槌由用户拖动，不受碰撞影响
+    scene.setBody(redMallet, MALLET_RADIUS, 0f);
+    scene.setBody(blueMallet, MALLET_RADIUS, 0f);
+    scene.setBody(puckEntity, PUCK_RADIUS, 1f / PUCK_MASS);
+    physics = new PhysicsWorld(scene, -TABLE_HALF_WIDTH, TABLE_HALF_WIDTH, -TABLE_HALF_LENGTH,
+        TABLE_HALF_LENGTH, MALLET_RADIUS * 2f);
+  }
+
+  /**
+   * 获取触摸队列，在 UI 线程写入触摸采样
+   *
+   * @return 触摸队列
+   */
+  public TouchQueue getTouchQueue() {
+    return touchQueue;
+  }
+
+  /**
+   * 设置帧调度，需在 GLSurfaceView.setRenderer 之前调用
+   *
+   * @param frameScheduler 帧调度
+   */
+  public void setFrameScheduler(FrameScheduler frameScheduler) {
+    this.frameScheduler = frameScheduler;
+  }
+
+  /**
+   * 获取状态缓存，其中的计数为上一帧被丢弃的冗余调用次数
+   *
+   * @return 状态缓存
+   */
+  public StateCachingGL getStateCache() {
+    return gl;
   }
 
   @Override public void onSurfaceCreated(GL10 glUnused, EGLConfig config) {
-    glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+    // 新的 EGL context 中之前缓存的状态都已失效
+    gl.invalidate();
+    renderQueue.clear();
+    lastFrameNanos = 0L;
+    gl.glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
 
-    table = new Table();
-    mallet = new Mallet(0.08f, 0.15f, 32);
-    puck = new Puck(0.06f, 0.02f, 32);
+    // 只读取图片尺寸确定图集布局，解码在后台进行，之后几帧内完成上传
+    textureStreamer.clear();
+    final TextureAtlas atlas = TextureAtlas.stream(textureStreamer, gl, context,
+        GLInfo.getMaxTextureSize(gl), R.drawable.table_texel);
+    texture = atlas.getTextureId();
 
-    textureProgram = new TextureShaderProgram(context);
-    colorProgram = new ColorShaderProgram(context);
+    table = new Table(gl, atlas.getRegion(R.drawable.table_texel));
+    mallet = Mallet.create(gl, MALLET_RADIUS, MALLET_HEIGHT, MAX_CHORD_ERROR, MAX_LOD_COUNT);
+    puck = Puck.create(gl, PUCK_HEIGHT, PUCK_RADIUS, MAX_CHORD_ERROR, MAX_LOD_COUNT);
+    culler.setMeshBounds(MESH_MALLET, mallet.getBounds());
+    culler.setMeshBounds(MESH_PUCK, puck.getBounds());
+    lodSelector.setMeshLods(MESH_MALLET, mallet.getLodErrors());
+    lodSelector.setMeshLods(MESH_PUCK, puck.getLodErrors());
+
+    // 之前的变体属于已销毁的 context，在这里创建本场景用到的变体，不推迟到第一帧
+    textureVariants.clear();
+    colorVariants.clear();
+    textureProgram = textureVariants.get(ShaderVariants.FEATURE_TEXTURE);
+
+    // 批次的颜色来自顶点属性，不需要 u_Color
+    final boolean instanced = GLInfo.isEs3Context(gl);
+    malletBatches = new InstanceBatch[mallet.getLodCount()];
+    for (int lod = 0; lod < malletBatches.length; lod++) {
+      malletBatches[lod] = mallet.createInstanceBatch(MALLET_COUNT, instanced, lod);
+    }
+    puckBatches = new InstanceBatch[puck.getLodCount()];
+    for (int lod = 0; lod < puckBatches.length; lod++) {
+      puckBatches[lod] = puck.createInstanceBatch(PUCK_COUNT, instanced, lod);
+    }
+    instanceProgram = colorVariants.get(ShaderVariants.FEATURE_VERTEX_COLOR
+        | (instanced ? ShaderVariants.FEATURE_INSTANCED : 0));
+    if (LoggerConfig.ON) {
+      Log.i(TAG, "Instancing: " + (instanced ? "ES 3.0 instanced" : "ES 2.0 batched"));
+    }
 
-    texture = TextureHelper.loadTexture(context, R.drawable.table_texel);
+    // 创建资源时的上传不计入第一帧
+    if (countingGL != null) {
+      countingGL.reset();
+    }
+    // 按需渲染时也要继续绘制，直到纹理上传完成
+    if (frameScheduler != null) {
+      frameScheduler.requestFrames();
+    }
   }
 
   @Override public void onSurfaceChanged(GL10 glUnused, int width, int height) {
     // Set the OpenGL viewport to fill the entire surface.
-    glViewport(0, 0, width, height);
+    gl.glViewport(0, 0, width, height);
     MatrixHelper.perspectiveM(projectionMatrix, 45, (float) width / (float) height, 1f, 10f);
     setLookAtM(viewMatrix, 0, 0f, 1.2f, 2.2f, 0f, 0f, 0f, 0f, 1f, 0f);
+
+    // Multiply the view and projection matrices together. Neither changes
+    // between frames, and the view matrix is affine.
+    Transform.multiplyAffine(viewProjectionMatrix, 0, projectionMatrix, 0, viewMatrix, 0);
+    invertM(invertedViewProjectionMatrix, 0, viewProjectionMatrix, 0);
+    culler.setViewProjection(viewProjectionMatrix, 0);
+    lodSelector.setCamera(viewProjectionMatrix, 0, height);
   }
 
   @Override public void onDrawFrame(GL10 glUnused) {
-    // Clear the rendering surface.
-    glClear(GL_COLOR_BUFFER_BIT);
+    if (frameScheduler != null) {
+      frameScheduler.beginFrame();
+    }
+    final long frameStart = Profiler.begin();
+    gl.resetCounters();
+
+    // Handle the touches since the last frame; moves are coalesced, so the
+    // mallet is only moved to the latest finger position.
+    final boolean touched = touchQueue.drain(touchListener) > 0;
+
+    // Upload the textures decoded in the background since the last frame.
+    final boolean uploaded = textureStreamer.processUploads(gl, TEXTURE_UPLOAD_BUDGET_NANOS) > 0;
+
+    // Advance the simulation by the real time since the last frame; it runs
+    // in fixed steps, so the result does not depend on the frame rate.
+    final long now = System.nanoTime();
+    if (lastFrameNanos != 0L) {
+      final long physicsStart = Profiler.begin();
+      physics.advance((now - lastFrameNanos) / 1e9f);
+      Profiler.end(Profiler.TIMER_PHYSICS, physicsStart);
+    }
+    lastFrameNanos = now;
 
-    // Multiply the view and projection matrices together.
-    multiplyMM(viewProjectionMatrix, 0, projectionMatrix, 0, viewMatrix, 0);
+    // Clear the rendering surface.
+    gl.glClear(GL_COLOR_BUFFER_BIT);
 
-    // Draw the table.
+    // Draw the table. There is no depth test, so it goes into the lowest
+    // layer to be drawn underneath everything else.
     positionTableInScene();
-    textureProgram.useProgram();
-    textureProgram.setUniforms(modelViewProjectionMatrix, texture);
-    table.bindData(textureProgram);
-    table.draw();
-
-    // Draw the mallets.
-    positionObjectInScene(0f, mallet.height / 2f, -0.4f);
-    colorProgram.useProgram();
-    colorProgram.setUniforms(modelViewProjectionMatrix, 1f, 0f, 0f);
-    mallet.bindData(colorProgram);
-    mallet.draw();
-
-    positionObjectInScene(0f, mallet.height / 2f, 0.4f);
-    colorProgram.setUniforms(modelViewProjectionMatrix, 0f, 0f, 1f);
-    // Note that we don't have to define the object data twice -- we just
-    // draw the same mallet again but in a different position and with a
-    // different color.
-    mallet.draw();
-
-    // Draw the puck.
-    positionObjectInScene(0f, puck.height / 2f, 0f);
-    colorProgram.setUniforms(modelViewProjectionMatrix, 0.8f, 0.8f, 1f);
-    puck.bindData(colorProgram);
-    puck.draw();
+    renderQueue.submit(LAYER_TABLE, textureProgram, texture, table, modelViewProjectionMatrix,
+        1f, 1f, 1f);
+
+    // Draw the mallets and the puck. Entities outside the view frustum are
+    // culled first, and each visible one gets the coarsest LOD whose error
+    // stays under half a pixel. Entities sharing a mesh and LOD go into one
+    // batch, their model matrices and colors packed straight from the scene
+    // columns, and u_Matrix is just the view-projection matrix.
+    culler.cull(scene);
+    final int[] levels = lodSelector.select(scene, culler.getVisible());
+    submitBatches(malletBatches, MESH_MALLET, levels);
+    submitBatches(puckBatches, MESH_PUCK, levels);
+
+    renderQueue.flush();
+
+    Profiler.end(Profiler.TIMER_FRAME, frameStart);
+    reportFrame();
+
+    // Keep rendering while anything can still change on screen.
+    if (frameScheduler != null) {
+      frameScheduler.endFrame(touched || pickedEntity >= 0 || !physics.isSettled() || uploaded
+          || textureStreamer.getPendingCount() > 0);
+    }
   }
 
-  private void positionTableInScene() {
-    // The table is defined in terms of X & Y coordinates, so we rotate it
-    // 90 degrees to lie flat on the XZ plane.
-    setIdentityM(modelMatrix, 0);
-    rotateM(modelMatrix, 0, -90f, 1f, 0f, 0f);
-    multiplyMM(modelViewProjectionMatrix, 0, viewProjectionMatrix, 0, modelMatrix, 0);
+  private void submitBatches(InstanceBatch[] batches, int mesh, int[] levels) {
+    for (int lod = 0; lod < batches.length; lod++) {
+      final InstanceBatch batch = batches[lod];
+      batch.clear();
+      batch.addAll(scene, mesh, levels, lod);
+      if (batch.size() > 0) {
+        renderQueue.submit(LAYER_OBJECTS, instanceProgram, 0, batch, viewProjectionMatrix, 1f,
+            1f, 1f);
+      }
+    }
+  }
+
+  private void reportFrame() {
+    if (countingGL != null) {
+      Profiler.count(Profiler.COUNTER_DRAW_CALLS, countingGL.getDrawCalls());
+      Profiler.count(Profiler.COUNTER_VERTICES, countingGL.getVertices());
+      Profiler.count(Profiler.COUNTER_STATE_CHANGES, countingGL.getStateChanges());
+      Profiler.count(Profiler.COUNTER_UPLOADS, countingGL.getUploads());
+      Profiler.count(Profiler.COUNTER_UPLOADED_BYTES, countingGL.getUploadedBytes());
+      Profiler.count(Profiler.COUNTER_CULLED, culler.getCulledCount());
+      countingGL.reset();
+    }
+    Profiler.endFrame();
+
+    if (LoggerConfig.ON && Profiler.isEnabled()
+        && ++framesSinceReport >= PROFILE_REPORT_INTERVAL) {
+      framesSinceReport = 0;
+      Log.i(TAG, Profiler.summary());
+    }
   }
 
-  // The mallets and the puck are positioned on the same plane as the table.
-  private void positionObjectInScene(float x, float y, float z) {
-    setIdentityM(modelMatrix, 0);
-    translateM(modelMatrix, 0, x, y, z);
-    multiplyMM(modelViewProjectionMatrix, 0, viewProjectionMatrix, 0, modelMatrix, 0);
+  private void positionTableInScene() {
+    Transform.multiplyRotation(modelViewProjectionMatrix, 0, viewProjectionMatrix, 0,
+        tableRotationMatrix, 0);
   }
 
   /**
-   * 点击事件
+   * 点击事件，选中手指下方最近的棒槌
    *
    * @param normalizedX x坐标
    * @param normalizedY y坐标
    */
   public void onClick(float normalizedX, float normalizedY) {
+    Geometry.unproject(touchRay, invertedViewProjectionMatrix, 0, normalizedX, normalizedY);
+
+    pickedEntity = -1;
+    float nearest = Float.MAX_VALUE;
+    for (int entity = 0; entity < scene.size(); entity++) {
+      if (scene.getMesh(entity) != MESH_MALLET) {
+        continue;
+      }
+      final float distance = Geometry.intersectCylinder(touchRay, scene.getX(entity),
+          scene.getY(entity), scene.getZ(entity), MALLET_RADIUS, MALLET_HEIGHT);
+      if (distance < nearest) {
+        nearest = distance;
+        pickedEntity = entity;
+      }
+    }
+
     if (LoggerConfig.ON) {
-      Log.i(TAG, "onClick");
+      Log.i(TAG, "onClick: picked " + pickedEntity);
     }
   }
 
   /**
-   * 拖动事件
+   * 拖动事件，把选中的棒槌移动到手指在桌面上的位置
    *
    * @param normalizedX x坐标
    * @param normalizedY y坐标
    */
   public void onDrag(float normalizedX, float normalizedY) {
-    if (LoggerConfig.ON) {
-      Log.i(TAG, "onDrag");
+    if (pickedEntity < 0) {
+      return;
+    }
+
+    Geometry.unproject(touchRay, invertedViewProjectionMatrix, 0, normalizedX, normalizedY);
+    // The table lies on the y = 0 plane.
+    final float distance = Geometry.intersectPlane(touchRay, 0f, 0f, 0f, 0f, 1f, 0f);
+    if (!(distance >= 0f)) {
+      return;
+    }
+
+    // 棒槌不能越过中线，桌边由物理模拟限制
+    float z = touchRay.pointZ(distance);
+    if (scene.getZ(pickedEntity) < 0f) {
+      z = Math.min(z, -MALLET_RADIUS);
+    } else {
+      z = Math.max(z, MALLET_RADIUS);
+    }
+    physics.moveBody(pickedEntity, touchRay.pointX(distance), z);
+  }
+
+  /**
+   * 手指抬起，松开选中的棒槌
+   */
+  public void onRelease() {
+    if (LoggerConfig.ON && pickedEntity >= 0) {
+      Log.i(TAG, "onRelease: finger velocity " + touchQueue.getVelocityX() + ", "
+          + touchQueue.getVelocityY());
     }
+    pickedEntity = -1;
   }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.zac4j.opengl;
 
 import android.content.Context;
 import android.opengl.GLSurfaceView;
+import com.zac4j.opengl.gl.AndroidGL;
 import com.zac4j.opengl.util.LoggerConfig;
 import com.zac4j.opengl.util.ShaderHelper;
 import com.zac4j.opengl.util.TextResourceReader;
@@ -100,14 +101,15 @@ public class AirHockeyMatrixRenderer implements GLSurfaceView.Renderer {
         TextResourceReader.readTextFileFromResource(mContext, R.raw.matrix_vertex_shader);
     String fragmentShaderSource =
         TextResourceReader.readTextFileFromResource(mContext, R.raw.vary_fragment_shader);
-    int vertexShader = ShaderHelper.compileVertexShader(vertexShaderSource);
-    int fragmentShader = ShaderHelper.compileFragmentShader(fragmentShaderSource);
+    int vertexShader = ShaderHelper.compileVertexShader(AndroidGL.INSTANCE, vertexShaderSource);
+    int fragmentShader =
+        ShaderHelper.compileFragmentShader(AndroidGL.INSTANCE, fragmentShaderSource);
 
     // 连接后的 OpenGL program 对象引用
-    int program = ShaderHelper.linkProgram(vertexShader, fragmentShader);
+    int program = ShaderHelper.linkProgram(AndroidGL.INSTANCE, vertexShader, fragmentShader);
 
     if (LoggerConfig.ON) {
-      ShaderHelper.validateProgram(program);
+      ShaderHelper.validateProgram(AndroidGL.INSTANCE, program);
     }
 
     // 使用此 OpenGL program 在屏幕上绘制图形
@@ -2,6 +2,8 @@ package com.zac4j.opengl;
 
 import android.content.Context;
 import android.opengl.GLSurfaceView;
+import com.zac4j.opengl.gl.AndroidGL;
+import com.zac4j.opengl.gl.GL;
 import com.zac4j.opengl.object.OldMallet;
 import com.zac4j.opengl.object.Table;
 import com.zac4j.opengl.program.ColorShaderProgram;
@@ -11,14 +13,11 @@ import com.zac4j.opengl.util.TextureHelper;
 import javax.microedition.khronos.egl.EGLConfig;
 import javax.microedition.khronos.opengles.GL10;
 
-import static android.opengl.GLES20.GL_COLOR_BUFFER_BIT;
-import static android.opengl.GLES20.glClear;
-import static android.opengl.GLES20.glClearColor;
-import static android.opengl.GLES20.glViewport;
 import static android.opengl.Matrix.multiplyMM;
 import static android.opengl.Matrix.rotateM;
 import static android.opengl.Matrix.setIdentityM;
 import static android.opengl.Matrix.translateM;
+import static com.zac4j.opengl.gl.GL.GL_COLOR_BUFFER_BIT;
 
 /**
  * 纹理渲染器
@@ -28,6 +27,8 @@ public class AirHockeyTextureRenderer implements GLSurfaceView.Renderer {
 
   private final Context mContext;
 
+  private final GL mGL = AndroidGL.INSTANCE;
+
   // 投影矩阵容器
   private final float[] mProjectionMatrix = new float[16];
 
@@ -47,19 +48,19 @@ public class AirHockeyTextureRenderer implements GLSurfaceView.Renderer {
   }
 
   @Override public void onSurfaceCreated(GL10 gl10, EGLConfig eglConfig) {
-    glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+    mGL.glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
 
-    mTable = new Table();
-    mMallet = new OldMallet();
+    mTable = new Table(mGL);
+    mMallet = new OldMallet(mGL);
 
-    mTextureProgram = new TextureShaderProgram(mContext);
-    mColorProgram = new ColorShaderProgram(mContext);
+    mTextureProgram = new TextureShaderProgram(mGL, mContext);
+    mColorProgram = new ColorShaderProgram(mGL, mContext);
 
-    mTexture = TextureHelper.loadTexture(mContext, R.drawable.table_texel);
+    mTexture = TextureHelper.loadTexture(mGL, mContext, R.drawable.table_texel);
   }
 
   @Override public void onSurfaceChanged(GL10 gl10, int width, int height) {
-    glViewport(0, 0, width, height);
+    mGL.glViewport(0, 0, width, height);
 
     MatrixHelper.perspectiveM(mProjectionMatrix, 45, (float) width / (float) height, 1f, 10f);
 
@@ -74,7 +75,7 @@ public class AirHockeyTextureRenderer implements GLSurfaceView.Renderer {
 
   @Override public void onDrawFrame(GL10 gl10) {
     // Clear the rendering surface
-    glClear(GL_COLOR_BUFFER_BIT);
+    mGL.glClear(GL_COLOR_BUFFER_BIT);
 
     // 绘制 table
     mTextureProgram.useProgram();
@@ -9,4 +9,7 @@ public class Constants {
   // Java 中浮点型数据占用四个字节内存
   public static final int BYTES_PER_FLOAT = 4;
 
+  // Java 中短整型数据占用两个字节内存
+  public static final int BYTES_PER_SHORT = 2;
+
 }
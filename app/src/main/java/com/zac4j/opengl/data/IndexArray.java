@@ -0,0 +1,164 @@
+package com.zac4j.opengl.data;
+
+import com.zac4j.opengl.Constants;
+import com.zac4j.opengl.gl.GL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+import static com.zac4j.opengl.gl.GL.GL_DYNAMIC_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_ELEMENT_ARRAY_BUFFER;
+import static com.zac4j.opengl.gl.GL.GL_STATIC_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_STREAM_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_UNSIGNED_SHORT;
+
+/**
+ * 将索引数据上传到 GPU 的 GL_ELEMENT_ARRAY_BUFFER，
+ * 绘制时只需传入缓冲区内的字节偏移，不再每次从 Native 层拷贝索引
+ *
+ * 绘制前总是绑定自己的缓冲区且不解绑，所有索引绘制都经过此类，
+ * 配合 StateCachingGL 时连续绘制同一网格不会重复绑定
+ */
+public class IndexArray {
+
+  private final GL mGL;
+
+  // ShortBuffer 保存索引数据，上传与部分更新时作为数据来源
+  private final ShortBuffer mShortBuffer;
+
+  // 缓冲区对象 id
+  private final int[] mBufferIds = new int[1];
+
+  // 上传时使用的 usage，GL_STATIC_DRAW / GL_DYNAMIC_DRAW / GL_STREAM_DRAW
+  private final int mUsage;
+
+  /**
+   * 创建 GL_STATIC_DRAW 缓冲区对象并上传索引数据，需要在 GL 线程调用
+   * @param gl GL 调用接口
+   * @param indexData 索引数据，按无符号 short 解释
+   */
+  public IndexArray(GL gl, short[] indexData) {
+    this(gl, indexData, GL_STATIC_DRAW);
+  }
+
+  /**
+   * 创建缓冲区对象并上传索引数据，需要在 GL 线程调用
+   * @param gl GL 调用接口
+   * @param indexData 索引数据，按无符号 short 解释
+   * @param usage 缓冲区使用方式
+   */
+  public IndexArray(GL gl, short[] indexData, int usage) {
+    if (usage != GL_STATIC_DRAW && usage != GL_DYNAMIC_DRAW && usage != GL_STREAM_DRAW) {
+      throw new IllegalArgumentException("Unknown buffer usage: " + usage);
+    }
+
+    mGL = gl;
+    mUsage = usage;
+    mShortBuffer = ByteBuffer.allocateDirect(indexData.length * Constants.BYTES_PER_SHORT)
+        .order(ByteOrder.nativeOrder())
+        .asShortBuffer()
+        .put(indexData);
+    mShortBuffer.position(0);
+
+    mGL.glGenBuffers(1, mBufferIds, 0);
+    if (mBufferIds[0] == 0) {
+      throw new RuntimeException("Could not create a new index buffer object.");
+    }
+
+    mGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, mBufferIds[0]);
+    mGL.glBufferData(GL_ELEMENT_ARRAY_BUFFER,
+        mShortBuffer.capacity() * Constants.BYTES_PER_SHORT, mShortBuffer, mUsage);
+  }
+
+  /**
+   * 按索引区间绘制图元
+   * @param mode 图元类型，如 GL_TRIANGLE_FAN
+   * @param firstIndex 区间在索引数组中的起始位置
+   * @param indexCount 区间包含的索引数量
+   */
+  public void drawElements(int mode, int firstIndex, int indexCount) {
+    checkRange(firstIndex, indexCount);
+    mGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, mBufferIds[0]);
+    mGL.glDrawElements(mode, indexCount, GL_UNSIGNED_SHORT,
+        firstIndex * Constants.BYTES_PER_SHORT);
+  }
+
+  /**
+   * 按索引区间实例化绘制图元，需要 ES 3.0 context
+   * @param mode 图元类型
+   * @param firstIndex 区间在索引数组中的起始位置
+   * @param indexCount 区间包含的索引数量
+   * @param instanceCount 实例数量
+   */
+  public void drawElementsInstanced(int mode, int firstIndex, int indexCount, int instanceCount) {
+    checkRange(firstIndex, indexCount);
+    mGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, mBufferIds[0]);
+    mGL.glDrawElementsInstanced(mode, indexCount, GL_UNSIGNED_SHORT,
+        firstIndex * Constants.BYTES_PER_SHORT, instanceCount);
+  }
+
+  /**
+   * 用 indexData 的前 indexCount 个索引更新缓冲区，适用于 GL_DYNAMIC_DRAW 和 GL_STREAM_DRAW 缓冲区
+   * @param indexData 新的索引数据
+   * @param firstIndex 写入缓冲区的起始位置(以索引计)
+   * @param indexCount 写入的索引数量
+   */
+  public void update(short[] indexData, int firstIndex, int indexCount) {
+    if (indexCount > indexData.length) {
+      throw new IndexOutOfBoundsException(
+          "Update of " + indexCount + " indices from an array of " + indexData.length);
+    }
+    checkRange(firstIndex, indexCount);
+
+    mShortBuffer.position(firstIndex);
+    mShortBuffer.put(indexData, 0, indexCount);
+    mShortBuffer.position(firstIndex);
+
+    mGL.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, mBufferIds[0]);
+    mGL.glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, firstIndex * Constants.BYTES_PER_SHORT,
+        indexCount * Constants.BYTES_PER_SHORT, mShortBuffer);
+
+    mShortBuffer.position(0);
+  }
+
+  /**
+   * 删除缓冲区对象
+   */
+  public void release() {
+    if (mBufferIds[0] != 0) {
+      mGL.glDeleteBuffers(1, mBufferIds, 0);
+      mBufferIds[0] = 0;
+    }
+  }
+
+  /**
+   * 获取缓冲区对象 id
+   * @return 缓冲区对象 id，已删除时为 0
+   */
+  public int getBufferId() {
+    return mBufferIds[0];
+  }
+
+  /**
+   * 获取缓冲区使用方式
+   * @return GL_STATIC_DRAW / GL_DYNAMIC_DRAW / GL_STREAM_DRAW
+   */
+  public int getUsage() {
+    return mUsage;
+  }
+
+  /**
+   * @return 索引数量
+   */
+  public int size() {
+    return mShortBuffer.capacity();
+  }
+
+  private void checkRange(int firstIndex, int indexCount) {
+    if (firstIndex < 0 || indexCount < 0 || firstIndex + indexCount > mShortBuffer.capacity()) {
+      throw new IndexOutOfBoundsException(
+          "Index range " + firstIndex + "+" + indexCount + " exceeds buffer size "
+              + mShortBuffer.capacity());
+    }
+  }
+}
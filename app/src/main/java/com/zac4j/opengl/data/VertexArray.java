@@ -1,13 +1,12 @@
 package com.zac4j.opengl.data;
 
 import com.zac4j.opengl.Constants;
+import com.zac4j.opengl.gl.GL;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 
-import static android.opengl.GLES20.GL_FLOAT;
-import static android.opengl.GLES20.glEnableVertexAttribArray;
-import static android.opengl.GLES20.glVertexAttribPointer;
+import static com.zac4j.opengl.gl.GL.GL_FLOAT;
 
 /**
  * Encapsulate the FloatBuffer storing the vertex array
@@ -15,14 +14,18 @@ import static android.opengl.GLES20.glVertexAttribPointer;
  */
 public class VertexArray {
 
+  protected final GL mGL;
+
   // FloatBuffer 将传入的 float 数组数据保存到 Native 层
   private final FloatBuffer mFloatBuffer;
 
   /**
    * 将传入的顶点数据保存到 Native 层
+   * @param gl GL 调用接口
    * @param vertexData 顶点数据
    */
-  public VertexArray(float[] vertexData) {
+  public VertexArray(GL gl, float[] vertexData) {
+    mGL = gl;
     mFloatBuffer = ByteBuffer.allocateDirect(vertexData.length * Constants.BYTES_PER_FLOAT)
         .order(ByteOrder.nativeOrder())
         .asFloatBuffer()
@@ -40,10 +43,19 @@ public class VertexArray {
       int stride) {
     // 起始读取位置
     mFloatBuffer.position(dataOffset);
-    glVertexAttribPointer(attributeLocation, componentCount, GL_FLOAT, false, stride, mFloatBuffer);
-    glEnableVertexAttribArray(attributeLocation);
+    mGL.glVertexAttribPointer(attributeLocation, componentCount, GL_FLOAT, false, stride,
+        mFloatBuffer);
+    mGL.glEnableVertexAttribArray(attributeLocation);
 
     mFloatBuffer.position(0);
   }
 
+  /**
+   * 获取保存在 Native 层的顶点数据
+   * @return 顶点数据缓冲区
+   */
+  protected FloatBuffer getFloatBuffer() {
+    return mFloatBuffer;
+  }
+
 }
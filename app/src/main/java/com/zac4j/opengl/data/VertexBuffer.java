@@ -0,0 +1,133 @@
+package com.zac4j.opengl.data;
+
+import com.zac4j.opengl.Constants;
+import com.zac4j.opengl.gl.GL;
+import java.nio.FloatBuffer;
+
+import static com.zac4j.opengl.gl.GL.GL_ARRAY_BUFFER;
+import static com.zac4j.opengl.gl.GL.GL_DYNAMIC_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_FLOAT;
+import static com.zac4j.opengl.gl.GL.GL_STATIC_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_STREAM_DRAW;
+
+/**
+ * 将顶点数据上传到 GPU 的 Vertex Buffer Object，
+ * 绑定属性时只需传入缓冲区内的字节偏移，不再每帧从 Native 层拷贝数据
+ */
+public class VertexBuffer extends VertexArray {
+
+  // 缓冲区对象 id
+  private final int[] mBufferIds = new int[1];
+
+  // 上传时使用的 usage，GL_STATIC_DRAW / GL_DYNAMIC_DRAW / GL_STREAM_DRAW
+  private final int mUsage;
+
+  /**
+   * 创建缓冲区对象并上传顶点数据，需要在 GL 线程调用
+   * @param gl GL 调用接口
+   * @param vertexData 顶点数据
+   * @param usage 缓冲区使用方式
+   */
+  public VertexBuffer(GL gl, float[] vertexData, int usage) {
+    super(gl, vertexData);
+
+    if (usage != GL_STATIC_DRAW && usage != GL_DYNAMIC_DRAW && usage != GL_STREAM_DRAW) {
+      throw new IllegalArgumentException("Unknown buffer usage: " + usage);
+    }
+
+    mUsage = usage;
+
+    mGL.glGenBuffers(1, mBufferIds, 0);
+    if (mBufferIds[0] == 0) {
+      throw new RuntimeException("Could not create a new vertex buffer object.");
+    }
+
+    final FloatBuffer floatBuffer = getFloatBuffer();
+    floatBuffer.position(0);
+
+    mGL.glBindBuffer(GL_ARRAY_BUFFER, mBufferIds[0]);
+    mGL.glBufferData(GL_ARRAY_BUFFER, floatBuffer.capacity() * Constants.BYTES_PER_FLOAT,
+        floatBuffer, mUsage);
+
+    // a good practise --> 解绑缓冲区，避免影响仍使用客户端数组的对象
+    mGL.glBindBuffer(GL_ARRAY_BUFFER, 0);
+  }
+
+  /**
+   * 设置顶点属性，数据从缓冲区对象中读取
+   * @param dataOffset 数据在数组中的偏移量(以 float 计)
+   * @param attributeLocation 属性定位
+   * @param componentCount 属性所需顶点的总数
+   * @param stride 步长
+   */
+  @Override public void setVertexAttributePointer(int dataOffset, int attributeLocation,
+      int componentCount, int stride) {
+    mGL.glBindBuffer(GL_ARRAY_BUFFER, mBufferIds[0]);
+    mGL.glVertexAttribPointer(attributeLocation, componentCount, GL_FLOAT, false, stride,
+        dataOffset * Constants.BYTES_PER_FLOAT);
+    mGL.glEnableVertexAttribArray(attributeLocation);
+    mGL.glBindBuffer(GL_ARRAY_BUFFER, 0);
+  }
+
+  /**
+   * 更新部分顶点数据，适用于 GL_DYNAMIC_DRAW 和 GL_STREAM_DRAW 缓冲区
+   * @param vertexData 新的顶点数据
+   * @param dataOffset 写入缓冲区的起始位置(以 float 计)
+   */
+  public void update(float[] vertexData, int dataOffset) {
+    update(vertexData, dataOffset, vertexData.length);
+  }
+
+  /**
+   * 用 vertexData 的前 floatCount 个数据更新缓冲区
+   * @param vertexData 新的顶点数据
+   * @param dataOffset 写入缓冲区的起始位置(以 float 计)
+   * @param floatCount 写入的 float 数量
+   */
+  public void update(float[] vertexData, int dataOffset, int floatCount) {
+    final FloatBuffer floatBuffer = getFloatBuffer();
+    if (dataOffset < 0 || floatCount < 0 || floatCount > vertexData.length
+        || dataOffset + floatCount > floatBuffer.capacity()) {
+      throw new IndexOutOfBoundsException(
+          "Update of " + floatCount + " floats at " + dataOffset + " exceeds buffer size "
+              + floatBuffer.capacity());
+    }
+
+    floatBuffer.position(dataOffset);
+    floatBuffer.put(vertexData, 0, floatCount);
+    floatBuffer.position(dataOffset);
+
+    mGL.glBindBuffer(GL_ARRAY_BUFFER, mBufferIds[0]);
+    mGL.glBufferSubData(GL_ARRAY_BUFFER, dataOffset * Constants.BYTES_PER_FLOAT,
+        floatCount * Constants.BYTES_PER_FLOAT, floatBuffer);
+    mGL.glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+    floatBuffer.position(0);
+  }
+
+  /**
+   * 删除缓冲区对象
+   */
+  public void release() {
+    if (mBufferIds[0] != 0) {
+      mGL.glDeleteBuffers(1, mBufferIds, 0);
+      mBufferIds[0] = 0;
+    }
+  }
+
+  /**
+   * 获取缓冲区对象 id
+   * @return 缓冲区对象 id，已删除时为 0
+   */
+  public int getBufferId() {
+    return mBufferIds[0];
+  }
+
+  /**
+   * 获取缓冲区使用方式
+   * @return GL_STATIC_DRAW / GL_DYNAMIC_DRAW / GL_STREAM_DRAW
+   */
+  public int getUsage() {
+    return mUsage;
+  }
+}
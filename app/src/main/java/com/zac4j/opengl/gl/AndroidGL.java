@@ -0,0 +1,232 @@
+package com.zac4j.opengl.gl;
+
+import android.opengl.GLES20;
+import android.opengl.GLES30;
+import java.nio.Buffer;
+
+/**
+ * 直接转发到 GLES20 的 GL 实现，ES 3.0 的方法转发到 GLES30
+ */
+public class AndroidGL implements GL {
+
+  // GLES20 本身是全局状态，共享一个实例即可
+  public static final AndroidGL INSTANCE = new AndroidGL();
+
+  private AndroidGL() {
+  }
+
+  @Override public void glGenBuffers(int n, int[] buffers, int offset) {
+    GLES20.glGenBuffers(n, buffers, offset);
+  }
+
+  @Override public void glDeleteBuffers(int n, int[] buffers, int offset) {
+    GLES20.glDeleteBuffers(n, buffers, offset);
+  }
+
+  @Override public void glBindBuffer(int target, int buffer) {
+    GLES20.glBindBuffer(target, buffer);
+  }
+
+  @Override public void glBufferData(int target, int size, Buffer data, int usage) {
+    GLES20.glBufferData(target, size, data, usage);
+  }
+
+  @Override public void glBufferSubData(int target, int offset, int size, Buffer data) {
+    GLES20.glBufferSubData(target, offset, size, data);
+  }
+
+  @Override public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, int offset) {
+    GLES20.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+  }
+
+  @Override public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, Buffer ptr) {
+    GLES20.glVertexAttribPointer(index, size, type, normalized, stride, ptr);
+  }
+
+  @Override public void glEnableVertexAttribArray(int index) {
+    GLES20.glEnableVertexAttribArray(index);
+  }
+
+  @Override public void glDisableVertexAttribArray(int index) {
+    GLES20.glDisableVertexAttribArray(index);
+  }
+
+  @Override public void glDrawArrays(int mode, int first, int count) {
+    GLES20.glDrawArrays(mode, first, count);
+  }
+
+  @Override public void glDrawElements(int mode, int count, int type, Buffer indices) {
+    GLES20.glDrawElements(mode, count, type, indices);
+  }
+
+  @Override public void glDrawElements(int mode, int count, int type, int offset) {
+    GLES20.glDrawElements(mode, count, type, offset);
+  }
+
+  @Override public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount) {
+    GLES30.glDrawArraysInstanced(mode, first, count, instanceCount);
+  }
+
+  @Override public void glDrawElementsInstanced(int mode, int count, int type, Buffer indices,
+      int instanceCount) {
+    GLES30.glDrawElementsInstanced(mode, count, type, indices, instanceCount);
+  }
+
+  @Override public void glDrawElementsInstanced(int mode, int count, int type, int offset,
+      int instanceCount) {
+    GLES30.glDrawElementsInstanced(mode, count, type, offset, instanceCount);
+  }
+
+  @Override public void glVertexAttribDivisor(int index, int divisor) {
+    GLES30.glVertexAttribDivisor(index, divisor);
+  }
+
+  @Override public void glClear(int mask) {
+    GLES20.glClear(mask);
+  }
+
+  @Override public void glClearColor(float red, float green, float blue, float alpha) {
+    GLES20.glClearColor(red, green, blue, alpha);
+  }
+
+  @Override public void glViewport(int x, int y, int width, int height) {
+    GLES20.glViewport(x, y, width, height);
+  }
+
+  @Override public String glGetString(int name) {
+    return GLES20.glGetString(name);
+  }
+
+  @Override public void glGetIntegerv(int pname, int[] params, int offset) {
+    GLES20.glGetIntegerv(pname, params, offset);
+  }
+
+  @Override public int glCreateShader(int type) {
+    return GLES20.glCreateShader(type);
+  }
+
+  @Override public void glShaderSource(int shader, String string) {
+    GLES20.glShaderSource(shader, string);
+  }
+
+  @Override public void glCompileShader(int shader) {
+    GLES20.glCompileShader(shader);
+  }
+
+  @Override public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+    GLES20.glGetShaderiv(shader, pname, params, offset);
+  }
+
+  @Override public String glGetShaderInfoLog(int shader) {
+    return GLES20.glGetShaderInfoLog(shader);
+  }
+
+  @Override public void glDeleteShader(int shader) {
+    GLES20.glDeleteShader(shader);
+  }
+
+  @Override public int glCreateProgram() {
+    return GLES20.glCreateProgram();
+  }
+
+  @Override public void glAttachShader(int program, int shader) {
+    GLES20.glAttachShader(program, shader);
+  }
+
+  @Override public void glLinkProgram(int program) {
+    GLES20.glLinkProgram(program);
+  }
+
+  @Override public void glValidateProgram(int program) {
+    GLES20.glValidateProgram(program);
+  }
+
+  @Override public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+    GLES20.glGetProgramiv(program, pname, params, offset);
+  }
+
+  @Override public String glGetProgramInfoLog(int program) {
+    return GLES20.glGetProgramInfoLog(program);
+  }
+
+  @Override public void glDeleteProgram(int program) {
+    GLES20.glDeleteProgram(program);
+  }
+
+  @Override public void glUseProgram(int program) {
+    GLES20.glUseProgram(program);
+  }
+
+  @Override public int glGetAttribLocation(int program, String name) {
+    return GLES20.glGetAttribLocation(program, name);
+  }
+
+  @Override public int glGetUniformLocation(int program, String name) {
+    return GLES20.glGetUniformLocation(program, name);
+  }
+
+  @Override public String glGetActiveAttrib(int program, int index, int[] size, int sizeOffset,
+      int[] type, int typeOffset) {
+    return GLES20.glGetActiveAttrib(program, index, size, sizeOffset, type, typeOffset);
+  }
+
+  @Override public String glGetActiveUniform(int program, int index, int[] size, int sizeOffset,
+      int[] type, int typeOffset) {
+    return GLES20.glGetActiveUniform(program, index, size, sizeOffset, type, typeOffset);
+  }
+
+  @Override public void glGetProgramBinary(int program, int bufSize, int[] length,
+      int lengthOffset, int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+    GLES30.glGetProgramBinary(program, bufSize, length, lengthOffset, binaryFormat,
+        binaryFormatOffset, binary);
+  }
+
+  @Override public void glProgramBinary(int program, int binaryFormat, Buffer binary,
+      int length) {
+    GLES30.glProgramBinary(program, binaryFormat, binary, length);
+  }
+
+  @Override public void glUniform1i(int location, int x) {
+    GLES20.glUniform1i(location, x);
+  }
+
+  @Override public void glUniform4f(int location, float x, float y, float z, float w) {
+    GLES20.glUniform4f(location, x, y, z, w);
+  }
+
+  @Override public void glUniformMatrix4fv(int location, int count, boolean transpose,
+      float[] value, int offset) {
+    GLES20.glUniformMatrix4fv(location, count, transpose, value, offset);
+  }
+
+  @Override public void glGenTextures(int n, int[] textures, int offset) {
+    GLES20.glGenTextures(n, textures, offset);
+  }
+
+  @Override public void glDeleteTextures(int n, int[] textures, int offset) {
+    GLES20.glDeleteTextures(n, textures, offset);
+  }
+
+  @Override public void glActiveTexture(int texture) {
+    GLES20.glActiveTexture(texture);
+  }
+
+  @Override public void glBindTexture(int target, int texture) {
+    GLES20.glBindTexture(target, texture);
+  }
+
+  @Override public void glTexParameteri(int target, int pname, int param) {
+    GLES20.glTexParameteri(target, pname, param);
+  }
+
+  @Override public void glTexImage2D(int target, int level, int internalformat, int width,
+      int height, int border, int format, int type, Buffer pixels) {
+    GLES20.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+  }
+
+  @Override public void glGenerateMipmap(int target) {
+    GLES20.glGenerateMipmap(target);
+  }
+}
@@ -0,0 +1,332 @@
+package com.zac4j.opengl.gl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * 统计 GL 调用次数的包装实现，所有调用都会转发给被包装的实现
+ * 可包装 AndroidGL 在真机上统计每帧的开销，也可包装 HeadlessGL 在 JVM 上运行
+ */
+public class CountingGL implements GL {
+
+  private final GL mDelegate;
+
+  // 绘制调用次数
+  private long mDrawCalls;
+  // 绘制的顶点(或索引)数量
+  private long mVertices;
+  // program、纹理、缓冲区和顶点属性等状态切换次数
+  private long mStateChanges;
+  // uniform 上传次数
+  private long mUniformUploads;
+  // 缓冲区与纹理数据上传次数
+  private long mUploads;
+  // 上传的字节数
+  private long mUploadedBytes;
+
+  public CountingGL(GL delegate) {
+    mDelegate = delegate;
+  }
+
+  /**
+   * 清空所有计数，通常在每帧开始时调用
+   */
+  public void reset() {
+    mDrawCalls = 0;
+    mVertices = 0;
+    mStateChanges = 0;
+    mUniformUploads = 0;
+    mUploads = 0;
+    mUploadedBytes = 0;
+  }
+
+  public long getDrawCalls() {
+    return mDrawCalls;
+  }
+
+  public long getVertices() {
+    return mVertices;
+  }
+
+  public long getStateChanges() {
+    return mStateChanges;
+  }
+
+  public long getUniformUploads() {
+    return mUniformUploads;
+  }
+
+  public long getUploads() {
+    return mUploads;
+  }
+
+  public long getUploadedBytes() {
+    return mUploadedBytes;
+  }
+
+  @Override public String toString() {
+    return "drawCalls=" + mDrawCalls + " vertices=" + mVertices + " stateChanges=" + mStateChanges
+        + " uniformUploads=" + mUniformUploads + " uploads=" + mUploads + " uploadedBytes="
+        + mUploadedBytes;
+  }
+
+  private static int bytesPerElement(Buffer buffer) {
+    if (buffer instanceof ByteBuffer) {
+      return 1;
+    } else if (buffer instanceof ShortBuffer) {
+      return 2;
+    } else if (buffer instanceof FloatBuffer || buffer instanceof IntBuffer) {
+      return 4;
+    }
+    return 1;
+  }
+
+  @Override public void glGenBuffers(int n, int[] buffers, int offset) {
+    mDelegate.glGenBuffers(n, buffers, offset);
+  }
+
+  @Override public void glDeleteBuffers(int n, int[] buffers, int offset) {
+    mDelegate.glDeleteBuffers(n, buffers, offset);
+  }
+
+  @Override public void glBindBuffer(int target, int buffer) {
+    mStateChanges++;
+    mDelegate.glBindBuffer(target, buffer);
+  }
+
+  @Override public void glBufferData(int target, int size, Buffer data, int usage) {
+    mUploads++;
+    mUploadedBytes += size;
+    mDelegate.glBufferData(target, size, data, usage);
+  }
+
+  @Override public void glBufferSubData(int target, int offset, int size, Buffer data) {
+    mUploads++;
+    mUploadedBytes += size;
+    mDelegate.glBufferSubData(target, offset, size, data);
+  }
+
+  @Override public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, int offset) {
+    mStateChanges++;
+    mDelegate.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+  }
+
+  @Override public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, Buffer ptr) {
+    mStateChanges++;
+    mDelegate.glVertexAttribPointer(index, size, type, normalized, stride, ptr);
+  }
+
+  @Override public void glEnableVertexAttribArray(int index) {
+    mStateChanges++;
+    mDelegate.glEnableVertexAttribArray(index);
+  }
+
+  @Override public void glDisableVertexAttribArray(int index) {
+    mStateChanges++;
+    mDelegate.glDisableVertexAttribArray(index);
+  }
+
+  @Override public void glDrawArrays(int mode, int first, int count) {
+    mDrawCalls++;
+    mVertices += count;
+    mDelegate.glDrawArrays(mode, first, count);
+  }
+
+  @Override public void glDrawElements(int mode, int count, int type, Buffer indices) {
+    mDrawCalls++;
+    mVertices += count;
+    mDelegate.glDrawElements(mode, count, type, indices);
+  }
+
+  @Override public void glDrawElements(int mode, int count, int type, int offset) {
+    mDrawCalls++;
+    mVertices += count;
+    mDelegate.glDrawElements(mode, count, type, offset);
+  }
+
+  @Override public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount) {
+    mDrawCalls++;
+    mVertices += (long) count * instanceCount;
+    mDelegate.glDrawArraysInstanced(mode, first, count, instanceCount);
+  }
+
+  @Override public void glDrawElementsInstanced(int mode, int count, int type, Buffer indices,
+      int instanceCount) {
+    mDrawCalls++;
+    mVertices += (long) count * instanceCount;
+    mDelegate.glDrawElementsInstanced(mode, count, type, indices, instanceCount);
+  }
+
+  @Override public void glDrawElementsInstanced(int mode, int count, int type, int offset,
+      int instanceCount) {
+    mDrawCalls++;
+    mVertices += (long) count * instanceCount;
+    mDelegate.glDrawElementsInstanced(mode, count, type, offset, instanceCount);
+  }
+
+  @Override public void glVertexAttribDivisor(int index, int divisor) {
+    mStateChanges++;
+    mDelegate.glVertexAttribDivisor(index, divisor);
+  }
+
+  @Override public void glClear(int mask) {
+    mDelegate.glClear(mask);
+  }
+
+  @Override public void glClearColor(float red, float green, float blue, float alpha) {
+    mDelegate.glClearColor(red, green, blue, alpha);
+  }
+
+  @Override public void glViewport(int x, int y, int width, int height) {
+    mDelegate.glViewport(x, y, width, height);
+  }
+
+  @Override public String glGetString(int name) {
+    return mDelegate.glGetString(name);
+  }
+
+  @Override public void glGetIntegerv(int pname, int[] params, int offset) {
+    mDelegate.glGetIntegerv(pname, params, offset);
+  }
+
+  @Override public int glCreateShader(int type) {
+    return mDelegate.glCreateShader(type);
+  }
+
+  @Override public void glShaderSource(int shader, String string) {
+    mDelegate.glShaderSource(shader, string);
+  }
+
+  @Override public void glCompileShader(int shader) {
+    mDelegate.glCompileShader(shader);
+  }
+
+  @Override public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+    mDelegate.glGetShaderiv(shader, pname, params, offset);
+  }
+
+  @Override public String glGetShaderInfoLog(int shader) {
+    return mDelegate.glGetShaderInfoLog(shader);
+  }
+
+  @Override public void glDeleteShader(int shader) {
+    mDelegate.glDeleteShader(shader);
+  }
+
+  @Override public int glCreateProgram() {
+    return mDelegate.glCreateProgram();
+  }
+
+  @Override public void glAttachShader(int program, int shader) {
+    mDelegate.glAttachShader(program, shader);
+  }
+
+  @Override public void glLinkProgram(int program) {
+    mDelegate.glLinkProgram(program);
+  }
+
+  @Override public void glValidateProgram(int program) {
+    mDelegate.glValidateProgram(program);
+  }
+
+  @Override public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+    mDelegate.glGetProgramiv(program, pname, params, offset);
+  }
+
+  @Override public String glGetProgramInfoLog(int program) {
+    return mDelegate.glGetProgramInfoLog(program);
+  }
+
+  @Override public void glDeleteProgram(int program) {
+    mDelegate.glDeleteProgram(program);
+  }
+
+  @Override public void glUseProgram(int program) {
+    mStateChanges++;
+    mDelegate.glUseProgram(program);
+  }
+
+  @Override public int glGetAttribLocation(int program, String name) {
+    return mDelegate.glGetAttribLocation(program, name);
+  }
+
+  @Override public int glGetUniformLocation(int program, String name) {
+    return mDelegate.glGetUniformLocation(program, name);
+  }
+
+  @Override public String glGetActiveAttrib(int program, int index, int[] size, int sizeOffset,
+      int[] type, int typeOffset) {
+    return mDelegate.glGetActiveAttrib(program, index, size, sizeOffset, type, typeOffset);
+  }
+
+  @Override public String glGetActiveUniform(int program, int index, int[] size, int sizeOffset,
+      int[] type, int typeOffset) {
+    return mDelegate.glGetActiveUniform(program, index, size, sizeOffset, type, typeOffset);
+  }
+
+  @Override public void glGetProgramBinary(int program, int bufSize, int[] length,
+      int lengthOffset, int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+    mDelegate.glGetProgramBinary(program, bufSize, length, lengthOffset, binaryFormat,
+        binaryFormatOffset, binary);
+  }
+
+  @Override public void glProgramBinary(int program, int binaryFormat, Buffer binary,
+      int length) {
+    mDelegate.glProgramBinary(program, binaryFormat, binary, length);
+  }
+
+  @Override public void glUniform1i(int location, int x) {
+    mUniformUploads++;
+    mDelegate.glUniform1i(location, x);
+  }
+
+  @Override public void glUniform4f(int location, float x, float y, float z, float w) {
+    mUniformUploads++;
+    mDelegate.glUniform4f(location, x, y, z, w);
+  }
+
+  @Override public void glUniformMatrix4fv(int location, int count, boolean transpose,
+      float[] value, int offset) {
+    mUniformUploads++;
+    mDelegate.glUniformMatrix4fv(location, count, transpose, value, offset);
+  }
+
+  @Override public void glGenTextures(int n, int[] textures, int offset) {
+    mDelegate.glGenTextures(n, textures, offset);
+  }
+
+  @Override public void glDeleteTextures(int n, int[] textures, int offset) {
+    mDelegate.glDeleteTextures(n, textures, offset);
+  }
+
+  @Override public void glActiveTexture(int texture) {
+    mStateChanges++;
+    mDelegate.glActiveTexture(texture);
+  }
+
+  @Override public void glBindTexture(int target, int texture) {
+    mStateChanges++;
+    mDelegate.glBindTexture(target, texture);
+  }
+
+  @Override public void glTexParameteri(int target, int pname, int param) {
+    mDelegate.glTexParameteri(target, pname, param);
+  }
+
+  @Override public void glTexImage2D(int target, int level, int internalformat, int width,
+      int height, int border, int format, int type, Buffer pixels) {
+    mUploads++;
+    mUploadedBytes += pixels == null ? 0 : pixels.remaining() * bytesPerElement(pixels);
+    mDelegate.glTexImage2D(target, level, internalformat, width, height, border, format, type,
+        pixels);
+  }
+
+  @Override public void glGenerateMipmap(int target) {
+    mDelegate.glGenerateMipmap(target);
+  }
+}
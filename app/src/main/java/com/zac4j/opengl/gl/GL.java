@@ -0,0 +1,187 @@
+package com.zac4j.opengl.gl;
+
+import java.nio.Buffer;
+
+/**
+ * OpenGL ES 调用的抽象，便于在 JVM 上脱离 GPU 替换实现
+ * 方法与常量与 android.opengl.GLES20 保持一致，ES 3.0 的方法只能在 3.0 context 中调用
+ */
+public interface GL {
+
+  // 图元类型
+  int GL_POINTS = 0x0000;
+  int GL_LINES = 0x0001;
+  int GL_TRIANGLES = 0x0004;
+  int GL_TRIANGLE_STRIP = 0x0005;
+  int GL_TRIANGLE_FAN = 0x0006;
+
+  // 数据类型
+  int GL_UNSIGNED_BYTE = 0x1401;
+  int GL_UNSIGNED_SHORT = 0x1403;
+  int GL_INT = 0x1404;
+  int GL_FLOAT = 0x1406;
+  int GL_FLOAT_VEC2 = 0x8B50;
+  int GL_FLOAT_VEC3 = 0x8B51;
+  int GL_FLOAT_VEC4 = 0x8B52;
+  int GL_FLOAT_MAT4 = 0x8B5C;
+  int GL_SAMPLER_2D = 0x8B5E;
+
+  // 清除缓冲区
+  int GL_DEPTH_BUFFER_BIT = 0x00000100;
+  int GL_COLOR_BUFFER_BIT = 0x00004000;
+
+  // 缓冲区目标
+  int GL_ARRAY_BUFFER = 0x8892;
+  int GL_ELEMENT_ARRAY_BUFFER = 0x8893;
+
+  // 缓冲区使用方式
+  int GL_STREAM_DRAW = 0x88E0;
+  int GL_STATIC_DRAW = 0x88E4;
+  int GL_DYNAMIC_DRAW = 0x88E8;
+
+  // Shader 与 Program
+  int GL_FRAGMENT_SHADER = 0x8B30;
+  int GL_VERTEX_SHADER = 0x8B31;
+  int GL_COMPILE_STATUS = 0x8B81;
+  int GL_LINK_STATUS = 0x8B82;
+  int GL_VALIDATE_STATUS = 0x8B83;
+  int GL_ACTIVE_UNIFORMS = 0x8B86;
+  int GL_ACTIVE_ATTRIBUTES = 0x8B89;
+
+  // 纹理
+  int GL_TEXTURE_2D = 0x0DE1;
+  int GL_TEXTURE0 = 0x84C0;
+  int GL_TEXTURE_MAG_FILTER = 0x2800;
+  int GL_TEXTURE_MIN_FILTER = 0x2801;
+  int GL_NEAREST = 0x2600;
+  int GL_LINEAR = 0x2601;
+  int GL_LINEAR_MIPMAP_LINEAR = 0x2703;
+  int GL_RGBA = 0x1908;
+  int GL_MAX_TEXTURE_SIZE = 0x0D33;
+
+  // 字符串查询
+  int GL_VENDOR = 0x1F00;
+  int GL_RENDERER = 0x1F01;
+  int GL_VERSION = 0x1F02;
+
+  // ES 3.0 program binary
+  int GL_PROGRAM_BINARY_LENGTH = 0x8741;
+  int GL_NUM_PROGRAM_BINARY_FORMATS = 0x87FE;
+
+  // Buffer
+  void glGenBuffers(int n, int[] buffers, int offset);
+
+  void glDeleteBuffers(int n, int[] buffers, int offset);
+
+  void glBindBuffer(int target, int buffer);
+
+  void glBufferData(int target, int size, Buffer data, int usage);
+
+  void glBufferSubData(int target, int offset, int size, Buffer data);
+
+  // Vertex attribute
+  void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride,
+      int offset);
+
+  void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride,
+      Buffer ptr);
+
+  void glEnableVertexAttribArray(int index);
+
+  void glDisableVertexAttribArray(int index);
+
+  // Draw
+  void glDrawArrays(int mode, int first, int count);
+
+  void glDrawElements(int mode, int count, int type, Buffer indices);
+
+  void glDrawElements(int mode, int count, int type, int offset);
+
+  // ES 3.0 实例化绘制
+  void glDrawArraysInstanced(int mode, int first, int count, int instanceCount);
+
+  void glDrawElementsInstanced(int mode, int count, int type, Buffer indices, int instanceCount);
+
+  void glDrawElementsInstanced(int mode, int count, int type, int offset, int instanceCount);
+
+  void glVertexAttribDivisor(int index, int divisor);
+
+  void glClear(int mask);
+
+  void glClearColor(float red, float green, float blue, float alpha);
+
+  void glViewport(int x, int y, int width, int height);
+
+  String glGetString(int name);
+
+  void glGetIntegerv(int pname, int[] params, int offset);
+
+  // Shader
+  int glCreateShader(int type);
+
+  void glShaderSource(int shader, String string);
+
+  void glCompileShader(int shader);
+
+  void glGetShaderiv(int shader, int pname, int[] params, int offset);
+
+  String glGetShaderInfoLog(int shader);
+
+  void glDeleteShader(int shader);
+
+  // Program
+  int glCreateProgram();
+
+  void glAttachShader(int program, int shader);
+
+  void glLinkProgram(int program);
+
+  void glValidateProgram(int program);
+
+  void glGetProgramiv(int program, int pname, int[] params, int offset);
+
+  String glGetProgramInfoLog(int program);
+
+  void glDeleteProgram(int program);
+
+  void glUseProgram(int program);
+
+  int glGetAttribLocation(int program, String name);
+
+  int glGetUniformLocation(int program, String name);
+
+  String glGetActiveAttrib(int program, int index, int[] size, int sizeOffset, int[] type,
+      int typeOffset);
+
+  String glGetActiveUniform(int program, int index, int[] size, int sizeOffset, int[] type,
+      int typeOffset);
+
+  // ES 3.0 program binary
+  void glGetProgramBinary(int program, int bufSize, int[] length, int lengthOffset,
+      int[] binaryFormat, int binaryFormatOffset, Buffer binary);
+
+  void glProgramBinary(int program, int binaryFormat, Buffer binary, int length);
+
+  // Uniform
+  void glUniform1i(int location, int x);
+
+  void glUniform4f(int location, float x, float y, float z, float w);
+
+  void glUniformMatrix4fv(int location, int count, boolean transpose, float[] value, int offset);
+
+  // Texture
+  void glGenTextures(int n, int[] textures, int offset);
+
+  void glDeleteTextures(int n, int[] textures, int offset);
+
+  void glActiveTexture(int texture);
+
+  void glBindTexture(int target, int texture);
+
+  void glTexParameteri(int target, int pname, int param);
+
+  void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+      int format, int type, Buffer pixels);
+
+  void glGenerateMipmap(int target);
+}
@@ -0,0 +1,39 @@
+package com.zac4j.opengl.gl;
+
+import static com.zac4j.opengl.gl.GL.GL_MAX_TEXTURE_SIZE;
+import static com.zac4j.opengl.gl.GL.GL_VERSION;
+
+/**
+ * 查询当前 context 的能力，需要在 GL 线程调用
+ */
+public final class GLInfo {
+
+  // GL_VERSION 的格式为 "OpenGL ES N.M ..."
+  private static final String VERSION_PREFIX = "OpenGL ES ";
+
+  private GLInfo() {
+  }
+
+  /**
+   * 检查当前 context 是否为 ES 3.0 及以上
+   *
+   * @param gl GL 调用接口
+   * @return ES 3.0 及以上返回 true
+   */
+  public static boolean isEs3Context(GL gl) {
+    final String version = gl.glGetString(GL_VERSION);
+    return version != null && version.startsWith(VERSION_PREFIX)
+        && version.length() > VERSION_PREFIX.length()
+        && version.charAt(VERSION_PREFIX.length()) >= '3';
+  }
+
+  /**
+   * @param gl GL 调用接口
+   * @return 纹理的最大边长，像素
+   */
+  public static int getMaxTextureSize(GL gl) {
+    final int[] size = new int[1];
+    gl.glGetIntegerv(GL_MAX_TEXTURE_SIZE, size, 0);
+    return size[0];
+  }
+}
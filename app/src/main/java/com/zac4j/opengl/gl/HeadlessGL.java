@@ -0,0 +1,341 @@
+package com.zac4j.opengl.gl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 不依赖 GPU 的空实现，对象 id 递增分配，编译与连接始终成功
+ * 连接时从 shader 源码中解析 attribute 与 uniform 声明，作为 program 的活动变量；
+ * program binary 为固定内容，glProgramBinary 只接受相同格式与内容，便于测试缓存失效
+ * 用于在 JVM 上运行绘制流程，通常与 CountingGL 搭配使用
+ */
+public class HeadlessGL implements GL {
+
+  // 模拟 ES 3.0 context，使实例化绘制路径也能在 JVM 上运行
+  private static final String VERSION = "OpenGL ES 3.0 HeadlessGL";
+
+  // 模拟的 program binary 格式及内容，只接受此格式与内容的 binary
+  public static final int PROGRAM_BINARY_FORMAT = 0x4845;
+  private static final byte[] PROGRAM_BINARY = {'H', 'E', 'A', 'D', 'L', 'E', 'S', 'S'};
+
+  // ES 3.0 保证的最小值
+  private static final int MAX_TEXTURE_SIZE = 2048;
+
+  // attribute / uniform 声明，如 "uniform mediump mat4 u_Matrix;"
+  private static final Pattern DECLARATION = Pattern.compile(
+      "\\b(attribute|uniform)\\s+(?:(?:lowp|mediump|highp)\\s+)?(\\w+)\\s+(\\w+)\\s*;");
+
+  // 下一个分配的对象 id，0 保留为无效值
+  private int mNextName = 1;
+
+  // 最近一次 glProgramBinary 是否成功，决定随后查询的连接状态
+  private boolean mLastBinaryAccepted = true;
+
+  // shader 源码，以及 program 连接的 shader
+  private final Map<Integer, String> mShaderSources = new HashMap<>();
+  private final Map<Integer, List<Integer>> mAttachedShaders = new HashMap<>();
+
+  // program 的活动 attribute / uniform，每项为 {名称, 类型}
+  private final Map<Integer, List<String[]>> mActiveAttribs = new HashMap<>();
+  private final Map<Integer, List<String[]>> mActiveUniforms = new HashMap<>();
+
+  // program 中 attribute / uniform 名称到 location 的映射
+  private final Map<String, Integer> mLocations = new HashMap<>();
+
+  private void generateNames(int n, int[] names, int offset) {
+    for (int i = 0; i < n; i++) {
+      names[offset + i] = mNextName++;
+    }
+  }
+
+  private int locationOf(int program, String name) {
+    final String key = program + "/" + name;
+    Integer location = mLocations.get(key);
+    if (location == null) {
+      location = mLocations.size();
+      mLocations.put(key, location);
+    }
+    return location;
+  }
+
+  @Override public void glGenBuffers(int n, int[] buffers, int offset) {
+    generateNames(n, buffers, offset);
+  }
+
+  @Override public void glDeleteBuffers(int n, int[] buffers, int offset) {
+  }
+
+  @Override public void glBindBuffer(int target, int buffer) {
+  }
+
+  @Override public void glBufferData(int target, int size, Buffer data, int usage) {
+  }
+
+  @Override public void glBufferSubData(int target, int offset, int size, Buffer data) {
+  }
+
+  @Override public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, int offset) {
+  }
+
+  @Override public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, Buffer ptr) {
+  }
+
+  @Override public void glEnableVertexAttribArray(int index) {
+  }
+
+  @Override public void glDisableVertexAttribArray(int index) {
+  }
+
+  @Override public void glDrawArrays(int mode, int first, int count) {
+  }
+
+  @Override public void glDrawElements(int mode, int count, int type, Buffer indices) {
+  }
+
+  @Override public void glDrawElements(int mode, int count, int type, int offset) {
+  }
+
+  @Override public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount) {
+  }
+
+  @Override public void glDrawElementsInstanced(int mode, int count, int type, Buffer indices,
+      int instanceCount) {
+  }
+
+  @Override public void glDrawElementsInstanced(int mode, int count, int type, int offset,
+      int instanceCount) {
+  }
+
+  @Override public void glVertexAttribDivisor(int index, int divisor) {
+  }
+
+  @Override public void glClear(int mask) {
+  }
+
+  @Override public void glClearColor(float red, float green, float blue, float alpha) {
+  }
+
+  @Override public void glViewport(int x, int y, int width, int height) {
+  }
+
+  @Override public String glGetString(int name) {
+    return name == GL_VERSION ? VERSION : "";
+  }
+
+  @Override public void glGetIntegerv(int pname, int[] params, int offset) {
+    if (pname == GL_MAX_TEXTURE_SIZE) {
+      params[offset] = MAX_TEXTURE_SIZE;
+    } else {
+      params[offset] = pname == GL_NUM_PROGRAM_BINARY_FORMATS ? 1 : 0;
+    }
+  }
+
+  @Override public int glCreateShader(int type) {
+    return mNextName++;
+  }
+
+  @Override public void glShaderSource(int shader, String string) {
+    mShaderSources.put(shader, string);
+  }
+
+  @Override public void glCompileShader(int shader) {
+  }
+
+  @Override public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+    // 编译状态始终为成功
+    params[offset] = 1;
+  }
+
+  @Override public String glGetShaderInfoLog(int shader) {
+    return "";
+  }
+
+  @Override public void glDeleteShader(int shader) {
+  }
+
+  @Override public int glCreateProgram() {
+    return mNextName++;
+  }
+
+  @Override public void glAttachShader(int program, int shader) {
+    List<Integer> shaders = mAttachedShaders.get(program);
+    if (shaders == null) {
+      shaders = new ArrayList<>();
+      mAttachedShaders.put(program, shaders);
+    }
+    shaders.add(shader);
+  }
+
+  @Override public void glLinkProgram(int program) {
+    mLastBinaryAccepted = true;
+
+    // 两个 shader 中同名的 uniform 只算一个
+    final Map<String, String> attribs = new LinkedHashMap<>();
+    final Map<String, String> uniforms = new LinkedHashMap<>();
+    final List<Integer> shaders = mAttachedShaders.get(program);
+    if (shaders != null) {
+      for (Integer shader : shaders) {
+        final String source = mShaderSources.get(shader);
+        if (source == null) {
+          continue;
+        }
+        final Matcher matcher = DECLARATION.matcher(source);
+        while (matcher.find()) {
+          final Map<String, String> target =
+              "attribute".equals(matcher.group(1)) ? attribs : uniforms;
+          target.put(matcher.group(3), matcher.group(2));
+        }
+      }
+    }
+    mActiveAttribs.put(program, toList(attribs));
+    mActiveUniforms.put(program, toList(uniforms));
+  }
+
+  private static List<String[]> toList(Map<String, String> variables) {
+    final List<String[]> list = new ArrayList<>(variables.size());
+    for (Map.Entry<String, String> entry : variables.entrySet()) {
+      list.add(new String[] { entry.getKey(), entry.getValue() });
+    }
+    return list;
+  }
+
+  private static int typeOf(String type) {
+    switch (type) {
+      case "int":
+        return GL_INT;
+      case "float":
+        return GL_FLOAT;
+      case "vec2":
+        return GL_FLOAT_VEC2;
+      case "vec3":
+        return GL_FLOAT_VEC3;
+      case "vec4":
+        return GL_FLOAT_VEC4;
+      case "mat4":
+        return GL_FLOAT_MAT4;
+      case "sampler2D":
+        return GL_SAMPLER_2D;
+      default:
+        return 0;
+    }
+  }
+
+  private static String activeVariable(List<String[]> variables, int index, int[] size,
+      int sizeOffset, int[] type, int typeOffset) {
+    if (variables == null || index < 0 || index >= variables.size()) {
+      return "";
+    }
+    final String[] variable = variables.get(index);
+    size[sizeOffset] = 1;
+    type[typeOffset] = typeOf(variable[1]);
+    return variable[0];
+  }
+
+  @Override public void glValidateProgram(int program) {
+  }
+
+  @Override public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+    if (pname == GL_PROGRAM_BINARY_LENGTH) {
+      params[offset] = PROGRAM_BINARY.length;
+    } else if (pname == GL_LINK_STATUS) {
+      // 源码连接始终成功，binary 内容不符时失败
+      params[offset] = mLastBinaryAccepted ? 1 : 0;
+    } else if (pname == GL_ACTIVE_ATTRIBUTES || pname == GL_ACTIVE_UNIFORMS) {
+      final List<String[]> variables = (pname == GL_ACTIVE_ATTRIBUTES ? mActiveAttribs
+          : mActiveUniforms).get(program);
+      params[offset] = variables == null ? 0 : variables.size();
+    } else {
+      params[offset] = 1;
+    }
+  }
+
+  @Override public String glGetProgramInfoLog(int program) {
+    return "";
+  }
+
+  @Override public void glDeleteProgram(int program) {
+  }
+
+  @Override public void glUseProgram(int program) {
+  }
+
+  @Override public int glGetAttribLocation(int program, String name) {
+    return locationOf(program, name);
+  }
+
+  @Override public int glGetUniformLocation(int program, String name) {
+    return locationOf(program, name);
+  }
+
+  @Override public String glGetActiveAttrib(int program, int index, int[] size, int sizeOffset,
+      int[] type, int typeOffset) {
+    return activeVariable(mActiveAttribs.get(program), index, size, sizeOffset, type,
+        typeOffset);
+  }
+
+  @Override public String glGetActiveUniform(int program, int index, int[] size, int sizeOffset,
+      int[] type, int typeOffset) {
+    return activeVariable(mActiveUniforms.get(program), index, size, sizeOffset, type,
+        typeOffset);
+  }
+
+  @Override public void glGetProgramBinary(int program, int bufSize, int[] length,
+      int lengthOffset, int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+    final int count = Math.min(bufSize, PROGRAM_BINARY.length);
+    ((ByteBuffer) binary).put(PROGRAM_BINARY, 0, count);
+    length[lengthOffset] = count;
+    binaryFormat[binaryFormatOffset] = PROGRAM_BINARY_FORMAT;
+  }
+
+  @Override public void glProgramBinary(int program, int binaryFormat, Buffer binary,
+      int length) {
+    boolean accepted = binaryFormat == PROGRAM_BINARY_FORMAT && length == PROGRAM_BINARY.length;
+    final ByteBuffer bytes = ((ByteBuffer) binary).duplicate();
+    for (int i = 0; accepted && i < length; i++) {
+      accepted = bytes.get() == PROGRAM_BINARY[i];
+    }
+    mLastBinaryAccepted = accepted;
+  }
+
+  @Override public void glUniform1i(int location, int x) {
+  }
+
+  @Override public void glUniform4f(int location, float x, float y, float z, float w) {
+  }
+
+  @Override public void glUniformMatrix4fv(int location, int count, boolean transpose,
+      float[] value, int offset) {
+  }
+
+  @Override public void glGenTextures(int n, int[] textures, int offset) {
+    generateNames(n, textures, offset);
+  }
+
+  @Override public void glDeleteTextures(int n, int[] textures, int offset) {
+  }
+
+  @Override public void glActiveTexture(int texture) {
+  }
+
+  @Override public void glBindTexture(int target, int texture) {
+  }
+
+  @Override public void glTexParameteri(int target, int pname, int param) {
+  }
+
+  @Override public void glTexImage2D(int target, int level, int internalformat, int width,
+      int height, int border, int format, int type, Buffer pixels) {
+  }
+
+  @Override public void glGenerateMipmap(int target) {
+  }
+}
@@ -0,0 +1,791 @@
+package com.zac4j.opengl.gl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在 CPU 上渲染的 GL 实现，覆盖项目用到的 ES 2.0 子集，用于不支持 ES 2.0 的设备与没有 GPU 的 CI
+ *
+ * 支持的功能:
+ * 1. GL_POINTS / GL_LINES / GL_TRIANGLES / GL_TRIANGLE_STRIP / GL_TRIANGLE_FAN，
+ * glDrawArrays 与 glDrawElements(GL_UNSIGNED_BYTE / GL_UNSIGNED_SHORT 索引)
+ * 2. GL_FLOAT 顶点属性，来自缓冲区对象或客户端数组
+ * 3. res/raw 中的 shader，由 SoftwareShaders 中对应的 Java 实现执行，其他 shader 编译失败
+ * 4. GL_RGBA / GL_UNSIGNED_BYTE 纹理，最近点与双线性采样
+ *
+ * 光栅化由 TileRasterizer 按 tile 并行完成，每次绘制返回时结果已写入帧缓冲区，
+ * 通过 readPixels 读取。报告为 ES 2.0 context，ES 3.0 的方法抛出 UnsupportedOperationException；
+ * 不支持的参数同样抛出异常，而不是静默地画出错误的结果。只能在一个线程中调用
+ */
+public class SoftwareGL implements GL {
+
+  private static final String VENDOR = "zac4j";
+  private static final String RENDERER = "SoftwareGL";
+  private static final String VERSION = "OpenGL ES 2.0 SoftwareGL";
+
+  private static final int MAX_VERTEX_ATTRIBS = 16;
+  private static final int MAX_TEXTURE_UNITS = 8;
+  private static final int MAX_TEXTURE_SIZE = 4096;
+
+  private static final int FLOATS_PER_ATTRIBUTE = SoftwareShaders.FLOATS_PER_ATTRIBUTE;
+  private static final int FLOATS_PER_UNIFORM = SoftwareShaders.FLOATS_PER_UNIFORM;
+
+  private static final float[] DEFAULT_ATTRIBUTE = { 0f, 0f, 0f, 1f };
+
+  // 顶点属性指针
+  private static final class Attribute {
+
+    boolean enabled;
+    int size;
+    int stride;
+    // 来自缓冲区对象时为对象 id 与字节偏移，否则为客户端数组及其起始位置
+    int buffer;
+    int offset;
+    Buffer client;
+  }
+
+  private static final class ShaderObject {
+
+    final int type;
+    String source = "";
+    SoftwareShaders.Stage stage;
+    String infoLog = "";
+
+    ShaderObject(int type) {
+      this.type = type;
+    }
+  }
+
+  private static final class Program {
+
+    final List<Integer> shaders = new ArrayList<>();
+    boolean linked;
+    String infoLog = "";
+
+    SoftwareShaders.Vertex vertex;
+    SoftwareShaders.Fragment fragment;
+    // 每项为 {名称, 类型}，下标即 location
+    List<String[]> attributes = new ArrayList<>();
+    List<String[]> uniforms = new ArrayList<>();
+    float[] uniformValues = new float[0];
+    int fragmentUniformBase;
+    int varyingCount;
+  }
+
+  private final TileRasterizer mRasterizer;
+
+  // 下一个分配的对象 id，0 保留为无效值
+  private int mNextName = 1;
+
+  private final Map<Integer, ByteBuffer> mBuffers = new HashMap<>();
+  private int mArrayBuffer;
+  private int mElementArrayBuffer;
+
+  private final Attribute[] mAttributes = new Attribute[MAX_VERTEX_ATTRIBS];
+
+  private final Map<Integer, ShaderObject> mShaders = new HashMap<>();
+  private final Map<Integer, Program> mPrograms = new HashMap<>();
+  private Program mProgram;
+
+  private final Map<Integer, SoftwareTexture> mTextures = new HashMap<>();
+  private final SoftwareTexture[] mUnits = new SoftwareTexture[MAX_TEXTURE_UNITS];
+  private int mActiveUnit;
+
+  private int mClearColor = 0xFF000000;
+
+  // 顶点处理的临时数据
+  private final float[] mAttributeValues = new float[MAX_VERTEX_ATTRIBS * FLOATS_PER_ATTRIBUTE];
+  private float[] mVertices = new float[0];
+  private int[] mIndices = new int[0];
+
+  /**
+   * @param width 帧缓冲区宽度
+   * @param height 帧缓冲区高度
+   * @param threadCount 光栅化线程数，包括调用线程，通常为 CPU 核数
+   */
+  public SoftwareGL(int width, int height, int threadCount) {
+    mRasterizer = new TileRasterizer(threadCount);
+    mRasterizer.setSize(width, height);
+    for (int i = 0; i < MAX_VERTEX_ATTRIBS; i++) {
+      mAttributes[i] = new Attribute();
+    }
+  }
+
+  /**
+   * 改变帧缓冲区尺寸，内容被清空，视口重置为整个帧缓冲区
+   */
+  public void setSurfaceSize(int width, int height) {
+    mRasterizer.setSize(width, height);
+  }
+
+  public int getWidth() {
+    return mRasterizer.getWidth();
+  }
+
+  public int getHeight() {
+    return mRasterizer.getHeight();
+  }
+
+  /**
+   * 读取帧缓冲区
+   *
+   * @param pixels 输出 ARGB 像素，第一行为屏幕顶部，长度至少为 width * height
+   */
+  public void readPixels(int[] pixels) {
+    final int[] color = mRasterizer.getColorBuffer();
+    System.arraycopy(color, 0, pixels, 0, color.length);
+  }
+
+  /**
+   * 结束光栅化线程
+   */
+  public void release() {
+    mRasterizer.release();
+  }
+
+  private void generateNames(int n, int[] names, int offset) {
+    for (int i = 0; i < n; i++) {
+      names[offset + i] = mNextName++;
+    }
+  }
+
+  @Override public void glGenBuffers(int n, int[] buffers, int offset) {
+    generateNames(n, buffers, offset);
+  }
+
+  @Override public void glDeleteBuffers(int n, int[] buffers, int offset) {
+    for (int i = 0; i < n; i++) {
+      final int buffer = buffers[offset + i];
+      mBuffers.remove(buffer);
+      if (mArrayBuffer == buffer) {
+        mArrayBuffer = 0;
+      }
+      if (mElementArrayBuffer == buffer) {
+        mElementArrayBuffer = 0;
+      }
+    }
+  }
+
+  @Override public void glBindBuffer(int target, int buffer) {
+    if (target == GL_ARRAY_BUFFER) {
+      mArrayBuffer = buffer;
+    } else if (target == GL_ELEMENT_ARRAY_BUFFER) {
+      mElementArrayBuffer = buffer;
+    } else {
+      throw new UnsupportedOperationException("Unsupported buffer target: " + target);
+    }
+  }
+
+  private int boundBuffer(int target) {
+    final int buffer = target == GL_ELEMENT_ARRAY_BUFFER ? mElementArrayBuffer : mArrayBuffer;
+    if (buffer == 0) {
+      throw new IllegalStateException("No buffer bound to target " + target);
+    }
+    return buffer;
+  }
+
+  @Override public void glBufferData(int target, int size, Buffer data, int usage) {
+    final ByteBuffer storage = ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+    if (data != null) {
+      copy(data, storage, 0, size);
+    }
+    mBuffers.put(boundBuffer(target), storage);
+  }
+
+  @Override public void glBufferSubData(int target, int offset, int size, Buffer data) {
+    final ByteBuffer storage = mBuffers.get(boundBuffer(target));
+    if (storage == null || offset < 0 || offset + size > storage.capacity()) {
+      throw new IndexOutOfBoundsException("Buffer update out of range: " + offset + "+" + size);
+    }
+    copy(data, storage, offset, size);
+  }
+
+  /**
+   * 从 src 的当前位置拷贝 size 字节到 dst 的 offset 处
+   */
+  private static void copy(Buffer src, ByteBuffer dst, int offset, int size) {
+    final ByteBuffer target = dst.duplicate().order(dst.order());
+    target.position(offset);
+    if (src instanceof ByteBuffer) {
+      final ByteBuffer bytes = ((ByteBuffer) src).duplicate();
+      bytes.limit(bytes.position() + size);
+      target.put(bytes);
+    } else if (src instanceof FloatBuffer) {
+      final FloatBuffer floats = ((FloatBuffer) src).duplicate();
+      floats.limit(floats.position() + size / 4);
+      target.asFloatBuffer().put(floats);
+    } else if (src instanceof ShortBuffer) {
+      final ShortBuffer shorts = ((ShortBuffer) src).duplicate();
+      shorts.limit(shorts.position() + size / 2);
+      target.asShortBuffer().put(shorts);
+    } else if (src instanceof IntBuffer) {
+      final IntBuffer ints = ((IntBuffer) src).duplicate();
+      ints.limit(ints.position() + size / 4);
+      target.asIntBuffer().put(ints);
+    } else {
+      throw new UnsupportedOperationException("Unsupported buffer: " + src.getClass());
+    }
+  }
+
+  @Override public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, int offset) {
+    final Attribute attribute = attributePointer(index, size, type, stride);
+    attribute.buffer = boundBuffer(GL_ARRAY_BUFFER);
+    attribute.offset = offset;
+    attribute.client = null;
+  }
+
+  @Override public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, Buffer ptr) {
+    final Attribute attribute = attributePointer(index, size, type, stride);
+    attribute.buffer = 0;
+    attribute.offset = ptr.position();
+    attribute.client = ptr;
+  }
+
+  private Attribute attributePointer(int index, int size, int type, int stride) {
+    if (type != GL_FLOAT) {
+      throw new UnsupportedOperationException("Only GL_FLOAT attributes are supported");
+    }
+    final Attribute attribute = mAttributes[index];
+    attribute.size = size;
+    attribute.stride = stride != 0 ? stride : size * 4;
+    return attribute;
+  }
+
+  @Override public void glEnableVertexAttribArray(int index) {
+    mAttributes[index].enabled = true;
+  }
+
+  @Override public void glDisableVertexAttribArray(int index) {
+    mAttributes[index].enabled = false;
+  }
+
+  @Override public void glDrawArrays(int mode, int first, int count) {
+    draw(mode, count, null, first, first + count - 1);
+  }
+
+  @Override public void glDrawElements(int mode, int count, int type, Buffer indices) {
+    if (!(indices instanceof ByteBuffer) && !(indices instanceof ShortBuffer)) {
+      throw new UnsupportedOperationException("Unsupported index buffer: " + indices.getClass());
+    }
+    readIndices(count, type, indices, indices.position());
+    drawIndexed(mode, count);
+  }
+
+  @Override public void glDrawElements(int mode, int count, int type, int offset) {
+    final ByteBuffer storage = mBuffers.get(boundBuffer(GL_ELEMENT_ARRAY_BUFFER));
+    readIndices(count, type, storage, offset);
+    drawIndexed(mode, count);
+  }
+
+  /**
+   * 读取索引到 mIndices
+   *
+   * @param position ShortBuffer 为元素位置，ByteBuffer 为字节位置
+   */
+  private void readIndices(int count, int type, Buffer indices, int position) {
+    if (type != GL_UNSIGNED_SHORT && type != GL_UNSIGNED_BYTE) {
+      throw new UnsupportedOperationException("Unsupported index type: " + type);
+    }
+    if (mIndices.length < count) {
+      mIndices = new int[count];
+    }
+    if (indices instanceof ShortBuffer) {
+      final ShortBuffer shorts = (ShortBuffer) indices;
+      for (int i = 0; i < count; i++) {
+        mIndices[i] = shorts.get(position + i) & 0xFFFF;
+      }
+    } else {
+      final ByteBuffer bytes = (ByteBuffer) indices;
+      for (int i = 0; i < count; i++) {
+        mIndices[i] = type == GL_UNSIGNED_SHORT ? bytes.getShort(position + i * 2) & 0xFFFF
+            : bytes.get(position + i) & 0xFF;
+      }
+    }
+  }
+
+  private void drawIndexed(int mode, int count) {
+    int min = Integer.MAX_VALUE;
+    int max = -1;
+    for (int i = 0; i < count; i++) {
+      min = Math.min(min, mIndices[i]);
+      max = Math.max(max, mIndices[i]);
+    }
+    draw(mode, count, mIndices, min, max);
+  }
+
+  /**
+   * 处理 [first, last] 范围内的顶点，再按图元类型装配并光栅化
+   *
+   * @param indices 为 null 时按顺序使用 first 开始的 count 个顶点
+   */
+  private void draw(int mode, int count, int[] indices, int first, int last) {
+    final Program program = mProgram;
+    if (program == null || !program.linked || count <= 0) {
+      return;
+    }
+    final int stride = 4 + program.varyingCount;
+    final int vertexCount = last - first + 1;
+    if (mVertices.length < vertexCount * stride) {
+      mVertices = new float[vertexCount * stride];
+    }
+
+    // 顶点处理，每个顶点只执行一次 shader
+    final SoftwareShaders.Vertex vertex = program.vertex;
+    final int attributeCount = program.attributes.size();
+    for (int i = 0; i < vertexCount; i++) {
+      for (int location = 0; location < attributeCount; location++) {
+        fetch(mAttributes[location], first + i, location * FLOATS_PER_ATTRIBUTE);
+      }
+      vertex.shade(mAttributeValues, program.uniformValues, mVertices, i * stride);
+    }
+
+    final TileRasterizer rasterizer = mRasterizer;
+    rasterizer.begin(program.fragment, program.uniformValues, program.fragmentUniformBase,
+        mUnits, program.varyingCount);
+    final float[] v = mVertices;
+    switch (mode) {
+      case GL_POINTS:
+        for (int i = 0; i < count; i++) {
+          rasterizer.point(v, vertexOffset(indices, i, first, stride), vertex.pointSize);
+        }
+        break;
+      case GL_LINES:
+        for (int i = 0; i + 1 < count; i += 2) {
+          rasterizer.line(v, vertexOffset(indices, i, first, stride),
+              vertexOffset(indices, i + 1, first, stride));
+        }
+        break;
+      case GL_TRIANGLES:
+        for (int i = 0; i + 2 < count; i += 3) {
+          rasterizer.triangle(v, vertexOffset(indices, i, first, stride),
+              vertexOffset(indices, i + 1, first, stride),
+              vertexOffset(indices, i + 2, first, stride));
+        }
+        break;
+      case GL_TRIANGLE_STRIP:
+        for (int i = 0; i + 2 < count; i++) {
+          // 奇数个三角形交换前两个顶点，保持环绕方向一致
+          final int a = (i & 1) == 0 ? i : i + 1;
+          final int b = (i & 1) == 0 ? i + 1 : i;
+          rasterizer.triangle(v, vertexOffset(indices, a, first, stride),
+              vertexOffset(indices, b, first, stride),
+              vertexOffset(indices, i + 2, first, stride));
+        }
+        break;
+      case GL_TRIANGLE_FAN:
+        for (int i = 1; i + 1 < count; i++) {
+          rasterizer.triangle(v, vertexOffset(indices, 0, first, stride),
+              vertexOffset(indices, i, first, stride),
+              vertexOffset(indices, i + 1, first, stride));
+        }
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported primitive mode: " + mode);
+    }
+    rasterizer.end();
+  }
+
+  private static int vertexOffset(int[] indices, int i, int first, int stride) {
+    return (indices != null ? indices[i] - first : i) * stride;
+  }
+
+  /**
+   * 读取一个顶点的属性值，未提供的分量取 (0, 0, 0, 1) 中对应的值
+   */
+  private void fetch(Attribute attribute, int vertex, int out) {
+    final float[] values = mAttributeValues;
+    System.arraycopy(DEFAULT_ATTRIBUTE, 0, values, out, FLOATS_PER_ATTRIBUTE);
+    if (!attribute.enabled) {
+      return;
+    }
+    final int size = Math.min(attribute.size, FLOATS_PER_ATTRIBUTE);
+    final int byteOffset = attribute.offset + vertex * attribute.stride;
+    if (attribute.client instanceof FloatBuffer) {
+      // 客户端 FloatBuffer 的位置以 float 计
+      final FloatBuffer floats = (FloatBuffer) attribute.client;
+      final int index = attribute.offset + vertex * attribute.stride / 4;
+      for (int c = 0; c < size; c++) {
+        values[out + c] = floats.get(index + c);
+      }
+      return;
+    }
+    final ByteBuffer bytes = attribute.client != null ? (ByteBuffer) attribute.client
+        : mBuffers.get(attribute.buffer);
+    for (int c = 0; c < size; c++) {
+      values[out + c] = bytes.getFloat(byteOffset + c * 4);
+    }
+  }
+
+  @Override public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount) {
+    throw unsupportedEs3();
+  }
+
+  @Override public void glDrawElementsInstanced(int mode, int count, int type, Buffer indices,
+      int instanceCount) {
+    throw unsupportedEs3();
+  }
+
+  @Override public void glDrawElementsInstanced(int mode, int count, int type, int offset,
+      int instanceCount) {
+    throw unsupportedEs3();
+  }
+
+  @Override public void glVertexAttribDivisor(int index, int divisor) {
+    throw unsupportedEs3();
+  }
+
+  private static UnsupportedOperationException unsupportedEs3() {
+    return new UnsupportedOperationException("SoftwareGL is an OpenGL ES 2.0 context");
+  }
+
+  @Override public void glClear(int mask) {
+    if ((mask & GL_COLOR_BUFFER_BIT) != 0) {
+      mRasterizer.clear(mClearColor);
+    }
+  }
+
+  @Override public void glClearColor(float red, float green, float blue, float alpha) {
+    mClearColor = SoftwareShaders.pack(red, green, blue, alpha);
+  }
+
+  @Override public void glViewport(int x, int y, int width, int height) {
+    mRasterizer.setViewport(x, y, width, height);
+  }
+
+  @Override public String glGetString(int name) {
+    switch (name) {
+      case GL_VENDOR:
+        return VENDOR;
+      case GL_RENDERER:
+        return RENDERER;
+      case GL_VERSION:
+        return VERSION;
+      default:
+        return "";
+    }
+  }
+
+  @Override public void glGetIntegerv(int pname, int[] params, int offset) {
+    // 不支持 program binary，GL_NUM_PROGRAM_BINARY_FORMATS 为 0
+    params[offset] = pname == GL_MAX_TEXTURE_SIZE ? MAX_TEXTURE_SIZE : 0;
+  }
+
+  @Override public int glCreateShader(int type) {
+    final int shader = mNextName++;
+    mShaders.put(shader, new ShaderObject(type));
+    return shader;
+  }
+
+  @Override public void glShaderSource(int shader, String string) {
+    mShaders.get(shader).source = string;
+  }
+
+  @Override public void glCompileShader(int shader) {
+    final ShaderObject object = mShaders.get(shader);
+    object.stage = object.type == GL_VERTEX_SHADER ? SoftwareShaders.vertexShader(object.source)
+        : SoftwareShaders.fragmentShader(object.source);
+    object.infoLog = object.stage != null ? ""
+        : "SoftwareGL only implements the shaders in res/raw";
+  }
+
+  @Override public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+    final ShaderObject object = mShaders.get(shader);
+    params[offset] = object != null && object.stage != null ? 1 : 0;
+  }
+
+  @Override public String glGetShaderInfoLog(int shader) {
+    final ShaderObject object = mShaders.get(shader);
+    return object != null ? object.infoLog : "";
+  }
+
+  @Override public void glDeleteShader(int shader) {
+    mShaders.remove(shader);
+  }
+
+  @Override public int glCreateProgram() {
+    final int program = mNextName++;
+    mPrograms.put(program, new Program());
+    return program;
+  }
+
+  @Override public void glAttachShader(int program, int shader) {
+    mPrograms.get(program).shaders.add(shader);
+  }
+
+  @Override public void glLinkProgram(int program) {
+    final Program object = mPrograms.get(program);
+    object.linked = false;
+    SoftwareShaders.Vertex vertex = null;
+    SoftwareShaders.Fragment fragment = null;
+    for (Integer shader : object.shaders) {
+      final ShaderObject shaderObject = mShaders.get(shader);
+      if (shaderObject == null) {
+        continue;
+      }
+      if (shaderObject.stage instanceof SoftwareShaders.Vertex) {
+        vertex = (SoftwareShaders.Vertex) shaderObject.stage;
+      } else if (shaderObject.stage instanceof SoftwareShaders.Fragment) {
+        fragment = (SoftwareShaders.Fragment) shaderObject.stage;
+      }
+    }
+    if (vertex == null || fragment == null) {
+      object.infoLog = "A compiled vertex and fragment shader must be attached";
+      return;
+    }
+
+    // 片元 shader 从第一个 varying 开始读取，必须与顶点 shader 的 varying 一致或不使用 varying
+    final List<String[]> varyings = fragment.variables("varying");
+    if (!varyings.isEmpty() && !sameVariables(varyings, vertex.variables("varying"))) {
+      object.infoLog = "Varyings do not match between shaders";
+      return;
+    }
+    final List<String[]> vertexUniforms = vertex.variables("uniform");
+    final List<String[]> fragmentUniforms = fragment.variables("uniform");
+    for (String[] uniform : fragmentUniforms) {
+      if (indexOf(vertexUniforms, uniform[0]) >= 0) {
+        object.infoLog = "Uniform shared by both shaders is not supported: " + uniform[0];
+        return;
+      }
+    }
+
+    object.vertex = vertex;
+    object.fragment = fragment;
+    object.attributes = vertex.variables("attribute");
+    object.uniforms = new ArrayList<>(vertexUniforms);
+    object.uniforms.addAll(fragmentUniforms);
+    object.uniformValues = new float[object.uniforms.size() * FLOATS_PER_UNIFORM];
+    object.fragmentUniformBase = vertexUniforms.size() * FLOATS_PER_UNIFORM;
+    object.varyingCount = vertex.varyingSize();
+    object.infoLog = "";
+    object.linked = true;
+  }
+
+  private static boolean sameVariables(List<String[]> a, List<String[]> b) {
+    if (a.size() != b.size()) {
+      return false;
+    }
+    for (int i = 0; i < a.size(); i++) {
+      if (!Arrays.equals(a.get(i), b.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int indexOf(List<String[]> variables, String name) {
+    for (int i = 0; i < variables.size(); i++) {
+      if (variables.get(i)[0].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int typeOf(String type) {
+    switch (type) {
+      case "float":
+        return GL_FLOAT;
+      case "vec2":
+        return GL_FLOAT_VEC2;
+      case "vec3":
+        return GL_FLOAT_VEC3;
+      case "vec4":
+        return GL_FLOAT_VEC4;
+      case "mat4":
+        return GL_FLOAT_MAT4;
+      case "sampler2D":
+        return GL_SAMPLER_2D;
+      default:
+        return GL_INT;
+    }
+  }
+
+  private static String activeVariable(List<String[]> variables, int index, int[] size,
+      int sizeOffset, int[] type, int typeOffset) {
+    if (index < 0 || index >= variables.size()) {
+      return "";
+    }
+    final String[] variable = variables.get(index);
+    size[sizeOffset] = 1;
+    type[typeOffset] = typeOf(variable[1]);
+    return variable[0];
+  }
+
+  @Override public void glValidateProgram(int program) {
+  }
+
+  @Override public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+    final Program object = mPrograms.get(program);
+    switch (pname) {
+      case GL_LINK_STATUS:
+        params[offset] = object != null && object.linked ? 1 : 0;
+        break;
+      case GL_VALIDATE_STATUS:
+        params[offset] = object != null && object.linked ? 1 : 0;
+        break;
+      case GL_ACTIVE_ATTRIBUTES:
+        params[offset] = object != null ? object.attributes.size() : 0;
+        break;
+      case GL_ACTIVE_UNIFORMS:
+        params[offset] = object != null ? object.uniforms.size() : 0;
+        break;
+      default:
+        params[offset] = 0;
+        break;
+    }
+  }
+
+  @Override public String glGetProgramInfoLog(int program) {
+    final Program object = mPrograms.get(program);
+    return object != null ? object.infoLog : "";
+  }
+
+  @Override public void glDeleteProgram(int program) {
+    final Program object = mPrograms.remove(program);
+    if (object != null && object == mProgram) {
+      mProgram = null;
+    }
+  }
+
+  @Override public void glUseProgram(int program) {
+    mProgram = program != 0 ? mPrograms.get(program) : null;
+  }
+
+  @Override public int glGetAttribLocation(int program, String name) {
+    return indexOf(mPrograms.get(program).attributes, name);
+  }
+
+  @Override public int glGetUniformLocation(int program, String name) {
+    return indexOf(mPrograms.get(program).uniforms, name);
+  }
+
+  @Override public String glGetActiveAttrib(int program, int index, int[] size, int sizeOffset,
+      int[] type, int typeOffset) {
+    return activeVariable(mPrograms.get(program).attributes, index, size, sizeOffset, type,
+        typeOffset);
+  }
+
+  @Override public String glGetActiveUniform(int program, int index, int[] size, int sizeOffset,
+      int[] type, int typeOffset) {
+    return activeVariable(mPrograms.get(program).uniforms, index, size, sizeOffset, type,
+        typeOffset);
+  }
+
+  @Override public void glGetProgramBinary(int program, int bufSize, int[] length,
+      int lengthOffset, int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+    throw unsupportedEs3();
+  }
+
+  @Override public void glProgramBinary(int program, int binaryFormat, Buffer binary,
+      int length) {
+    throw unsupportedEs3();
+  }
+
+  /**
+   * @return 当前 program 中 location 对应的 uniform 值的位置，location 无效时返回 -1
+   */
+  private int uniformOffset(int location) {
+    if (mProgram == null || location < 0 || location >= mProgram.uniforms.size()) {
+      return -1;
+    }
+    return location * FLOATS_PER_UNIFORM;
+  }
+
+  @Override public void glUniform1i(int location, int x) {
+    final int offset = uniformOffset(location);
+    if (offset >= 0) {
+      mProgram.uniformValues[offset] = x;
+    }
+  }
+
+  @Override public void glUniform4f(int location, float x, float y, float z, float w) {
+    final int offset = uniformOffset(location);
+    if (offset >= 0) {
+      final float[] values = mProgram.uniformValues;
+      values[offset] = x;
+      values[offset + 1] = y;
+      values[offset + 2] = z;
+      values[offset + 3] = w;
+    }
+  }
+
+  @Override public void glUniformMatrix4fv(int location, int count, boolean transpose,
+      float[] value, int offset) {
+    final int uniformOffset = uniformOffset(location);
+    if (uniformOffset >= 0) {
+      System.arraycopy(value, offset, mProgram.uniformValues, uniformOffset,
+          FLOATS_PER_UNIFORM);
+    }
+  }
+
+  @Override public void glGenTextures(int n, int[] textures, int offset) {
+    generateNames(n, textures, offset);
+  }
+
+  @Override public void glDeleteTextures(int n, int[] textures, int offset) {
+    for (int i = 0; i < n; i++) {
+      final SoftwareTexture texture = mTextures.remove(textures[offset + i]);
+      for (int unit = 0; unit < MAX_TEXTURE_UNITS; unit++) {
+        if (texture != null && mUnits[unit] == texture) {
+          mUnits[unit] = null;
+        }
+      }
+    }
+  }
+
+  @Override public void glActiveTexture(int texture) {
+    mActiveUnit = texture - GL_TEXTURE0;
+  }
+
+  @Override public void glBindTexture(int target, int texture) {
+    if (texture == 0) {
+      mUnits[mActiveUnit] = null;
+      return;
+    }
+    SoftwareTexture object = mTextures.get(texture);
+    if (object == null) {
+      object = new SoftwareTexture();
+      mTextures.put(texture, object);
+    }
+    mUnits[mActiveUnit] = object;
+  }
+
+  private SoftwareTexture boundTexture() {
+    final SoftwareTexture texture = mUnits[mActiveUnit];
+    if (texture == null) {
+      throw new IllegalStateException("No texture bound to unit " + mActiveUnit);
+    }
+    return texture;
+  }
+
+  @Override public void glTexParameteri(int target, int pname, int param) {
+    if (pname == GL_TEXTURE_MAG_FILTER) {
+      boundTexture().setMagFilter(param);
+    }
+  }
+
+  @Override public void glTexImage2D(int target, int level, int internalformat, int width,
+      int height, int border, int format, int type, Buffer pixels) {
+    if (format != GL_RGBA || type != GL_UNSIGNED_BYTE) {
+      throw new UnsupportedOperationException("Only GL_RGBA / GL_UNSIGNED_BYTE is supported");
+    }
+    // 只保存第 0 级
+    if (level == 0) {
+      boundTexture().setImage(width, height, pixels);
+    }
+  }
+
+  @Override public void glGenerateMipmap(int target) {
+  }
+}
@@ -0,0 +1,308 @@
+package com.zac4j.opengl.gl;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SoftwareGL 使用的 shader，res/raw 中每个 shader 对应一个 Java 实现
+ *
+ * 编译时从 GLSL 源码中解析 attribute / uniform / varying 声明，与各实现的声明集合比较，
+ * 完全相同时使用该实现；不认识的 shader 编译失败。gl_PointSize 从源码中的常量赋值读取
+ *
+ * 顶点 shader 的 attribute 按声明顺序分配 location，每个 location 占 4 个 float；
+ * program 的 uniform 先排列顶点 shader 的，再排列片元 shader 的，每个 location 占 16 个 float
+ */
+final class SoftwareShaders {
+
+  // 声明，如 "uniform mediump mat4 u_Matrix;"
+  private static final Pattern DECLARATION = Pattern.compile(
+      "\\b(attribute|uniform|varying)\\s+(?:(?:lowp|mediump|highp)\\s+)?(\\w+)\\s+(\\w+)\\s*;");
+  private static final Pattern POINT_SIZE =
+      Pattern.compile("\\bgl_PointSize\\s*=\\s*([0-9]*\\.?[0-9]+)");
+  private static final Pattern COMMENT = Pattern.compile("//[^\\n]*|/\\*.*?\\*/", Pattern.DOTALL);
+
+  // 未写入 gl_PointSize 时的点大小
+  private static final float DEFAULT_POINT_SIZE = 1f;
+
+  static final int FLOATS_PER_ATTRIBUTE = 4;
+  static final int FLOATS_PER_UNIFORM = 16;
+
+  private SoftwareShaders() {
+  }
+
+  /**
+   * shader 的一个阶段，声明格式为 "限定符 类型 名称"
+   */
+  abstract static class Stage {
+
+    final String[] declarations;
+
+    Stage(String... declarations) {
+      this.declarations = declarations;
+    }
+
+    /**
+     * @return 指定限定符的变量，每项为 {名称, 类型}
+     */
+    List<String[]> variables(String qualifier) {
+      final List<String[]> variables = new ArrayList<>();
+      for (String declaration : declarations) {
+        final String[] parts = declaration.split(" ");
+        if (parts[0].equals(qualifier)) {
+          variables.add(new String[] { parts[2], parts[1] });
+        }
+      }
+      return variables;
+    }
+
+    /**
+     * @return varying 占用的 float 数
+     */
+    int varyingSize() {
+      int size = 0;
+      for (String[] varying : variables("varying")) {
+        size += sizeOf(varying[1]);
+      }
+      return size;
+    }
+  }
+
+  abstract static class Vertex extends Stage {
+
+    float pointSize = DEFAULT_POINT_SIZE;
+
+    Vertex(String... declarations) {
+      super(declarations);
+    }
+
+    /**
+     * @param attributes 各 location 的属性值，未提供的分量为 (0, 0, 0, 1) 中对应的值
+     * @param uniforms program 的 uniform 值
+     * @param out 输出裁剪空间坐标 x, y, z, w，随后为 varying
+     * @param offset 输出的起始位置
+     */
+    abstract void shade(float[] attributes, float[] uniforms, float[] out, int offset);
+  }
+
+  abstract static class Fragment extends Stage {
+
+    Fragment(String... declarations) {
+      super(declarations);
+    }
+
+    /**
+     * 可在多个线程中同时调用，不修改任何状态
+     *
+     * @param varyings 插值后的 varying
+     * @param offset varying 的起始位置
+     * @param uniforms program 的 uniform 值
+     * @param base 片元 shader 第一个 uniform 的位置
+     * @param units 各纹理单元绑定的纹理，可能为 null
+     * @return ARGB 颜色
+     */
+    abstract int shade(float[] varyings, int offset, float[] uniforms, int base,
+        SoftwareTexture[] units);
+  }
+
+  /**
+   * 按源码选择顶点 shader 的实现
+   *
+   * @return 不支持时返回 null
+   */
+  static Vertex vertexShader(String source) {
+    final String code = COMMENT.matcher(source).replaceAll("");
+    final Set<String> declarations = parse(code);
+    final Vertex[] candidates = {
+        new SimpleVertex(), new MatrixVertex(), new VaryVertex(), new TextureVertex()
+    };
+    for (Vertex candidate : candidates) {
+      if (matches(candidate, declarations)) {
+        final Matcher matcher = POINT_SIZE.matcher(code);
+        if (matcher.find()) {
+          candidate.pointSize = Float.parseFloat(matcher.group(1));
+        }
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * 按源码选择片元 shader 的实现
+   *
+   * @return 不支持时返回 null
+   */
+  static Fragment fragmentShader(String source) {
+    final Set<String> declarations = parse(COMMENT.matcher(source).replaceAll(""));
+    final Fragment[] candidates = {
+        new UniformColorFragment(), new VaryingColorFragment(), new TextureFragment()
+    };
+    for (Fragment candidate : candidates) {
+      if (matches(candidate, declarations)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  private static Set<String> parse(String code) {
+    final Set<String> declarations = new HashSet<>();
+    final Matcher matcher = DECLARATION.matcher(code);
+    while (matcher.find()) {
+      declarations.add(matcher.group(1) + ' ' + matcher.group(2) + ' ' + matcher.group(3));
+    }
+    return declarations;
+  }
+
+  private static boolean matches(Stage stage, Set<String> declarations) {
+    if (stage.declarations.length != declarations.size()) {
+      return false;
+    }
+    for (String declaration : stage.declarations) {
+      if (!declarations.contains(declaration)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  static int sizeOf(String type) {
+    switch (type) {
+      case "vec2":
+        return 2;
+      case "vec3":
+        return 3;
+      case "vec4":
+        return 4;
+      case "mat4":
+        return 16;
+      default:
+        return 1;
+    }
+  }
+
+  /**
+   * 把 [0, 1] 的颜色分量打包为 ARGB
+   */
+  static int pack(float r, float g, float b, float a) {
+    return (channel(a) << 24) | (channel(r) << 16) | (channel(g) << 8) | channel(b);
+  }
+
+  private static int channel(float value) {
+    if (value <= 0f) {
+      return 0;
+    }
+    if (value >= 1f) {
+      return 255;
+    }
+    return (int) (value * 255f + 0.5f);
+  }
+
+  /**
+   * out = m * (x, y, z, w)，m 按列存储
+   */
+  static void transform(float[] m, int mo, float x, float y, float z, float w, float[] out,
+      int offset) {
+    out[offset] = m[mo] * x + m[mo + 4] * y + m[mo + 8] * z + m[mo + 12] * w;
+    out[offset + 1] = m[mo + 1] * x + m[mo + 5] * y + m[mo + 9] * z + m[mo + 13] * w;
+    out[offset + 2] = m[mo + 2] * x + m[mo + 6] * y + m[mo + 10] * z + m[mo + 14] * w;
+    out[offset + 3] = m[mo + 3] * x + m[mo + 7] * y + m[mo + 11] * z + m[mo + 15] * w;
+  }
+
+  // simple_vertex_shader: gl_Position = u_Matrix * a_Position
+  static final class SimpleVertex extends Vertex {
+
+    SimpleVertex() {
+      super("uniform mat4 u_Matrix", "attribute vec4 a_Position");
+    }
+
+    @Override void shade(float[] a, float[] u, float[] out, int offset) {
+      transform(u, 0, a[0], a[1], a[2], a[3], out, offset);
+    }
+  }
+
+  // matrix_vertex_shader: v_Color = a_Color; gl_Position = u_Matrix * a_Position
+  static final class MatrixVertex extends Vertex {
+
+    MatrixVertex() {
+      super("uniform mat4 u_Matrix", "attribute vec4 a_Position", "attribute vec4 a_Color",
+          "varying vec4 v_Color");
+    }
+
+    @Override void shade(float[] a, float[] u, float[] out, int offset) {
+      transform(u, 0, a[0], a[1], a[2], a[3], out, offset);
+      System.arraycopy(a, FLOATS_PER_ATTRIBUTE, out, offset + 4, 4);
+    }
+  }
+
+  // vary_vertex_shader: v_Color = a_Color; gl_Position = a_Position
+  static final class VaryVertex extends Vertex {
+
+    VaryVertex() {
+      super("attribute vec4 a_Position", "attribute vec4 a_Color", "varying vec4 v_Color");
+    }
+
+    @Override void shade(float[] a, float[] u, float[] out, int offset) {
+      System.arraycopy(a, 0, out, offset, 4);
+      System.arraycopy(a, FLOATS_PER_ATTRIBUTE, out, offset + 4, 4);
+    }
+  }
+
+  // texture_vertex_shader: v_TextureCoordinates = a_TextureCoordinates;
+  // gl_Position = u_Matrix * a_Position
+  static final class TextureVertex extends Vertex {
+
+    TextureVertex() {
+      super("uniform mat4 u_Matrix", "attribute vec4 a_Position",
+          "attribute vec2 a_TextureCoordinates", "varying vec2 v_TextureCoordinates");
+    }
+
+    @Override void shade(float[] a, float[] u, float[] out, int offset) {
+      transform(u, 0, a[0], a[1], a[2], a[3], out, offset);
+      out[offset + 4] = a[FLOATS_PER_ATTRIBUTE];
+      out[offset + 5] = a[FLOATS_PER_ATTRIBUTE + 1];
+    }
+  }
+
+  // simple_fragment_shader: gl_FragColor = u_Color
+  static final class UniformColorFragment extends Fragment {
+
+    UniformColorFragment() {
+      super("uniform vec4 u_Color");
+    }
+
+    @Override int shade(float[] v, int offset, float[] u, int base, SoftwareTexture[] units) {
+      return pack(u[base], u[base + 1], u[base + 2], u[base + 3]);
+    }
+  }
+
+  // vary_fragment_shader: gl_FragColor = v_Color
+  static final class VaryingColorFragment extends Fragment {
+
+    VaryingColorFragment() {
+      super("varying vec4 v_Color");
+    }
+
+    @Override int shade(float[] v, int offset, float[] u, int base, SoftwareTexture[] units) {
+      return pack(v[offset], v[offset + 1], v[offset + 2], v[offset + 3]);
+    }
+  }
+
+  // texture_fragment_shader: gl_FragColor = texture2D(u_TextureUnit, v_TextureCoordinates)
+  static final class TextureFragment extends Fragment {
+
+    TextureFragment() {
+      super("uniform sampler2D u_TextureUnit", "varying vec2 v_TextureCoordinates");
+    }
+
+    @Override int shade(float[] v, int offset, float[] u, int base, SoftwareTexture[] units) {
+      final int unit = (int) u[base];
+      final SoftwareTexture texture = unit >= 0 && unit < units.length ? units[unit] : null;
+      return texture == null ? 0xFF000000 : texture.sample(v[offset], v[offset + 1]);
+    }
+  }
+}
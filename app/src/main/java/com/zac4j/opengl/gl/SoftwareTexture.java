@@ -0,0 +1,107 @@
+package com.zac4j.opengl.gl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+import static com.zac4j.opengl.gl.GL.GL_LINEAR;
+
+/**
+ * SoftwareGL 的纹理对象，像素以 ARGB 保存
+ *
+ * 只有第 0 级，glGenerateMipmap 不生成纹理映射；不计算屏幕空间导数，无法区分放大与缩小，
+ * 采样方式只由放大过滤决定: GL_LINEAR 为双线性，否则为最近点。寻址方式固定为默认的 GL_REPEAT
+ */
+final class SoftwareTexture {
+
+  // 未载入像素时按 GL 规范返回 (0, 0, 0, 1)
+  private static final int INCOMPLETE_COLOR = 0xFF000000;
+
+  private int mWidth;
+  private int mHeight;
+  private int[] mPixels;
+
+  private boolean mBilinear = true;
+
+  void setMagFilter(int filter) {
+    mBilinear = filter == GL_LINEAR;
+  }
+
+  /**
+   * 载入 GL_RGBA / GL_UNSIGNED_BYTE 的像素
+   *
+   * @param pixels 像素数据，为 null 时内容为透明黑色
+   */
+  void setImage(int width, int height, Buffer pixels) {
+    final int[] argb = new int[width * height];
+    if (pixels != null) {
+      if (!(pixels instanceof ByteBuffer)) {
+        throw new UnsupportedOperationException("Texture pixels must be a ByteBuffer");
+      }
+      final ByteBuffer bytes = (ByteBuffer) pixels;
+      int index = bytes.position();
+      for (int i = 0; i < argb.length; i++, index += 4) {
+        final int r = bytes.get(index) & 0xFF;
+        final int g = bytes.get(index + 1) & 0xFF;
+        final int b = bytes.get(index + 2) & 0xFF;
+        final int a = bytes.get(index + 3) & 0xFF;
+        argb[i] = (a << 24) | (r << 16) | (g << 8) | b;
+      }
+    }
+    mWidth = width;
+    mHeight = height;
+    mPixels = argb;
+  }
+
+  /**
+   * 采样，坐标原点为第一行像素的左上角
+   *
+   * @return ARGB 颜色
+   */
+  int sample(float s, float t) {
+    final int[] pixels = mPixels;
+    if (pixels == null || mWidth == 0 || mHeight == 0) {
+      return INCOMPLETE_COLOR;
+    }
+    final int width = mWidth;
+    final int height = mHeight;
+
+    if (!mBilinear) {
+      final int x = wrap((int) Math.floor(s * width), width);
+      final int y = wrap((int) Math.floor(t * height), height);
+      return pixels[y * width + x];
+    }
+
+    // 像素中心位于 (i + 0.5) / size
+    final float u = s * width - 0.5f;
+    final float v = t * height - 0.5f;
+    final int x0 = (int) Math.floor(u);
+    final int y0 = (int) Math.floor(v);
+    final float fx = u - x0;
+    final float fy = v - y0;
+    final int left = wrap(x0, width);
+    final int right = wrap(x0 + 1, width);
+    final int top = wrap(y0, height) * width;
+    final int bottom = wrap(y0 + 1, height) * width;
+
+    final int c00 = pixels[top + left];
+    final int c10 = pixels[top + right];
+    final int c01 = pixels[bottom + left];
+    final int c11 = pixels[bottom + right];
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 8) {
+      final float upper = lerp((c00 >>> shift) & 0xFF, (c10 >>> shift) & 0xFF, fx);
+      final float lower = lerp((c01 >>> shift) & 0xFF, (c11 >>> shift) & 0xFF, fx);
+      result |= ((int) (lerp(upper, lower, fy) + 0.5f)) << shift;
+    }
+    return result;
+  }
+
+  private static float lerp(float a, float b, float t) {
+    return a + (b - a) * t;
+  }
+
+  private static int wrap(int i, int size) {
+    final int r = i % size;
+    return r < 0 ? r + size : r;
+  }
+}
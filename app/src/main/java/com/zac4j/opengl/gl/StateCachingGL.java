@@ -0,0 +1,469 @@
+package com.zac4j.opengl.gl;
+
+import java.nio.Buffer;
+import java.util.Arrays;
+
+/**
+ * 过滤冗余状态切换的 GL 包装实现
+ * 记录当前 program、各纹理单元绑定的纹理、缓冲区绑定、已启用的顶点属性及属性指针，
+ * 与当前状态相同的调用直接丢弃，并统计被丢弃的调用次数
+ * 所有 GL 调用都必须经过此对象，否则缓存的状态会失效，此时应调用 invalidate()
+ */
+public class StateCachingGL implements GL {
+
+  // 状态未知时的占位值
+  private static final int UNKNOWN = -1;
+
+  // 记录状态的顶点属性数量与纹理单元数量，超出部分的调用直接转发
+  private static final int MAX_ATTRIBUTES = 16;
+  private static final int MAX_TEXTURE_UNITS = 16;
+
+  private final GL mDelegate;
+
+  // 当前 program
+  private int mCurrentProgram;
+
+  // 当前活动纹理单元，以及每个单元绑定的 GL_TEXTURE_2D 纹理
+  private int mActiveTexture;
+  private final int[] mBoundTextures = new int[MAX_TEXTURE_UNITS];
+
+  // GL_ARRAY_BUFFER 的绑定延迟提交：mRequestedArrayBuffer 为调用方期望的绑定，
+  // mBoundArrayBuffer 为实际提交给驱动的绑定
+  private int mRequestedArrayBuffer;
+  private int mBoundArrayBuffer;
+  private int mElementArrayBuffer;
+
+  // 已启用的顶点属性，mKnownAttribs 标记哪些位的状态是已知的
+  private int mEnabledAttribs;
+  private int mKnownAttribs;
+
+  // 各顶点属性的指针参数
+  private final boolean[] mAttribValid = new boolean[MAX_ATTRIBUTES];
+  private final int[] mAttribSize = new int[MAX_ATTRIBUTES];
+  private final int[] mAttribType = new int[MAX_ATTRIBUTES];
+  private final boolean[] mAttribNormalized = new boolean[MAX_ATTRIBUTES];
+  private final int[] mAttribStride = new int[MAX_ATTRIBUTES];
+  private final int[] mAttribOffset = new int[MAX_ATTRIBUTES];
+  private final int[] mAttribBuffer = new int[MAX_ATTRIBUTES];
+  private final Buffer[] mAttribClientPointer = new Buffer[MAX_ATTRIBUTES];
+
+  // 被丢弃的调用次数
+  private int mSkippedProgramCalls;
+  private int mSkippedTextureCalls;
+  private int mSkippedBufferBinds;
+  private int mSkippedAttributeCalls;
+
+  public StateCachingGL(GL delegate) {
+    mDelegate = delegate;
+    invalidate();
+  }
+
+  /**
+   * 将所有缓存的状态标记为未知，在 EGL context 重建或有调用绕过此对象后调用
+   */
+  public void invalidate() {
+    mCurrentProgram = UNKNOWN;
+    mActiveTexture = UNKNOWN;
+    Arrays.fill(mBoundTextures, UNKNOWN);
+    mRequestedArrayBuffer = UNKNOWN;
+    mBoundArrayBuffer = UNKNOWN;
+    mElementArrayBuffer = UNKNOWN;
+    mEnabledAttribs = 0;
+    mKnownAttribs = 0;
+    Arrays.fill(mAttribValid, false);
+    Arrays.fill(mAttribClientPointer, null);
+  }
+
+  /**
+   * 清空被丢弃调用的计数，通常在每帧开始时调用
+   */
+  public void resetCounters() {
+    mSkippedProgramCalls = 0;
+    mSkippedTextureCalls = 0;
+    mSkippedBufferBinds = 0;
+    mSkippedAttributeCalls = 0;
+  }
+
+  public int getSkippedProgramCalls() {
+    return mSkippedProgramCalls;
+  }
+
+  public int getSkippedTextureCalls() {
+    return mSkippedTextureCalls;
+  }
+
+  public int getSkippedBufferBinds() {
+    return mSkippedBufferBinds;
+  }
+
+  public int getSkippedAttributeCalls() {
+    return mSkippedAttributeCalls;
+  }
+
+  public int getSkippedCalls() {
+    return mSkippedProgramCalls + mSkippedTextureCalls + mSkippedBufferBinds
+        + mSkippedAttributeCalls;
+  }
+
+  /**
+   * 在依赖 GL_ARRAY_BUFFER 绑定的调用之前提交延迟的绑定
+   */
+  private void flushArrayBuffer() {
+    if (!isArrayBufferPending()) {
+      return;
+    }
+    mBoundArrayBuffer = mRequestedArrayBuffer;
+    mDelegate.glBindBuffer(GL_ARRAY_BUFFER, mBoundArrayBuffer);
+  }
+
+  /**
+   * @return 是否有尚未提交给驱动的 GL_ARRAY_BUFFER 绑定
+   */
+  private boolean isArrayBufferPending() {
+    return mRequestedArrayBuffer != mBoundArrayBuffer && mRequestedArrayBuffer != UNKNOWN;
+  }
+
+  private void recordAttribPointer(int index, int size, int type, boolean normalized, int stride,
+      int offset, Buffer clientPointer) {
+    // 缓冲区绑定未知时无法判断之后的调用是否冗余
+    mAttribValid[index] = clientPointer != null || mBoundArrayBuffer != UNKNOWN;
+    mAttribSize[index] = size;
+    mAttribType[index] = type;
+    mAttribNormalized[index] = normalized;
+    mAttribStride[index] = stride;
+    mAttribOffset[index] = offset;
+    mAttribBuffer[index] = clientPointer == null ? mBoundArrayBuffer : 0;
+    mAttribClientPointer[index] = clientPointer;
+  }
+
+  @Override public void glGenBuffers(int n, int[] buffers, int offset) {
+    mDelegate.glGenBuffers(n, buffers, offset);
+  }
+
+  @Override public void glDeleteBuffers(int n, int[] buffers, int offset) {
+    for (int i = 0; i < n; i++) {
+      final int buffer = buffers[offset + i];
+      // 删除已绑定的缓冲区会使绑定回到 0
+      if (buffer == mBoundArrayBuffer) {
+        mBoundArrayBuffer = 0;
+      }
+      if (buffer == mRequestedArrayBuffer) {
+        mRequestedArrayBuffer = 0;
+      }
+      if (buffer == mElementArrayBuffer) {
+        mElementArrayBuffer = 0;
+      }
+      for (int index = 0; index < MAX_ATTRIBUTES; index++) {
+        if (mAttribBuffer[index] == buffer) {
+          mAttribValid[index] = false;
+        }
+      }
+    }
+    mDelegate.glDeleteBuffers(n, buffers, offset);
+  }
+
+  @Override public void glBindBuffer(int target, int buffer) {
+    if (target == GL_ARRAY_BUFFER) {
+      // 延迟到真正依赖该绑定的调用之前再提交。之前尚未提交的绑定被替换，
+      // 或新的绑定与驱动中的绑定相同时，对应的调用不会到达驱动，计为丢弃
+      if (isArrayBufferPending()) {
+        mSkippedBufferBinds++;
+      }
+      mRequestedArrayBuffer = buffer;
+      if (buffer == mBoundArrayBuffer) {
+        mSkippedBufferBinds++;
+      }
+      return;
+    }
+    if (target == GL_ELEMENT_ARRAY_BUFFER) {
+      if (mElementArrayBuffer == buffer) {
+        mSkippedBufferBinds++;
+        return;
+      }
+      mElementArrayBuffer = buffer;
+    }
+    mDelegate.glBindBuffer(target, buffer);
+  }
+
+  @Override public void glBufferData(int target, int size, Buffer data, int usage) {
+    if (target == GL_ARRAY_BUFFER) {
+      flushArrayBuffer();
+    }
+    mDelegate.glBufferData(target, size, data, usage);
+  }
+
+  @Override public void glBufferSubData(int target, int offset, int size, Buffer data) {
+    if (target == GL_ARRAY_BUFFER) {
+      flushArrayBuffer();
+    }
+    mDelegate.glBufferSubData(target, offset, size, data);
+  }
+
+  @Override public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, int offset) {
+    if (index < MAX_ATTRIBUTES && mAttribValid[index] && mAttribClientPointer[index] == null
+        && mAttribBuffer[index] == mRequestedArrayBuffer && mAttribSize[index] == size
+        && mAttribType[index] == type && mAttribNormalized[index] == normalized
+        && mAttribStride[index] == stride && mAttribOffset[index] == offset) {
+      mSkippedAttributeCalls++;
+      return;
+    }
+    flushArrayBuffer();
+    mDelegate.glVertexAttribPointer(index, size, type, normalized, stride, offset);
+    if (index < MAX_ATTRIBUTES) {
+      recordAttribPointer(index, size, type, normalized, stride, offset, null);
+    }
+  }
+
+  @Override public void glVertexAttribPointer(int index, int size, int type, boolean normalized,
+      int stride, Buffer ptr) {
+    // 客户端数组要求 GL_ARRAY_BUFFER 绑定为 0
+    if (index < MAX_ATTRIBUTES && mAttribValid[index] && mAttribClientPointer[index] == ptr
+        && mRequestedArrayBuffer == 0 && mAttribSize[index] == size && mAttribType[index] == type
+        && mAttribNormalized[index] == normalized && mAttribStride[index] == stride
+        && mAttribOffset[index] == ptr.position()) {
+      mSkippedAttributeCalls++;
+      return;
+    }
+    flushArrayBuffer();
+    mDelegate.glVertexAttribPointer(index, size, type, normalized, stride, ptr);
+    if (index < MAX_ATTRIBUTES) {
+      recordAttribPointer(index, size, type, normalized, stride, ptr.position(), ptr);
+    }
+  }
+
+  @Override public void glEnableVertexAttribArray(int index) {
+    if (index < MAX_ATTRIBUTES) {
+      final int bit = 1 << index;
+      if ((mKnownAttribs & bit) != 0 && (mEnabledAttribs & bit) != 0) {
+        mSkippedAttributeCalls++;
+        return;
+      }
+      mKnownAttribs |= bit;
+      mEnabledAttribs |= bit;
+    }
+    mDelegate.glEnableVertexAttribArray(index);
+  }
+
+  @Override public void glDisableVertexAttribArray(int index) {
+    if (index < MAX_ATTRIBUTES) {
+      final int bit = 1 << index;
+      if ((mKnownAttribs & bit) != 0 && (mEnabledAttribs & bit) == 0) {
+        mSkippedAttributeCalls++;
+        return;
+      }
+      mKnownAttribs |= bit;
+      mEnabledAttribs &= ~bit;
+    }
+    mDelegate.glDisableVertexAttribArray(index);
+  }
+
+  @Override public void glDrawArrays(int mode, int first, int count) {
+    mDelegate.glDrawArrays(mode, first, count);
+  }
+
+  @Override public void glDrawElements(int mode, int count, int type, Buffer indices) {
+    mDelegate.glDrawElements(mode, count, type, indices);
+  }
+
+  @Override public void glDrawElements(int mode, int count, int type, int offset) {
+    mDelegate.glDrawElements(mode, count, type, offset);
+  }
+
+  @Override public void glDrawArraysInstanced(int mode, int first, int count, int instanceCount) {
+    mDelegate.glDrawArraysInstanced(mode, first, count, instanceCount);
+  }
+
+  @Override public void glDrawElementsInstanced(int mode, int count, int type, Buffer indices,
+      int instanceCount) {
+    mDelegate.glDrawElementsInstanced(mode, count, type, indices, instanceCount);
+  }
+
+  @Override public void glDrawElementsInstanced(int mode, int count, int type, int offset,
+      int instanceCount) {
+    mDelegate.glDrawElementsInstanced(mode, count, type, offset, instanceCount);
+  }
+
+  @Override public void glVertexAttribDivisor(int index, int divisor) {
+    mDelegate.glVertexAttribDivisor(index, divisor);
+  }
+
+  @Override public void glClear(int mask) {
+    mDelegate.glClear(mask);
+  }
+
+  @Override public void glClearColor(float red, float green, float blue, float alpha) {
+    mDelegate.glClearColor(red, green, blue, alpha);
+  }
+
+  @Override public void glViewport(int x, int y, int width, int height) {
+    mDelegate.glViewport(x, y, width, height);
+  }
+
+  @Override public String glGetString(int name) {
+    return mDelegate.glGetString(name);
+  }
+
+  @Override public void glGetIntegerv(int pname, int[] params, int offset) {
+    mDelegate.glGetIntegerv(pname, params, offset);
+  }
+
+  @Override public int glCreateShader(int type) {
+    return mDelegate.glCreateShader(type);
+  }
+
+  @Override public void glShaderSource(int shader, String string) {
+    mDelegate.glShaderSource(shader, string);
+  }
+
+  @Override public void glCompileShader(int shader) {
+    mDelegate.glCompileShader(shader);
+  }
+
+  @Override public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+    mDelegate.glGetShaderiv(shader, pname, params, offset);
+  }
+
+  @Override public String glGetShaderInfoLog(int shader) {
+    return mDelegate.glGetShaderInfoLog(shader);
+  }
+
+  @Override public void glDeleteShader(int shader) {
+    mDelegate.glDeleteShader(shader);
+  }
+
+  @Override public int glCreateProgram() {
+    return mDelegate.glCreateProgram();
+  }
+
+  @Override public void glAttachShader(int program, int shader) {
+    mDelegate.glAttachShader(program, shader);
+  }
+
+  @Override public void glLinkProgram(int program) {
+    mDelegate.glLinkProgram(program);
+  }
+
+  @Override public void glValidateProgram(int program) {
+    mDelegate.glValidateProgram(program);
+  }
+
+  @Override public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+    mDelegate.glGetProgramiv(program, pname, params, offset);
+  }
+
+  @Override public String glGetProgramInfoLog(int program) {
+    return mDelegate.glGetProgramInfoLog(program);
+  }
+
+  @Override public void glDeleteProgram(int program) {
+    if (program == mCurrentProgram) {
+      mCurrentProgram = UNKNOWN;
+    }
+    mDelegate.glDeleteProgram(program);
+  }
+
+  @Override public void glUseProgram(int program) {
+    if (program == mCurrentProgram) {
+      mSkippedProgramCalls++;
+      return;
+    }
+    mCurrentProgram = program;
+    mDelegate.glUseProgram(program);
+  }
+
+  @Override public int glGetAttribLocation(int program, String name) {
+    return mDelegate.glGetAttribLocation(program, name);
+  }
+
+  @Override public int glGetUniformLocation(int program, String name) {
+    return mDelegate.glGetUniformLocation(program, name);
+  }
+
+  @Override public String glGetActiveAttrib(int program, int index, int[] size, int sizeOffset,
+      int[] type, int typeOffset) {
+    return mDelegate.glGetActiveAttrib(program, index, size, sizeOffset, type, typeOffset);
+  }
+
+  @Override public String glGetActiveUniform(int program, int index, int[] size, int sizeOffset,
+      int[] type, int typeOffset) {
+    return mDelegate.glGetActiveUniform(program, index, size, sizeOffset, type, typeOffset);
+  }
+
+  @Override public void glGetProgramBinary(int program, int bufSize, int[] length,
+      int lengthOffset, int[] binaryFormat, int binaryFormatOffset, Buffer binary) {
+    mDelegate.glGetProgramBinary(program, bufSize, length, lengthOffset, binaryFormat,
+        binaryFormatOffset, binary);
+  }
+
+  @Override public void glProgramBinary(int program, int binaryFormat, Buffer binary,
+      int length) {
+    mDelegate.glProgramBinary(program, binaryFormat, binary, length);
+  }
+
+  @Override public void glUniform1i(int location, int x) {
+    mDelegate.glUniform1i(location, x);
+  }
+
+  @Override public void glUniform4f(int location, float x, float y, float z, float w) {
+    mDelegate.glUniform4f(location, x, y, z, w);
+  }
+
+  @Override public void glUniformMatrix4fv(int location, int count, boolean transpose,
+      float[] value, int offset) {
+    mDelegate.glUniformMatrix4fv(location, count, transpose, value, offset);
+  }
+
+  @Override public void glGenTextures(int n, int[] textures, int offset) {
+    mDelegate.glGenTextures(n, textures, offset);
+  }
+
+  @Override public void glDeleteTextures(int n, int[] textures, int offset) {
+    for (int i = 0; i < n; i++) {
+      final int texture = textures[offset + i];
+      for (int unit = 0; unit < MAX_TEXTURE_UNITS; unit++) {
+        if (mBoundTextures[unit] == texture) {
+          mBoundTextures[unit] = UNKNOWN;
+        }
+      }
+    }
+    mDelegate.glDeleteTextures(n, textures, offset);
+  }
+
+  @Override public void glActiveTexture(int texture) {
+    if (texture == mActiveTexture) {
+      mSkippedTextureCalls++;
+      return;
+    }
+    mActiveTexture = texture;
+    mDelegate.glActiveTexture(texture);
+  }
+
+  @Override public void glBindTexture(int target, int texture) {
+    final int unit = mActiveTexture == UNKNOWN ? UNKNOWN : mActiveTexture - GL_TEXTURE0;
+    if (target != GL_TEXTURE_2D || unit < 0 || unit >= MAX_TEXTURE_UNITS) {
+      mDelegate.glBindTexture(target, texture);
+      return;
+    }
+    if (mBoundTextures[unit] == texture) {
+      mSkippedTextureCalls++;
+      return;
+    }
+    mBoundTextures[unit] = texture;
+    mDelegate.glBindTexture(target, texture);
+  }
+
+  @Override public void glTexParameteri(int target, int pname, int param) {
+    mDelegate.glTexParameteri(target, pname, param);
+  }
+
+  @Override public void glTexImage2D(int target, int level, int internalformat, int width,
+      int height, int border, int format, int type, Buffer pixels) {
+    mDelegate.glTexImage2D(target, level, internalformat, width, height, border, format, type,
+        pixels);
+  }
+
+  @Override public void glGenerateMipmap(int target) {
+    mDelegate.glGenerateMipmap(target);
+  }
+}
@@ -0,0 +1,617 @@
+package com.zac4j.opengl.gl;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SoftwareGL 的光栅化器，把帧缓冲区划分为 TILE_SIZE 见方的 tile 并行光栅化
+ *
+ * 每次绘制先在调用线程完成裁剪、透视除法与视口变换，把图元按包围盒分到各 tile 的列表中；
+ * end 时各线程领取非空的 tile，按提交顺序光栅化其中的图元。不同 tile 的像素互不重叠，
+ * 同一 tile 内保持绘制顺序，结果与单线程相同。end 返回前等待所有 tile 完成，
+ * 调用者随后可以修改 uniform 与纹理
+ *
+ * 三角形使用边函数与左上填充规则，varying 按透视校正插值；线段每像素一步，不含终点；
+ * 点为以顶点为中心的正方形。只裁剪近平面，其余方向由视口范围截断。
+ * 没有深度测试、混合与面剔除，与项目使用的 ES 2.0 状态一致
+ */
+final class TileRasterizer {
+
+  static final int TILE_SHIFT = 6;
+  static final int TILE_SIZE = 1 << TILE_SHIFT;
+
+  private static final int KIND_TRIANGLE = 0;
+  private static final int KIND_LINE = 1;
+  private static final int KIND_POINT = 2;
+
+  // 图元头部: 种类、点大小、像素包围盒 x0, y0, x1, y1
+  private static final int HEADER_SIZE = 6;
+
+  // 裁剪平面 w > W_EPSILON，避免透视除法时除以接近 0 的数
+  private static final float W_EPSILON = 1e-5f;
+  private static final int MAX_CLIP_VERTICES = 8;
+
+  private final int mThreadCount;
+  private final ExecutorService mExecutor;
+  private final Worker[] mWorkers;
+
+  // ARGB，第一行为屏幕顶部
+  private int mWidth;
+  private int mHeight;
+  private int[] mColor = new int[0];
+
+  // 视口，窗口坐标，原点在左下角
+  private int mViewportX;
+  private int mViewportY;
+  private int mViewportWidth;
+  private int mViewportHeight;
+
+  // 每个 tile 的图元列表，元素为图元在 mPrims 中的位置
+  private int mTilesX;
+  private int mTilesY;
+  private int[][] mBins = new int[0][];
+  private int[] mBinCounts = new int[0];
+
+  // 本次绘制中非空的 tile
+  private int[] mActiveTiles = new int[0];
+  private int mActiveCount;
+  private final AtomicInteger mNextTile = new AtomicInteger();
+
+  // 尚未完成的辅助线程数，由 mLock 保护；end 在 mLock 上等待其降为 0，每次绘制复用
+  private final Object mLock = new Object();
+  private int mPendingHelpers;
+
+  // 本次绘制的状态
+  private SoftwareShaders.Fragment mFragment;
+  private float[] mUniforms;
+  private int mUniformBase;
+  private SoftwareTexture[] mUnits;
+  private int mVaryingCount;
+
+  // 窗口空间的图元，每个顶点为 x, y, 1/w 与除以 w 的 varying
+  private float[] mPrims = new float[1024];
+  private int mPrimSize;
+
+  // 近平面裁剪的临时多边形
+  private float[] mClipA = new float[0];
+  private float[] mClipB = new float[0];
+
+  /**
+   * @param threadCount 光栅化线程数，包括调用线程
+   */
+  TileRasterizer(int threadCount) {
+    mThreadCount = Math.max(1, threadCount);
+    mExecutor = mThreadCount > 1 ? Executors.newFixedThreadPool(mThreadCount - 1,
+        new ThreadFactory() {
+          private final AtomicInteger mCount = new AtomicInteger();
+
+          @Override public Thread newThread(Runnable runnable) {
+            final Thread thread =
+                new Thread(runnable, "TileRasterizer-" + mCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        }) : null;
+    mWorkers = new Worker[mThreadCount];
+    for (int i = 0; i < mThreadCount; i++) {
+      mWorkers[i] = new Worker();
+    }
+  }
+
+  void setSize(int width, int height) {
+    mWidth = width;
+    mHeight = height;
+    mColor = new int[width * height];
+    mTilesX = (width + TILE_SIZE - 1) >> TILE_SHIFT;
+    mTilesY = (height + TILE_SIZE - 1) >> TILE_SHIFT;
+    final int tileCount = mTilesX * mTilesY;
+    mBins = new int[tileCount][];
+    for (int i = 0; i < tileCount; i++) {
+      mBins[i] = new int[16];
+    }
+    mBinCounts = new int[tileCount];
+    mActiveTiles = new int[tileCount];
+    mActiveCount = 0;
+    setViewport(0, 0, width, height);
+  }
+
+  void setViewport(int x, int y, int width, int height) {
+    mViewportX = x;
+    mViewportY = y;
+    mViewportWidth = width;
+    mViewportHeight = height;
+  }
+
+  int getWidth() {
+    return mWidth;
+  }
+
+  int getHeight() {
+    return mHeight;
+  }
+
+  int[] getColorBuffer() {
+    return mColor;
+  }
+
+  void clear(int argb) {
+    Arrays.fill(mColor, argb);
+  }
+
+  /**
+   * 开始一次绘制
+   *
+   * @param varyingCount 顶点数据中位置之后的 varying 个数
+   */
+  void begin(SoftwareShaders.Fragment fragment, float[] uniforms, int uniformBase,
+      SoftwareTexture[] units, int varyingCount) {
+    mFragment = fragment;
+    mUniforms = uniforms;
+    mUniformBase = uniformBase;
+    mUnits = units;
+    mVaryingCount = varyingCount;
+    mPrimSize = 0;
+    final int clipSize = MAX_CLIP_VERTICES * (4 + varyingCount);
+    if (mClipA.length < clipSize) {
+      mClipA = new float[clipSize];
+      mClipB = new float[clipSize];
+    }
+  }
+
+  /**
+   * 提交三角形，顶点为裁剪空间坐标 x, y, z, w 与 varying
+   *
+   * @param v 顶点数据
+   * @param a 第一个顶点的位置，以下同
+   */
+  void triangle(float[] v, int a, int b, int c) {
+    final int stride = 4 + mVaryingCount;
+    if (inside(v, a) && inside(v, b) && inside(v, c)) {
+      setupTriangle(v, a, v, b, v, c);
+      return;
+    }
+
+    System.arraycopy(v, a, mClipA, 0, stride);
+    System.arraycopy(v, b, mClipA, stride, stride);
+    System.arraycopy(v, c, mClipA, stride * 2, stride);
+    int count = clip(mClipA, 3, mClipB, 0);
+    count = clip(mClipB, count, mClipA, 1);
+    for (int i = 2; i < count; i++) {
+      setupTriangle(mClipA, 0, mClipA, (i - 1) * stride, mClipA, i * stride);
+    }
+  }
+
+  void line(float[] v, int a, int b) {
+    final int stride = 4 + mVaryingCount;
+    if (inside(v, a) && inside(v, b)) {
+      setupLine(v, a, v, b);
+      return;
+    }
+    // 参数化裁剪: 每个平面收缩线段的参数区间 [t0, t1]，区间为空时整条线段在外侧
+    float t0 = 0f;
+    float t1 = 1f;
+    for (int plane = 0; plane < 2; plane++) {
+      final float da = distance(v, a, plane);
+      final float db = distance(v, b, plane);
+      if (da < 0f && db < 0f) {
+        return;
+      }
+      if (da < 0f) {
+        t0 = Math.max(t0, da / (da - db));
+      } else if (db < 0f) {
+        t1 = Math.min(t1, da / (da - db));
+      }
+    }
+    if (t0 >= t1) {
+      return;
+    }
+    interpolate(v, a, b, t0, mClipA, 0);
+    interpolate(v, a, b, t1, mClipA, stride);
+    setupLine(mClipA, 0, mClipA, stride);
+  }
+
+  void point(float[] v, int a, float size) {
+    if (!inside(v, a)) {
+      return;
+    }
+    final int o = beginPrim(KIND_POINT, 1);
+    final int vertex = o + HEADER_SIZE;
+    writeVertex(v, a, vertex);
+    mPrims[o + 1] = size;
+    final float x = mPrims[vertex];
+    final float y = mPrims[vertex + 1];
+    final float half = size / 2f;
+    bin(o, (int) Math.ceil(x - half - 0.5f), (int) Math.ceil(y - half - 0.5f),
+        (int) Math.ceil(x + half - 0.5f) - 1, (int) Math.ceil(y + half - 0.5f) - 1);
+  }
+
+  /**
+   * 光栅化本次绘制的所有图元，返回时已全部写入帧缓冲区
+   */
+  void end() {
+    if (mActiveCount == 0) {
+      return;
+    }
+    mNextTile.set(0);
+    final int helpers = Math.min(mThreadCount, mActiveCount) - 1;
+    synchronized (mLock) {
+      mPendingHelpers = helpers;
+    }
+    for (int i = 1; i <= helpers; i++) {
+      mWorkers[i].mHelper = true;
+      mExecutor.execute(mWorkers[i]);
+    }
+    mWorkers[0].mHelper = false;
+    mWorkers[0].run();
+
+    if (helpers > 0) {
+      awaitHelpers();
+    }
+
+    for (int i = 0; i < mActiveCount; i++) {
+      mBinCounts[mActiveTiles[i]] = 0;
+    }
+    mActiveCount = 0;
+
+    for (Worker worker : mWorkers) {
+      final RuntimeException failure = worker.mFailure;
+      if (failure != null) {
+        worker.mFailure = null;
+        throw failure;
+      }
+    }
+  }
+
+  /**
+   * 等待辅助线程完成，它们写入的像素随锁的释放对调用线程可见
+   */
+  private void awaitHelpers() {
+    boolean interrupted = false;
+    synchronized (mLock) {
+      while (mPendingHelpers > 0) {
+        try {
+          mLock.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void helperDone() {
+    synchronized (mLock) {
+      if (--mPendingHelpers == 0) {
+        mLock.notifyAll();
+      }
+    }
+  }
+
+  void release() {
+    if (mExecutor != null) {
+      mExecutor.shutdown();
+    }
+  }
+
+  private static boolean inside(float[] v, int o) {
+    return v[o + 2] + v[o + 3] >= 0f && v[o + 3] > W_EPSILON;
+  }
+
+  // 平面 0: z + w >= 0 (近平面)，平面 1: w > W_EPSILON
+  private static float distance(float[] v, int o, int plane) {
+    return plane == 0 ? v[o + 2] + v[o + 3] : v[o + 3] - W_EPSILON;
+  }
+
+  /**
+   * Sutherland-Hodgman 裁剪
+   *
+   * @return 输出的顶点数
+   */
+  private int clip(float[] src, int count, float[] dst, int plane) {
+    final int stride = 4 + mVaryingCount;
+    int out = 0;
+    for (int i = 0; i < count; i++) {
+      final int current = i * stride;
+      final int previous = ((i + count - 1) % count) * stride;
+      final float dc = distance(src, current, plane);
+      final float dp = distance(src, previous, plane);
+      if ((dc >= 0f) != (dp >= 0f)) {
+        final float t = dp / (dp - dc);
+        final int o = out * stride;
+        for (int k = 0; k < stride; k++) {
+          dst[o + k] = src[previous + k] + (src[current + k] - src[previous + k]) * t;
+        }
+        out++;
+      }
+      if (dc >= 0f) {
+        System.arraycopy(src, current, dst, out * stride, stride);
+        out++;
+      }
+    }
+    return out;
+  }
+
+  /**
+   * 在顶点 a 与 b 之间按参数 t 线性插值，写入 dst
+   */
+  private void interpolate(float[] v, int a, int b, float t, float[] dst, int o) {
+    final int stride = 4 + mVaryingCount;
+    for (int k = 0; k < stride; k++) {
+      dst[o + k] = v[a + k] + (v[b + k] - v[a + k]) * t;
+    }
+  }
+
+  private int beginPrim(int kind, int vertexCount) {
+    final int size = HEADER_SIZE + vertexCount * (3 + mVaryingCount);
+    if (mPrimSize + size > mPrims.length) {
+      mPrims = Arrays.copyOf(mPrims, Math.max(mPrimSize + size, mPrims.length * 2));
+    }
+    final int o = mPrimSize;
+    mPrims[o] = kind;
+    mPrimSize += size;
+    return o;
+  }
+
+  /**
+   * 透视除法与视口变换后写入图元
+   */
+  private void writeVertex(float[] v, int o, int dst) {
+    final float[] prims = mPrims;
+    final float inverseW = 1f / v[o + 3];
+    final float x = v[o] * inverseW;
+    final float y = v[o + 1] * inverseW;
+    prims[dst] = mViewportX + (x + 1f) * 0.5f * mViewportWidth;
+    // 帧缓冲区的第一行在顶部
+    prims[dst + 1] = mHeight - (mViewportY + (y + 1f) * 0.5f * mViewportHeight);
+    prims[dst + 2] = inverseW;
+    for (int k = 0; k < mVaryingCount; k++) {
+      prims[dst + 3 + k] = v[o + 4 + k] * inverseW;
+    }
+  }
+
+  private void setupTriangle(float[] va, int a, float[] vb, int b, float[] vc, int c) {
+    final int vertexSize = 3 + mVaryingCount;
+    final int o = beginPrim(KIND_TRIANGLE, 3);
+    final int v0 = o + HEADER_SIZE;
+    writeVertex(va, a, v0);
+    writeVertex(vb, b, v0 + vertexSize);
+    writeVertex(vc, c, v0 + vertexSize * 2);
+
+    final float[] p = mPrims;
+    final int v1 = v0 + vertexSize;
+    final int v2 = v1 + vertexSize;
+    final float area =
+        (p[v1] - p[v0]) * (p[v2 + 1] - p[v0 + 1]) - (p[v1 + 1] - p[v0 + 1]) * (p[v2] - p[v0]);
+    if (!(Math.abs(area) > 0f) || Float.isInfinite(area)) {
+      mPrimSize = o;
+      return;
+    }
+    // 统一为正面积，光栅化时三条边函数都在内部为正
+    if (area < 0f) {
+      for (int k = 0; k < vertexSize; k++) {
+        final float t = p[v1 + k];
+        p[v1 + k] = p[v2 + k];
+        p[v2 + k] = t;
+      }
+    }
+
+    final float minX = Math.min(p[v0], Math.min(p[v1], p[v2]));
+    final float maxX = Math.max(p[v0], Math.max(p[v1], p[v2]));
+    final float minY = Math.min(p[v0 + 1], Math.min(p[v1 + 1], p[v2 + 1]));
+    final float maxY = Math.max(p[v0 + 1], Math.max(p[v1 + 1], p[v2 + 1]));
+    // 覆盖像素中心的范围
+    bin(o, (int) Math.ceil(minX - 0.5f), (int) Math.ceil(minY - 0.5f),
+        (int) Math.floor(maxX - 0.5f), (int) Math.floor(maxY - 0.5f));
+  }
+
+  private void setupLine(float[] va, int a, float[] vb, int b) {
+    final int vertexSize = 3 + mVaryingCount;
+    final int o = beginPrim(KIND_LINE, 2);
+    final int v0 = o + HEADER_SIZE;
+    final int v1 = v0 + vertexSize;
+    writeVertex(va, a, v0);
+    writeVertex(vb, b, v1);
+    final float[] p = mPrims;
+    bin(o, (int) Math.floor(Math.min(p[v0], p[v1])), (int) Math.floor(Math.min(p[v0 + 1],
+        p[v1 + 1])), (int) Math.floor(Math.max(p[v0], p[v1])),
+        (int) Math.floor(Math.max(p[v0 + 1], p[v1 + 1])));
+  }
+
+  /**
+   * 把像素包围盒截断到视口，加入覆盖的 tile；包围盒为空时撤销图元
+   */
+  private void bin(int o, int x0, int y0, int x1, int y1) {
+    final int left = Math.max(0, mViewportX);
+    final int right = Math.min(mWidth, mViewportX + mViewportWidth) - 1;
+    final int top = Math.max(0, mHeight - (mViewportY + mViewportHeight));
+    final int bottom = Math.min(mHeight, mHeight - mViewportY) - 1;
+    x0 = Math.max(x0, left);
+    y0 = Math.max(y0, top);
+    x1 = Math.min(x1, right);
+    y1 = Math.min(y1, bottom);
+    if (x0 > x1 || y0 > y1) {
+      mPrimSize = o;
+      return;
+    }
+    final float[] p = mPrims;
+    p[o + 2] = x0;
+    p[o + 3] = y0;
+    p[o + 4] = x1;
+    p[o + 5] = y1;
+
+    for (int ty = y0 >> TILE_SHIFT; ty <= y1 >> TILE_SHIFT; ty++) {
+      for (int tx = x0 >> TILE_SHIFT; tx <= x1 >> TILE_SHIFT; tx++) {
+        final int tile = ty * mTilesX + tx;
+        final int count = mBinCounts[tile];
+        if (count == 0) {
+          mActiveTiles[mActiveCount++] = tile;
+        }
+        int[] bin = mBins[tile];
+        if (count == bin.length) {
+          bin = Arrays.copyOf(bin, count * 2);
+          mBins[tile] = bin;
+        }
+        bin[count] = o;
+        mBinCounts[tile] = count + 1;
+      }
+    }
+  }
+
+  /**
+   * 领取并光栅化 tile，每个线程一个，持有自己的插值缓冲区
+   */
+  private final class Worker implements Runnable {
+
+    private float[] mVaryings = new float[16];
+    // 由线程池执行，完成时通知 end
+    boolean mHelper;
+    RuntimeException mFailure;
+
+    @Override public void run() {
+      try {
+        if (mVaryings.length < mVaryingCount) {
+          mVaryings = new float[mVaryingCount];
+        }
+        int index;
+        while ((index = mNextTile.getAndIncrement()) < mActiveCount) {
+          rasterizeTile(mActiveTiles[index]);
+        }
+      } catch (RuntimeException e) {
+        mFailure = e;
+      } finally {
+        if (mHelper) {
+          helperDone();
+        }
+      }
+    }
+
+    private void rasterizeTile(int tile) {
+      final int tileX = (tile % mTilesX) << TILE_SHIFT;
+      final int tileY = (tile / mTilesX) << TILE_SHIFT;
+      final int[] bin = mBins[tile];
+      final int count = mBinCounts[tile];
+      final float[] p = mPrims;
+      for (int i = 0; i < count; i++) {
+        final int o = bin[i];
+        final int x0 = Math.max((int) p[o + 2], tileX);
+        final int y0 = Math.max((int) p[o + 3], tileY);
+        final int x1 = Math.min((int) p[o + 4], tileX + TILE_SIZE - 1);
+        final int y1 = Math.min((int) p[o + 5], tileY + TILE_SIZE - 1);
+        if (x0 > x1 || y0 > y1) {
+          continue;
+        }
+        switch ((int) p[o]) {
+          case KIND_TRIANGLE:
+            rasterizeTriangle(o + HEADER_SIZE, x0, y0, x1, y1);
+            break;
+          case KIND_LINE:
+            rasterizeLine(o + HEADER_SIZE, x0, y0, x1, y1);
+            break;
+          default:
+            rasterizePoint(o + HEADER_SIZE, x0, y0, x1, y1);
+            break;
+        }
+      }
+    }
+
+    private void rasterizeTriangle(int v0, int x0, int y0, int x1, int y1) {
+      final float[] p = mPrims;
+      final int n = mVaryingCount;
+      final int v1 = v0 + 3 + n;
+      final int v2 = v1 + 3 + n;
+      final float ax = p[v0];
+      final float ay = p[v0 + 1];
+      final float bx = p[v1];
+      final float by = p[v1 + 1];
+      final float cx = p[v2];
+      final float cy = p[v2 + 1];
+      final float inverseArea = 1f / ((bx - ax) * (cy - ay) - (by - ay) * (cx - ax));
+
+      // 边函数 E(p) = B * (p.y - a.y) + A * (p.x - a.x)，A 为沿 x 的增量
+      final float a0 = by - cy;
+      final float b0 = cx - bx;
+      final float a1 = cy - ay;
+      final float b1 = ax - cx;
+      final float a2 = ay - by;
+      final float b2 = bx - ax;
+      // 左上填充规则: 像素中心恰好在边上时，只有左边与上边包含该像素
+      final boolean topLeft0 = a0 > 0f || (a0 == 0f && b0 > 0f);
+      final boolean topLeft1 = a1 > 0f || (a1 == 0f && b1 > 0f);
+      final boolean topLeft2 = a2 > 0f || (a2 == 0f && b2 > 0f);
+
+      final int[] color = mColor;
+      final int width = mWidth;
+      final float[] varyings = mVaryings;
+      final SoftwareShaders.Fragment fragment = mFragment;
+      final float[] uniforms = mUniforms;
+      final int uniformBase = mUniformBase;
+      final SoftwareTexture[] units = mUnits;
+
+      for (int y = y0; y <= y1; y++) {
+        final float py = y + 0.5f;
+        final float px = x0 + 0.5f;
+        float e0 = b0 * (py - by) + a0 * (px - bx);
+        float e1 = b1 * (py - cy) + a1 * (px - cx);
+        float e2 = b2 * (py - ay) + a2 * (px - ax);
+        int index = y * width + x0;
+        for (int x = x0; x <= x1; x++, index++, e0 += a0, e1 += a1, e2 += a2) {
+          if ((e0 > 0f || (e0 == 0f && topLeft0)) && (e1 > 0f || (e1 == 0f && topLeft1))
+              && (e2 > 0f || (e2 == 0f && topLeft2))) {
+            if (n > 0) {
+              final float w0 = e0 * inverseArea;
+              final float w1 = e1 * inverseArea;
+              final float w2 = e2 * inverseArea;
+              final float w = 1f / (w0 * p[v0 + 2] + w1 * p[v1 + 2] + w2 * p[v2 + 2]);
+              for (int k = 0; k < n; k++) {
+                varyings[k] = (w0 * p[v0 + 3 + k] + w1 * p[v1 + 3 + k] + w2 * p[v2 + 3 + k]) * w;
+              }
+            }
+            color[index] = fragment.shade(varyings, 0, uniforms, uniformBase, units);
+          }
+        }
+      }
+    }
+
+    private void rasterizeLine(int v0, int x0, int y0, int x1, int y1) {
+      final float[] p = mPrims;
+      final int n = mVaryingCount;
+      final int v1 = v0 + 3 + n;
+      final float dx = p[v1] - p[v0];
+      final float dy = p[v1 + 1] - p[v0 + 1];
+      final int steps = Math.max(1, (int) Math.ceil(Math.max(Math.abs(dx), Math.abs(dy))));
+      for (int i = 0; i < steps; i++) {
+        final float t = (float) i / steps;
+        final int x = (int) Math.floor(p[v0] + dx * t);
+        final int y = (int) Math.floor(p[v0 + 1] + dy * t);
+        if (x < x0 || x > x1 || y < y0 || y > y1) {
+          continue;
+        }
+        if (n > 0) {
+          final float w = 1f / (p[v0 + 2] + (p[v1 + 2] - p[v0 + 2]) * t);
+          for (int k = 0; k < n; k++) {
+            mVaryings[k] = (p[v0 + 3 + k] + (p[v1 + 3 + k] - p[v0 + 3 + k]) * t) * w;
+          }
+        }
+        mColor[y * mWidth + x] = mFragment.shade(mVaryings, 0, mUniforms, mUniformBase, mUnits);
+      }
+    }
+
+    private void rasterizePoint(int v0, int x0, int y0, int x1, int y1) {
+      final float[] p = mPrims;
+      final int n = mVaryingCount;
+      final float w = 1f / p[v0 + 2];
+      for (int k = 0; k < n; k++) {
+        mVaryings[k] = p[v0 + 3 + k] * w;
+      }
+      final int argb = mFragment.shade(mVaryings, 0, mUniforms, mUniformBase, mUnits);
+      for (int y = y0; y <= y1; y++) {
+        Arrays.fill(mColor, y * mWidth + x0, y * mWidth + x1 + 1, argb);
+      }
+    }
+  }
+}
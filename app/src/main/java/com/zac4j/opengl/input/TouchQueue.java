@@ -0,0 +1,218 @@
+package com.zac4j.opengl.input;
+
+/**
+ * 单生产者单消费者的触摸采样环形缓冲区，UI 线程写入，GL 线程每帧取出一次
+ *
+ * 采样保存在基本类型数组中，写入与取出都不创建对象；两端各自只修改自己的下标，
+ * 通过 volatile 的读写保证对方看到完整的采样，不需要加锁。取出时把连续的移动合并为
+ * 最后一次，同时保留最近的移动采样用于估算手指速度
+ *
+ * 缓冲区已满时丢弃新的采样，容量应足以容纳一帧内的所有采样(包括 MotionEvent 的历史采样)
+ */
+public class TouchQueue {
+
+  public static final int ACTION_DOWN = 0;
+  public static final int ACTION_MOVE = 1;
+  public static final int ACTION_UP = 2;
+
+  // 估算速度时使用的时间窗口，毫秒
+  private static final long VELOCITY_WINDOW_MILLIS = 100L;
+  private static final int HISTORY_SIZE = 16;
+
+  /**
+   * 接收取出的事件，在调用 drain 的线程中回调
+   */
+  public interface Listener {
+
+    /**
+     * @param normalizedX x坐标
+     * @param normalizedY y坐标
+     */
+    void onTouchDown(float normalizedX, float normalizedY);
+
+    /**
+     * 两次 drain 之间的多次移动只回调最后一次
+     *
+     * @param normalizedX x坐标
+     * @param normalizedY y坐标
+     */
+    void onTouchMove(float normalizedX, float normalizedY);
+
+    void onTouchUp(float normalizedX, float normalizedY);
+  }
+
+  private final int mMask;
+  private final int[] mActions;
+  private final float[] mX;
+  private final float[] mY;
+  private final long[] mTimes;
+
+  // 生产者写入 mTail，消费者写入 mHead，两者只增不减，溢出后按差值计算仍然正确
+  private volatile int mHead;
+  private volatile int mTail;
+
+  // 只由生产者修改
+  private int mDroppedCount;
+
+  // 当前手势最近的移动采样，只由消费者访问
+  private final float[] mHistoryX = new float[HISTORY_SIZE];
+  private final float[] mHistoryY = new float[HISTORY_SIZE];
+  private final long[] mHistoryTimes = new long[HISTORY_SIZE];
+  private int mHistoryCount;
+  private int mHistoryNext;
+
+  /**
+   * @param capacity 容量，向上取整为 2 的幂
+   */
+  public TouchQueue(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    final int size = Integer.highestOneBit(capacity - 1) << 1;
+    mMask = Math.max(1, size) - 1;
+    mActions = new int[mMask + 1];
+    mX = new float[mMask + 1];
+    mY = new float[mMask + 1];
+    mTimes = new long[mMask + 1];
+  }
+
+  /**
+   * 写入一个采样，只能在生产者线程调用
+   *
+   * @param action ACTION_DOWN / ACTION_MOVE / ACTION_UP
+   * @param normalizedX x坐标
+   * @param normalizedY y坐标
+   * @param timeMillis 采样时间，如 MotionEvent.getEventTime
+   * @return 缓冲区已满时返回 false
+   */
+  public boolean offer(int action, float normalizedX, float normalizedY, long timeMillis) {
+    final int tail = mTail;
+    if (tail - mHead > mMask) {
+      mDroppedCount++;
+      return false;
+    }
+
+    final int index = tail & mMask;
+    mActions[index] = action;
+    mX[index] = normalizedX;
+    mY[index] = normalizedY;
+    mTimes[index] = timeMillis;
+    // 发布采样，消费者读到新的 mTail 时数组中的内容已经可见
+    mTail = tail + 1;
+    return true;
+  }
+
+  /**
+   * 取出所有采样并回调，连续的移动合并为一次，只能在消费者线程调用
+   *
+   * @param listener 回调
+   * @return 取出的采样数量
+   */
+  public int drain(Listener listener) {
+    final int tail = mTail;
+    int head = mHead;
+    final int count = tail - head;
+
+    boolean pendingMove = false;
+    float moveX = 0f;
+    float moveY = 0f;
+
+    for (; head != tail; head++) {
+      final int index = head & mMask;
+      final float x = mX[index];
+      final float y = mY[index];
+
+      switch (mActions[index]) {
+        case ACTION_DOWN:
+          if (pendingMove) {
+            listener.onTouchMove(moveX, moveY);
+            pendingMove = false;
+          }
+          mHistoryCount = 0;
+          addHistory(x, y, mTimes[index]);
+          listener.onTouchDown(x, y);
+          break;
+        case ACTION_MOVE:
+          addHistory(x, y, mTimes[index]);
+          pendingMove = true;
+          moveX = x;
+          moveY = y;
+          break;
+        case ACTION_UP:
+          if (pendingMove) {
+            listener.onTouchMove(moveX, moveY);
+            pendingMove = false;
+          }
+          addHistory(x, y, mTimes[index]);
+          listener.onTouchUp(x, y);
+          break;
+        default:
+          break;
+      }
+    }
+
+    // 回调之后再释放空间，生产者此后才能覆盖这些采样
+    mHead = head;
+
+    if (pendingMove) {
+      listener.onTouchMove(moveX, moveY);
+    }
+    return count;
+  }
+
+  /**
+   * 根据最近 VELOCITY_WINDOW_MILLIS 内的采样估算手指速度，只能在消费者线程调用
+   *
+   * @return x 方向的速度，每秒的标准坐标变化量
+   */
+  public float getVelocityX() {
+    return velocity(mHistoryX);
+  }
+
+  /**
+   * @return y 方向的速度，每秒的标准坐标变化量
+   */
+  public float getVelocityY() {
+    return velocity(mHistoryY);
+  }
+
+  /**
+   * @return 因缓冲区已满被丢弃的采样数量
+   */
+  public int getDroppedCount() {
+    return mDroppedCount;
+  }
+
+  private void addHistory(float x, float y, long timeMillis) {
+    mHistoryX[mHistoryNext] = x;
+    mHistoryY[mHistoryNext] = y;
+    mHistoryTimes[mHistoryNext] = timeMillis;
+    mHistoryNext = (mHistoryNext + 1) % HISTORY_SIZE;
+    mHistoryCount = Math.min(mHistoryCount + 1, HISTORY_SIZE);
+  }
+
+  private float velocity(float[] values) {
+    if (mHistoryCount < 2) {
+      return 0f;
+    }
+
+    final int newest = (mHistoryNext + HISTORY_SIZE - 1) % HISTORY_SIZE;
+    final long newestTime = mHistoryTimes[newest];
+
+    // 在时间窗口内找到最早的采样
+    int oldest = newest;
+    for (int i = 1; i < mHistoryCount; i++) {
+      final int index = (newest + HISTORY_SIZE - i) % HISTORY_SIZE;
+      if (newestTime - mHistoryTimes[index] > VELOCITY_WINDOW_MILLIS) {
+        break;
+      }
+      oldest = index;
+    }
+
+    final long elapsed = newestTime - mHistoryTimes[oldest];
+    if (elapsed <= 0L) {
+      return 0f;
+    }
+    return (values[newest] - values[oldest]) * 1000f / elapsed;
+  }
+}
@@ -0,0 +1,86 @@
+package com.zac4j.opengl.object;
+
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.render.InstanceBatch;
+import com.zac4j.opengl.util.Geometry;
+
+/**
+ * 带 LOD 链的网格，保留每一级合并后的三角形列表，用于创建实例化批次
+ * 由 Mallet 与 Puck 创建
+ */
+public class LodMesh {
+
+  // 每一级的顶点与索引，由细到粗
+  private final float[][] mLodVertexData;
+  private final short[][] mLodIndexData;
+  // 每一级的最大弓形高，模型坐标
+  private final float[] mLodErrors;
+  private final Geometry.Bounds mBounds;
+  private final GL mGL;
+
+  /**
+   * @param lods 每一级合并为单个三角形列表的网格，由细到粗
+   * @param lodErrors 每一级的最大弓形高，与 lods 一一对应
+   */
+  LodMesh(GL gl, ObjectBuilder.GeneratedData[] lods, float[] lodErrors) {
+    if (lods.length == 0 || lods.length != lodErrors.length) {
+      throw new IllegalArgumentException(
+          lods.length + " LODs with " + lodErrors.length + " errors");
+    }
+
+    mLodVertexData = new float[lods.length][];
+    mLodIndexData = new short[lods.length][];
+    for (int i = 0; i < lods.length; i++) {
+      mLodVertexData[i] = lods[i].vertexData;
+      mLodIndexData[i] = lods[i].indexData;
+    }
+    mLodErrors = lodErrors;
+    mBounds = ObjectBuilder.lodBounds(lods);
+    mGL = gl;
+  }
+
+  /**
+   * 获取网格在模型坐标中的包围体
+   * @return 包围体
+   */
+  public Geometry.Bounds getBounds() {
+    return mBounds;
+  }
+
+  /**
+   * 用最精细一级的网格创建实例化批次，多个物体只需一次绘制调用
+   * @param maxInstances 最大实例数量
+   * @param instanced true 使用 ES 3.0 实例化绘制，false 使用 ES 2.0 回退模式
+   * @return 实例化批次
+   */
+  public InstanceBatch createInstanceBatch(int maxInstances, boolean instanced) {
+    return createInstanceBatch(maxInstances, instanced, 0);
+  }
+
+  /**
+   * 用指定 LOD 级别的网格创建实例化批次
+   * @param maxInstances 最大实例数量
+   * @param instanced true 使用 ES 3.0 实例化绘制，false 使用 ES 2.0 回退模式
+   * @param lod LOD 级别，0 为最精细
+   * @return 实例化批次
+   */
+  public InstanceBatch createInstanceBatch(int maxInstances, boolean instanced, int lod) {
+    return new InstanceBatch(mGL, mLodVertexData[lod], mLodIndexData[lod], maxInstances,
+        instanced);
+  }
+
+  /**
+   * @return LOD 级数，至少为 1
+   */
+  public int getLodCount() {
+    return mLodErrors.length;
+  }
+
+  /**
+   * 获取每一级的几何误差，用于 LodSelector 按屏幕误差选择级别
+   * @return 每一级的最大弓形高，模型坐标，由小到大
+   */
+  public float[] getLodErrors() {
+    return mLodErrors.clone();
+  }
+}
@@ -1,44 +1,40 @@
 package com.zac4j.opengl.object;
 
-import com.zac4j.opengl.data.VertexArray;
-import com.zac4j.opengl.program.ColorShaderProgram;
+import com.zac4j.opengl.gl.GL;
 import com.zac4j.opengl.util.Geometry;
-import java.util.List;
 
 /**
- * 棒槌类
+ * 棒槌类，创建以原点为底面中心的棒槌网格
  * Created by zac on 16-9-22.
  */
 
-public class Mallet {
+public final class Mallet {
 
-  private static final int POSITION_COMPONENT_COUNT = 3;
+  private static final Geometry.Point ORIGIN = new Geometry.Point(0f, 0f, 0f);
 
-  public final float radius;
-  public final float height;
-
-  private final VertexArray mVertexArray;
-  private final List<ObjectBuilder.DrawCommand> mDrawList;
-
-  public Mallet(float radius, float height, int numPoints) {
-    ObjectBuilder.GeneratedData generatedData =
-        ObjectBuilder.createMallet(new Geometry.Point(0f, 0f, 0f), radius, height, numPoints);
-
-    this.radius = radius;
-    this.height = height;
-
-    mVertexArray = new VertexArray(generatedData.vertexData);
-    mDrawList = generatedData.drawList;
+  private Mallet() {
   }
 
-  public void bindData(ColorShaderProgram colorProgram) {
-    mVertexArray.setVertexAttributePointer(0, colorProgram.getPositionAttributeLocation(),
-        POSITION_COMPONENT_COUNT, 0);
+  /**
+   * 固定细分的棒槌，只有一级
+   * @param numPoints 圆周点的数量
+   */
+  public static LodMesh create(GL gl, float radius, float height, int numPoints) {
+    // 合并为单个三角形列表，每个棒槌只需一次绘制调用
+    return new LodMesh(gl, new ObjectBuilder.GeneratedData[] {
+        ObjectBuilder.createMallet(ORIGIN, radius, height, numPoints, true)
+    }, new float[] { ObjectBuilder.chordError(radius, numPoints) });
   }
 
-  public void draw() {
-    for (ObjectBuilder.DrawCommand drawCommand : mDrawList) {
-      drawCommand.draw();
-    }
+  /**
+   * 按误差细分的棒槌，带 LOD 链
+   * @param maxChordError 最精细一级允许的最大弓形高，模型坐标
+   * @param maxLodCount 最多的 LOD 级数
+   */
+  public static LodMesh create(GL gl, float radius, float height, float maxChordError,
+      int maxLodCount) {
+    return new LodMesh(gl,
+        ObjectBuilder.createMalletLods(ORIGIN, radius, height, maxChordError, maxLodCount, true),
+        ObjectBuilder.lodChordErrors(radius, maxChordError, maxLodCount));
   }
 }
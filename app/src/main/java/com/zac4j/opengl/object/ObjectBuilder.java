@@ -2,11 +2,12 @@ package com.zac4j.opengl.object;
 
 import com.zac4j.opengl.util.Geometry;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import static android.opengl.GLES20.GL_TRIANGLE_FAN;
-import static android.opengl.GLES20.GL_TRIANGLE_STRIP;
-import static android.opengl.GLES20.glDrawArrays;
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLES;
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLE_FAN;
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLE_STRIP;
 
 /**
  * Object Builder Class
@@ -14,65 +15,301 @@ import static android.opengl.GLES20.glDrawArrays;
  */
 public class ObjectBuilder {
 
-  static interface DrawCommand {
-    void draw();
+  /**
+   * 索引绘制命令，描述索引数组中的一段图元区间
+   */
+  static class DrawCommand {
+    final int mode;
+    final int firstIndex;
+    final int indexCount;
+
+    DrawCommand(int mode, int firstIndex, int indexCount) {
+      this.mode = mode;
+      this.firstIndex = firstIndex;
+      this.indexCount = indexCount;
+    }
   }
 
   static class GeneratedData {
     final float[] vertexData;
+    final short[] indexData;
     final List<DrawCommand> drawList;
+    // 模型坐标中的包围盒与包围球，用于视锥体剔除
+    final Geometry.Bounds bounds;
 
-    public GeneratedData(float[] vertexData, List<DrawCommand> drawList) {
+    public GeneratedData(float[] vertexData, short[] indexData, List<DrawCommand> drawList) {
       this.vertexData = vertexData;
+      this.indexData = indexData;
       this.drawList = drawList;
+      this.bounds = Geometry.Bounds.of(vertexData, FLOATS_PER_VERTEX);
+    }
+  }
+
+  /**
+   * 已生成的圆环，圆面边缘与圆柱上下边缘重合时共享同一组顶点
+   */
+  private static class Ring {
+    final float x, y, z;
+    final float radius;
+    final int numPoints;
+    final int firstVertex;
+
+    Ring(float x, float y, float z, float radius, int numPoints, int firstVertex) {
+      this.x = x;
+      this.y = y;
+      this.z = z;
+      this.radius = radius;
+      this.numPoints = numPoints;
+      this.firstVertex = firstVertex;
+    }
+
+    boolean matches(float x, float y, float z, float radius, int numPoints) {
+      return this.numPoints == numPoints
+          && Math.abs(this.x - x) <= WELD_EPSILON
+          && Math.abs(this.y - y) <= WELD_EPSILON
+          && Math.abs(this.z - z) <= WELD_EPSILON
+          && Math.abs(this.radius - radius) <= WELD_EPSILON;
     }
   }
 
   // 每个顶点需要三个浮点数表示
   private static final int FLOATS_PER_VERTEX = 3;
 
+  // 索引以无符号 short 保存，顶点数量不能超过此上限
+  private static final int MAX_VERTICES = 1 << 16;
+
+  // 坐标差小于该值的圆环视为同一圆环
+  private static final float WELD_EPSILON = 1e-6f;
+
+  // 按误差选取圆周点数时的范围
+  static final int MIN_NUM_POINTS = 6;
+  static final int MAX_NUM_POINTS = 256;
+
   // 顶点容器
   private final float[] vertexData;
 
+  // 索引容器
+  private final short[] indexData;
+
   // 绘制方法集合
   private final List<DrawCommand> mDrawList = new ArrayList<>();
 
+  // 已生成的圆环
+  private final List<Ring> mRings = new ArrayList<>();
+
   // 追踪下一顶点
   private int offset = 0;
 
+  // 追踪下一索引
+  private int indexOffset = 0;
+
+  // 是否将所有三角扇形和条带合并为一个三角形列表
+  private final boolean mMergeDrawList;
+
   /**
    * ObjectBuilder 构造器
    *
-   * @param sizeInVertices 顶点数量
+   * @param sizeInVertices 顶点数量上限
+   * @param sizeInIndices 索引数量
+   * @param mergeDrawList 是否合并为单个三角形列表
    */
-  private ObjectBuilder(int sizeInVertices) {
+  private ObjectBuilder(int sizeInVertices, int sizeInIndices, boolean mergeDrawList) {
+    if (sizeInVertices > MAX_VERTICES) {
+      throw new IllegalArgumentException(
+          "Too many vertices for unsigned short indices: " + sizeInVertices);
+    }
     vertexData = new float[sizeInVertices * FLOATS_PER_VERTEX];
+    indexData = new short[sizeInIndices];
+    mMergeDrawList = mergeDrawList;
   }
 
+  /**
+   * 共享顶点后实际的顶点数量可能小于预估值，这里裁掉多余的空间
+   */
   private GeneratedData build() {
-    return new GeneratedData(vertexData, mDrawList);
+    final float[] vertices = Arrays.copyOf(vertexData, offset);
+    if (mMergeDrawList) {
+      return buildTriangleList(vertices);
+    }
+    return new GeneratedData(vertices, Arrays.copyOf(indexData, indexOffset), mDrawList);
   }
 
   /**
-   * 圆柱上表面的圆由三角扇形构成，三角扇形包含中心的点，圆边上的各点numPoints，以及开始和结束的同一点
+   * 将三角扇形和三角形条带展开为同一个三角形列表，整个物体只需一次绘制调用
+   *
+   * @param vertices 顶点数据
+   * @return 只包含一条 GL_TRIANGLES 绘制命令的构造数据
+   */
+  private GeneratedData buildTriangleList(float[] vertices) {
+    int size = 0;
+    for (DrawCommand drawCommand : mDrawList) {
+      // 扇形和条带的每个索引(除前两个外)都会产生一个三角形
+      size += (drawCommand.indexCount - 2) * 3;
+    }
+
+    final short[] triangles = new short[size];
+    int triangleOffset = 0;
+
+    for (DrawCommand drawCommand : mDrawList) {
+      final int first = drawCommand.firstIndex;
+      final int last = first + drawCommand.indexCount;
+
+      for (int i = first + 2; i < last; i++) {
+        if (drawCommand.mode == GL_TRIANGLE_FAN) {
+          triangles[triangleOffset++] = indexData[first];
+          triangles[triangleOffset++] = indexData[i - 1];
+          triangles[triangleOffset++] = indexData[i];
+        } else if (((i - first) & 1) == 0) {
+          // 条带中偶数个三角形保持原顺序
+          triangles[triangleOffset++] = indexData[i - 2];
+          triangles[triangleOffset++] = indexData[i - 1];
+          triangles[triangleOffset++] = indexData[i];
+        } else {
+          // 奇数个三角形交换前两个顶点，保持与条带相同的环绕方向
+          triangles[triangleOffset++] = indexData[i - 1];
+          triangles[triangleOffset++] = indexData[i - 2];
+          triangles[triangleOffset++] = indexData[i];
+        }
+      }
+    }
+
+    final List<DrawCommand> drawList = new ArrayList<>(1);
+    drawList.add(new DrawCommand(GL_TRIANGLES, 0, triangles.length));
+    return new GeneratedData(vertices, triangles, drawList);
+  }
+
+  /**
+   * 圆面由三角扇形构成，包含中心点以及圆边上的各点numPoints
    *
    * @param numPoints 圆形面上的点数量
-   * @return 绘制圆柱上表面的圆需要的顶点数量
+   * @return 绘制圆面需要的顶点数量上限
    */
   private static int sizeOfCircleInVertices(int numPoints) {
+    return 1 + numPoints;
+  }
+
+  /**
+   * 三角扇形的索引包含中心点，圆边上的各点numPoints，以及重复一次的起始点
+   *
+   * @param numPoints 圆形面上的点数量
+   * @return 绘制圆面需要的索引数量
+   */
+  private static int sizeOfCircleInIndices(int numPoints) {
     return 1 + (numPoints + 1);
   }
 
   /**
-   * 三角形条带
+   * 圆柱侧边由上下两个圆环构成
    *
    * @param numPoints 圆形面上的点数量
-   * @return 绘制圆柱侧边需要的顶点数量
+   * @return 绘制圆柱侧边需要的顶点数量上限
    */
   private static int sizeOfOpenCylinderInVertices(int numPoints) {
+    return numPoints * 2;
+  }
+
+  /**
+   * 三角形条带，首尾两对索引指向同一对顶点以闭合侧边
+   *
+   * @param numPoints 圆形面上的点数量
+   * @return 绘制圆柱侧边需要的索引数量
+   */
+  private static int sizeOfOpenCylinderInIndices(int numPoints) {
     return (numPoints + 1) * 2;
   }
 
+  /**
+   * 用 numPoints 边形近似圆时弦与圆弧之间的最大距离(弓形高) r * (1 - cos(π / n))
+   *
+   * @param radius 半径
+   * @param numPoints 圆周点的数量
+   * @return 最大误差，与半径单位相同
+   */
+  static float chordError(float radius, int numPoints) {
+    return (float) (radius * (1.0 - Math.cos(Math.PI / numPoints)));
+  }
+
+  /**
+   * 满足误差要求的最少圆周点数，限制在 MIN_NUM_POINTS 与 MAX_NUM_POINTS 之间
+   *
+   * @param radius 半径
+   * @param maxChordError 允许的最大弓形高，与半径单位相同
+   * @return 圆周点的数量
+   */
+  static int numPointsForChordError(float radius, float maxChordError) {
+    if (!(maxChordError > 0f)) {
+      return MAX_NUM_POINTS;
+    }
+    if (maxChordError >= radius) {
+      return MIN_NUM_POINTS;
+    }
+    final double numPoints = Math.ceil(Math.PI / Math.acos(1.0 - maxChordError / radius));
+    return (int) Math.max(MIN_NUM_POINTS, Math.min(MAX_NUM_POINTS, numPoints));
+  }
+
+  /**
+   * LOD 链每一级的圆周点数: 第 0 级按误差选取，之后每级减半，不少于 MIN_NUM_POINTS，
+   * 点数相同的级别只保留一个
+   *
+   * @param radius 半径
+   * @param maxChordError 第 0 级允许的最大弓形高
+   * @param maxLodCount 最多的级数
+   * @return 每一级的圆周点数，由细到粗
+   */
+  static int[] lodNumPoints(float radius, float maxChordError, int maxLodCount) {
+    if (maxLodCount <= 0) {
+      throw new IllegalArgumentException("maxLodCount must be positive: " + maxLodCount);
+    }
+    final int[] numPoints = new int[maxLodCount];
+    numPoints[0] = numPointsForChordError(radius, maxChordError);
+    int count = 1;
+    while (count < maxLodCount && numPoints[count - 1] > MIN_NUM_POINTS) {
+      numPoints[count] = Math.max(MIN_NUM_POINTS, numPoints[count - 1] / 2);
+      count++;
+    }
+    return Arrays.copyOf(numPoints, count);
+  }
+
+  /**
+   * LOD 链每一级的实际误差，与 lodNumPoints 的级别一一对应
+   *
+   * @param radius 半径
+   * @param maxChordError 第 0 级允许的最大弓形高
+   * @param maxLodCount 最多的级数
+   * @return 每一级的最大弓形高，由小到大
+   */
+  static float[] lodChordErrors(float radius, float maxChordError, int maxLodCount) {
+    final int[] numPoints = lodNumPoints(radius, maxChordError, maxLodCount);
+    final float[] errors = new float[numPoints.length];
+    for (int i = 0; i < errors.length; i++) {
+      errors[i] = chordError(radius, numPoints[i]);
+    }
+    return errors;
+  }
+
+  /**
+   * LOD 链中所有级别共同的包围体；点数为奇数时圆周的包围盒略有不同，这里包含每一级的顶点
+   *
+   * @param lods 各级的构造数据
+   * @return 包围体
+   */
+  static Geometry.Bounds lodBounds(GeneratedData[] lods) {
+    if (lods.length == 1) {
+      return lods[0].bounds;
+    }
+    int length = 0;
+    for (GeneratedData lod : lods) {
+      length += lod.vertexData.length;
+    }
+    final float[] vertices = new float[length];
+    int offset = 0;
+    for (GeneratedData lod : lods) {
+      System.arraycopy(lod.vertexData, 0, vertices, offset, lod.vertexData.length);
+      offset += lod.vertexData.length;
+    }
+    return Geometry.Bounds.of(vertices, FLOATS_PER_VERTEX);
+  }
+
   /**
    * 创建冰球
    * @param puck 圆柱对象
@@ -80,10 +317,22 @@ public class ObjectBuilder {
    * @return 冰球对象
    */
   static GeneratedData createPuck(Geometry.Cylinder puck, int numPoints) {
+    return createPuck(puck, numPoints, false);
+  }
+
+  /**
+   * 创建冰球
+   * @param puck 圆柱对象
+   * @param numPoints 圆面边缘点的数量
+   * @param mergeDrawList 是否合并为单个三角形列表
+   * @return 冰球对象
+   */
+  static GeneratedData createPuck(Geometry.Cylinder puck, int numPoints, boolean mergeDrawList) {
     // 创建冰球所需的顶点总数
     int size = sizeOfCircleInVertices(numPoints) + sizeOfOpenCylinderInVertices(numPoints);
+    int indices = sizeOfCircleInIndices(numPoints) + sizeOfOpenCylinderInIndices(numPoints);
 
-    ObjectBuilder builder = new ObjectBuilder(size);
+    ObjectBuilder builder = new ObjectBuilder(size, indices, mergeDrawList);
 
     Geometry.Circle puckTop =
         new Geometry.Circle(puck.center.translateY(puck.height / 2.0f), puck.radius);
@@ -94,6 +343,24 @@ public class ObjectBuilder {
     return builder.build();
   }
 
+  /**
+   * 创建冰球的 LOD 链，圆周点数见 lodNumPoints
+   * @param puck 圆柱对象
+   * @param maxChordError 第 0 级允许的最大弓形高
+   * @param maxLodCount 最多的级数
+   * @param mergeDrawList 是否合并为单个三角形列表
+   * @return 每一级的构造数据，由细到粗
+   */
+  static GeneratedData[] createPuckLods(Geometry.Cylinder puck, float maxChordError,
+      int maxLodCount, boolean mergeDrawList) {
+    final int[] numPoints = lodNumPoints(puck.radius, maxChordError, maxLodCount);
+    final GeneratedData[] lods = new GeneratedData[numPoints.length];
+    for (int i = 0; i < lods.length; i++) {
+      lods[i] = createPuck(puck, numPoints[i], mergeDrawList);
+    }
+    return lods;
+  }
+
   /**
    * 创建棒槌(由2个圆柱构成)
    *
@@ -105,9 +372,26 @@ public class ObjectBuilder {
    */
   static GeneratedData createMallet(Geometry.Point center, float radius, float height,
       int numPoints) {
+    return createMallet(center, radius, height, numPoints, false);
+  }
+
+  /**
+   * 创建棒槌(由2个圆柱构成)
+   *
+   * @param center 中心的点
+   * @param radius 半径
+   * @param height 高度
+   * @param numPoints 圆面点的数量
+   * @param mergeDrawList 是否合并为单个三角形列表
+   * @return 棒槌的构造数据
+   */
+  static GeneratedData createMallet(Geometry.Point center, float radius, float height,
+      int numPoints, boolean mergeDrawList) {
     int size = sizeOfCircleInVertices(numPoints) * 2 + sizeOfOpenCylinderInVertices(numPoints) * 2;
+    int indices =
+        sizeOfCircleInIndices(numPoints) * 2 + sizeOfOpenCylinderInIndices(numPoints) * 2;
 
-    ObjectBuilder builder = new ObjectBuilder(size);
+    ObjectBuilder builder = new ObjectBuilder(size, indices, mergeDrawList);
 
     // 底部的圆柱
     float baseHeight = height * 0.25f;
@@ -131,6 +415,27 @@ public class ObjectBuilder {
     return builder.build();
   }
 
+  /**
+   * 创建棒槌的 LOD 链，圆周点数由底座的半径决定，见 lodNumPoints
+   *
+   * @param center 中心的点
+   * @param radius 半径
+   * @param height 高度
+   * @param maxChordError 第 0 级允许的最大弓形高
+   * @param maxLodCount 最多的级数
+   * @param mergeDrawList 是否合并为单个三角形列表
+   * @return 每一级的构造数据，由细到粗
+   */
+  static GeneratedData[] createMalletLods(Geometry.Point center, float radius, float height,
+      float maxChordError, int maxLodCount, boolean mergeDrawList) {
+    final int[] numPoints = lodNumPoints(radius, maxChordError, maxLodCount);
+    final GeneratedData[] lods = new GeneratedData[numPoints.length];
+    for (int i = 0; i < lods.length; i++) {
+      lods[i] = createMallet(center, radius, height, numPoints[i], mergeDrawList);
+    }
+    return lods;
+  }
+
   /**
    *创建圆面绘制数据
    * @param circle 圆面对象
@@ -138,29 +443,21 @@ public class ObjectBuilder {
    */
   private void appendCircle(Geometry.Circle circle, int numPoints) {
 
-    // 绘制圆面的起始位置
-    final int startVertex = offset / FLOATS_PER_VERTEX;
-    // 绘制圆面所需要的顶点数
-    final int numVertices = sizeOfCircleInVertices(numPoints);
+    // 绘制圆面的起始索引
+    final int firstIndex = indexOffset;
 
     // Center point of fan 三角扇形的中心坐标
-    vertexData[offset++] = circle.center.x;
-    vertexData[offset++] = circle.center.y;
-    vertexData[offset++] = circle.center.z;
+    final int centerVertex = appendVertex(circle.center.x, circle.center.y, circle.center.z);
+    final int ringVertex =
+        appendRing(circle.center.x, circle.center.y, circle.center.z, circle.radius, numPoints);
 
+    appendIndex(centerVertex);
     for (int i = 0; i <= numPoints; i++) {
-      float angleInRadians = ((float) i / (float) numPoints) * ((float) Math.PI * 2.0f);
-      // 假设圆位于x-z平面
-      vertexData[offset++] = circle.center.x + circle.radius * ((float) Math.cos(angleInRadians));
-      vertexData[offset++] = circle.center.y;
-      vertexData[offset++] = circle.center.z + circle.radius * ((float) Math.sin(angleInRadians));
+      // 最后一个索引回到起始点，闭合扇形
+      appendIndex(ringVertex + (i % numPoints));
     }
 
-    mDrawList.add(new DrawCommand() {
-      @Override public void draw() {
-        glDrawArrays(GL_TRIANGLE_FAN, startVertex, numVertices);
-      }
-    });
+    mDrawList.add(new DrawCommand(GL_TRIANGLE_FAN, firstIndex, indexOffset - firstIndex));
   }
 
   /**
@@ -170,35 +467,66 @@ public class ObjectBuilder {
    */
   private void appendOpenCylinder(Geometry.Cylinder cylinder, int numPoints) {
 
-    // 绘制圆柱的起始位置
-    final int startVertex = offset / FLOATS_PER_VERTEX;
-    // 绘制圆柱所需要的顶点数
-    final int numVertices = sizeOfOpenCylinderInVertices(numPoints);
+    // 绘制圆柱的起始索引
+    final int firstIndex = indexOffset;
     // 圆柱的底
     final float yStart = cylinder.center.y - (cylinder.height / 2.0f);
     // 圆柱的高
     final float yEnd = cylinder.center.y + (cylinder.height / 2.0f);
 
-    for (int i = 0; i < numPoints; i++) {
-      float angleInRadians = ((float) i / (float) numPoints) * ((float) Math.PI * 2.0f);
+    // 圆柱上边缘通常与顶部圆面的边缘重合，此时直接复用已生成的圆环
+    final int bottomVertex =
+        appendRing(cylinder.center.x, yStart, cylinder.center.z, cylinder.radius, numPoints);
+    final int topVertex =
+        appendRing(cylinder.center.x, yEnd, cylinder.center.z, cylinder.radius, numPoints);
 
-      // 假设圆面位于x-z平面
-      float xPosition = cylinder.center.x + cylinder.radius * ((float) Math.cos(angleInRadians));
-      float zPosition = cylinder.center.z + cylinder.radius * ((float) Math.sin(angleInRadians));
+    for (int i = 0; i <= numPoints; i++) {
+      // 最后一对索引回到起始点，闭合侧边
+      appendIndex(bottomVertex + (i % numPoints));
+      appendIndex(topVertex + (i % numPoints));
+    }
 
-      vertexData[offset++] = xPosition;
-      vertexData[offset++] = yStart;
-      vertexData[offset++] = zPosition;
+    mDrawList.add(new DrawCommand(GL_TRIANGLE_STRIP, firstIndex, indexOffset - firstIndex));
+  }
 
-      vertexData[offset++] = xPosition;
-      vertexData[offset++] = yEnd;
-      vertexData[offset++] = zPosition;
+  /**
+   * 在 x-z 平面上生成圆环顶点，已存在相同圆环时直接返回其起始顶点
+   *
+   * @return 圆环第一个顶点的序号
+   */
+  private int appendRing(float x, float y, float z, float radius, int numPoints) {
+    for (Ring ring : mRings) {
+      if (ring.matches(x, y, z, radius, numPoints)) {
+        return ring.firstVertex;
+      }
     }
 
-    mDrawList.add(new DrawCommand() {
-      @Override public void draw() {
-        glDrawArrays(GL_TRIANGLE_STRIP, startVertex, numVertices);
-      }
-    });
+    final int firstVertex = offset / FLOATS_PER_VERTEX;
+    for (int i = 0; i < numPoints; i++) {
+      float angleInRadians = ((float) i / (float) numPoints) * ((float) Math.PI * 2.0f);
+      // 假设圆位于x-z平面
+      appendVertex(x + radius * ((float) Math.cos(angleInRadians)), y,
+          z + radius * ((float) Math.sin(angleInRadians)));
+    }
+
+    mRings.add(new Ring(x, y, z, radius, numPoints, firstVertex));
+    return firstVertex;
+  }
+
+  /**
+   * 写入一个顶点
+   *
+   * @return 顶点序号
+   */
+  private int appendVertex(float x, float y, float z) {
+    final int vertex = offset / FLOATS_PER_VERTEX;
+    vertexData[offset++] = x;
+    vertexData[offset++] = y;
+    vertexData[offset++] = z;
+    return vertex;
+  }
+
+  private void appendIndex(int vertex) {
+    indexData[indexOffset++] = (short) vertex;
   }
 }
@@ -2,10 +2,10 @@ package com.zac4j.opengl.object;
 
 import com.zac4j.opengl.Constants;
 import com.zac4j.opengl.data.VertexArray;
+import com.zac4j.opengl.gl.GL;
 import com.zac4j.opengl.program.ColorShaderProgram;
 
-import static android.opengl.GLES20.GL_POINTS;
-import static android.opengl.GLES20.glDrawArrays;
+import static com.zac4j.opengl.gl.GL.GL_POINTS;
 
 /**
  * Air Hockey Mallet Class
@@ -28,10 +28,12 @@ public class OldMallet {
       0f, -0.4f, 0f, 0f, 1f, 0f, 0.4f, 1f, 0f, 0f
   };
 
+  private final GL mGL;
   private final VertexArray mVertexArray;
 
-  public OldMallet() {
-    mVertexArray = new VertexArray(VERTEX_DATA);
+  public OldMallet(GL gl) {
+    mGL = gl;
+    mVertexArray = new VertexArray(gl, VERTEX_DATA);
   }
 
   public void bindData(ColorShaderProgram colorProgram) {
@@ -46,7 +48,7 @@ public class OldMallet {
    * 绘制点
    */
   public void draw() {
-    glDrawArrays(GL_POINTS, 0, 2);
+    mGL.glDrawArrays(GL_POINTS, 0, 2);
   }
 
 }
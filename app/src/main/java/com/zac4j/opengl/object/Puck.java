@@ -1,50 +1,41 @@
 package com.zac4j.opengl.object;
 
-import com.zac4j.opengl.data.VertexArray;
-import com.zac4j.opengl.program.ColorShaderProgram;
+import com.zac4j.opengl.gl.GL;
 import com.zac4j.opengl.util.Geometry;
-import java.util.List;
 
 /**
- * 冰球类
+ * 冰球类，创建以原点为底面中心的冰球网格
  * Created by zac on 16-9-22.
  */
 
-public class Puck {
+public final class Puck {
 
-  private static final int POSITION_COMPONENT_COUNT = 3;
+  private static final Geometry.Point ORIGIN = new Geometry.Point(0f, 0f, 0f);
 
-  public final float radius, height;
-
-  private final VertexArray mVertexArray;
-  private final List<ObjectBuilder.DrawCommand> mDrawList;
-
-  public Puck(float height, float radius, int numPoints) {
-    ObjectBuilder.GeneratedData generatedData = ObjectBuilder.createPuck(
-        new Geometry.Cylinder(new Geometry.Point(0f, 0f, 0f), radius, height), numPoints);
-
-    this.radius = radius;
-    this.height = height;
-
-    mVertexArray = new VertexArray(generatedData.vertexData);
-    mDrawList = generatedData.drawList;
+  private Puck() {
   }
 
   /**
-   * 绑定color shader 数据
-   * @param colorProgram color program
+   * 固定细分的冰球，只有一级
+   * @param numPoints 圆周点的数量
    */
-  public void bindData(ColorShaderProgram colorProgram) {
-    mVertexArray.setVertexAttributePointer(0, colorProgram.getPositionAttributeLocation(),
-        POSITION_COMPONENT_COUNT, 0);
+  public static LodMesh create(GL gl, float height, float radius, int numPoints) {
+    return new LodMesh(gl,
+        new ObjectBuilder.GeneratedData[] { ObjectBuilder.createPuck(
+            new Geometry.Cylinder(ORIGIN, radius, height), numPoints, true) },
+        new float[] { ObjectBuilder.chordError(radius, numPoints) });
   }
 
   /**
-   * 绘制冰球
+   * 按误差细分的冰球，带 LOD 链
+   * @param maxChordError 最精细一级允许的最大弓形高，模型坐标
+   * @param maxLodCount 最多的 LOD 级数
    */
-  public void draw() {
-    for (ObjectBuilder.DrawCommand drawCommand : mDrawList) {
-      drawCommand.draw();
-    }
+  public static LodMesh create(GL gl, float height, float radius, float maxChordError,
+      int maxLodCount) {
+    return new LodMesh(gl,
+        ObjectBuilder.createPuckLods(new Geometry.Cylinder(ORIGIN, radius, height),
+            maxChordError, maxLodCount, true),
+        ObjectBuilder.lodChordErrors(radius, maxChordError, maxLodCount));
   }
 }
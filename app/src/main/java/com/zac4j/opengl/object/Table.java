@@ -2,16 +2,19 @@ package com.zac4j.opengl.object;
 
 import com.zac4j.opengl.Constants;
 import com.zac4j.opengl.data.VertexArray;
+import com.zac4j.opengl.data.VertexBuffer;
+import com.zac4j.opengl.gl.GL;
 import com.zac4j.opengl.program.TextureShaderProgram;
+import com.zac4j.opengl.render.Renderable;
+import com.zac4j.opengl.util.TextureAtlas;
 
-import static android.opengl.GLES20.GL_TRIANGLE_FAN;
-import static android.opengl.GLES20.glDrawArrays;
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLE_FAN;
 
 /**
  * Air Hockey Table Class
  * Created by zac on 16-9-8.
  */
-public class Table {
+public class Table implements Renderable<TextureShaderProgram> {
 
   // 位置坐标由两个浮点数组成
   private static final int POSITION_COMPONENT_COUNT = 2;
@@ -23,6 +26,11 @@ public class Table {
   private static final int STRIDE =
       (POSITION_COMPONENT_COUNT + TEXTURE_COORDINATES_COMPONENT_COUNT) * Constants.BYTES_PER_FLOAT;
 
+  // 每个顶点的浮点数个数，以及顶点个数
+  private static final int COMPONENT_COUNT =
+      POSITION_COMPONENT_COUNT + TEXTURE_COORDINATES_COMPONENT_COUNT;
+  private static final int VERTEX_COUNT = 6;
+
   private static final float[] VERTEX_DATA = {
       // 坐标的顺序: X, Y, S, T
 
@@ -31,18 +39,31 @@ public class Table {
       -0.5f, 0.8f, 0f, 0.1f, -0.5f, -0.8f, 0f, 0.9f
   };
 
+  private final GL mGL;
   private final VertexArray mVertexArray;
 
-  public Table() {
+  public Table(GL gl) {
+    mGL = gl;
+    mVertexArray = new VertexBuffer(gl, VERTEX_DATA, GL.GL_STATIC_DRAW);
+  }
 
-    mVertexArray = new VertexArray(VERTEX_DATA);
+  /**
+   * 使用纹理图集中的一块区域作为桌面纹理
+   * @param gl GL 调用接口
+   * @param region 桌面图片在图集中的区域
+   */
+  public Table(GL gl, TextureAtlas.Region region) {
+    mGL = gl;
+    final float[] vertexData = VERTEX_DATA.clone();
+    region.remap(vertexData, POSITION_COMPONENT_COUNT, COMPONENT_COUNT, VERTEX_COUNT);
+    mVertexArray = new VertexBuffer(gl, vertexData, GL.GL_STATIC_DRAW);
   }
 
   /**
    * 绑定数据
    * @param textureProgram 纹理着色对象
    */
-  public void bindData(TextureShaderProgram textureProgram) {
+  @Override public void bindData(TextureShaderProgram textureProgram) {
     mVertexArray.setVertexAttributePointer(0, textureProgram.getPositionAttributeLocation(),
         POSITION_COMPONENT_COUNT, STRIDE);
 
@@ -54,7 +75,7 @@ public class Table {
   /**
    * 绘制三角扇形
    */
-  public void draw() {
-    glDrawArrays(GL_TRIANGLE_FAN, 0, 6);
+  @Override public void draw() {
+    mGL.glDrawArrays(GL_TRIANGLE_FAN, 0, VERTEX_COUNT);
   }
 }
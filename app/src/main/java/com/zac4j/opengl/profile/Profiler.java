@@ -0,0 +1,248 @@
+package com.zac4j.opengl.profile;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+
+/**
+ * 轻量的性能统计，渲染器与各个 helper 把耗时和每帧计数报告到这里
+ *
+ * 计时: long start = Profiler.begin(); ... Profiler.end(Profiler.TIMER_FRAME, start);
+ * 计数: Profiler.count(Profiler.COUNTER_DRAW_CALLS, n)，每帧结束时调用 endFrame
+ *
+ * 每个计时项与计数项保存最近 WINDOW_SIZE 个样本的直方图，可随时得到 p50 / p95 / p99，
+ * 通过 summary 输出为一行日志，或通过 dump 写入文件。未开启时 begin 返回 0，
+ * 其余调用只读取一次开关即返回
+ *
+ * 只统计 CPU 侧的耗时；ES 2.0 / 3.0 核心中没有 GPU 计时查询，GPU 的工作量以绘制调用、
+ * 顶点数与上传量等计数体现
+ */
+public final class Profiler {
+
+  // 计时项
+  public static final int TIMER_FRAME = 0;
+  public static final int TIMER_PHYSICS = 1;
+  public static final int TIMER_SHADER_BUILD = 2;
+  public static final int TIMER_TEXTURE_LOAD = 3;
+  public static final int TIMER_FRAME_INTERVAL = 4;
+  private static final int TIMER_COUNT = 5;
+  private static final String[] TIMER_NAMES = {
+      "frame", "physics", "shaderBuild", "textureLoad", "frameInterval"
+  };
+
+  // 每帧计数项
+  public static final int COUNTER_DRAW_CALLS = 0;
+  public static final int COUNTER_VERTICES = 1;
+  public static final int COUNTER_STATE_CHANGES = 2;
+  public static final int COUNTER_UPLOADS = 3;
+  public static final int COUNTER_UPLOADED_BYTES = 4;
+  public static final int COUNTER_CULLED = 5;
+  private static final int COUNTER_COUNT = 6;
+  private static final String[] COUNTER_NAMES = {
+      "drawCalls", "vertices", "stateChanges", "uploads", "uploadedBytes", "culled"
+  };
+
+  // 滚动窗口的样本数，60 fps 下约 4 秒
+  private static final int WINDOW_SIZE = 256;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static volatile boolean sEnabled;
+
+  // 以下状态都由 Profiler.class 保护，shader 与纹理可能在其他线程上报
+  private static final RollingHistogram[] sTimers = new RollingHistogram[TIMER_COUNT];
+  private static final RollingHistogram[] sCounters = new RollingHistogram[COUNTER_COUNT];
+  // 本帧累计的计数
+  private static final long[] sFrameCounts = new long[COUNTER_COUNT];
+
+  static {
+    for (int i = 0; i < TIMER_COUNT; i++) {
+      sTimers[i] = new RollingHistogram(WINDOW_SIZE);
+    }
+    for (int i = 0; i < COUNTER_COUNT; i++) {
+      sCounters[i] = new RollingHistogram(WINDOW_SIZE);
+    }
+  }
+
+  private Profiler() {
+  }
+
+  public static void setEnabled(boolean enabled) {
+    sEnabled = enabled;
+  }
+
+  public static boolean isEnabled() {
+    return sEnabled;
+  }
+
+  /**
+   * 开始计时
+   *
+   * @return 开始时间，未开启时返回 0
+   */
+  public static long begin() {
+    return sEnabled ? System.nanoTime() : 0L;
+  }
+
+  /**
+   * 结束计时并记录耗时，start 为 0(开始时未开启)时忽略
+   *
+   * @param timer 计时项，TIMER_*
+   * @param start begin 的返回值
+   */
+  public static void end(int timer, long start) {
+    if (!sEnabled || start == 0L) {
+      return;
+    }
+    record(timer, System.nanoTime() - start);
+  }
+
+  /**
+   * 直接记录一个耗时，用于在别处测得的时间，如两帧之间的间隔
+   *
+   * @param timer 计时项，TIMER_*
+   * @param nanos 耗时，纳秒
+   */
+  public static void record(int timer, long nanos) {
+    if (!sEnabled) {
+      return;
+    }
+    synchronized (Profiler.class) {
+      sTimers[timer].record(nanos);
+    }
+  }
+
+  /**
+   * 累加本帧的计数
+   *
+   * @param counter 计数项，COUNTER_*
+   * @param amount 增量
+   */
+  public static void count(int counter, long amount) {
+    if (!sEnabled) {
+      return;
+    }
+    synchronized (Profiler.class) {
+      sFrameCounts[counter] += amount;
+    }
+  }
+
+  /**
+   * 结束一帧，把本帧的计数记入直方图并清零
+   */
+  public static void endFrame() {
+    if (!sEnabled) {
+      return;
+    }
+    synchronized (Profiler.class) {
+      for (int i = 0; i < COUNTER_COUNT; i++) {
+        sCounters[i].record(sFrameCounts[i]);
+        sFrameCounts[i] = 0L;
+      }
+    }
+  }
+
+  /**
+   * 计时项的百分位数
+   *
+   * @param timer 计时项，TIMER_*
+   * @param percentile 0 到 100
+   * @return 耗时，纳秒
+   */
+  public static long timerPercentile(int timer, double percentile) {
+    synchronized (Profiler.class) {
+      return sTimers[timer].percentile(percentile);
+    }
+  }
+
+  /**
+   * 每帧计数的百分位数
+   *
+   * @param counter 计数项，COUNTER_*
+   * @param percentile 0 到 100
+   */
+  public static long counterPercentile(int counter, double percentile) {
+    synchronized (Profiler.class) {
+      return sCounters[counter].percentile(percentile);
+    }
+  }
+
+  /**
+   * 清空所有样本
+   */
+  public static void reset() {
+    synchronized (Profiler.class) {
+      for (RollingHistogram timer : sTimers) {
+        timer.clear();
+      }
+      for (RollingHistogram counter : sCounters) {
+        counter.clear();
+      }
+      for (int i = 0; i < COUNTER_COUNT; i++) {
+        sFrameCounts[i] = 0L;
+      }
+    }
+  }
+
+  /**
+   * 输出为一行，耗时以毫秒计，适合写入日志:
+   * frame[n=256 p50=1.02 p95=2.10 p99=3.50 ms] ... drawCalls[p50=3 p95=3 p99=3] ...
+   * 没有样本的计时项不输出
+   *
+   * @return 统计结果
+   */
+  public static String summary() {
+    final StringBuilder sb = new StringBuilder(256);
+    synchronized (Profiler.class) {
+      for (int i = 0; i < TIMER_COUNT; i++) {
+        final RollingHistogram timer = sTimers[i];
+        if (timer.size() == 0) {
+          continue;
+        }
+        sb.append(TIMER_NAMES[i]).append("[n=").append(timer.size());
+        sb.append(" p50=").append(millis(timer.percentile(50)));
+        sb.append(" p95=").append(millis(timer.percentile(95)));
+        sb.append(" p99=").append(millis(timer.percentile(99)));
+        sb.append(" ms] ");
+      }
+      for (int i = 0; i < COUNTER_COUNT; i++) {
+        final RollingHistogram counter = sCounters[i];
+        if (counter.size() == 0) {
+          continue;
+        }
+        sb.append(COUNTER_NAMES[i]);
+        sb.append("[p50=").append(counter.percentile(50));
+        sb.append(" p95=").append(counter.percentile(95));
+        sb.append(" p99=").append(counter.percentile(99));
+        sb.append("] ");
+      }
+    }
+    return sb.toString().trim();
+  }
+
+  /**
+   * 把统计结果追加到文件，每次一行，行首为时间戳(毫秒)
+   *
+   * @param file 输出文件
+   * @throws IOException 写入失败
+   */
+  public static void dump(File file) throws IOException {
+    final String line = System.currentTimeMillis() + " " + summary() + '\n';
+    final Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), UTF_8);
+    try {
+      writer.write(line);
+    } finally {
+      writer.close();
+    }
+  }
+
+  private static String millis(long nanos) {
+    // 保留两位小数
+    final long hundredths = (nanos + 5000L) / 10000L;
+    final long fraction = hundredths % 100L;
+    return (hundredths / 100L) + (fraction < 10L ? ".0" : ".") + fraction;
+  }
+}
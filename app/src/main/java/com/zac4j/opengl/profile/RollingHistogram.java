@@ -0,0 +1,117 @@
+package com.zac4j.opengl.profile;
+
+import java.util.Arrays;
+
+/**
+ * 最近 N 个样本的直方图，用于估算滚动的百分位数
+ *
+ * 样本按对数分桶: 每个 2 的幂区间再平分为 SUB_BUCKETS 个子桶，相对误差不超过 1/SUB_BUCKETS
+ * (约 3%)；小于 SUB_BUCKETS 的值精确保存。另用环形数组记住每个样本所在的桶，
+ * 窗口满后新样本挤掉最旧的样本。记录与查询都只操作固定大小的基本类型数组，不分配内存
+ *
+ * 桶序号与每个桶的计数都不超过 Short.MAX_VALUE，用 short 保存，每个直方图的计数约 3.7 KB
+ */
+public class RollingHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  // long 的最高位为 62，其后的子桶都不会用到
+  private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final short[] mCounts = new short[BUCKET_COUNT];
+
+  // 窗口内每个样本的桶，按记录顺序循环写入
+  private final short[] mWindow;
+  private int mNext;
+  private int mSize;
+
+  // 最后一个样本
+  private long mLast;
+
+  /**
+   * @param windowSize 窗口大小，1 到 Short.MAX_VALUE
+   */
+  public RollingHistogram(int windowSize) {
+    if (windowSize <= 0 || windowSize > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Window size out of range: " + windowSize);
+    }
+    mWindow = new short[windowSize];
+  }
+
+  /**
+   * 记录一个样本，负数按 0 处理
+   *
+   * @param value 样本值
+   */
+  public void record(long value) {
+    final int bucket = bucketOf(value);
+    if (mSize == mWindow.length) {
+      mCounts[mWindow[mNext]]--;
+    } else {
+      mSize++;
+    }
+    mWindow[mNext] = (short) bucket;
+    mCounts[bucket]++;
+    mNext = (mNext + 1) % mWindow.length;
+    mLast = value;
+  }
+
+  /**
+   * 百分位数，结果为所在桶的上界
+   *
+   * @param percentile 0 到 100
+   * @return 窗口为空时返回 0
+   */
+  public long percentile(double percentile) {
+    if (mSize == 0) {
+      return 0L;
+    }
+    // 第 rank 个样本(从 1 开始)所在的桶
+    final int rank = Math.max(1, (int) Math.ceil(percentile / 100.0 * mSize));
+    int seen = 0;
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      seen += mCounts[bucket];
+      if (seen >= rank) {
+        return upperBoundOf(bucket);
+      }
+    }
+    return upperBoundOf(BUCKET_COUNT - 1);
+  }
+
+  public int size() {
+    return mSize;
+  }
+
+  public long getLast() {
+    return mLast;
+  }
+
+  public void clear() {
+    Arrays.fill(mCounts, (short) 0);
+    mNext = 0;
+    mSize = 0;
+    mLast = 0L;
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return value <= 0L ? 0 : (int) value;
+    }
+    final int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    final int shift = magnitude - SUB_BUCKET_BITS;
+    final int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + sub;
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int shift = bucket / SUB_BUCKETS - 1;
+    final int sub = bucket % SUB_BUCKETS;
+    final long upperBound = ((long) (SUB_BUCKETS + sub + 1) << shift) - 1L;
+    // 最高的几个桶超出 long 的范围
+    return upperBound < 0L ? Long.MAX_VALUE : upperBound;
+  }
+}
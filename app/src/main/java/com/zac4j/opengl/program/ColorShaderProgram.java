@@ -2,11 +2,9 @@ package com.zac4j.opengl.program;
 
 import android.content.Context;
 import com.zac4j.opengl.R;
-
-import static android.opengl.GLES20.glGetAttribLocation;
-import static android.opengl.GLES20.glGetUniformLocation;
-import static android.opengl.GLES20.glUniform4f;
-import static android.opengl.GLES20.glUniformMatrix4fv;
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.util.ProgramBinaryCache;
+import com.zac4j.opengl.util.ShaderSourceLoader;
 
 /**
  * 色彩着色程序
@@ -14,24 +12,61 @@ import static android.opengl.GLES20.glUniformMatrix4fv;
  */
 public class ColorShaderProgram extends ShaderProgram {
 
-  // Uniform locations
-  private final int uMatrixLocation;
-  private final int uColorLocation;
+  /**
+   * 由 ShaderVariants 创建变体，特性中有 FEATURE_INSTANCED 时创建 InstancedColorShaderProgram
+   */
+  public static final ShaderVariants.Factory<ColorShaderProgram> VARIANT_FACTORY =
+      new ShaderVariants.Factory<ColorShaderProgram>() {
+        @Override public ColorShaderProgram create(GL gl, ProgramBinaryCache programCache,
+            String vertexShaderSource, String fragmentShaderSource, int features) {
+          if ((features & ShaderVariants.FEATURE_INSTANCED) != 0) {
+            return new InstancedColorShaderProgram(gl, programCache, vertexShaderSource,
+                fragmentShaderSource);
+          }
+          return new ColorShaderProgram(gl, programCache, vertexShaderSource,
+              fragmentShaderSource);
+        }
+      };
+
+  // Uniform 序号
+  private final int uMatrix;
+  private final int uColor;
 
   // Attribute locations
   private final int aPositionLocation;
   private final int aColorLocation;
 
-  public ColorShaderProgram(Context context) {
-    super(context, R.raw.matrix_vertex_shader, R.raw.vary_fragment_shader);
+  public ColorShaderProgram(GL gl, Context context) {
+    this(gl, context, null);
+  }
+
+  public ColorShaderProgram(GL gl, Context context, ProgramBinaryCache programCache) {
+    this(gl, new ShaderSourceLoader(context), programCache);
+  }
+
+  public ColorShaderProgram(GL gl, ShaderSourceLoader shaderSources,
+      ProgramBinaryCache programCache) {
+    this(gl, shaderSources, programCache, R.raw.matrix_vertex_shader,
+        R.raw.vary_fragment_shader);
+  }
+
+  protected ColorShaderProgram(GL gl, ShaderSourceLoader shaderSources,
+      ProgramBinaryCache programCache, int vertexShaderResId, int fragmentShaderResId) {
+    this(gl, programCache, shaderSources.getSource(vertexShaderResId),
+        shaderSources.getSource(fragmentShaderResId));
+  }
 
-    // 获取 shader program 的 uniform location
-    uMatrixLocation = glGetUniformLocation(program, U_MATRIX);
-    uColorLocation = glGetUniformLocation(program, U_COLOR);
+  protected ColorShaderProgram(GL gl, ProgramBinaryCache programCache,
+      String vertexShaderSource, String fragmentShaderSource) {
+    super(gl, programCache, vertexShaderSource, fragmentShaderSource);
 
-    // 获取 shader program 的 attribute location
-    aPositionLocation = glGetAttribLocation(program, A_POSITION);
-    aColorLocation = glGetAttribLocation(program, A_COLOR);
+    // 从反射结果中获取 uniform 序号，shader 未使用 u_Color 时为 -1
+    uMatrix = uniformIndex(U_MATRIX);
+    uColor = uniformIndex(U_COLOR);
+
+    // 从反射结果中获取 attribute location
+    aPositionLocation = attributeLocation(A_POSITION);
+    aColorLocation = attributeLocation(A_COLOR);
   }
 
   /**
@@ -40,8 +75,15 @@ public class ColorShaderProgram extends ShaderProgram {
    * @param matrix 转换矩阵
    */
   public void setUniforms(float[] matrix, float r, float g, float b) {
-    glUniformMatrix4fv(uMatrixLocation, 1, false, matrix, 0);
-    glUniform4f(uColorLocation, r, g, b, 1f);
+    setUniformMatrix4fv(uMatrix, matrix, 0);
+    setUniform4f(uColor, r, g, b, 1f);
+  }
+
+  @Override public void setUniforms(float[] matrix, int matrixOffset, float[] color,
+      int colorOffset, int textureId) {
+    setUniformMatrix4fv(uMatrix, matrix, matrixOffset);
+    setUniform4f(uColor, color[colorOffset], color[colorOffset + 1], color[colorOffset + 2],
+        color[colorOffset + 3]);
   }
 
   /**
@@ -50,7 +92,7 @@ public class ColorShaderProgram extends ShaderProgram {
    * @param matrix 转换矩阵
    */
   public void setUniform(float[] matrix) {
-    glUniformMatrix4fv(uMatrixLocation, 1, false, matrix, 0);
+    setUniformMatrix4fv(uMatrix, matrix, 0);
   }
 
   /**
@@ -0,0 +1,49 @@
+package com.zac4j.opengl.program;
+
+import android.content.Context;
+import com.zac4j.opengl.R;
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.util.ProgramBinaryCache;
+import com.zac4j.opengl.util.ShaderSourceLoader;
+
+/**
+ * 实例化色彩着色程序
+ * 每个实例的模型矩阵与颜色来自顶点属性，u_Matrix 为视图投影矩阵，需要 ES 3.0 context
+ */
+public class InstancedColorShaderProgram extends ColorShaderProgram {
+
+  protected static final String A_MODEL_MATRIX = "a_ModelMatrix";
+
+  // Attribute locations
+  private final int aModelMatrixLocation;
+
+  public InstancedColorShaderProgram(GL gl, Context context) {
+    this(gl, context, null);
+  }
+
+  public InstancedColorShaderProgram(GL gl, Context context, ProgramBinaryCache programCache) {
+    this(gl, new ShaderSourceLoader(context), programCache);
+  }
+
+  public InstancedColorShaderProgram(GL gl, ShaderSourceLoader shaderSources,
+      ProgramBinaryCache programCache) {
+    this(gl, programCache, shaderSources.getSource(R.raw.instanced_vertex_shader),
+        shaderSources.getSource(R.raw.vary_fragment_shader));
+  }
+
+  protected InstancedColorShaderProgram(GL gl, ProgramBinaryCache programCache,
+      String vertexShaderSource, String fragmentShaderSource) {
+    super(gl, programCache, vertexShaderSource, fragmentShaderSource);
+
+    aModelMatrixLocation = attributeLocation(A_MODEL_MATRIX);
+  }
+
+  /**
+   * 获取模型矩阵属性 location，矩阵的四列依次占用 location 到 location + 3
+   *
+   * @return 模型矩阵属性 location
+   */
+  public int getModelMatrixAttributeLocation() {
+    return aModelMatrixLocation;
+  }
+}
@@ -1,16 +1,30 @@
 package com.zac4j.opengl.program;
 
 import android.content.Context;
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.profile.Profiler;
+import com.zac4j.opengl.util.ProgramBinaryCache;
 import com.zac4j.opengl.util.ShaderHelper;
-import com.zac4j.opengl.util.TextResourceReader;
+import com.zac4j.opengl.util.ShaderSourceLoader;
+import java.util.Arrays;
 
-import static android.opengl.GLES20.glUseProgram;
+import static com.zac4j.opengl.gl.GL.GL_ACTIVE_ATTRIBUTES;
+import static com.zac4j.opengl.gl.GL.GL_ACTIVE_UNIFORMS;
+import static com.zac4j.opengl.gl.GL.GL_FLOAT;
+import static com.zac4j.opengl.gl.GL.GL_FLOAT_MAT4;
+import static com.zac4j.opengl.gl.GL.GL_FLOAT_VEC2;
+import static com.zac4j.opengl.gl.GL.GL_FLOAT_VEC3;
+import static com.zac4j.opengl.gl.GL.GL_FLOAT_VEC4;
+import static com.zac4j.opengl.gl.GL.GL_INT;
+import static com.zac4j.opengl.gl.GL.GL_SAMPLER_2D;
 
 /**
  * Shader Program Class
+ * 连接后一次性反射所有活动 uniform 与 attribute，子类按名称查得序号后通过序号设置 uniform，
+ * 与上次设置的值相同时不再上传
  * Created by zac on 16-9-8.
  */
-public class ShaderProgram {
+public abstract class ShaderProgram {
 
   // Uniform 常量
   protected static final String U_MATRIX = "u_Matrix";
@@ -22,20 +36,279 @@ public class ShaderProgram {
   protected static final String A_COLOR = "a_Color";
   protected static final String A_TEXTURE_COORDINATES = "a_TextureCoordinates";
 
+  // GL 调用接口
+  protected final GL gl;
+
   // Shader Program
   protected final int program;
 
-  protected ShaderProgram(Context context, int vertexShaderResId, int fragmentShaderResId) {
-    program = ShaderHelper.buildProgram(
-        TextResourceReader.readTextFileFromResource(context, vertexShaderResId),
-        TextResourceReader.readTextFileFromResource(context, fragmentShaderResId));
+  // 活动 uniform，数组下标即 uniform 序号
+  private final String[] mUniformNames;
+  private final int[] mUniformLocations;
+  // 每个 uniform 上次上传的值在 mUniformValues 中的起始位置与分量数，
+  // 分量数为 0 的 uniform(数组或不支持的类型)每次都上传
+  private final int[] mUniformValueOffsets;
+  private final int[] mUniformComponents;
+  // 上次上传的值，float 以 raw bits 保存
+  private final int[] mUniformValues;
+  private final boolean[] mUniformSet;
+
+  // 活动 attribute
+  private final String[] mAttributeNames;
+  private final int[] mAttributeLocations;
+
+  // 因值未变化而跳过的 uniform 上传次数
+  private int mSkippedUniformUploads;
+
+  protected ShaderProgram(GL gl, Context context, int vertexShaderResId,
+      int fragmentShaderResId) {
+    this(gl, context, null, vertexShaderResId, fragmentShaderResId);
+  }
+
+  /**
+   * @param programCache program binary 缓存，为 null 时每次都编译连接
+   */
+  protected ShaderProgram(GL gl, Context context, ProgramBinaryCache programCache,
+      int vertexShaderResId, int fragmentShaderResId) {
+    this(gl, new ShaderSourceLoader(context), programCache, vertexShaderResId,
+        fragmentShaderResId);
+  }
+
+  /**
+   * @param shaderSources shader 源码，可已在后台线程预取
+   * @param programCache program binary 缓存，为 null 时每次都编译连接
+   */
+  protected ShaderProgram(GL gl, ShaderSourceLoader shaderSources,
+      ProgramBinaryCache programCache, int vertexShaderResId, int fragmentShaderResId) {
+    this(gl, programCache, shaderSources.getSource(vertexShaderResId),
+        shaderSources.getSource(fragmentShaderResId));
+  }
+
+  /**
+   * 由源码创建，用于 ShaderVariants 预处理后的变体
+   *
+   * @param programCache program binary 缓存，为 null 时每次都编译连接
+   * @param vertexShaderSource 顶点 shader 源码
+   * @param fragmentShaderSource 片元 shader 源码
+   */
+  protected ShaderProgram(GL gl, ProgramBinaryCache programCache, String vertexShaderSource,
+      String fragmentShaderSource) {
+    this.gl = gl;
+
+    final long buildStart = Profiler.begin();
+    if (programCache != null) {
+      program = programCache.buildProgram(vertexShaderSource, fragmentShaderSource);
+    } else {
+      program = ShaderHelper.buildProgram(gl, vertexShaderSource, fragmentShaderSource);
+    }
+    Profiler.end(Profiler.TIMER_SHADER_BUILD, buildStart);
+
+    final int[] count = new int[1];
+    final int[] size = new int[1];
+    final int[] type = new int[1];
+
+    // 反射活动 uniform
+    gl.glGetProgramiv(program, GL_ACTIVE_UNIFORMS, count, 0);
+    mUniformNames = new String[count[0]];
+    mUniformLocations = new int[count[0]];
+    mUniformValueOffsets = new int[count[0]];
+    mUniformComponents = new int[count[0]];
+    int valueCount = 0;
+    for (int i = 0; i < count[0]; i++) {
+      final String name = baseName(gl.glGetActiveUniform(program, i, size, 0, type, 0));
+      mUniformNames[i] = name;
+      mUniformLocations[i] = gl.glGetUniformLocation(program, name);
+      mUniformValueOffsets[i] = valueCount;
+      mUniformComponents[i] = size[0] == 1 ? componentCount(type[0]) : 0;
+      valueCount += mUniformComponents[i];
+    }
+    mUniformValues = new int[valueCount];
+    mUniformSet = new boolean[count[0]];
+
+    // 反射活动 attribute
+    gl.glGetProgramiv(program, GL_ACTIVE_ATTRIBUTES, count, 0);
+    mAttributeNames = new String[count[0]];
+    mAttributeLocations = new int[count[0]];
+    for (int i = 0; i < count[0]; i++) {
+      final String name = baseName(gl.glGetActiveAttrib(program, i, size, 0, type, 0));
+      mAttributeNames[i] = name;
+      mAttributeLocations[i] = gl.glGetAttribLocation(program, name);
+    }
+  }
+
+  // 数组 uniform 的名称为 "name[0]"，去掉下标
+  private static String baseName(String name) {
+    final int bracket = name.indexOf('[');
+    return bracket < 0 ? name : name.substring(0, bracket);
+  }
+
+  private static int componentCount(int type) {
+    switch (type) {
+      case GL_INT:
+      case GL_FLOAT:
+      case GL_SAMPLER_2D:
+        return 1;
+      case GL_FLOAT_VEC2:
+        return 2;
+      case GL_FLOAT_VEC3:
+        return 3;
+      case GL_FLOAT_VEC4:
+        return 4;
+      case GL_FLOAT_MAT4:
+        return 16;
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * 按名称查找 uniform 序号，应在构造时查找并保存
+   *
+   * @param name uniform 名称
+   * @return uniform 序号，不是活动 uniform 时返回 -1，对 -1 的设置会被忽略
+   */
+  protected int uniformIndex(String name) {
+    for (int i = 0; i < mUniformNames.length; i++) {
+      if (mUniformNames[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * 按名称查找 attribute location
+   *
+   * @param name attribute 名称
+   * @return attribute location，不是活动 attribute 时返回 -1
+   */
+  protected int attributeLocation(String name) {
+    for (int i = 0; i < mAttributeNames.length; i++) {
+      if (mAttributeNames[i].equals(name)) {
+        return mAttributeLocations[i];
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * 设置 int 或 sampler uniform，值未变化时不上传
+   *
+   * @param uniform uniform 序号
+   */
+  protected void setUniform1i(int uniform, int x) {
+    if (uniform < 0) {
+      return;
+    }
+    if (mUniformComponents[uniform] == 1) {
+      final int offset = mUniformValueOffsets[uniform];
+      if (mUniformSet[uniform] && mUniformValues[offset] == x) {
+        mSkippedUniformUploads++;
+        return;
+      }
+      mUniformValues[offset] = x;
+      mUniformSet[uniform] = true;
+    }
+    gl.glUniform1i(mUniformLocations[uniform], x);
+  }
+
+  /**
+   * 设置 vec4 uniform，值未变化时不上传
+   *
+   * @param uniform uniform 序号
+   */
+  protected void setUniform4f(int uniform, float x, float y, float z, float w) {
+    if (uniform < 0) {
+      return;
+    }
+    if (mUniformComponents[uniform] == 4) {
+      final int offset = mUniformValueOffsets[uniform];
+      final int[] values = mUniformValues;
+      final int bx = Float.floatToRawIntBits(x);
+      final int by = Float.floatToRawIntBits(y);
+      final int bz = Float.floatToRawIntBits(z);
+      final int bw = Float.floatToRawIntBits(w);
+      if (mUniformSet[uniform] && values[offset] == bx && values[offset + 1] == by
+          && values[offset + 2] == bz && values[offset + 3] == bw) {
+        mSkippedUniformUploads++;
+        return;
+      }
+      values[offset] = bx;
+      values[offset + 1] = by;
+      values[offset + 2] = bz;
+      values[offset + 3] = bw;
+      mUniformSet[uniform] = true;
+    }
+    gl.glUniform4f(mUniformLocations[uniform], x, y, z, w);
+  }
+
+  /**
+   * 设置 mat4 uniform，值未变化时不上传
+   *
+   * @param uniform uniform 序号
+   * @param matrix 矩阵容器
+   * @param matrixOffset 矩阵在容器中的偏移量
+   */
+  protected void setUniformMatrix4fv(int uniform, float[] matrix, int matrixOffset) {
+    if (uniform < 0) {
+      return;
+    }
+    if (mUniformComponents[uniform] == 16) {
+      final int offset = mUniformValueOffsets[uniform];
+      final int[] values = mUniformValues;
+      boolean changed = !mUniformSet[uniform];
+      for (int i = 0; i < 16; i++) {
+        final int bits = Float.floatToRawIntBits(matrix[matrixOffset + i]);
+        if (values[offset + i] != bits) {
+          values[offset + i] = bits;
+          changed = true;
+        }
+      }
+      if (!changed) {
+        mSkippedUniformUploads++;
+        return;
+      }
+      mUniformSet[uniform] = true;
+    }
+    gl.glUniformMatrix4fv(mUniformLocations[uniform], 1, false, matrix, matrixOffset);
+  }
+
+  /**
+   * 将所有 uniform 标记为未设置，下次设置时一定上传
+   */
+  public void invalidateUniforms() {
+    Arrays.fill(mUniformSet, false);
+  }
+
+  /**
+   * @return 因值未变化而跳过的 uniform 上传次数
+   */
+  public int getSkippedUniformUploads() {
+    return mSkippedUniformUploads;
+  }
+
+  public void resetCounters() {
+    mSkippedUniformUploads = 0;
   }
 
   /**
    * 应用当前 program
    */
   public void useProgram() {
-    glUseProgram(program);
+    gl.glUseProgram(program);
   }
 
+  /**
+   * 传递单个绘制项的 uniform 数据，由 RenderQueue 在绘制前调用
+   * 不使用的参数由子类忽略
+   *
+   * @param matrix 转换矩阵容器
+   * @param matrixOffset 矩阵在容器中的偏移量
+   * @param color 颜色容器，RGBA
+   * @param colorOffset 颜色在容器中的偏移量
+   * @param textureId 纹理对象 id
+   */
+  public abstract void setUniforms(float[] matrix, int matrixOffset, float[] color,
+      int colorOffset, int textureId);
+
 }
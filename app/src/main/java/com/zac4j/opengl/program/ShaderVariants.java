@@ -0,0 +1,141 @@
+package com.zac4j.opengl.program;
+
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.util.ProgramBinaryCache;
+import com.zac4j.opengl.util.ShaderPreprocessor;
+import com.zac4j.opengl.util.ShaderSourceLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 由一对带条件编译块的 shader 按特性组合生成的 program 变体
+ *
+ * 每个特性对应一个同名的定义，如 FEATURE_TEXTURE 对应 #ifdef TEXTURE；
+ * 变体在第一次 get 时经 ShaderPreprocessor 预处理后编译连接，按特性位掩码缓存。
+ * 渲染器只请求绘制项实际需要的特性，例如纯色网格不带纹理与顶点颜色，
+ * 得到的 shader 没有多余的 attribute、varying 与纹理采样。
+ * 不同的变体源码不同，各自在 ProgramBinaryCache 中缓存
+ *
+ * @param <P> 变体的 program 类型，决定 Renderable 取得的 attribute location
+ */
+public class ShaderVariants<P extends ShaderProgram> {
+
+  // 纹理坐标 a_TextureCoordinates 与纹理采样 u_TextureUnit
+  public static final int FEATURE_TEXTURE = 1;
+  // 顶点颜色 a_Color
+  public static final int FEATURE_VERTEX_COLOR = 1 << 1;
+  // 统一颜色 u_Color，与其他颜色来源相乘
+  public static final int FEATURE_UNIFORM_COLOR = 1 << 2;
+  // 每个实例的模型矩阵 a_ModelMatrix，需要 ES 3.0 context
+  public static final int FEATURE_INSTANCED = 1 << 3;
+
+  // 与特性位的顺序一致
+  private static final String[] FEATURE_DEFINES = {
+      "TEXTURE", "VERTEX_COLOR", "UNIFORM_COLOR", "INSTANCED"
+  };
+
+  /**
+   * 由预处理后的源码创建 program
+   *
+   * @param <P> program 类型
+   */
+  public interface Factory<P extends ShaderProgram> {
+
+    /**
+     * @param gl GL 调用接口
+     * @param programCache program binary 缓存，可为 null
+     * @param vertexShaderSource 预处理后的顶点 shader 源码
+     * @param fragmentShaderSource 预处理后的片元 shader 源码
+     * @param features 特性位掩码
+     * @return program
+     */
+    P create(GL gl, ProgramBinaryCache programCache, String vertexShaderSource,
+        String fragmentShaderSource, int features);
+  }
+
+  private final GL mGL;
+  private final ShaderSourceLoader mShaderSources;
+  private final ProgramBinaryCache mProgramCache;
+  private final int mVertexShaderResId;
+  private final int mFragmentShaderResId;
+  private final Factory<P> mFactory;
+
+  // 下标为特性位掩码
+  private final ShaderProgram[] mVariants = new ShaderProgram[1 << FEATURE_DEFINES.length];
+  private int mVariantCount;
+
+  /**
+   * @param gl GL 调用接口
+   * @param shaderSources shader 源码，也用于取得 #include 的文件
+   * @param programCache program binary 缓存，为 null 时每次都编译连接
+   * @param vertexShaderResId 带条件编译块的顶点 shader
+   * @param fragmentShaderResId 带条件编译块的片元 shader
+   * @param factory 创建变体的 program
+   */
+  public ShaderVariants(GL gl, ShaderSourceLoader shaderSources, ProgramBinaryCache programCache,
+      int vertexShaderResId, int fragmentShaderResId, Factory<P> factory) {
+    mGL = gl;
+    mShaderSources = shaderSources;
+    mProgramCache = programCache;
+    mVertexShaderResId = vertexShaderResId;
+    mFragmentShaderResId = fragmentShaderResId;
+    mFactory = factory;
+  }
+
+  /**
+   * 获取变体，第一次请求时编译连接，需在 GL 线程调用
+   *
+   * @param features FEATURE_* 的组合
+   * @return program 变体
+   * @throws IllegalArgumentException 特性位不合法
+   */
+  @SuppressWarnings("unchecked")
+  public P get(int features) {
+    if (features < 0 || features >= mVariants.length) {
+      throw new IllegalArgumentException("Unknown shader features: " + features);
+    }
+    ShaderProgram variant = mVariants[features];
+    if (variant == null) {
+      final String[] defines = defines(features);
+      final String vertexShaderSource = ShaderPreprocessor.process(
+          mShaderSources.getSource(mVertexShaderResId), mShaderSources, defines);
+      final String fragmentShaderSource = ShaderPreprocessor.process(
+          mShaderSources.getSource(mFragmentShaderResId), mShaderSources, defines);
+      variant = mFactory.create(mGL, mProgramCache, vertexShaderSource, fragmentShaderSource,
+          features);
+      mVariants[features] = variant;
+      mVariantCount++;
+    }
+    return (P) variant;
+  }
+
+  /**
+   * 丢弃所有变体，EGL context 重建后调用，之后的 get 重新创建
+   */
+  public void clear() {
+    Arrays.fill(mVariants, null);
+    mVariantCount = 0;
+  }
+
+  /**
+   * @return 已创建的变体数
+   */
+  public int getVariantCount() {
+    return mVariantCount;
+  }
+
+  /**
+   * @param features FEATURE_* 的组合
+   * @return 对应的预处理定义
+   */
+  public static String[] defines(int features) {
+    final List<String> defines = new ArrayList<>();
+    for (int i = 0; i < FEATURE_DEFINES.length; i++) {
+      if ((features & (1 << i)) != 0) {
+        defines.add(FEATURE_DEFINES[i]);
+      }
+    }
+    return defines.toArray(new String[defines.size()]);
+  }
+}
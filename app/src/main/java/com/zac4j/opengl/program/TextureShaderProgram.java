@@ -2,15 +2,12 @@ package com.zac4j.opengl.program;
 
 import android.content.Context;
 import com.zac4j.opengl.R;
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.util.ProgramBinaryCache;
+import com.zac4j.opengl.util.ShaderSourceLoader;
 
-import static android.opengl.GLES20.GL_TEXTURE0;
-import static android.opengl.GLES20.GL_TEXTURE_2D;
-import static android.opengl.GLES20.glActiveTexture;
-import static android.opengl.GLES20.glBindTexture;
-import static android.opengl.GLES20.glGetAttribLocation;
-import static android.opengl.GLES20.glGetUniformLocation;
-import static android.opengl.GLES20.glUniform1i;
-import static android.opengl.GLES20.glUniformMatrix4fv;
+import static com.zac4j.opengl.gl.GL.GL_TEXTURE0;
+import static com.zac4j.opengl.gl.GL.GL_TEXTURE_2D;
 
 /**
  * 纹理着色程序
@@ -18,9 +15,23 @@ import static android.opengl.GLES20.glUniformMatrix4fv;
  */
 public class TextureShaderProgram extends ShaderProgram {
 
-  // Uniform locations
-  private final int uMatrixLocation;
-  private final int uTextureUnitLocation;
+  /**
+   * 由 ShaderVariants 创建变体，特性中应有 FEATURE_TEXTURE
+   */
+  public static final ShaderVariants.Factory<TextureShaderProgram> VARIANT_FACTORY =
+      new ShaderVariants.Factory<TextureShaderProgram>() {
+        @Override public TextureShaderProgram create(GL gl, ProgramBinaryCache programCache,
+            String vertexShaderSource, String fragmentShaderSource, int features) {
+          return new TextureShaderProgram(gl, programCache, vertexShaderSource,
+              fragmentShaderSource);
+        }
+      };
+
+  // Uniform 序号
+  private final int uMatrix;
+  private final int uTextureUnit;
+  // 带 FEATURE_UNIFORM_COLOR 的变体用 u_Color 给纹理着色，其他 shader 中为 -1
+  private final int uColor;
 
   // Attribute locations
   private final int aPositionLocation;
@@ -28,18 +39,54 @@ public class TextureShaderProgram extends ShaderProgram {
 
   /**
    * 纹理着色程序构造方法
+   * @param gl GL 调用接口
    * @param context 上下文
    */
-  public TextureShaderProgram(Context context) {
-    super(context, R.raw.texture_vertex_shader, R.raw.texture_fragment_shader);
+  public TextureShaderProgram(GL gl, Context context) {
+    this(gl, context, null);
+  }
 
-    // 获取着色程序中的 uniform location
-    uMatrixLocation = glGetUniformLocation(program, U_MATRIX);
-    uTextureUnitLocation = glGetUniformLocation(program, U_TEXTURE_UNIT);
+  /**
+   * 纹理着色程序构造方法
+   * @param gl GL 调用接口
+   * @param context 上下文
+   * @param programCache program binary 缓存，为 null 时每次都编译连接
+   */
+  public TextureShaderProgram(GL gl, Context context, ProgramBinaryCache programCache) {
+    this(gl, new ShaderSourceLoader(context), programCache);
+  }
 
-    // 获取着色程序中的 attribute location
-    aPositionLocation = glGetAttribLocation(program, A_POSITION);
-    aTextureCoordsLocation = glGetAttribLocation(program, A_TEXTURE_COORDINATES);
+  /**
+   * 纹理着色程序构造方法
+   * @param gl GL 调用接口
+   * @param shaderSources shader 源码，可已在后台线程预取
+   * @param programCache program binary 缓存，为 null 时每次都编译连接
+   */
+  public TextureShaderProgram(GL gl, ShaderSourceLoader shaderSources,
+      ProgramBinaryCache programCache) {
+    this(gl, programCache, shaderSources.getSource(R.raw.texture_vertex_shader),
+        shaderSources.getSource(R.raw.texture_fragment_shader));
+  }
+
+  /**
+   * 由源码创建，用于 ShaderVariants 的变体
+   * @param gl GL 调用接口
+   * @param programCache program binary 缓存，为 null 时每次都编译连接
+   * @param vertexShaderSource 顶点 shader 源码
+   * @param fragmentShaderSource 片元 shader 源码
+   */
+  protected TextureShaderProgram(GL gl, ProgramBinaryCache programCache,
+      String vertexShaderSource, String fragmentShaderSource) {
+    super(gl, programCache, vertexShaderSource, fragmentShaderSource);
+
+    // 从反射结果中获取 uniform 序号
+    uMatrix = uniformIndex(U_MATRIX);
+    uTextureUnit = uniformIndex(U_TEXTURE_UNIT);
+    uColor = uniformIndex(U_COLOR);
+
+    // 从反射结果中获取 attribute location
+    aPositionLocation = attributeLocation(A_POSITION);
+    aTextureCoordsLocation = attributeLocation(A_TEXTURE_COORDINATES);
   }
 
   /**
@@ -48,19 +95,30 @@ public class TextureShaderProgram extends ShaderProgram {
    * @param textureId
    */
   public void setUniforms(float[] matrix, int textureId) {
+    setUniforms(matrix, 0, null, 0, textureId);
+  }
+
+  @Override public void setUniforms(float[] matrix, int matrixOffset, float[] color,
+      int colorOffset, int textureId) {
 
     // 向 shader program 传递矩阵
-    glUniformMatrix4fv(uMatrixLocation, 1, false, matrix, 0);
+    setUniformMatrix4fv(uMatrix, matrix, matrixOffset);
 
     // 设置活动纹理单元为 texture unit 0
-    glActiveTexture(GL_TEXTURE0);
+    gl.glActiveTexture(GL_TEXTURE0);
 
     // 绑定纹理到该纹理单元
-    glBindTexture(GL_TEXTURE_2D, textureId);
+    gl.glBindTexture(GL_TEXTURE_2D, textureId);
 
     // Tell the texture uniform sampler to use this texture in the shader by
     // telling it to read from texture unit 0.
-    glUniform1i(uTextureUnitLocation, 0);
+    // 值不变，只在第一次上传
+    setUniform1i(uTextureUnit, 0);
+
+    if (color != null) {
+      setUniform4f(uColor, color[colorOffset], color[colorOffset + 1], color[colorOffset + 2],
+          color[colorOffset + 3]);
+    }
   }
 
   /**
@@ -79,5 +137,4 @@ public class TextureShaderProgram extends ShaderProgram {
     return aTextureCoordsLocation;
   }
 
-
 }
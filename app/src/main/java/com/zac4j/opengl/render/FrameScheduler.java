@@ -0,0 +1,217 @@
+package com.zac4j.opengl.render;
+
+import com.zac4j.opengl.profile.Profiler;
+import com.zac4j.opengl.profile.RollingHistogram;
+
+/**
+ * 按需渲染与帧率限制
+ *
+ * 场景有变化(物体在运动、手指按住或有新的输入)时连续渲染，连续 idleFrames 帧没有变化后
+ * 切换为只在请求时渲染(GLSurfaceView.RENDERMODE_WHEN_DIRTY)；新的输入通过 requestFrames
+ * 恢复连续渲染。
+ *
+ * 默认不限制帧率，跟随 vsync。设置的目标帧率只在能整除显示器刷新率时生效，
+ * 此时帧间隔是整数个 vsync 周期，帧开始时等待到距上一帧开始不足半个 vsync 周期，
+ * 交换缓冲区时阻塞到对应的 vsync；不能整除时限制帧率只会让帧间隔在相邻的 vsync 数之间抖动
+ *
+ * 连续渲染期间记录相邻两帧的间隔，用于统计帧间隔的分布与超时的帧数，
+ * 空闲后恢复的第一帧不计入
+ */
+public class FrameScheduler {
+
+  /**
+   * 被调度的渲染表面，通常包装 GLSurfaceView
+   */
+  public interface Surface {
+
+    /**
+     * @param continuously true 对应 RENDERMODE_CONTINUOUSLY，false 对应 RENDERMODE_WHEN_DIRTY
+     */
+    void setRenderContinuously(boolean continuously);
+
+    void requestRender();
+  }
+
+  private static final long NANOS_PER_SECOND = 1000000000L;
+  private static final long NANOS_PER_MILLI = 1000000L;
+
+  // 刷新率未知时按 60 Hz 判断超时的帧
+  private static final long DEFAULT_FRAME_INTERVAL_NANOS = NANOS_PER_SECOND / 60L;
+
+  // 刷新率与目标帧率整数倍之间允许的相对误差，如 59.94 Hz 与 60 Hz
+  private static final float REFRESH_RATE_TOLERANCE = 0.01f;
+
+  private final Surface mSurface;
+  private final int mIdleFrames;
+
+  // 请求的目标帧率与显示器刷新率，0 表示不限制或未知
+  private int mRequestedFrameRate;
+  private float mRefreshRate;
+
+  // 生效的目标帧间隔，0 表示不限制；vsync 周期，0 表示未知
+  private long mTargetIntervalNanos;
+  private long mRefreshIntervalNanos;
+
+  private boolean mContinuous = true;
+  private int mIdleFrameCount;
+
+  // 上一帧的开始时间，0 表示上一帧之后经历了空闲
+  private long mLastFrameStart;
+
+  // 帧间隔统计
+  private final RollingHistogram mIntervals = new RollingHistogram(256);
+  private long mFrameCount;
+  private long mLateFrameCount;
+
+  /**
+   * @param surface 渲染表面，初始为连续渲染
+   * @param idleFrames 连续多少帧没有变化后停止渲染
+   */
+  public FrameScheduler(Surface surface, int idleFrames) {
+    mSurface = surface;
+    mIdleFrames = idleFrames;
+  }
+
+  /**
+   * 限制帧率，只在能整除显示器刷新率时生效
+   *
+   * @param framesPerSecond 目标帧率，0 表示不限制(跟随 vsync)
+   */
+  public synchronized void setTargetFrameRate(int framesPerSecond) {
+    mRequestedFrameRate = Math.max(0, framesPerSecond);
+    updateTargetInterval();
+  }
+
+  /**
+   * @param refreshRate 显示器刷新率，即 Display.getRefreshRate()，0 表示未知
+   */
+  public synchronized void setDisplayRefreshRate(float refreshRate) {
+    mRefreshRate = refreshRate > 0f ? refreshRate : 0f;
+    updateTargetInterval();
+  }
+
+  /**
+   * @return 生效的目标帧间隔，纳秒，0 表示不限制
+   */
+  public synchronized long getTargetFrameInterval() {
+    return mTargetIntervalNanos;
+  }
+
+  private void updateTargetInterval() {
+    mRefreshIntervalNanos =
+        mRefreshRate > 0f ? Math.round(NANOS_PER_SECOND / (double) mRefreshRate) : 0L;
+    mTargetIntervalNanos = 0L;
+    // 刷新率未知时无法判断能否整除，跟随 vsync
+    if (mRequestedFrameRate == 0 || mRefreshRate == 0f) {
+      return;
+    }
+    // 每帧经历的 vsync 数，为 1 时目标帧率不低于刷新率，不需要限制
+    final int vsyncs = Math.round(mRefreshRate / mRequestedFrameRate);
+    if (vsyncs > 1 && Math.abs(mRefreshRate - vsyncs * mRequestedFrameRate)
+        <= mRefreshRate * REFRESH_RATE_TOLERANCE) {
+      mTargetIntervalNanos = vsyncs * mRefreshIntervalNanos;
+    }
+  }
+
+  /**
+   * 请求恢复连续渲染，可在任意线程调用，如每次触摸时
+   */
+  public synchronized void requestFrames() {
+    mIdleFrameCount = 0;
+    if (!mContinuous) {
+      mContinuous = true;
+      mLastFrameStart = 0L;
+      mSurface.setRenderContinuously(true);
+    }
+    // 渲染线程可能刚刚切换为按需渲染，再请求一帧确保输入被处理
+    mSurface.requestRender();
+  }
+
+  /**
+   * 帧开始时在 GL 线程调用，按目标帧率等待并记录帧间隔
+   */
+  public void beginFrame() {
+    final long targetInterval;
+    final long refreshInterval;
+    final long lastFrameStart;
+    synchronized (this) {
+      targetInterval = mTargetIntervalNanos;
+      refreshInterval = mRefreshIntervalNanos;
+      lastFrameStart = mLastFrameStart;
+    }
+
+    long now = System.nanoTime();
+    if (targetInterval > 0L && lastFrameStart != 0L) {
+      // 提前半个 vsync 周期醒来，交换缓冲区会等到对应的 vsync，
+      // 醒得晚一点就会错过它而多等一个周期
+      final long wait = lastFrameStart + targetInterval - refreshInterval / 2L - now;
+      if (wait > 0L) {
+        sleep(wait);
+        now = System.nanoTime();
+      }
+    }
+
+    synchronized (this) {
+      if (mLastFrameStart != 0L) {
+        final long interval = now - mLastFrameStart;
+        mIntervals.record(interval);
+        Profiler.record(Profiler.TIMER_FRAME_INTERVAL, interval);
+        final long expected = mTargetIntervalNanos > 0L ? mTargetIntervalNanos
+            : mRefreshIntervalNanos > 0L ? mRefreshIntervalNanos : DEFAULT_FRAME_INTERVAL_NANOS;
+        // 超过 1.5 个帧间隔即至少错过了一次 vsync
+        if (interval * 2L > expected * 3L) {
+          mLateFrameCount++;
+        }
+      }
+      mLastFrameStart = now;
+      mFrameCount++;
+    }
+  }
+
+  /**
+   * 帧结束时在 GL 线程调用
+   *
+   * @param active 本帧场景是否有变化，连续 idleFrames 帧没有变化后停止渲染
+   */
+  public synchronized void endFrame(boolean active) {
+    if (active) {
+      mIdleFrameCount = 0;
+      return;
+    }
+    if (mContinuous && ++mIdleFrameCount >= mIdleFrames) {
+      mContinuous = false;
+      mSurface.setRenderContinuously(false);
+    }
+  }
+
+  public synchronized boolean isContinuous() {
+    return mContinuous;
+  }
+
+  public synchronized long getFrameCount() {
+    return mFrameCount;
+  }
+
+  /**
+   * @return 帧间隔超过目标间隔 1.5 倍的帧数
+   */
+  public synchronized long getLateFrameCount() {
+    return mLateFrameCount;
+  }
+
+  /**
+   * @param percentile 0 到 100
+   * @return 最近帧间隔的百分位数，纳秒
+   */
+  public synchronized long getFrameIntervalPercentile(double percentile) {
+    return mIntervals.percentile(percentile);
+  }
+
+  private static void sleep(long nanos) {
+    try {
+      Thread.sleep(nanos / NANOS_PER_MILLI, (int) (nanos % NANOS_PER_MILLI));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,319 @@
+package com.zac4j.opengl.render;
+
+import com.zac4j.opengl.Constants;
+import com.zac4j.opengl.data.IndexArray;
+import com.zac4j.opengl.data.VertexBuffer;
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.program.ColorShaderProgram;
+import com.zac4j.opengl.program.InstancedColorShaderProgram;
+import com.zac4j.opengl.scene.Scene;
+
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLES;
+
+/**
+ * 同一网格的多个实例，每个实例有各自的模型矩阵与颜色，整批只需一次绘制调用
+ *
+ * 实例化模式(ES 3.0): 网格数据只上传一次，实例数据放在 GL_STREAM_DRAW 缓冲区中，
+ * 通过 glVertexAttribDivisor 每个实例前进一次，由 glDrawElementsInstanced 绘制，
+ * 需配合 InstancedColorShaderProgram 使用
+ *
+ * 回退模式(ES 2.0): 在 CPU 上用模型矩阵变换每个实例的顶点，并把颜色写入顶点，
+ * 拼接成一个大的三角形列表绘制，需配合 ColorShaderProgram 使用；
+ * 受 unsigned short 索引限制，实例过多时按块拆分为多次绘制
+ *
+ * 两种模式下 u_Matrix 都应为视图投影矩阵
+ */
+public class InstanceBatch implements Renderable<ColorShaderProgram> {
+
+  private static final int POSITION_COMPONENT_COUNT = 3;
+  private static final int COLOR_COMPONENT_COUNT = 4;
+  private static final int MATRIX_COMPONENT_COUNT = 16;
+  private static final int MATRIX_COLUMN_COUNT = 4;
+
+  // 每个实例的数据: 模型矩阵(列主序) + 颜色，与 Scene.packInstances 的输出相同
+  private static final int FLOATS_PER_INSTANCE = Scene.FLOATS_PER_INSTANCE;
+  private static final int INSTANCE_STRIDE = FLOATS_PER_INSTANCE * Constants.BYTES_PER_FLOAT;
+
+  // 回退模式中每个顶点的数据: 位置 + 颜色
+  private static final int FLOATS_PER_BATCHED_VERTEX =
+      POSITION_COMPONENT_COUNT + COLOR_COMPONENT_COUNT;
+  private static final int BATCHED_STRIDE = FLOATS_PER_BATCHED_VERTEX * Constants.BYTES_PER_FLOAT;
+
+  // unsigned short 索引可寻址的顶点数
+  private static final int MAX_BATCHED_VERTICES = 1 << 16;
+
+  private final GL mGL;
+  private final boolean mInstanced;
+  private final int mMaxInstances;
+
+  // 网格的原始数据
+  private final float[] mMeshVertices;
+  private final int mMeshVertexCount;
+  private final int mMeshIndexCount;
+
+  // 按添加顺序保存的实例数据
+  private final float[] mInstanceData;
+  private int mInstanceCount;
+
+  // bindData 时记录的属性 location
+  private int mModelMatrixLocation = -1;
+  private int mColorLocation = -1;
+
+  // 实例化模式
+  private final VertexBuffer mMeshBuffer;
+  private final VertexBuffer mInstanceBuffer;
+
+  // 回退模式，每块最多 mInstancesPerChunk 个实例
+  private final VertexBuffer mBatchedBuffer;
+  private final float[] mBatchedVertices;
+  private final int mInstancesPerChunk;
+
+  private final IndexArray mIndexArray;
+
+  /**
+   * 需要在 GL 线程调用
+   *
+   * @param gl GL 调用接口
+   * @param vertexData 网格的顶点位置，每个顶点 3 个分量
+   * @param indexData 网格的三角形列表索引
+   * @param maxInstances 最大实例数量
+   * @param instanced true 使用 ES 3.0 实例化绘制，false 使用 ES 2.0 回退模式
+   */
+  public InstanceBatch(GL gl, float[] vertexData, short[] indexData, int maxInstances,
+      boolean instanced) {
+    if (maxInstances <= 0) {
+      throw new IllegalArgumentException("maxInstances must be positive: " + maxInstances);
+    }
+
+    mGL = gl;
+    mInstanced = instanced;
+    mMaxInstances = maxInstances;
+    mMeshVertices = vertexData;
+    mMeshVertexCount = vertexData.length / POSITION_COMPONENT_COUNT;
+    mMeshIndexCount = indexData.length;
+    mInstanceData = new float[maxInstances * FLOATS_PER_INSTANCE];
+
+    if (instanced) {
+      mMeshBuffer = new VertexBuffer(gl, vertexData, GL.GL_STATIC_DRAW);
+      mInstanceBuffer = new VertexBuffer(gl, mInstanceData, GL.GL_STREAM_DRAW);
+      mIndexArray = new IndexArray(gl, indexData);
+
+      mBatchedBuffer = null;
+      mBatchedVertices = null;
+      mInstancesPerChunk = 0;
+    } else {
+      if (mMeshVertexCount > MAX_BATCHED_VERTICES) {
+        throw new IllegalArgumentException(
+            "Mesh has too many vertices to batch: " + mMeshVertexCount);
+      }
+      mInstancesPerChunk = Math.min(maxInstances, MAX_BATCHED_VERTICES / mMeshVertexCount);
+
+      // 每个实例的索引加上该实例顶点的起始位置
+      final short[] batchedIndices = new short[mInstancesPerChunk * mMeshIndexCount];
+      for (int instance = 0; instance < mInstancesPerChunk; instance++) {
+        final int base = instance * mMeshVertexCount;
+        final int offset = instance * mMeshIndexCount;
+        for (int i = 0; i < mMeshIndexCount; i++) {
+          batchedIndices[offset + i] = (short) ((indexData[i] & 0xFFFF) + base);
+        }
+      }
+
+      mBatchedVertices =
+          new float[mInstancesPerChunk * mMeshVertexCount * FLOATS_PER_BATCHED_VERTEX];
+      mBatchedBuffer = new VertexBuffer(gl, mBatchedVertices, GL.GL_STREAM_DRAW);
+      mIndexArray = new IndexArray(gl, batchedIndices);
+
+      mMeshBuffer = null;
+      mInstanceBuffer = null;
+    }
+  }
+
+  /**
+   * 移除所有实例，通常在每帧开始时调用
+   */
+  public void clear() {
+    mInstanceCount = 0;
+  }
+
+  /**
+   * 添加一个实例，矩阵会被拷贝，调用后可立即复用
+   *
+   * @param modelMatrix 模型矩阵
+   * @param matrixOffset 矩阵在数组中的偏移量
+   * @param r 红
+   * @param g 绿
+   * @param b 蓝
+   */
+  public void add(float[] modelMatrix, int matrixOffset, float r, float g, float b) {
+    if (mInstanceCount >= mMaxInstances) {
+      throw new IllegalStateException("Too many instances in batch: " + mMaxInstances);
+    }
+
+    final int offset = mInstanceCount * FLOATS_PER_INSTANCE;
+    System.arraycopy(modelMatrix, matrixOffset, mInstanceData, offset, MATRIX_COMPONENT_COUNT);
+    mInstanceData[offset + MATRIX_COMPONENT_COUNT] = r;
+    mInstanceData[offset + MATRIX_COMPONENT_COUNT + 1] = g;
+    mInstanceData[offset + MATRIX_COMPONENT_COUNT + 2] = b;
+    mInstanceData[offset + MATRIX_COMPONENT_COUNT + 3] = 1f;
+
+    mInstanceCount++;
+  }
+
+  /**
+   * 添加场景中使用指定网格的所有实体，由 Scene 按列顺序打包，每个实体不再单独拷贝矩阵
+   *
+   * @param scene 场景
+   * @param mesh 网格
+   */
+  public void addAll(Scene scene, int mesh) {
+    addAll(scene, mesh, null);
+  }
+
+  /**
+   * 添加场景中使用指定网格的可见实体，被剔除的实体不占用批次
+   *
+   * @param scene 场景
+   * @param mesh 网格
+   * @param visible 按实体下标的可见性，如 FrustumCuller.getVisible()；为 null 时全部添加
+   */
+  public void addAll(Scene scene, int mesh, boolean[] visible) {
+    if (mInstanceCount + scene.count(mesh) > mMaxInstances) {
+      throw new IllegalStateException("Too many instances in batch: " + mMaxInstances);
+    }
+    mInstanceCount += scene.packInstances(mesh, visible, mInstanceData,
+        mInstanceCount * FLOATS_PER_INSTANCE);
+  }
+
+  /**
+   * 添加场景中使用指定网格且位于指定 LOD 级别的实体，批次的网格应为该级别的网格
+   *
+   * @param scene 场景
+   * @param mesh 网格
+   * @param levels 按实体下标的 LOD 级别，如 LodSelector.select 的结果
+   * @param level 要添加的级别
+   */
+  public void addAll(Scene scene, int mesh, int[] levels, int level) {
+    if (mInstanceCount + scene.count(mesh) > mMaxInstances) {
+      throw new IllegalStateException("Too many instances in batch: " + mMaxInstances);
+    }
+    mInstanceCount += scene.packInstances(mesh, levels, level, mInstanceData,
+        mInstanceCount * FLOATS_PER_INSTANCE);
+  }
+
+  public int size() {
+    return mInstanceCount;
+  }
+
+  public boolean isInstanced() {
+    return mInstanced;
+  }
+
+  @Override public void bindData(ColorShaderProgram colorProgram) {
+    mColorLocation = colorProgram.getColorAttributeLocation();
+
+    if (!mInstanced) {
+      mBatchedBuffer.setVertexAttributePointer(0, colorProgram.getPositionAttributeLocation(),
+          POSITION_COMPONENT_COUNT, BATCHED_STRIDE);
+      mBatchedBuffer.setVertexAttributePointer(POSITION_COMPONENT_COUNT,
+          mColorLocation, COLOR_COMPONENT_COUNT, BATCHED_STRIDE);
+      return;
+    }
+
+    if (!(colorProgram instanceof InstancedColorShaderProgram)) {
+      throw new IllegalArgumentException("Instanced batch requires InstancedColorShaderProgram");
+    }
+
+    mModelMatrixLocation =
+        ((InstancedColorShaderProgram) colorProgram).getModelMatrixAttributeLocation();
+
+    mMeshBuffer.setVertexAttributePointer(0, colorProgram.getPositionAttributeLocation(),
+        POSITION_COMPONENT_COUNT, 0);
+
+    // mat4 属性的四列占用四个连续的 location
+    for (int column = 0; column < MATRIX_COLUMN_COUNT; column++) {
+      mInstanceBuffer.setVertexAttributePointer(column * MATRIX_COLUMN_COUNT,
+          mModelMatrixLocation + column, MATRIX_COLUMN_COUNT, INSTANCE_STRIDE);
+    }
+    mInstanceBuffer.setVertexAttributePointer(MATRIX_COMPONENT_COUNT, mColorLocation,
+        COLOR_COMPONENT_COUNT, INSTANCE_STRIDE);
+  }
+
+  @Override public void draw() {
+    if (mInstanceCount == 0) {
+      return;
+    }
+
+    if (mInstanced) {
+      drawInstanced();
+    } else {
+      drawBatched();
+    }
+  }
+
+  private void drawInstanced() {
+    mInstanceBuffer.update(mInstanceData, 0, mInstanceCount * FLOATS_PER_INSTANCE);
+
+    for (int column = 0; column < MATRIX_COLUMN_COUNT; column++) {
+      mGL.glEnableVertexAttribArray(mModelMatrixLocation + column);
+      mGL.glVertexAttribDivisor(mModelMatrixLocation + column, 1);
+    }
+    mGL.glEnableVertexAttribArray(mColorLocation);
+    mGL.glVertexAttribDivisor(mColorLocation, 1);
+
+    mIndexArray.drawElementsInstanced(GL_TRIANGLES, 0, mMeshIndexCount, mInstanceCount);
+
+    // 恢复为逐顶点属性并关闭，避免影响之后使用相同 location 的普通绘制
+    for (int column = 0; column < MATRIX_COLUMN_COUNT; column++) {
+      mGL.glVertexAttribDivisor(mModelMatrixLocation + column, 0);
+      mGL.glDisableVertexAttribArray(mModelMatrixLocation + column);
+    }
+    mGL.glVertexAttribDivisor(mColorLocation, 0);
+    mGL.glDisableVertexAttribArray(mColorLocation);
+  }
+
+  private void drawBatched() {
+    mGL.glEnableVertexAttribArray(mColorLocation);
+
+    for (int first = 0; first < mInstanceCount; first += mInstancesPerChunk) {
+      final int count = Math.min(mInstancesPerChunk, mInstanceCount - first);
+
+      int out = 0;
+      for (int instance = first; instance < first + count; instance++) {
+        out = transformInstance(instance, out);
+      }
+
+      mBatchedBuffer.update(mBatchedVertices, 0, out);
+      mIndexArray.drawElements(GL_TRIANGLES, 0, count * mMeshIndexCount);
+    }
+
+    // 其他网格不提供颜色数据，关闭以免读到此缓冲区的内容
+    mGL.glDisableVertexAttribArray(mColorLocation);
+  }
+
+  /**
+   * 用实例的模型矩阵变换网格顶点，连同颜色写入 mBatchedVertices
+   *
+   * @return 写入后的位置
+   */
+  private int transformInstance(int instance, int out) {
+    final float[] m = mInstanceData;
+    final int mo = instance * FLOATS_PER_INSTANCE;
+    final int co = mo + MATRIX_COMPONENT_COUNT;
+
+    for (int i = 0; i < mMeshVertices.length; i += POSITION_COMPONENT_COUNT) {
+      final float x = mMeshVertices[i];
+      final float y = mMeshVertices[i + 1];
+      final float z = mMeshVertices[i + 2];
+
+      // 列主序: 第 n 列位于 m[mo + 4n]
+      mBatchedVertices[out++] = m[mo] * x + m[mo + 4] * y + m[mo + 8] * z + m[mo + 12];
+      mBatchedVertices[out++] = m[mo + 1] * x + m[mo + 5] * y + m[mo + 9] * z + m[mo + 13];
+      mBatchedVertices[out++] = m[mo + 2] * x + m[mo + 6] * y + m[mo + 10] * z + m[mo + 14];
+      mBatchedVertices[out++] = m[co];
+      mBatchedVertices[out++] = m[co + 1];
+      mBatchedVertices[out++] = m[co + 2];
+      mBatchedVertices[out++] = m[co + 3];
+    }
+    return out;
+  }
+}
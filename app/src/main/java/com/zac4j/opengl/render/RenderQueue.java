@@ -0,0 +1,267 @@
+package com.zac4j.opengl.render;
+
+import com.zac4j.opengl.program.ShaderProgram;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 绘制队列
+ * 物体每帧提交 (program, texture, mesh, uniforms)，flush 时按 64 位排序键排序后统一绘制，
+ * 使相同 program、纹理和网格的绘制项相邻，尽量减少状态切换
+ *
+ * 排序键从高位到低位依次为:
+ * 层(3 位) | program 序号(7 位) | 纹理序号(12 位) | 网格序号(20 位) | 提交顺序(21 位)
+ *
+ * 层决定绘制的先后，没有深度测试时，先绘制的层在下面；同一层内的顺序由状态决定，
+ * program 序号只取决于注册的先后，不能用来控制遮挡关系
+ */
+public class RenderQueue {
+
+  /**
+   * 可用的层数，层号为 0 到 LAYER_COUNT - 1
+   */
+  public static final int LAYER_COUNT = 8;
+
+  private static final int INDEX_BITS = 21;
+  private static final int MESH_BITS = 20;
+  private static final int TEXTURE_BITS = 12;
+  private static final int PROGRAM_BITS = 7;
+
+  private static final int MESH_SHIFT = INDEX_BITS;
+  private static final int TEXTURE_SHIFT = MESH_SHIFT + MESH_BITS;
+  private static final int PROGRAM_SHIFT = TEXTURE_SHIFT + TEXTURE_BITS;
+  private static final int LAYER_SHIFT = PROGRAM_SHIFT + PROGRAM_BITS;
+
+  private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+  private static final long PROGRAM_MASK = (1L << PROGRAM_BITS) - 1;
+  private static final long MESH_MASK = (1L << MESH_BITS) - 1;
+  private static final long TEXTURE_MASK = (1L << TEXTURE_BITS) - 1;
+
+  private static final int FLOATS_PER_MATRIX = 16;
+  private static final int FLOATS_PER_COLOR = 4;
+
+  // program、纹理与网格的注册表，数组下标即排序键中的序号
+  private ShaderProgram[] mPrograms = new ShaderProgram[4];
+  private int mProgramCount;
+  private int[] mTextures = new int[4];
+  private int mTextureCount;
+  private Renderable[] mMeshes = new Renderable[8];
+  private int mMeshCount;
+  // 网格可能很多，用哈希表查找序号
+  private final Map<Renderable, Integer> mMeshIndices = new IdentityHashMap<>();
+
+  // 每个绘制项的排序键、矩阵与颜色
+  private long[] mKeys;
+  private float[] mMatrices;
+  private float[] mColors;
+  private int mCount;
+
+  // 上一次 flush 中实际发生的切换次数
+  private int mProgramSwitches;
+  private int mTextureSwitches;
+  private int mMeshSwitches;
+
+  /**
+   * @param initialCapacity 初始容量，超出后自动扩容
+   */
+  public RenderQueue(int initialCapacity) {
+    final int capacity = Math.max(1, initialCapacity);
+    mKeys = new long[capacity];
+    mMatrices = new float[capacity * FLOATS_PER_MATRIX];
+    mColors = new float[capacity * FLOATS_PER_COLOR];
+  }
+
+  /**
+   * 向第 0 层提交一个绘制项
+   *
+   * @see #submit(int, ShaderProgram, int, Renderable, float[], float, float, float)
+   */
+  public <P extends ShaderProgram> void submit(P program, int textureId,
+      Renderable<? super P> mesh, float[] matrix, float r, float g, float b) {
+    submit(0, program, textureId, mesh, matrix, r, g, b);
+  }
+
+  /**
+   * 提交一个绘制项，矩阵与颜色会被拷贝，调用后可立即复用
+   *
+   * @param layer 层，层号小的先绘制
+   * @param program 着色程序
+   * @param textureId 纹理对象 id，不使用纹理时传 0
+   * @param mesh 网格
+   * @param matrix 转换矩阵
+   * @param r 红
+   * @param g 绿
+   * @param b 蓝
+   */
+  public <P extends ShaderProgram> void submit(int layer, P program, int textureId,
+      Renderable<? super P> mesh, float[] matrix, float r, float g, float b) {
+    if (layer < 0 || layer >= LAYER_COUNT) {
+      throw new IllegalArgumentException("Layer out of range: " + layer);
+    }
+    if (mCount > INDEX_MASK) {
+      throw new IllegalStateException("Too many items in render queue: " + mCount);
+    }
+    ensureCapacity(mCount + 1);
+
+    final long programIndex = indexOfProgram(program);
+    final long textureIndex = indexOfTexture(textureId);
+    final long meshIndex = indexOfMesh(mesh);
+
+    mKeys[mCount] = ((long) layer << LAYER_SHIFT)
+        | (programIndex << PROGRAM_SHIFT)
+        | (textureIndex << TEXTURE_SHIFT)
+        | (meshIndex << MESH_SHIFT)
+        | mCount;
+
+    System.arraycopy(matrix, 0, mMatrices, mCount * FLOATS_PER_MATRIX, FLOATS_PER_MATRIX);
+
+    final int colorOffset = mCount * FLOATS_PER_COLOR;
+    mColors[colorOffset] = r;
+    mColors[colorOffset + 1] = g;
+    mColors[colorOffset + 2] = b;
+    mColors[colorOffset + 3] = 1f;
+
+    mCount++;
+  }
+
+  /**
+   * 排序并绘制所有已提交的绘制项，然后清空队列
+   */
+  @SuppressWarnings("unchecked")
+  public void flush() {
+    Arrays.sort(mKeys, 0, mCount);
+
+    mProgramSwitches = 0;
+    mTextureSwitches = 0;
+    mMeshSwitches = 0;
+
+    int lastProgram = -1;
+    int lastTexture = -1;
+    int lastMesh = -1;
+
+    for (int i = 0; i < mCount; i++) {
+      final long key = mKeys[i];
+      final int programIndex = (int) ((key >>> PROGRAM_SHIFT) & PROGRAM_MASK);
+      final int textureIndex = (int) ((key >>> TEXTURE_SHIFT) & TEXTURE_MASK);
+      final int meshIndex = (int) ((key >>> MESH_SHIFT) & MESH_MASK);
+      final int item = (int) (key & INDEX_MASK);
+
+      final ShaderProgram program = mPrograms[programIndex];
+      final Renderable mesh = mMeshes[meshIndex];
+
+      if (programIndex != lastProgram) {
+        program.useProgram();
+        lastProgram = programIndex;
+        // 不同 program 的属性 location 不同，需要重新绑定网格
+        lastMesh = -1;
+        lastTexture = -1;
+        mProgramSwitches++;
+      }
+      if (textureIndex != lastTexture) {
+        lastTexture = textureIndex;
+        mTextureSwitches++;
+      }
+      if (meshIndex != lastMesh) {
+        mesh.bindData(program);
+        lastMesh = meshIndex;
+        mMeshSwitches++;
+      }
+
+      program.setUniforms(mMatrices, item * FLOATS_PER_MATRIX, mColors, item * FLOATS_PER_COLOR,
+          mTextures[textureIndex]);
+      mesh.draw();
+    }
+
+    mCount = 0;
+  }
+
+  /**
+   * 清空队列和注册表，在 EGL context 重建、program 与网格重新创建后调用
+   */
+  public void clear() {
+    mCount = 0;
+    Arrays.fill(mPrograms, 0, mProgramCount, null);
+    Arrays.fill(mMeshes, 0, mMeshCount, null);
+    mMeshIndices.clear();
+    mProgramCount = 0;
+    mTextureCount = 0;
+    mMeshCount = 0;
+  }
+
+  public int size() {
+    return mCount;
+  }
+
+  public int getProgramSwitches() {
+    return mProgramSwitches;
+  }
+
+  public int getTextureSwitches() {
+    return mTextureSwitches;
+  }
+
+  public int getMeshSwitches() {
+    return mMeshSwitches;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= mKeys.length) {
+      return;
+    }
+    final int newCapacity = Math.max(capacity, mKeys.length * 2);
+    mKeys = Arrays.copyOf(mKeys, newCapacity);
+    mMatrices = Arrays.copyOf(mMatrices, newCapacity * FLOATS_PER_MATRIX);
+    mColors = Arrays.copyOf(mColors, newCapacity * FLOATS_PER_COLOR);
+  }
+
+  // 不同的 program 和纹理数量很少，线性查找即可，且不会产生装箱对象
+
+  private int indexOfProgram(ShaderProgram program) {
+    for (int i = 0; i < mProgramCount; i++) {
+      if (mPrograms[i] == program) {
+        return i;
+      }
+    }
+    if (mProgramCount == 1 << PROGRAM_BITS) {
+      throw new IllegalStateException("Too many programs in render queue");
+    }
+    if (mProgramCount == mPrograms.length) {
+      mPrograms = Arrays.copyOf(mPrograms, mProgramCount * 2);
+    }
+    mPrograms[mProgramCount] = program;
+    return mProgramCount++;
+  }
+
+  private int indexOfTexture(int textureId) {
+    for (int i = 0; i < mTextureCount; i++) {
+      if (mTextures[i] == textureId) {
+        return i;
+      }
+    }
+    if (mTextureCount == 1 << TEXTURE_BITS) {
+      throw new IllegalStateException("Too many textures in render queue");
+    }
+    if (mTextureCount == mTextures.length) {
+      mTextures = Arrays.copyOf(mTextures, mTextureCount * 2);
+    }
+    mTextures[mTextureCount] = textureId;
+    return mTextureCount++;
+  }
+
+  private int indexOfMesh(Renderable mesh) {
+    final Integer index = mMeshIndices.get(mesh);
+    if (index != null) {
+      return index;
+    }
+    if (mMeshCount == 1 << MESH_BITS) {
+      throw new IllegalStateException("Too many meshes in render queue");
+    }
+    if (mMeshCount == mMeshes.length) {
+      mMeshes = Arrays.copyOf(mMeshes, mMeshCount * 2);
+    }
+    mMeshes[mMeshCount] = mesh;
+    mMeshIndices.put(mesh, mMeshCount);
+    return mMeshCount++;
+  }
+}
@@ -0,0 +1,22 @@
+package com.zac4j.opengl.render;
+
+import com.zac4j.opengl.program.ShaderProgram;
+
+/**
+ * 可提交到 RenderQueue 的网格
+ *
+ * @param <P> 绘制该网格所需的着色程序类型
+ */
+public interface Renderable<P extends ShaderProgram> {
+
+  /**
+   * 将顶点数据绑定到着色程序的属性上
+   * @param program 着色程序
+   */
+  void bindData(P program);
+
+  /**
+   * 发起绘制调用
+   */
+  void draw();
+}
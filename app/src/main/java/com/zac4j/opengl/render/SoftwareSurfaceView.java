@@ -0,0 +1,204 @@
+package com.zac4j.opengl.render;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.opengl.GLSurfaceView;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+import com.zac4j.opengl.gl.SoftwareGL;
+
+/**
+ * 用 SoftwareGL 渲染的 SurfaceView，在不支持 OpenGL ES 2.0 的设备上代替 GLSurfaceView
+ *
+ * 与 GLSurfaceView 一样在独立的渲染线程中调用 GLSurfaceView.Renderer，支持连续渲染与按需渲染；
+ * 每帧结束后把 SoftwareGL 的帧缓冲区拷贝到 Bitmap 并画到 Surface 上。
+ * 渲染器必须使用 getGL 返回的 GL 实例，onSurfaceCreated 与 onSurfaceChanged 的 GL10 参数为 null。
+ * SoftwareGL 的状态不随 Surface 销毁而丢失，onSurfaceCreated 只在渲染线程启动时调用一次
+ */
+public class SoftwareSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+
+  private final SoftwareGL mGL;
+  private final Object mLock = new Object();
+
+  // 以下状态由 mLock 保护
+  private boolean mHasSurface;
+  private boolean mPaused;
+  private boolean mExited;
+  private boolean mContinuous = true;
+  private boolean mRenderRequested = true;
+  private boolean mSizeChanged;
+  // 渲染线程正在使用 Surface，销毁 Surface 前需等待
+  private boolean mDrawing;
+  private int mWidth;
+  private int mHeight;
+
+  private Thread mRenderThread;
+
+  /**
+   * @param context 上下文
+   * @param threadCount 光栅化线程数，包括渲染线程
+   */
+  public SoftwareSurfaceView(Context context, int threadCount) {
+    super(context);
+    mGL = new SoftwareGL(1, 1, threadCount);
+    getHolder().addCallback(this);
+  }
+
+  /**
+   * @return 渲染器使用的 GL 实例，只能在渲染线程中调用
+   */
+  public SoftwareGL getGL() {
+    return mGL;
+  }
+
+  /**
+   * 设置渲染器并启动渲染线程，只能调用一次
+   */
+  public void setRenderer(final GLSurfaceView.Renderer renderer) {
+    if (mRenderThread != null) {
+      throw new IllegalStateException("setRenderer has already been called for this instance.");
+    }
+    mRenderThread = new Thread(new Runnable() {
+      @Override public void run() {
+        try {
+          renderLoop(renderer);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          mGL.release();
+        }
+      }
+    }, "SoftwareRenderThread");
+    mRenderThread.start();
+  }
+
+  /**
+   * @param renderMode GLSurfaceView.RENDERMODE_CONTINUOUSLY 或 GLSurfaceView.RENDERMODE_WHEN_DIRTY
+   */
+  public void setRenderMode(int renderMode) {
+    synchronized (mLock) {
+      mContinuous = renderMode == GLSurfaceView.RENDERMODE_CONTINUOUSLY;
+      mLock.notifyAll();
+    }
+  }
+
+  public void requestRender() {
+    synchronized (mLock) {
+      mRenderRequested = true;
+      mLock.notifyAll();
+    }
+  }
+
+  public void onPause() {
+    synchronized (mLock) {
+      mPaused = true;
+    }
+  }
+
+  public void onResume() {
+    synchronized (mLock) {
+      mPaused = false;
+      mRenderRequested = true;
+      mLock.notifyAll();
+    }
+  }
+
+  @Override public void surfaceCreated(SurfaceHolder holder) {
+    synchronized (mLock) {
+      mHasSurface = true;
+      mLock.notifyAll();
+    }
+  }
+
+  @Override public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+    synchronized (mLock) {
+      mWidth = width;
+      mHeight = height;
+      mSizeChanged = true;
+      mRenderRequested = true;
+      mLock.notifyAll();
+    }
+  }
+
+  @Override public void surfaceDestroyed(SurfaceHolder holder) {
+    synchronized (mLock) {
+      mHasSurface = false;
+      // 返回后 Surface 即失效，等待当前帧画完
+      while (mDrawing && !mExited) {
+        try {
+          mLock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  @Override protected void onDetachedFromWindow() {
+    synchronized (mLock) {
+      mExited = true;
+      mLock.notifyAll();
+    }
+    super.onDetachedFromWindow();
+  }
+
+  private void renderLoop(GLSurfaceView.Renderer renderer) throws InterruptedException {
+    final SurfaceHolder holder = getHolder();
+    Bitmap bitmap = null;
+    int[] pixels = null;
+    boolean created = false;
+
+    while (true) {
+      final boolean sizeChanged;
+      final int width;
+      final int height;
+      synchronized (mLock) {
+        while (!mExited && !(mHasSurface && !mPaused && mWidth > 0 && mHeight > 0
+            && (mContinuous || mRenderRequested))) {
+          mLock.wait();
+        }
+        if (mExited) {
+          mLock.notifyAll();
+          break;
+        }
+        mRenderRequested = false;
+        sizeChanged = mSizeChanged;
+        mSizeChanged = false;
+        width = mWidth;
+        height = mHeight;
+        mDrawing = true;
+      }
+
+      try {
+        if (!created) {
+          renderer.onSurfaceCreated(null, null);
+          created = true;
+        }
+        if (sizeChanged || bitmap == null) {
+          mGL.setSurfaceSize(width, height);
+          bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+          // 清屏颜色的 alpha 可能为 0，按不透明处理，不与 Surface 上一帧的内容混合
+          bitmap.setHasAlpha(false);
+          pixels = new int[width * height];
+          renderer.onSurfaceChanged(null, width, height);
+        }
+        renderer.onDrawFrame(null);
+
+        mGL.readPixels(pixels);
+        bitmap.setPixels(pixels, 0, width, 0, 0, width, height);
+        final Canvas canvas = holder.lockCanvas();
+        if (canvas != null) {
+          canvas.drawBitmap(bitmap, 0f, 0f, null);
+          holder.unlockCanvasAndPost(canvas);
+        }
+      } finally {
+        synchronized (mLock) {
+          mDrawing = false;
+          mLock.notifyAll();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,207 @@
+package com.zac4j.opengl.scene;
+
+import com.zac4j.opengl.util.Geometry;
+import com.zac4j.opengl.util.MatrixHelper;
+import java.util.Arrays;
+
+/**
+ * 视锥体剔除，用包围球判断 Scene 中哪些实体可能出现在屏幕上
+ *
+ * 每帧先把各实体的世界包围球写入连续的数组(球心 x、y、z 与半径各一列)，
+ * 再逐个平面遍历所有球，循环体只有乘加与取最小值，没有分支，JIT 可以向量化；
+ * 最后一遍把最小距离转换为可见性。与逐个实体依次测试六个平面相比不能提前退出，
+ * 但实体较多时顺序访问与向量化的收益更大
+ *
+ * 包围球与平面相交也视为可见，结果是保守的: 可能多画，不会漏画
+ *
+ * 不依赖 Android，可在 JVM 上直接运行
+ */
+public class FrustumCuller {
+
+  public static final int PLANE_COUNT = 6;
+  public static final int FLOATS_PER_PLANE = 4;
+
+  // 视锥体平面，法线指向内部
+  private final float[] mPlanes = new float[PLANE_COUNT * FLOATS_PER_PLANE];
+  private boolean mHasPlanes;
+
+  // 每种网格在模型坐标中的包围球，下标为网格；半径为负表示未设置，总是可见
+  private float[] mMeshCenterX = new float[0];
+  private float[] mMeshCenterY = new float[0];
+  private float[] mMeshCenterZ = new float[0];
+  private float[] mMeshRadius = new float[0];
+
+  // 实体的世界包围球，每帧重新填充
+  private float[] mX = new float[0];
+  private float[] mY = new float[0];
+  private float[] mZ = new float[0];
+  private float[] mRadius = new float[0];
+  // 球到各平面有符号距离的最小值，非负即可见
+  private float[] mDistance = new float[0];
+
+  // 按实体下标的可见性
+  private boolean[] mVisible = new boolean[0];
+  private int mCount;
+  private int mVisibleCount;
+
+  /**
+   * 设置相机，视图投影矩阵变化后调用
+   *
+   * @param viewProjectionMatrix 视图投影矩阵
+   * @param offset 矩阵在数组中的偏移量
+   */
+  public void setViewProjection(float[] viewProjectionMatrix, int offset) {
+    MatrixHelper.frustumPlanes(mPlanes, viewProjectionMatrix, offset);
+    mHasPlanes = true;
+  }
+
+  /**
+   * 设置网格的包围体，未设置的网格不剔除
+   *
+   * @param mesh 网格
+   * @param bounds 模型坐标中的包围体
+   */
+  public void setMeshBounds(int mesh, Geometry.Bounds bounds) {
+    if (mesh < 0) {
+      throw new IllegalArgumentException("Mesh must not be negative: " + mesh);
+    }
+    if (mesh >= mMeshRadius.length) {
+      final int oldLength = mMeshRadius.length;
+      final int length = Math.max(mesh + 1, oldLength * 2);
+      mMeshCenterX = Arrays.copyOf(mMeshCenterX, length);
+      mMeshCenterY = Arrays.copyOf(mMeshCenterY, length);
+      mMeshCenterZ = Arrays.copyOf(mMeshCenterZ, length);
+      mMeshRadius = Arrays.copyOf(mMeshRadius, length);
+      Arrays.fill(mMeshRadius, oldLength, length, -1f);
+    }
+    mMeshCenterX[mesh] = bounds.centerX;
+    mMeshCenterY[mesh] = bounds.centerY;
+    mMeshCenterZ[mesh] = bounds.centerZ;
+    mMeshRadius[mesh] = bounds.radius;
+  }
+
+  /**
+   * 计算场景中所有实体的可见性，结果通过 getVisible 取得
+   * 尚未设置相机时所有实体都可见
+   *
+   * @param scene 场景
+   * @return 可见的实体数量
+   */
+  public int cull(Scene scene) {
+    final int count = scene.mCount;
+    ensureCapacity(count);
+    mCount = count;
+
+    // 写入世界包围球: 模型矩阵为平移 * 均匀缩放，与 Scene.packInstances 相同
+    final int[] meshes = scene.mMeshes;
+    final float[] scale = scene.mScale;
+    final float[] meshRadius = mMeshRadius;
+    for (int i = 0; i < count; i++) {
+      final int mesh = meshes[i];
+      final float s = scale[i];
+      if (mesh < meshRadius.length && meshRadius[mesh] >= 0f) {
+        mX[i] = scene.mX[i] + s * mMeshCenterX[mesh];
+        mY[i] = scene.mY[i] + s * mMeshCenterY[mesh];
+        mZ[i] = scene.mZ[i] + s * mMeshCenterZ[mesh];
+        mRadius[i] = Math.abs(s) * meshRadius[mesh];
+      } else {
+        // 没有包围体的网格用无穷大的球，总是可见
+        mX[i] = scene.mX[i];
+        mY[i] = scene.mY[i];
+        mZ[i] = scene.mZ[i];
+        mRadius[i] = Float.POSITIVE_INFINITY;
+      }
+    }
+
+    if (!mHasPlanes) {
+      Arrays.fill(mVisible, 0, count, true);
+      mVisibleCount = count;
+      return count;
+    }
+    mVisibleCount = cullSpheres(mPlanes, mX, mY, mZ, mRadius, count, mDistance, mVisible);
+    return mVisibleCount;
+  }
+
+  /**
+   * 按平面依次测试连续存放的包围球
+   *
+   * @param planes 视锥体平面，PLANE_COUNT * FLOATS_PER_PLANE 个 float，法线指向内部并已归一化
+   * @param x 球心 x
+   * @param y 球心 y
+   * @param z 球心 z
+   * @param radius 半径
+   * @param count 球的数量
+   * @param distance 临时数组，至少 count 个 float
+   * @param visible 结果，至少 count 个元素
+   * @return 可见的球数量
+   */
+  public static int cullSpheres(float[] planes, float[] x, float[] y, float[] z,
+      float[] radius, int count, float[] distance, boolean[] visible) {
+    // 第一个平面直接写入，之后的平面取最小值
+    float a = planes[0];
+    float b = planes[1];
+    float c = planes[2];
+    float d = planes[3];
+    for (int i = 0; i < count; i++) {
+      distance[i] = a * x[i] + b * y[i] + c * z[i] + d + radius[i];
+    }
+    for (int p = FLOATS_PER_PLANE; p < PLANE_COUNT * FLOATS_PER_PLANE; p += FLOATS_PER_PLANE) {
+      a = planes[p];
+      b = planes[p + 1];
+      c = planes[p + 2];
+      d = planes[p + 3];
+      for (int i = 0; i < count; i++) {
+        distance[i] = Math.min(distance[i], a * x[i] + b * y[i] + c * z[i] + d + radius[i]);
+      }
+    }
+
+    int visibleCount = 0;
+    for (int i = 0; i < count; i++) {
+      final boolean inside = distance[i] >= 0f;
+      visible[i] = inside;
+      visibleCount += inside ? 1 : 0;
+    }
+    return visibleCount;
+  }
+
+  /**
+   * @return 按实体下标的可见性，长度可能大于实体数量，在下次 cull 之前有效
+   */
+  public boolean[] getVisible() {
+    return mVisible;
+  }
+
+  public boolean isVisible(int entity) {
+    if (entity < 0 || entity >= mCount) {
+      throw new IndexOutOfBoundsException("Entity " + entity + " out of " + mCount);
+    }
+    return mVisible[entity];
+  }
+
+  /**
+   * @return 上次 cull 时可见的实体数量
+   */
+  public int getVisibleCount() {
+    return mVisibleCount;
+  }
+
+  /**
+   * @return 上次 cull 时被剔除的实体数量
+   */
+  public int getCulledCount() {
+    return mCount - mVisibleCount;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= mVisible.length) {
+      return;
+    }
+    final int newCapacity = Math.max(capacity, mVisible.length * 2);
+    mX = new float[newCapacity];
+    mY = new float[newCapacity];
+    mZ = new float[newCapacity];
+    mRadius = new float[newCapacity];
+    mDistance = new float[newCapacity];
+    mVisible = new boolean[newCapacity];
+  }
+}
@@ -0,0 +1,132 @@
+package com.zac4j.opengl.scene;
+
+import java.util.Arrays;
+
+/**
+ * 按屏幕误差为 Scene 中的实体选择 LOD 级别
+ *
+ * 每种网格有一条由细到粗的 LOD 链，每一级有模型坐标中的几何误差(如圆周的弓形高)。
+ * 误差投影到屏幕上约为 error * scale * pixelsPerUnit / w，w 为实体中心的裁剪坐标 w，
+ * 透视投影下即到相机的深度；选择投影误差不超过 maxScreenError 像素的最粗一级。
+ * 远处或缩小的实体使用较粗的网格，近处的实体仍然使用最精细的一级
+ *
+ * 不依赖 Android，可在 JVM 上直接运行
+ */
+public class LodSelector {
+
+  // 默认允许的屏幕误差，像素
+  public static final float DEFAULT_MAX_SCREEN_ERROR = 0.5f;
+
+  // 被剔除的实体的级别
+  public static final int CULLED = -1;
+
+  // 视图投影矩阵的第四行，点乘实体中心得到 w
+  private float mW0, mW1, mW2, mW3;
+  // w = 1 处每单位长度对应的像素数，0 表示尚未设置相机，总是选择第 0 级
+  private float mPixelsPerUnit;
+  private float mMaxScreenError = DEFAULT_MAX_SCREEN_ERROR;
+
+  // 每种网格各级的几何误差，下标为网格，null 表示只有一级
+  private float[][] mMeshErrors = new float[0][];
+
+  // 按实体下标的级别
+  private int[] mLevels = new int[0];
+
+  /**
+   * 设置相机，视图投影矩阵或视口变化后调用
+   *
+   * @param viewProjectionMatrix 视图投影矩阵，视图矩阵应为刚体变换
+   * @param offset 矩阵在数组中的偏移量
+   * @param viewportHeight 视口高度，像素
+   */
+  public void setCamera(float[] viewProjectionMatrix, int offset, int viewportHeight) {
+    final float[] m = viewProjectionMatrix;
+    mW0 = m[offset + 3];
+    mW1 = m[offset + 7];
+    mW2 = m[offset + 11];
+    mW3 = m[offset + 15];
+    // 视图矩阵的旋转不改变长度，第二行的长度即投影矩阵的 y 缩放
+    final float scaleY = (float) Math.sqrt(
+        m[offset + 1] * m[offset + 1] + m[offset + 5] * m[offset + 5]
+            + m[offset + 9] * m[offset + 9]);
+    mPixelsPerUnit = scaleY * viewportHeight * 0.5f;
+  }
+
+  /**
+   * @param pixels 允许的屏幕误差，像素
+   */
+  public void setMaxScreenError(float pixels) {
+    if (!(pixels > 0f)) {
+      throw new IllegalArgumentException("Screen error must be positive: " + pixels);
+    }
+    mMaxScreenError = pixels;
+  }
+
+  /**
+   * 设置网格的 LOD 链，未设置的网格总是使用第 0 级
+   *
+   * @param mesh 网格
+   * @param errors 各级的几何误差，模型坐标，由细到粗递增
+   */
+  public void setMeshLods(int mesh, float[] errors) {
+    if (mesh < 0) {
+      throw new IllegalArgumentException("Mesh must not be negative: " + mesh);
+    }
+    if (mesh >= mMeshErrors.length) {
+      mMeshErrors = Arrays.copyOf(mMeshErrors, Math.max(mesh + 1, mMeshErrors.length * 2));
+    }
+    mMeshErrors[mesh] = errors.clone();
+  }
+
+  /**
+   * 为场景中的所有实体选择级别
+   *
+   * @param scene 场景
+   * @param visible 按实体下标的可见性，如 FrustumCuller.getVisible()；为 null 时全部可见
+   * @return 按实体下标的级别，被剔除的实体为 CULLED，在下次 select 之前有效
+   */
+  public int[] select(Scene scene, boolean[] visible) {
+    final int count = scene.mCount;
+    if (count > mLevels.length) {
+      mLevels = new int[Math.max(count, mLevels.length * 2)];
+    }
+
+    final int[] levels = mLevels;
+    final int[] meshes = scene.mMeshes;
+    for (int i = 0; i < count; i++) {
+      if (visible != null && !visible[i]) {
+        levels[i] = CULLED;
+        continue;
+      }
+      final int mesh = meshes[i];
+      final float[] errors = mesh < mMeshErrors.length ? mMeshErrors[mesh] : null;
+      if (errors == null || errors.length == 1) {
+        levels[i] = 0;
+        continue;
+      }
+
+      final float w = mW0 * scene.mX[i] + mW1 * scene.mY[i] + mW2 * scene.mZ[i] + mW3;
+      final float pixelsPerUnit = Math.abs(scene.mScale[i]) * mPixelsPerUnit;
+      if (!(w > 0f) || !(pixelsPerUnit > 0f)) {
+        levels[i] = 0;
+        continue;
+      }
+
+      // 屏幕误差不超过 maxScreenError 时允许的最大几何误差
+      final float maxError = mMaxScreenError * w / pixelsPerUnit;
+      int level = 0;
+      while (level + 1 < errors.length && errors[level + 1] <= maxError) {
+        level++;
+      }
+      levels[i] = level;
+    }
+    return levels;
+  }
+
+  /**
+   * @return 上次 select 的结果，长度可能大于实体数量
+   */
+  public int[] getLevels() {
+    return mLevels;
+  }
+}
@@ -0,0 +1,389 @@
+package com.zac4j.opengl.scene;
+
+import java.util.Arrays;
+
+/**
+ * 桌面上的圆盘物理模拟，在 XZ 平面上以固定步长推进 Scene 中的实体
+ *
+ * 每一步依次处理: 摩擦减速、按速度移动、与桌边碰撞、用均匀网格做粗略检测、
+ * 圆与圆的精确碰撞(位置修正 + 带恢复系数的冲量)。步长固定且遍历顺序只取决于实体下标，
+ * 相同的输入总是得到相同的结果，与渲染帧率无关
+ *
+ * 半径为 0 的实体不参与碰撞；质量倒数为 0 的实体(如棒槌)不受碰撞影响，只能通过
+ * moveBody 移动，每步结束时速度清零
+ *
+ * 不依赖 Android，可在 JVM 上直接运行
+ */
+public class PhysicsWorld {
+
+  // 固定步长，秒
+  public static final float STEP_SECONDS = 1f / 120f;
+
+  // 一次 advance 最多执行的步数，卡顿后丢弃多余的时间，避免越追越慢
+  private static final int MAX_STEPS_PER_ADVANCE = 8;
+
+  // 低于此速度的物体视为静止，摩擦只让速度按比例衰减，不会自行降到 0
+  private static final float REST_SPEED = 0.002f;
+
+  private final Scene mScene;
+
+  // 桌边
+  private final float mMinX;
+  private final float mMaxX;
+  private final float mMinZ;
+  private final float mMaxZ;
+
+  // 网格单元的最小边长，实际边长至少为最大直径，保证相交的两个圆位于相邻单元
+  private final float mMinCellSize;
+
+  // 每秒损失的速度比例
+  private float mFriction = 0.5f;
+  // 圆与圆、圆与桌边的恢复系数
+  private float mRestitution = 0.9f;
+  private float mWallRestitution = 0.8f;
+
+  // 尚未模拟的时间
+  private float mAccumulator;
+  private long mStepCount;
+  // 上一步发生的碰撞数量
+  private int mContactCount;
+  // 上一步结束时所有物体都静止
+  private boolean mSettled = true;
+
+  // 均匀网格，按单元对实体做计数排序:
+  // 单元 c 中的实体为 mSortedBodies[mCellStart[c] .. mCellStart[c + 1])
+  private int mColumns;
+  private int mRows;
+  private float mCellSize;
+  private int[] mCellStart = new int[1];
+  private int[] mCellCursor = new int[0];
+  private int[] mBodyCell = new int[0];
+  private int[] mSortedBodies = new int[0];
+
+  /**
+   * @param scene 场景
+   * @param minX 桌面左边界
+   * @param maxX 桌面右边界
+   * @param minZ 桌面远端边界
+   * @param maxZ 桌面近端边界
+   * @param minCellSize 网格单元的最小边长
+   */
+  public PhysicsWorld(Scene scene, float minX, float maxX, float minZ, float maxZ,
+      float minCellSize) {
+    if (minX >= maxX || minZ >= maxZ || minCellSize <= 0f) {
+      throw new IllegalArgumentException("Invalid world bounds or cell size");
+    }
+    mScene = scene;
+    mMinX = minX;
+    mMaxX = maxX;
+    mMinZ = minZ;
+    mMaxZ = maxZ;
+    mMinCellSize = minCellSize;
+  }
+
+  public void setFriction(float friction) {
+    mFriction = friction;
+  }
+
+  public void setRestitution(float restitution, float wallRestitution) {
+    mRestitution = restitution;
+    mWallRestitution = wallRestitution;
+  }
+
+  /**
+   * 推进经过的时间，按固定步长执行整数步，剩余的时间留到下一次
+   *
+   * @param elapsedSeconds 距上一次调用经过的时间，秒
+   * @return 执行的步数
+   */
+  public int advance(float elapsedSeconds) {
+    mAccumulator += elapsedSeconds;
+    int steps = 0;
+    while (mAccumulator >= STEP_SECONDS && steps < MAX_STEPS_PER_ADVANCE) {
+      step();
+      mAccumulator -= STEP_SECONDS;
+      steps++;
+    }
+    if (mAccumulator >= STEP_SECONDS) {
+      mAccumulator = 0f;
+    }
+    return steps;
+  }
+
+  /**
+   * 在下一步中把不受碰撞影响的实体移动到指定位置，移动时的速度参与碰撞，
+   * 因此快速拖动的棒槌能把冰球击出
+   *
+   * @param entity 实体下标
+   * @param x 目标位置
+   * @param z 目标位置
+   */
+  public void moveBody(int entity, float x, float z) {
+    mScene.setVelocity(entity, (x - mScene.getX(entity)) / STEP_SECONDS, 0f,
+        (z - mScene.getZ(entity)) / STEP_SECONDS);
+  }
+
+  /**
+   * 执行一步模拟
+   */
+  public void step() {
+    final Scene scene = mScene;
+    final int count = scene.mCount;
+    final float[] vx = scene.mVelocityX;
+    final float[] vz = scene.mVelocityZ;
+    final float[] inverseMass = scene.mInverseMass;
+
+    final float damping = Math.max(0f, 1f - mFriction * STEP_SECONDS);
+    final float restSpeedSquared = REST_SPEED * REST_SPEED;
+    for (int i = 0; i < count; i++) {
+      if (inverseMass[i] > 0f) {
+        vx[i] *= damping;
+        vz[i] *= damping;
+        if (vx[i] * vx[i] + vz[i] * vz[i] < restSpeedSquared) {
+          vx[i] = 0f;
+          vz[i] = 0f;
+        }
+      }
+    }
+
+    scene.integrate(STEP_SECONDS);
+    collideWalls();
+    buildGrid();
+    mContactCount = collideBodies();
+
+    boolean settled = true;
+    for (int i = 0; i < count; i++) {
+      if (inverseMass[i] == 0f) {
+        vx[i] = 0f;
+        vz[i] = 0f;
+      } else if (vx[i] != 0f || vz[i] != 0f) {
+        settled = false;
+      }
+    }
+    mSettled = settled;
+    mStepCount++;
+  }
+
+  /**
+   * @return 上一步结束时所有物体都已静止，此时不必继续渲染新的帧
+   */
+  public boolean isSettled() {
+    return mSettled;
+  }
+
+  public long getStepCount() {
+    return mStepCount;
+  }
+
+  public int getContactCount() {
+    return mContactCount;
+  }
+
+  private void collideWalls() {
+    final Scene scene = mScene;
+    final int count = scene.mCount;
+    final float[] x = scene.mX;
+    final float[] z = scene.mZ;
+    final float[] vx = scene.mVelocityX;
+    final float[] vz = scene.mVelocityZ;
+    final float[] radius = scene.mRadius;
+    final float[] inverseMass = scene.mInverseMass;
+    final float e = mWallRestitution;
+
+    for (int i = 0; i < count; i++) {
+      final float r = radius[i];
+      if (r <= 0f) {
+        continue;
+      }
+      // 不受碰撞影响的实体只限制在桌面内，速度在步末清零
+      final float bounce = inverseMass[i] > 0f ? -e : 0f;
+      if (x[i] < mMinX + r) {
+        x[i] = mMinX + r;
+        if (vx[i] < 0f) {
+          vx[i] *= bounce;
+        }
+      } else if (x[i] > mMaxX - r) {
+        x[i] = mMaxX - r;
+        if (vx[i] > 0f) {
+          vx[i] *= bounce;
+        }
+      }
+      if (z[i] < mMinZ + r) {
+        z[i] = mMinZ + r;
+        if (vz[i] < 0f) {
+          vz[i] *= bounce;
+        }
+      } else if (z[i] > mMaxZ - r) {
+        z[i] = mMaxZ - r;
+        if (vz[i] > 0f) {
+          vz[i] *= bounce;
+        }
+      }
+    }
+  }
+
+  /**
+   * 按所在单元对参与碰撞的实体做计数排序
+   */
+  private void buildGrid() {
+    final Scene scene = mScene;
+    final int count = scene.mCount;
+    final float[] x = scene.mX;
+    final float[] z = scene.mZ;
+    final float[] radius = scene.mRadius;
+
+    float maxRadius = 0f;
+    for (int i = 0; i < count; i++) {
+      maxRadius = Math.max(maxRadius, radius[i]);
+    }
+    mCellSize = Math.max(mMinCellSize, maxRadius * 2f);
+    mColumns = Math.max(1, (int) Math.ceil((mMaxX - mMinX) / mCellSize));
+    mRows = Math.max(1, (int) Math.ceil((mMaxZ - mMinZ) / mCellSize));
+
+    final int cells = mColumns * mRows;
+    if (mCellStart.length < cells + 1) {
+      mCellStart = new int[cells + 1];
+      mCellCursor = new int[cells];
+    }
+    if (mBodyCell.length < count) {
+      mBodyCell = new int[scene.mX.length];
+      mSortedBodies = new int[scene.mX.length];
+    }
+
+    final int[] cellStart = mCellStart;
+    final int[] bodyCell = mBodyCell;
+    Arrays.fill(cellStart, 0, cells + 1, 0);
+    final float inverseCellSize = 1f / mCellSize;
+    for (int i = 0; i < count; i++) {
+      if (radius[i] <= 0f) {
+        bodyCell[i] = -1;
+        continue;
+      }
+      final int column = clamp((int) ((x[i] - mMinX) * inverseCellSize), mColumns - 1);
+      final int row = clamp((int) ((z[i] - mMinZ) * inverseCellSize), mRows - 1);
+      final int cell = row * mColumns + column;
+      bodyCell[i] = cell;
+      cellStart[cell + 1]++;
+    }
+
+    for (int c = 0; c < cells; c++) {
+      cellStart[c + 1] += cellStart[c];
+    }
+    System.arraycopy(cellStart, 0, mCellCursor, 0, cells);
+    for (int i = 0; i < count; i++) {
+      final int cell = bodyCell[i];
+      if (cell >= 0) {
+        mSortedBodies[mCellCursor[cell]++] = i;
+      }
+    }
+  }
+
+  /**
+   * 每个单元与自身以及右、左下、下、右下四个相邻单元检测，每对单元只检测一次
+   *
+   * @return 碰撞数量
+   */
+  private int collideBodies() {
+    final int[] cellStart = mCellStart;
+    final int[] sorted = mSortedBodies;
+    int contacts = 0;
+
+    for (int row = 0; row < mRows; row++) {
+      for (int column = 0; column < mColumns; column++) {
+        final int cell = row * mColumns + column;
+        final int start = cellStart[cell];
+        final int end = cellStart[cell + 1];
+        if (start == end) {
+          continue;
+        }
+
+        for (int a = start; a < end; a++) {
+          final int i = sorted[a];
+          for (int b = a + 1; b < end; b++) {
+            if (collide(i, sorted[b])) {
+              contacts++;
+            }
+          }
+        }
+
+        contacts += collideCells(start, end, column + 1, row);
+        contacts += collideCells(start, end, column - 1, row + 1);
+        contacts += collideCells(start, end, column, row + 1);
+        contacts += collideCells(start, end, column + 1, row + 1);
+      }
+    }
+    return contacts;
+  }
+
+  private int collideCells(int start, int end, int column, int row) {
+    if (column < 0 || column >= mColumns || row >= mRows) {
+      return 0;
+    }
+    final int cell = row * mColumns + column;
+    final int otherStart = mCellStart[cell];
+    final int otherEnd = mCellStart[cell + 1];
+    int contacts = 0;
+    for (int a = start; a < end; a++) {
+      final int i = mSortedBodies[a];
+      for (int b = otherStart; b < otherEnd; b++) {
+        if (collide(i, mSortedBodies[b])) {
+          contacts++;
+        }
+      }
+    }
+    return contacts;
+  }
+
+  /**
+   * 圆与圆的碰撞: 按质量倒数分摊穿透深度，接近时沿法线施加冲量
+   *
+   * @return 是否相交
+   */
+  private boolean collide(int i, int j) {
+    final Scene scene = mScene;
+    final float[] x = scene.mX;
+    final float[] z = scene.mZ;
+
+    final float dx = x[j] - x[i];
+    final float dz = z[j] - z[i];
+    final float r = scene.mRadius[i] + scene.mRadius[j];
+    final float distanceSquared = dx * dx + dz * dz;
+    if (distanceSquared >= r * r) {
+      return false;
+    }
+
+    final float wi = scene.mInverseMass[i];
+    final float wj = scene.mInverseMass[j];
+    final float w = wi + wj;
+    if (w == 0f) {
+      return false;
+    }
+
+    // 圆心重合时沿 x 轴分开，保持结果确定
+    final float distance = (float) Math.sqrt(distanceSquared);
+    final float nx = distance > 0f ? dx / distance : 1f;
+    final float nz = distance > 0f ? dz / distance : 0f;
+
+    final float correction = (r - distance) / w;
+    x[i] -= nx * correction * wi;
+    z[i] -= nz * correction * wi;
+    x[j] += nx * correction * wj;
+    z[j] += nz * correction * wj;
+
+    final float[] vx = scene.mVelocityX;
+    final float[] vz = scene.mVelocityZ;
+    final float normalVelocity = (vx[j] - vx[i]) * nx + (vz[j] - vz[i]) * nz;
+    if (normalVelocity < 0f) {
+      final float impulse = -(1f + mRestitution) * normalVelocity / w;
+      vx[i] -= impulse * wi * nx;
+      vz[i] -= impulse * wi * nz;
+      vx[j] += impulse * wj * nx;
+      vz[j] += impulse * wj * nz;
+    }
+    return true;
+  }
+
+  private static int clamp(int value, int max) {
+    return value < 0 ? 0 : (value > max ? max : value);
+  }
+}
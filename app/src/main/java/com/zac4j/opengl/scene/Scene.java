@@ -0,0 +1,369 @@
+package com.zac4j.opengl.scene;
+
+import java.util.Arrays;
+
+/**
+ * 场景中的实体，按列存储(struct of arrays)
+ * 每个属性是一个独立的基本类型数组，实体以数组下标表示；逐帧更新位置与打包实例数据时
+ * 只需顺序遍历相关的列，不会为每个实体创建对象
+ *
+ * 删除实体时用最后一个实体填补空位，因此删除后最后一个实体的下标会改变
+ *
+ * 同一包中的 PhysicsWorld 直接读写各列，因此列数组为包内可见
+ */
+public class Scene {
+
+  // 每个实例打包后的数据: 列主序模型矩阵(16) + 颜色(4)，与 InstanceBatch 的实例数据布局相同
+  public static final int FLOATS_PER_INSTANCE = 20;
+
+  int mCount;
+
+  // 实体使用的网格，由调用方定义，如棒槌为 0、冰球为 1
+  int[] mMeshes;
+  // 每种网格的实体数量，下标为网格
+  private int[] mMeshCounts = new int[4];
+
+  // 位置
+  float[] mX;
+  float[] mY;
+  float[] mZ;
+
+  // 速度，单位为每秒的位移
+  float[] mVelocityX;
+  float[] mVelocityY;
+  float[] mVelocityZ;
+
+  // 均匀缩放
+  float[] mScale;
+
+  // 颜色
+  float[] mRed;
+  float[] mGreen;
+  float[] mBlue;
+
+  // 碰撞半径，0 表示不参与碰撞
+  float[] mRadius;
+  // 质量的倒数，0 表示不受碰撞影响(静止或由用户拖动)
+  float[] mInverseMass;
+
+  /**
+   * @param initialCapacity 初始容量，超出后自动扩容
+   */
+  public Scene(int initialCapacity) {
+    final int capacity = Math.max(1, initialCapacity);
+    mMeshes = new int[capacity];
+    mX = new float[capacity];
+    mY = new float[capacity];
+    mZ = new float[capacity];
+    mVelocityX = new float[capacity];
+    mVelocityY = new float[capacity];
+    mVelocityZ = new float[capacity];
+    mScale = new float[capacity];
+    mRed = new float[capacity];
+    mGreen = new float[capacity];
+    mBlue = new float[capacity];
+    mRadius = new float[capacity];
+    mInverseMass = new float[capacity];
+  }
+
+  /**
+   * 添加静止的实体
+   *
+   * @param mesh 网格，非负
+   * @return 实体下标
+   */
+  public int add(int mesh, float x, float y, float z, float scale, float r, float g, float b) {
+    if (mesh < 0) {
+      throw new IllegalArgumentException("Mesh must not be negative: " + mesh);
+    }
+    ensureCapacity(mCount + 1);
+    if (mesh >= mMeshCounts.length) {
+      mMeshCounts = Arrays.copyOf(mMeshCounts, Math.max(mesh + 1, mMeshCounts.length * 2));
+    }
+
+    final int entity = mCount++;
+    mMeshes[entity] = mesh;
+    mMeshCounts[mesh]++;
+    mX[entity] = x;
+    mY[entity] = y;
+    mZ[entity] = z;
+    mVelocityX[entity] = 0f;
+    mVelocityY[entity] = 0f;
+    mVelocityZ[entity] = 0f;
+    mScale[entity] = scale;
+    mRed[entity] = r;
+    mGreen[entity] = g;
+    mBlue[entity] = b;
+    mRadius[entity] = 0f;
+    mInverseMass[entity] = 0f;
+    return entity;
+  }
+
+  /**
+   * 删除实体，最后一个实体移动到被删除的位置
+   *
+   * @param entity 实体下标
+   */
+  public void remove(int entity) {
+    checkIndex(entity);
+    mMeshCounts[mMeshes[entity]]--;
+
+    final int last = --mCount;
+    if (entity != last) {
+      mMeshes[entity] = mMeshes[last];
+      mX[entity] = mX[last];
+      mY[entity] = mY[last];
+      mZ[entity] = mZ[last];
+      mVelocityX[entity] = mVelocityX[last];
+      mVelocityY[entity] = mVelocityY[last];
+      mVelocityZ[entity] = mVelocityZ[last];
+      mScale[entity] = mScale[last];
+      mRed[entity] = mRed[last];
+      mGreen[entity] = mGreen[last];
+      mBlue[entity] = mBlue[last];
+      mRadius[entity] = mRadius[last];
+      mInverseMass[entity] = mInverseMass[last];
+    }
+  }
+
+  public void clear() {
+    mCount = 0;
+    Arrays.fill(mMeshCounts, 0);
+  }
+
+  public int size() {
+    return mCount;
+  }
+
+  /**
+   * @param mesh 网格
+   * @return 使用该网格的实体数量
+   */
+  public int count(int mesh) {
+    return mesh >= 0 && mesh < mMeshCounts.length ? mMeshCounts[mesh] : 0;
+  }
+
+  public int getMesh(int entity) {
+    checkIndex(entity);
+    return mMeshes[entity];
+  }
+
+  public float getX(int entity) {
+    checkIndex(entity);
+    return mX[entity];
+  }
+
+  public float getY(int entity) {
+    checkIndex(entity);
+    return mY[entity];
+  }
+
+  public float getZ(int entity) {
+    checkIndex(entity);
+    return mZ[entity];
+  }
+
+  public float getVelocityX(int entity) {
+    checkIndex(entity);
+    return mVelocityX[entity];
+  }
+
+  public float getVelocityY(int entity) {
+    checkIndex(entity);
+    return mVelocityY[entity];
+  }
+
+  public float getVelocityZ(int entity) {
+    checkIndex(entity);
+    return mVelocityZ[entity];
+  }
+
+  public float getScale(int entity) {
+    checkIndex(entity);
+    return mScale[entity];
+  }
+
+  public void setPosition(int entity, float x, float y, float z) {
+    checkIndex(entity);
+    mX[entity] = x;
+    mY[entity] = y;
+    mZ[entity] = z;
+  }
+
+  public void setVelocity(int entity, float x, float y, float z) {
+    checkIndex(entity);
+    mVelocityX[entity] = x;
+    mVelocityY[entity] = y;
+    mVelocityZ[entity] = z;
+  }
+
+  public void setScale(int entity, float scale) {
+    checkIndex(entity);
+    mScale[entity] = scale;
+  }
+
+  public void setColor(int entity, float r, float g, float b) {
+    checkIndex(entity);
+    mRed[entity] = r;
+    mGreen[entity] = g;
+    mBlue[entity] = b;
+  }
+
+  /**
+   * 设置实体在物理模拟中的属性，新添加的实体半径与质量倒数都为 0
+   *
+   * @param radius 碰撞圆的半径，在 XZ 平面上
+   * @param inverseMass 质量的倒数，0 表示质量无穷大
+   */
+  public void setBody(int entity, float radius, float inverseMass) {
+    checkIndex(entity);
+    if (radius < 0f || inverseMass < 0f) {
+      throw new IllegalArgumentException(
+          "Radius and inverse mass must not be negative: " + radius + ", " + inverseMass);
+    }
+    mRadius[entity] = radius;
+    mInverseMass[entity] = inverseMass;
+  }
+
+  public float getRadius(int entity) {
+    checkIndex(entity);
+    return mRadius[entity];
+  }
+
+  public float getInverseMass(int entity) {
+    checkIndex(entity);
+    return mInverseMass[entity];
+  }
+
+  /**
+   * 按速度移动所有实体
+   *
+   * @param deltaSeconds 时间步长，秒
+   */
+  public void integrate(float deltaSeconds) {
+    final int count = mCount;
+    final float[] x = mX;
+    final float[] y = mY;
+    final float[] z = mZ;
+    final float[] vx = mVelocityX;
+    final float[] vy = mVelocityY;
+    final float[] vz = mVelocityZ;
+    // 各列分别遍历，每个循环只访问两个数组
+    for (int i = 0; i < count; i++) {
+      x[i] += vx[i] * deltaSeconds;
+    }
+    for (int i = 0; i < count; i++) {
+      y[i] += vy[i] * deltaSeconds;
+    }
+    for (int i = 0; i < count; i++) {
+      z[i] += vz[i] * deltaSeconds;
+    }
+  }
+
+  /**
+   * 将使用指定网格的实体打包为实例数据，模型矩阵为平移 * 均匀缩放
+   *
+   * @param mesh 网格
+   * @param out 输出数组，每个实例 FLOATS_PER_INSTANCE 个 float
+   * @param offset 输出的起始位置
+   * @return 写入的实例数量，即 count(mesh)
+   */
+  public int packInstances(int mesh, float[] out, int offset) {
+    return packInstances(mesh, null, out, offset);
+  }
+
+  /**
+   * 将使用指定网格的可见实体打包为实例数据，模型矩阵为平移 * 均匀缩放
+   *
+   * @param mesh 网格
+   * @param visible 按实体下标的可见性，如 FrustumCuller.getVisible()；为 null 时全部打包
+   * @param out 输出数组，每个实例 FLOATS_PER_INSTANCE 个 float，需能容纳 count(mesh) 个实例
+   * @param offset 输出的起始位置
+   * @return 写入的实例数量
+   */
+  public int packInstances(int mesh, boolean[] visible, float[] out, int offset) {
+    return pack(mesh, visible, null, 0, out, offset);
+  }
+
+  /**
+   * 将使用指定网格且位于指定 LOD 级别的实体打包为实例数据，模型矩阵为平移 * 均匀缩放
+   *
+   * @param mesh 网格
+   * @param levels 按实体下标的 LOD 级别，如 LodSelector.select 的结果，被剔除的实体为 -1
+   * @param level 要打包的级别
+   * @param out 输出数组，每个实例 FLOATS_PER_INSTANCE 个 float，需能容纳 count(mesh) 个实例
+   * @param offset 输出的起始位置
+   * @return 写入的实例数量
+   */
+  public int packInstances(int mesh, int[] levels, int level, float[] out, int offset) {
+    return pack(mesh, null, levels, level, out, offset);
+  }
+
+  private int pack(int mesh, boolean[] visible, int[] levels, int level, float[] out,
+      int offset) {
+    final int instances = count(mesh);
+    if (offset < 0 || offset + instances * FLOATS_PER_INSTANCE > out.length) {
+      throw new IndexOutOfBoundsException(
+          instances + " instances at " + offset + " exceed output size " + out.length);
+    }
+
+    final int count = mCount;
+    final int[] meshes = mMeshes;
+    int o = offset;
+    for (int i = 0; i < count; i++) {
+      if (meshes[i] != mesh || (visible != null && !visible[i])
+          || (levels != null && levels[i] != level)) {
+        continue;
+      }
+      final float s = mScale[i];
+      out[o] = s;
+      out[o + 1] = 0f;
+      out[o + 2] = 0f;
+      out[o + 3] = 0f;
+      out[o + 4] = 0f;
+      out[o + 5] = s;
+      out[o + 6] = 0f;
+      out[o + 7] = 0f;
+      out[o + 8] = 0f;
+      out[o + 9] = 0f;
+      out[o + 10] = s;
+      out[o + 11] = 0f;
+      out[o + 12] = mX[i];
+      out[o + 13] = mY[i];
+      out[o + 14] = mZ[i];
+      out[o + 15] = 1f;
+      out[o + 16] = mRed[i];
+      out[o + 17] = mGreen[i];
+      out[o + 18] = mBlue[i];
+      out[o + 19] = 1f;
+      o += FLOATS_PER_INSTANCE;
+    }
+    return (o - offset) / FLOATS_PER_INSTANCE;
+  }
+
+  private void checkIndex(int entity) {
+    if (entity < 0 || entity >= mCount) {
+      throw new IndexOutOfBoundsException("Entity " + entity + " out of " + mCount);
+    }
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= mMeshes.length) {
+      return;
+    }
+    final int newCapacity = Math.max(capacity, mMeshes.length * 2);
+    mMeshes = Arrays.copyOf(mMeshes, newCapacity);
+    mX = Arrays.copyOf(mX, newCapacity);
+    mY = Arrays.copyOf(mY, newCapacity);
+    mZ = Arrays.copyOf(mZ, newCapacity);
+    mVelocityX = Arrays.copyOf(mVelocityX, newCapacity);
+    mVelocityY = Arrays.copyOf(mVelocityY, newCapacity);
+    mVelocityZ = Arrays.copyOf(mVelocityZ, newCapacity);
+    mScale = Arrays.copyOf(mScale, newCapacity);
+    mRed = Arrays.copyOf(mRed, newCapacity);
+    mGreen = Arrays.copyOf(mGreen, newCapacity);
+    mBlue = Arrays.copyOf(mBlue, newCapacity);
+    mRadius = Arrays.copyOf(mRadius, newCapacity);
+    mInverseMass = Arrays.copyOf(mInverseMass, newCapacity);
+  }
+}
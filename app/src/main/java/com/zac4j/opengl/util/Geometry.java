@@ -66,4 +66,246 @@ public class Geometry {
     }
   }
 
+  /**
+   * 包围体: 轴对齐包围盒与包围球，由网格的顶点计算
+   * 包围球以包围盒中心为球心，半径为到最远顶点的距离
+   */
+  public static class Bounds {
+    public final float minX, minY, minZ;
+    public final float maxX, maxY, maxZ;
+    public final float centerX, centerY, centerZ;
+    public final float radius;
+
+    public Bounds(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+        float radius) {
+      this.minX = minX;
+      this.minY = minY;
+      this.minZ = minZ;
+      this.maxX = maxX;
+      this.maxY = maxY;
+      this.maxZ = maxZ;
+      this.centerX = (minX + maxX) * 0.5f;
+      this.centerY = (minY + maxY) * 0.5f;
+      this.centerZ = (minZ + maxZ) * 0.5f;
+      this.radius = radius;
+    }
+
+    /**
+     * 计算顶点数据的包围体
+     * @param vertexData 顶点数据，每个顶点的前三个分量为位置
+     * @param floatsPerVertex 每个顶点的分量数
+     * @return 包围体，没有顶点时为原点处的空包围体
+     */
+    public static Bounds of(float[] vertexData, int floatsPerVertex) {
+      if (vertexData.length < floatsPerVertex) {
+        return new Bounds(0f, 0f, 0f, 0f, 0f, 0f, 0f);
+      }
+      float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+      float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+      for (int i = 0; i + 2 < vertexData.length; i += floatsPerVertex) {
+        minX = Math.min(minX, vertexData[i]);
+        minY = Math.min(minY, vertexData[i + 1]);
+        minZ = Math.min(minZ, vertexData[i + 2]);
+        maxX = Math.max(maxX, vertexData[i]);
+        maxY = Math.max(maxY, vertexData[i + 1]);
+        maxZ = Math.max(maxZ, vertexData[i + 2]);
+      }
+
+      final float centerX = (minX + maxX) * 0.5f;
+      final float centerY = (minY + maxY) * 0.5f;
+      final float centerZ = (minZ + maxZ) * 0.5f;
+      float radiusSquared = 0f;
+      for (int i = 0; i + 2 < vertexData.length; i += floatsPerVertex) {
+        final float dx = vertexData[i] - centerX;
+        final float dy = vertexData[i + 1] - centerY;
+        final float dz = vertexData[i + 2] - centerZ;
+        radiusSquared = Math.max(radiusSquared, dx * dx + dy * dy + dz * dz);
+      }
+      return new Bounds(minX, minY, minZ, maxX, maxY, maxZ, (float) Math.sqrt(radiusSquared));
+    }
+  }
+
+  /**
+   * 射线，字段可修改，每次拾取时复用同一个对象，不产生垃圾
+   */
+  public static class Ray {
+    public float originX, originY, originZ;
+    public float directionX, directionY, directionZ;
+
+    public void set(float originX, float originY, float originZ, float directionX,
+        float directionY, float directionZ) {
+      this.originX = originX;
+      this.originY = originY;
+      this.originZ = originZ;
+      this.directionX = directionX;
+      this.directionY = directionY;
+      this.directionZ = directionZ;
+    }
+
+    /**
+     * 射线上的点 origin + distance * direction
+     * @param distance 沿方向的距离，以 direction 的长度为单位
+     */
+    public float pointX(float distance) {
+      return originX + directionX * distance;
+    }
+
+    public float pointY(float distance) {
+      return originY + directionY * distance;
+    }
+
+    public float pointZ(float distance) {
+      return originZ + directionZ * distance;
+    }
+  }
+
+  /**
+   * 将标准设备坐标反投影为世界坐标中的射线，起点在近平面，终点在远平面
+   * @param ray 结果
+   * @param invertedViewProjectionMatrix 视图投影矩阵的逆矩阵
+   * @param offset 矩阵在数组中的偏移量
+   * @param normalizedX x坐标，-1 到 1
+   * @param normalizedY y坐标，-1 到 1
+   */
+  public static void unproject(Ray ray, float[] invertedViewProjectionMatrix, int offset,
+      float normalizedX, float normalizedY) {
+    final float[] m = invertedViewProjectionMatrix;
+    final int o = offset;
+
+    // 近平面 z = -1 与远平面 z = 1 上的点，列主序: 第 n 列位于 m[o + 4n]
+    final float nearX = m[o] * normalizedX + m[o + 4] * normalizedY - m[o + 8] + m[o + 12];
+    final float nearY = m[o + 1] * normalizedX + m[o + 5] * normalizedY - m[o + 9] + m[o + 13];
+    final float nearZ = m[o + 2] * normalizedX + m[o + 6] * normalizedY - m[o + 10] + m[o + 14];
+    final float nearW = m[o + 3] * normalizedX + m[o + 7] * normalizedY - m[o + 11] + m[o + 15];
+
+    final float farX = m[o] * normalizedX + m[o + 4] * normalizedY + m[o + 8] + m[o + 12];
+    final float farY = m[o + 1] * normalizedX + m[o + 5] * normalizedY + m[o + 9] + m[o + 13];
+    final float farZ = m[o + 2] * normalizedX + m[o + 6] * normalizedY + m[o + 10] + m[o + 14];
+    final float farW = m[o + 3] * normalizedX + m[o + 7] * normalizedY + m[o + 11] + m[o + 15];
+
+    // 撤销透视除法
+    final float x = nearX / nearW;
+    final float y = nearY / nearW;
+    final float z = nearZ / nearW;
+    ray.set(x, y, z, farX / farW - x, farY / farW - y, farZ / farW - z);
+  }
+
+  /**
+   * 射线与平面相交
+   * @param ray 射线
+   * @param pointX 平面上一点
+   * @param normalX 平面法线
+   * @return 交点在射线上的距离，可为负；射线与平面平行时返回 NaN
+   */
+  public static float intersectPlane(Ray ray, float pointX, float pointY, float pointZ,
+      float normalX, float normalY, float normalZ) {
+    final float denominator =
+        ray.directionX * normalX + ray.directionY * normalY + ray.directionZ * normalZ;
+    if (denominator == 0f) {
+      return Float.NaN;
+    }
+    return ((pointX - ray.originX) * normalX + (pointY - ray.originY) * normalY
+        + (pointZ - ray.originZ) * normalZ) / denominator;
+  }
+
+  /**
+   * 射线与球相交
+   * @param ray 射线
+   * @param centerX 球心
+   * @param radius 半径
+   * @return 起点之后最近交点的距离，起点在球内时为出射点；不相交返回 NaN
+   */
+  public static float intersectSphere(Ray ray, float centerX, float centerY, float centerZ,
+      float radius) {
+    final float ox = ray.originX - centerX;
+    final float oy = ray.originY - centerY;
+    final float oz = ray.originZ - centerZ;
+    final float dx = ray.directionX;
+    final float dy = ray.directionY;
+    final float dz = ray.directionZ;
+
+    final float a = dx * dx + dy * dy + dz * dz;
+    final float b = 2f * (dx * ox + dy * oy + dz * oz);
+    final float c = ox * ox + oy * oy + oz * oz - radius * radius;
+    return nearestRoot(a, b, c);
+  }
+
+  /**
+   * 射线与竖直(沿 y 轴)的圆柱相交，包括顶面与底面
+   * @param ray 射线
+   * @param centerX 圆柱中心
+   * @param radius 半径
+   * @param height 高度
+   * @return 起点之后最近交点的距离，不相交返回 NaN
+   */
+  public static float intersectCylinder(Ray ray, float centerX, float centerY, float centerZ,
+      float radius, float height) {
+    final float ox = ray.originX - centerX;
+    final float oy = ray.originY - centerY;
+    final float oz = ray.originZ - centerZ;
+    final float dx = ray.directionX;
+    final float dy = ray.directionY;
+    final float dz = ray.directionZ;
+    final float halfHeight = height / 2f;
+    final float radiusSquared = radius * radius;
+
+    float nearest = Float.NaN;
+
+    // 侧面: 在 XZ 平面上与圆相交，且交点高度在圆柱范围内
+    final float a = dx * dx + dz * dz;
+    if (a > 0f) {
+      final float b = 2f * (dx * ox + dz * oz);
+      final float c = ox * ox + oz * oz - radiusSquared;
+      final float discriminant = b * b - 4f * a * c;
+      if (discriminant >= 0f) {
+        final float root = (float) Math.sqrt(discriminant);
+        nearest = nearer(nearest, sideHit((-b - root) / (2f * a), oy, dy, halfHeight));
+        nearest = nearer(nearest, sideHit((-b + root) / (2f * a), oy, dy, halfHeight));
+      }
+    }
+
+    // 顶面与底面: 与平面 y = ±halfHeight 相交，且交点在圆内
+    if (dy != 0f) {
+      nearest = nearer(nearest, capHit((halfHeight - oy) / dy, ox, oz, dx, dz, radiusSquared));
+      nearest = nearer(nearest, capHit((-halfHeight - oy) / dy, ox, oz, dx, dz, radiusSquared));
+    }
+    return nearest;
+  }
+
+  private static float sideHit(float t, float oy, float dy, float halfHeight) {
+    final float y = oy + dy * t;
+    return y >= -halfHeight && y <= halfHeight ? t : Float.NaN;
+  }
+
+  private static float capHit(float t, float ox, float oz, float dx, float dz,
+      float radiusSquared) {
+    final float x = ox + dx * t;
+    final float z = oz + dz * t;
+    return x * x + z * z <= radiusSquared ? t : Float.NaN;
+  }
+
+  /**
+   * @return a、b 中非负且较小的一个，都不满足时返回 NaN
+   */
+  private static float nearer(float a, float b) {
+    if (!(b >= 0f)) {
+      return a;
+    }
+    if (!(a >= 0f)) {
+      return b;
+    }
+    return Math.min(a, b);
+  }
+
+  /**
+   * @return a*t^2 + b*t + c = 0 的非负根中较小的一个，没有时返回 NaN
+   */
+  private static float nearestRoot(float a, float b, float c) {
+    final float discriminant = b * b - 4f * a * c;
+    if (a == 0f || discriminant < 0f) {
+      return Float.NaN;
+    }
+    final float root = (float) Math.sqrt(discriminant);
+    return nearer((-b - root) / (2f * a), (-b + root) / (2f * a));
+  }
 }
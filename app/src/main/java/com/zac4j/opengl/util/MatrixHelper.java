@@ -41,4 +41,32 @@ public class MatrixHelper {
     m[15] = 0f;
   }
 
+  /**
+   * 从视图投影矩阵中提取视锥体的六个平面(Gribb-Hartmann)，顺序为左、右、下、上、近、远
+   * 每个平面 4 个分量 (a, b, c, d)，法线指向视锥体内部并已归一化，
+   * 点 (x, y, z) 到平面的有符号距离为 a * x + b * y + c * z + d
+   * 传入模型视图投影矩阵时得到模型坐标中的平面
+   *
+   * @param planes 结果，至少 24 个 float
+   * @param m 视图投影矩阵，列主序
+   * @param offset 矩阵在数组中的偏移量
+   */
+  public static void frustumPlanes(float[] planes, float[] m, int offset) {
+    // 裁剪坐标 -w <= x, y, z <= w，每个不等式对应一个平面: 第四行 ± 第一到三行
+    for (int plane = 0; plane < 6; plane++) {
+      final int row = plane >> 1;
+      final float sign = (plane & 1) == 0 ? 1f : -1f;
+      final float a = m[offset + 3] + sign * m[offset + row];
+      final float b = m[offset + 7] + sign * m[offset + 4 + row];
+      final float c = m[offset + 11] + sign * m[offset + 8 + row];
+      final float d = m[offset + 15] + sign * m[offset + 12 + row];
+      final float length = (float) Math.sqrt(a * a + b * b + c * c);
+      final float scale = length > 0f ? 1f / length : 0f;
+      planes[plane * 4] = a * scale;
+      planes[plane * 4 + 1] = b * scale;
+      planes[plane * 4 + 2] = c * scale;
+      planes[plane * 4 + 3] = d * scale;
+    }
+  }
+
 }
@@ -0,0 +1,321 @@
+package com.zac4j.opengl.util;
+
+import android.util.Log;
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.gl.GLInfo;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static com.zac4j.opengl.gl.GL.GL_LINK_STATUS;
+import static com.zac4j.opengl.gl.GL.GL_NUM_PROGRAM_BINARY_FORMATS;
+import static com.zac4j.opengl.gl.GL.GL_PROGRAM_BINARY_LENGTH;
+import static com.zac4j.opengl.gl.GL.GL_RENDERER;
+import static com.zac4j.opengl.gl.GL.GL_VENDOR;
+import static com.zac4j.opengl.gl.GL.GL_VERSION;
+
+/**
+ * 将连接后的 program binary 保存到磁盘，下次创建相同的 program 时跳过编译与连接
+ *
+ * 缓存文件以 (驱动标识, vertex shader 源码, fragment shader 源码) 的 SHA-1 命名，
+ * 驱动标识由 GL_VENDOR、GL_RENDERER 与 GL_VERSION 组成，驱动升级后旧文件不再命中，
+ * 首次使用时删除文件头中驱动标识不同的文件，避免缓存目录随驱动升级不断增长；
+ * 读取失败、驱动拒绝 binary 或 context 不支持 program binary(ES 2.0)时回退到
+ * ShaderHelper.buildProgram。需要在 GL 线程调用
+ */
+public class ProgramBinaryCache {
+
+  private static final String TAG = "ProgramBinaryCache";
+
+  // 文件头，格式变化时修改
+  private static final int MAGIC = 0x50424331;
+
+  private static final String FILE_SUFFIX = ".bin";
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final GL mGL;
+  private final File mDirectory;
+
+  // 驱动标识与是否支持 program binary，首次使用时在 GL 线程查询
+  private String mDriverIdentity;
+  private boolean mSupported;
+
+  private int mHits;
+  private int mMisses;
+
+  /**
+   * @param gl GL 调用接口
+   * @param directory 缓存目录，不存在时自动创建
+   */
+  public ProgramBinaryCache(GL gl, File directory) {
+    mGL = gl;
+    mDirectory = directory;
+  }
+
+  /**
+   * 构造 program，优先从缓存加载 binary
+   *
+   * @param vertexShaderSource 顶点 Shader 源码
+   * @param fragmentShaderSource 片段 Shader 源码
+   * @return program 对象 id，失败返回 0
+   */
+  public int buildProgram(String vertexShaderSource, String fragmentShaderSource) {
+    ensureDriverInfo();
+
+    if (!mSupported) {
+      return ShaderHelper.buildProgram(mGL, vertexShaderSource, fragmentShaderSource);
+    }
+
+    final File file = new File(mDirectory,
+        cacheKey(vertexShaderSource, fragmentShaderSource) + FILE_SUFFIX);
+
+    final int cached = loadProgram(file);
+    if (cached != 0) {
+      mHits++;
+      return cached;
+    }
+
+    mMisses++;
+    final int program =
+        ShaderHelper.buildProgram(mGL, vertexShaderSource, fragmentShaderSource);
+    if (program != 0) {
+      saveProgram(program, file);
+    }
+    return program;
+  }
+
+  /**
+   * 删除所有缓存文件
+   */
+  public void clear() {
+    final File[] files = mDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.getName().endsWith(FILE_SUFFIX)) {
+        file.delete();
+      }
+    }
+  }
+
+  public boolean isSupported() {
+    ensureDriverInfo();
+    return mSupported;
+  }
+
+  public int getHits() {
+    return mHits;
+  }
+
+  public int getMisses() {
+    return mMisses;
+  }
+
+  private void ensureDriverInfo() {
+    if (mDriverIdentity != null) {
+      return;
+    }
+
+    mDriverIdentity = mGL.glGetString(GL_VENDOR) + '\n' + mGL.glGetString(GL_RENDERER) + '\n'
+        + mGL.glGetString(GL_VERSION);
+
+    // program binary 是 ES 3.0 的核心功能，且驱动至少要支持一种格式
+    mSupported = false;
+    if (GLInfo.isEs3Context(mGL)) {
+      final int[] formats = new int[1];
+      mGL.glGetIntegerv(GL_NUM_PROGRAM_BINARY_FORMATS, formats, 0);
+      mSupported = formats[0] > 0;
+    }
+
+    if (mSupported) {
+      removeStaleFiles();
+    }
+  }
+
+  /**
+   * 删除其他驱动写入的与无法读取文件头的缓存文件，只读取文件头
+   */
+  private void removeStaleFiles() {
+    final File[] files = mDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.getName().endsWith(FILE_SUFFIX) && !mDriverIdentity.equals(readIdentity(file))) {
+        if (LoggerConfig.ON) {
+          Log.i(TAG, "Removing stale program binary: " + file);
+        }
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * @return 文件头中的驱动标识，文件头无效时返回 null
+   */
+  private static String readIdentity(File file) {
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      return in.readInt() == MAGIC ? in.readUTF() : null;
+    } catch (IOException e) {
+      return null;
+    } finally {
+      closeQuietly(in);
+    }
+  }
+
+  private String cacheKey(String vertexShaderSource, String fragmentShaderSource) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException("SHA-1 is not available", e);
+    }
+
+    digest.update(mDriverIdentity.getBytes(UTF_8));
+    digest.update((byte) 0);
+    digest.update(vertexShaderSource.getBytes(UTF_8));
+    digest.update((byte) 0);
+    digest.update(fragmentShaderSource.getBytes(UTF_8));
+
+    final StringBuilder sb = new StringBuilder();
+    for (byte b : digest.digest()) {
+      sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * 从文件加载 program binary
+   *
+   * @return program 对象 id，缓存不存在或无效时返回 0
+   */
+  private int loadProgram(File file) {
+    if (!file.isFile()) {
+      return 0;
+    }
+
+    final int format;
+    final byte[] binary;
+    DataInputStream in = null;
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      // 哈希相同而驱动标识不同的概率极低，仍然核对一次
+      if (in.readInt() != MAGIC || !mDriverIdentity.equals(in.readUTF())) {
+        file.delete();
+        return 0;
+      }
+      format = in.readInt();
+      final int length = in.readInt();
+      if (length <= 0 || length > file.length()) {
+        throw new IOException("Corrupt binary length: " + length);
+      }
+      binary = new byte[length];
+      in.readFully(binary);
+    } catch (IOException e) {
+      if (LoggerConfig.ON) {
+        Log.w(TAG, "Could not read program binary: " + file, e);
+      }
+      file.delete();
+      return 0;
+    } finally {
+      closeQuietly(in);
+    }
+
+    final int program = mGL.glCreateProgram();
+    if (program == 0) {
+      return 0;
+    }
+
+    final ByteBuffer buffer =
+        ByteBuffer.allocateDirect(binary.length).order(ByteOrder.nativeOrder());
+    buffer.put(binary).position(0);
+    mGL.glProgramBinary(program, format, buffer, binary.length);
+
+    // 驱动可以拒绝任何 binary，此时删除缓存并重新编译
+    final int[] linkStatus = new int[1];
+    mGL.glGetProgramiv(program, GL_LINK_STATUS, linkStatus, 0);
+    if (linkStatus[0] == 0) {
+      if (LoggerConfig.ON) {
+        Log.w(TAG, "Program binary rejected by driver: " + file);
+      }
+      mGL.glDeleteProgram(program);
+      file.delete();
+      return 0;
+    }
+
+    return program;
+  }
+
+  /**
+   * 取出 program binary 写入文件，先写临时文件再重命名，避免留下不完整的缓存
+   */
+  private void saveProgram(int program, File file) {
+    final int[] length = new int[1];
+    mGL.glGetProgramiv(program, GL_PROGRAM_BINARY_LENGTH, length, 0);
+    if (length[0] <= 0) {
+      return;
+    }
+
+    final int[] format = new int[1];
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(length[0]).order(ByteOrder.nativeOrder());
+    mGL.glGetProgramBinary(program, length[0], length, 0, format, 0, buffer);
+    final byte[] binary = new byte[length[0]];
+    buffer.position(0);
+    buffer.get(binary);
+
+    if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+      if (LoggerConfig.ON) {
+        Log.w(TAG, "Could not create cache directory: " + mDirectory);
+      }
+      return;
+    }
+
+    final File temp = new File(mDirectory, file.getName() + ".tmp");
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+      out.writeInt(MAGIC);
+      out.writeUTF(mDriverIdentity);
+      out.writeInt(format[0]);
+      out.writeInt(binary.length);
+      out.write(binary);
+      out.close();
+      out = null;
+
+      if (!temp.renameTo(file)) {
+        temp.delete();
+      }
+    } catch (IOException e) {
+      if (LoggerConfig.ON) {
+        Log.w(TAG, "Could not write program binary: " + file, e);
+      }
+      temp.delete();
+    } finally {
+      closeQuietly(out);
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (IOException ignored) {
+      }
+    }
+  }
+}
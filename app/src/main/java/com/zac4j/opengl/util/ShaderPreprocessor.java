@@ -0,0 +1,190 @@
+package com.zac4j.opengl.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * shader 源码的预处理，在交给驱动编译之前展开 #include 并按特性定义裁剪条件编译块
+ *
+ * 支持的指令:
+ * #include "name"   插入另一个 shader 资源，name 为 res/raw 中的资源名，可带 .glsl 扩展名；
+ *                    同一个文件只插入一次，重复或循环的 #include 被忽略
+ * #ifdef / #ifndef / #else / #endif  按定义保留或删除代码块，可以嵌套
+ * #define / #undef  原样保留，同时影响之后的 #ifdef 判断
+ *
+ * 不支持 #if 与 #elif 表达式；其他指令(#version、#extension、#pragma 等)原样保留。
+ * 输出中不再有条件编译块，每个变体的源码只包含实际使用的声明，
+ * SoftwareGL 等按声明匹配 shader 的实现也可以识别
+ */
+public final class ShaderPreprocessor {
+
+  private static final String INCLUDE = "#include";
+  private static final String IFDEF = "#ifdef";
+  private static final String IFNDEF = "#ifndef";
+  private static final String ELSE = "#else";
+  private static final String ENDIF = "#endif";
+  private static final String DEFINE = "#define";
+  private static final String UNDEF = "#undef";
+
+  private static final String EXTENSION = ".glsl";
+
+  /**
+   * 按名称取得 #include 的源码
+   */
+  public interface IncludeResolver {
+
+    /**
+     * @param name 资源名，不含扩展名
+     * @return shader 源码
+     */
+    String getSource(String name);
+  }
+
+  private final IncludeResolver mIncludes;
+  private final Set<String> mDefines;
+  private final Set<String> mIncluded = new HashSet<>();
+  private final StringBuilder mOut = new StringBuilder();
+
+  private ShaderPreprocessor(IncludeResolver includes, String... defines) {
+    mIncludes = includes;
+    mDefines = new HashSet<>(Arrays.asList(defines));
+  }
+
+  /**
+   * @param source shader 源码
+   * @param includes 取得 #include 的源码，源码中没有 #include 时可以为 null
+   * @param defines 特性定义，如 "TEXTURE"
+   * @return 预处理后的源码
+   * @throws IllegalArgumentException 条件编译块不配对、使用了不支持的指令或 #include 的格式错误
+   */
+  public static String process(String source, IncludeResolver includes, String... defines) {
+    final ShaderPreprocessor preprocessor = new ShaderPreprocessor(includes, defines);
+    preprocessor.append(source, "<main>");
+    return preprocessor.mOut.toString();
+  }
+
+  private void append(String source, String fileName) {
+    // 每层条件编译块是否保留，栈顶为当前块
+    final List<Boolean> active = new ArrayList<>();
+    // 每层条件编译块是否已出现 #else
+    final List<Boolean> inElse = new ArrayList<>();
+    boolean enabled = true;
+
+    final String[] lines = source.split("\n", -1);
+    for (int i = 0; i < lines.length; i++) {
+      final String line = lines[i];
+      final String trimmed = line.trim();
+      if (!trimmed.startsWith("#")) {
+        if (enabled && !(i == lines.length - 1 && line.isEmpty())) {
+          mOut.append(line).append('\n');
+        }
+        continue;
+      }
+
+      final int nameEnd = directiveEnd(trimmed);
+      final String directive = "#" + trimmed.substring(1, nameEnd).trim();
+      final String argument = trimmed.substring(nameEnd).trim();
+      switch (directive) {
+        case IFDEF:
+        case IFNDEF: {
+          final boolean defined = mDefines.contains(identifier(argument, fileName, i));
+          active.add(enabled);
+          inElse.add(false);
+          enabled = enabled && (directive.equals(IFDEF) == defined);
+          break;
+        }
+        case ELSE: {
+          final int top = active.size() - 1;
+          if (top < 0 || inElse.get(top)) {
+            throw error("Unexpected #else", fileName, i);
+          }
+          inElse.set(top, true);
+          enabled = active.get(top) && !enabled;
+          break;
+        }
+        case ENDIF: {
+          final int top = active.size() - 1;
+          if (top < 0) {
+            throw error("Unexpected #endif", fileName, i);
+          }
+          enabled = active.remove(top);
+          inElse.remove(top);
+          break;
+        }
+        case "#if":
+        case "#elif":
+          throw error("Unsupported directive " + directive, fileName, i);
+        default:
+          if (!enabled) {
+            break;
+          }
+          if (directive.equals(INCLUDE)) {
+            include(argument, fileName, i);
+          } else {
+            if (directive.equals(DEFINE)) {
+              mDefines.add(identifier(argument, fileName, i));
+            } else if (directive.equals(UNDEF)) {
+              mDefines.remove(identifier(argument, fileName, i));
+            }
+            mOut.append(line).append('\n');
+          }
+          break;
+      }
+    }
+    if (!active.isEmpty()) {
+      throw error("Missing #endif", fileName, lines.length - 1);
+    }
+  }
+
+  private void include(String argument, String fileName, int line) {
+    if (argument.length() < 2 || argument.charAt(0) != '"'
+        || argument.charAt(argument.length() - 1) != '"') {
+      throw error("Malformed #include", fileName, line);
+    }
+    String name = argument.substring(1, argument.length() - 1);
+    if (name.endsWith(EXTENSION)) {
+      name = name.substring(0, name.length() - EXTENSION.length());
+    }
+    if (mIncludes == null) {
+      throw error("No include resolver for " + name, fileName, line);
+    }
+    if (mIncluded.add(name)) {
+      append(mIncludes.getSource(name), name);
+    }
+  }
+
+  /**
+   * "# ifdef" 与 "#ifdef" 相同，'#' 与指令名之间可以有空白
+   *
+   * @return 指令名之后的位置，参数从这里开始
+   */
+  private static int directiveEnd(String trimmed) {
+    int end = 1;
+    while (end < trimmed.length() && Character.isWhitespace(trimmed.charAt(end))) {
+      end++;
+    }
+    while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  private static String identifier(String argument, String fileName, int line) {
+    int end = 0;
+    while (end < argument.length() && (Character.isLetterOrDigit(argument.charAt(end))
+        || argument.charAt(end) == '_')) {
+      end++;
+    }
+    if (end == 0) {
+      throw error("Missing identifier", fileName, line);
+    }
+    return argument.substring(0, end);
+  }
+
+  private static IllegalArgumentException error(String message, String fileName, int line) {
+    return new IllegalArgumentException(message + " at " + fileName + ":" + (line + 1));
+  }
+}
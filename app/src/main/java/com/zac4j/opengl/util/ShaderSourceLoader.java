@@ -0,0 +1,130 @@
+package com.zac4j.opengl.util;
+
+import android.content.Context;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 在后台线程并行读取 shader 源码，GL 线程只负责编译与连接
+ *
+ * 启动时调用 prefetch 提交所有 shader 资源，各资源的读取任务并行执行；
+ * GL 线程通过 getSource 取得源码，尚未读取完成时等待，未预取的资源在调用线程直接读取。
+ * 读取结果会一直保留，EGL context 重建后重新创建 program 时不再读取资源。
+ * 也用于 ShaderPreprocessor 按资源名取得 #include 的源码
+ */
+public class ShaderSourceLoader implements ShaderPreprocessor.IncludeResolver {
+
+  private static final String RESOURCE_TYPE = "raw";
+
+  private final Context mContext;
+
+  // 为 null 时在调用线程同步读取
+  private final Executor mExecutor;
+
+  // 资源 id 到读取任务的映射
+  private final Map<Integer, FutureTask<String>> mTasks = new HashMap<>();
+
+  /**
+   * 同步读取，与直接调用 TextResourceReader 相同
+   *
+   * @param context 上下文
+   */
+  public ShaderSourceLoader(Context context) {
+    this(context, null);
+  }
+
+  /**
+   * @param context 上下文
+   * @param executor 执行读取任务的线程池，可传入 AsyncTask.THREAD_POOL_EXECUTOR
+   */
+  public ShaderSourceLoader(Context context, Executor executor) {
+    mContext = context.getApplicationContext();
+    mExecutor = executor;
+  }
+
+  /**
+   * 提交资源的读取任务，立即返回，可在任意线程调用
+   *
+   * @param resIds shader 资源 id
+   */
+  public void prefetch(int... resIds) {
+    for (int resId : resIds) {
+      final FutureTask<String> task;
+      synchronized (mTasks) {
+        if (mTasks.containsKey(resId)) {
+          continue;
+        }
+        task = newTask(resId);
+        mTasks.put(resId, task);
+      }
+
+      if (mExecutor != null) {
+        mExecutor.execute(task);
+      } else {
+        task.run();
+      }
+    }
+  }
+
+  /**
+   * 获取 shader 源码，读取尚未完成时阻塞等待
+   *
+   * @param resId shader 资源 id
+   * @return shader 源码
+   */
+  public String getSource(int resId) {
+    FutureTask<String> task;
+    synchronized (mTasks) {
+      task = mTasks.get(resId);
+      if (task == null) {
+        task = newTask(resId);
+        mTasks.put(resId, task);
+      }
+    }
+
+    // 未预取或仍在排队的任务直接在调用线程执行，不必等待线程池；
+    // 已在执行或已完成的任务 run 会立即返回
+    task.run();
+
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while loading shader resource: " + resId, e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new RuntimeException("Could not load shader resource: " + resId, cause);
+    }
+  }
+
+  /**
+   * 按资源名获取 shader 源码，用于 #include
+   *
+   * @param name res/raw 中的资源名，不含扩展名
+   * @return shader 源码
+   * @throws IllegalArgumentException 资源不存在
+   */
+  @Override public String getSource(String name) {
+    final int resId =
+        mContext.getResources().getIdentifier(name, RESOURCE_TYPE, mContext.getPackageName());
+    if (resId == 0) {
+      throw new IllegalArgumentException("Missing shader resource: " + name);
+    }
+    return getSource(resId);
+  }
+
+  private FutureTask<String> newTask(final int resId) {
+    return new FutureTask<>(new Callable<String>() {
+      @Override public String call() throws Exception {
+        return TextResourceReader.readTextFileFromResource(mContext, resId);
+      }
+    });
+  }
+}
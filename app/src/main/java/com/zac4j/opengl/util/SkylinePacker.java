@@ -0,0 +1,208 @@
+package com.zac4j.opengl.util;
+
+import java.util.Arrays;
+
+/**
+ * 矩形装箱，skyline bottom-left 算法
+ *
+ * 已放置矩形的上边缘构成一条从左到右的天际线，由若干水平线段表示；
+ * 新矩形放在使其上边缘最低的线段上(相同时选较窄的线段)，然后更新天际线。
+ * 天际线下方被遮住的空隙不再使用，换来 O(线段数) 的插入，适合一次性打包少量纹理
+ *
+ * 不依赖 Android，坐标原点在左上角，与 Bitmap 一致
+ */
+public class SkylinePacker {
+
+  private final int mWidth;
+  private final int mHeight;
+  private final int mPadding;
+
+  // 天际线线段，按 x 递增
+  private int[] mNodeX = new int[16];
+  private int[] mNodeY = new int[16];
+  private int[] mNodeWidth = new int[16];
+  private int mNodeCount;
+
+  // 已放置矩形的面积，不含间距
+  private long mUsedArea;
+
+  /**
+   * @param width 区域宽度
+   * @param height 区域高度
+   * @param padding 每个矩形右侧与下方保留的间距，避免纹理过滤时采样到相邻的矩形
+   */
+  public SkylinePacker(int width, int height, int padding) {
+    if (width <= 0 || height <= 0 || padding < 0) {
+      throw new IllegalArgumentException(
+          "Invalid packer size: " + width + "x" + height + ", padding " + padding);
+    }
+    mWidth = width;
+    mHeight = height;
+    mPadding = padding;
+    reset();
+  }
+
+  /**
+   * 清空所有已放置的矩形
+   */
+  public void reset() {
+    mNodeX[0] = 0;
+    mNodeY[0] = 0;
+    mNodeWidth[0] = mWidth;
+    mNodeCount = 1;
+    mUsedArea = 0L;
+  }
+
+  /**
+   * 放置一个矩形
+   *
+   * @param width 矩形宽度
+   * @param height 矩形高度
+   * @param position 输出左上角的 x、y
+   * @param offset 输出的起始位置
+   * @return 剩余空间放不下时返回 false，此时不修改任何状态
+   */
+  public boolean insert(int width, int height, int[] position, int offset) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Invalid rectangle size: " + width + "x" + height);
+    }
+    if (width > mWidth || height > mHeight) {
+      return false;
+    }
+    // 间距超出区域时省略，与区域等宽或等高的矩形仍能放下
+    final int paddedWidth = Math.min(width + mPadding, mWidth);
+    final int paddedHeight = Math.min(height + mPadding, mHeight);
+
+    int bestIndex = -1;
+    int bestTop = Integer.MAX_VALUE;
+    int bestNodeWidth = Integer.MAX_VALUE;
+    int bestY = 0;
+    for (int i = 0; i < mNodeCount; i++) {
+      final int y = fit(i, paddedWidth, paddedHeight);
+      if (y < 0) {
+        continue;
+      }
+      final int top = y + paddedHeight;
+      if (top < bestTop || (top == bestTop && mNodeWidth[i] < bestNodeWidth)) {
+        bestIndex = i;
+        bestTop = top;
+        bestNodeWidth = mNodeWidth[i];
+        bestY = y;
+      }
+    }
+    if (bestIndex < 0) {
+      return false;
+    }
+
+    final int x = mNodeX[bestIndex];
+    addNode(bestIndex, x, bestTop, paddedWidth);
+    mUsedArea += (long) width * height;
+
+    position[offset] = x;
+    position[offset + 1] = bestY;
+    return true;
+  }
+
+  public int getWidth() {
+    return mWidth;
+  }
+
+  public int getHeight() {
+    return mHeight;
+  }
+
+  /**
+   * @return 天际线的最高点，即实际用到的高度
+   */
+  public int getUsedHeight() {
+    int max = 0;
+    for (int i = 0; i < mNodeCount; i++) {
+      max = Math.max(max, mNodeY[i]);
+    }
+    return max;
+  }
+
+  /**
+   * @return 已放置矩形的面积占整个区域的比例
+   */
+  public float getOccupancy() {
+    return (float) ((double) mUsedArea / ((double) mWidth * mHeight));
+  }
+
+  /**
+   * 矩形左边缘对齐线段 index 时，能放下的最低 y
+   *
+   * @return 超出区域时返回 -1
+   */
+  private int fit(int index, int width, int height) {
+    final int x = mNodeX[index];
+    if (x + width > mWidth) {
+      return -1;
+    }
+    int y = mNodeY[index];
+    int widthLeft = width;
+    // 线段覆盖整个宽度，x + width <= mWidth 时循环不会越界
+    for (int i = index; widthLeft > 0; i++) {
+      y = Math.max(y, mNodeY[i]);
+      if (y + height > mHeight) {
+        return -1;
+      }
+      widthLeft -= mNodeWidth[i];
+    }
+    return y;
+  }
+
+  /**
+   * 在 index 处插入新线段，裁剪或删除被它遮住的线段，再合并等高的相邻线段
+   */
+  private void addNode(int index, int x, int y, int width) {
+    ensureCapacity(mNodeCount + 1);
+    System.arraycopy(mNodeX, index, mNodeX, index + 1, mNodeCount - index);
+    System.arraycopy(mNodeY, index, mNodeY, index + 1, mNodeCount - index);
+    System.arraycopy(mNodeWidth, index, mNodeWidth, index + 1, mNodeCount - index);
+    mNodeX[index] = x;
+    mNodeY[index] = y;
+    mNodeWidth[index] = width;
+    mNodeCount++;
+
+    final int right = x + width;
+    int i = index + 1;
+    while (i < mNodeCount && mNodeX[i] < right) {
+      final int shrink = right - mNodeX[i];
+      if (mNodeWidth[i] <= shrink) {
+        removeNode(i);
+      } else {
+        mNodeX[i] += shrink;
+        mNodeWidth[i] -= shrink;
+        break;
+      }
+    }
+
+    for (i = 0; i < mNodeCount - 1; ) {
+      if (mNodeY[i] == mNodeY[i + 1]) {
+        mNodeWidth[i] += mNodeWidth[i + 1];
+        removeNode(i + 1);
+      } else {
+        i++;
+      }
+    }
+  }
+
+  private void removeNode(int index) {
+    final int tail = mNodeCount - index - 1;
+    System.arraycopy(mNodeX, index + 1, mNodeX, index, tail);
+    System.arraycopy(mNodeY, index + 1, mNodeY, index, tail);
+    System.arraycopy(mNodeWidth, index + 1, mNodeWidth, index, tail);
+    mNodeCount--;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity <= mNodeX.length) {
+      return;
+    }
+    final int newCapacity = Math.max(capacity, mNodeX.length * 2);
+    mNodeX = Arrays.copyOf(mNodeX, newCapacity);
+    mNodeY = Arrays.copyOf(mNodeY, newCapacity);
+    mNodeWidth = Arrays.copyOf(mNodeWidth, newCapacity);
+  }
+}
@@ -1,10 +1,11 @@
 package com.zac4j.opengl.util;
 
 import android.content.Context;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
 
 /**
  * Read glsl resources
@@ -12,30 +13,64 @@ import java.io.InputStreamReader;
  */
 public class TextResourceReader {
 
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final int BUFFER_SIZE = 4096;
+
   /**
    * Read text from ./res/raw file
+   * 换行统一为 '\n'，且非空文本以 '\n' 结尾
    * @param context context
    * @param resId resource id
    * @return resource contain text
    */
   public static String readTextFileFromResource(Context context, int resId) {
-    StringBuilder sb = new StringBuilder();
-
     InputStream is = context.getResources().openRawResource(resId);
-    InputStreamReader reader = new InputStreamReader(is);
-    BufferedReader bufferedReader = new BufferedReader(reader);
-
-    String nextLine;
 
     try {
-      while((nextLine = bufferedReader.readLine()) != null) {
-        sb.append(nextLine)
-            .append('\n');
-      }
+      return readText(is);
     } catch (IOException e) {
       throw new RuntimeException("Could not open resource: " + resId, e);
+    } finally {
+      try {
+        is.close();
+      } catch (IOException ignored) {
+      }
+    }
+  }
+
+  /**
+   * 整块读取 UTF-8 文本，不再逐行读取拼接，换行规则与 readTextFileFromResource 相同
+   * 不关闭输入流
+   * @param is input stream
+   * @return text
+   */
+  public static String readText(InputStream is) throws IOException {
+    final Reader reader = new InputStreamReader(is, UTF_8);
+    final StringBuilder sb = new StringBuilder(Math.max(is.available(), BUFFER_SIZE));
+    final char[] buffer = new char[BUFFER_SIZE];
+
+    // 上一个字符是否为 '\r'，用于把 "\r\n" 与单独的 '\r' 都转换为 '\n'
+    boolean afterCarriageReturn = false;
+    int count;
+    while ((count = reader.read(buffer)) != -1) {
+      for (int i = 0; i < count; i++) {
+        final char c = buffer[i];
+        if (c == '\r') {
+          sb.append('\n');
+          afterCarriageReturn = true;
+        } else {
+          if (c != '\n' || !afterCarriageReturn) {
+            sb.append(c);
+          }
+          afterCarriageReturn = false;
+        }
+      }
     }
 
+    if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '\n') {
+      sb.append('\n');
+    }
     return sb.toString();
   }
 
@@ -0,0 +1,304 @@
+package com.zac4j.opengl.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.util.Log;
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.profile.Profiler;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 纹理图集，把多个图片资源打包进一张纹理
+ *
+ * 使用同一图集的物体共享一个纹理对象，RenderQueue 合批时不需要切换纹理；
+ * 物体的纹理坐标通过 Region.remap 从 [0, 1] 映射到图集中对应的区域
+ *
+ * create 在调用线程解码并上传；stream 只读取图片尺寸确定布局，
+ * 解码与合成交给 TextureStreamer 在后台完成，区域立即可用，纹理加载完成前显示占位颜色
+ *
+ * 图集尺寸取能放下所有图片的最小 2 的幂，ES 2.0 下也可以生成纹理映射。
+ * 图片之间保留 PADDING 像素的间距，区域再向内收缩半个像素，双线性过滤不会采样到相邻的图片；
+ * 较小级别的纹理映射仍可能在边缘混入相邻的像素，不适合需要重复(GL_REPEAT)的纹理
+ */
+public class TextureAtlas {
+
+  private static final String TAG = "TextureAtlas";
+
+  // 图片之间的间距，像素
+  private static final int PADDING = 2;
+
+  /**
+   * 图集中一张图片所在的区域，纹理坐标
+   */
+  public static final class Region {
+
+    public final float s0;
+    public final float t0;
+    public final float s1;
+    public final float t1;
+
+    Region(float s0, float t0, float s1, float t1) {
+      this.s0 = s0;
+      this.t0 = t0;
+      this.s1 = s1;
+      this.t1 = t1;
+    }
+
+    /**
+     * 把顶点数据中 [0, 1] 范围的纹理坐标映射到本区域
+     *
+     * @param vertexData 顶点数据，原地修改
+     * @param offset 第一个顶点 S 分量的位置
+     * @param stride 相邻顶点的间隔，浮点数个数
+     * @param vertexCount 顶点个数
+     */
+    public void remap(float[] vertexData, int offset, int stride, int vertexCount) {
+      final float width = s1 - s0;
+      final float height = t1 - t0;
+      for (int i = 0, index = offset; i < vertexCount; i++, index += stride) {
+        vertexData[index] = s0 + vertexData[index] * width;
+        vertexData[index + 1] = t0 + vertexData[index + 1] * height;
+      }
+    }
+  }
+
+  private final int mTextureId;
+  private final int mWidth;
+  private final int mHeight;
+  private final Map<Integer, Region> mRegions;
+
+  private TextureAtlas(int textureId, int width, int height, Map<Integer, Region> regions) {
+    mTextureId = textureId;
+    mWidth = width;
+    mHeight = height;
+    mRegions = regions;
+  }
+
+  /**
+   * 解码图片资源，打包并上传为一张纹理，需在 GL 线程调用
+   *
+   * @param gl GL 调用接口
+   * @param context 上下文
+   * @param maxSize 图集的最大边长，通常为 GL_MAX_TEXTURE_SIZE
+   * @param resourceIds 图片资源 id
+   * @return 图集
+   * @throws IllegalArgumentException 图片无法解码
+   * @throws IllegalStateException 图片超出最大尺寸，或纹理创建失败
+   */
+  public static TextureAtlas create(GL gl, Context context, int maxSize, int... resourceIds) {
+    final long start = Profiler.begin();
+    final int count = resourceIds.length;
+    final Bitmap[] bitmaps = new Bitmap[count];
+    try {
+      final int[] widths = new int[count];
+      final int[] heights = new int[count];
+      for (int i = 0; i < count; i++) {
+        bitmaps[i] = TextureHelper.decodeResource(context, resourceIds[i]);
+        if (bitmaps[i] == null) {
+          throw new IllegalArgumentException(
+              "Resource ID " + resourceIds[i] + " could not be decoded.");
+        }
+        widths[i] = bitmaps[i].getWidth();
+        heights[i] = bitmaps[i].getHeight();
+      }
+      final int[] positions = new int[count * 2];
+      final int[] size = layout(widths, heights, maxSize, positions);
+
+      final Bitmap atlasBitmap = compose(bitmaps, positions, size);
+      final int textureId = TextureHelper.loadTexture(gl, atlasBitmap);
+      atlasBitmap.recycle();
+      if (textureId == 0) {
+        throw new IllegalStateException("Could not create the atlas texture.");
+      }
+      return newAtlas(textureId, resourceIds, widths, heights, positions, size);
+    } finally {
+      for (Bitmap bitmap : bitmaps) {
+        if (bitmap != null) {
+          bitmap.recycle();
+        }
+      }
+      Profiler.end(Profiler.TIMER_TEXTURE_LOAD, start);
+    }
+  }
+
+  /**
+   * 只读取图片尺寸确定布局，解码与上传由 streamer 在后台完成，需在 GL 线程调用
+   *
+   * @param streamer 后台加载纹理
+   * @param gl GL 调用接口
+   * @param context 上下文
+   * @param maxSize 图集的最大边长，通常为 GL_MAX_TEXTURE_SIZE
+   * @param resourceIds 图片资源 id
+   * @return 图集，区域立即可用，纹理加载完成前显示占位颜色
+   * @throws IllegalArgumentException 图片尺寸无法读取
+   * @throws IllegalStateException 图片超出最大尺寸，或纹理创建失败
+   */
+  public static TextureAtlas stream(TextureStreamer streamer, GL gl, Context context,
+      int maxSize, final int... resourceIds) {
+    final int count = resourceIds.length;
+    final int[] widths = new int[count];
+    final int[] heights = new int[count];
+    final int[] bounds = new int[2];
+    for (int i = 0; i < count; i++) {
+      if (!TextureHelper.decodeBounds(context, resourceIds[i], bounds)) {
+        throw new IllegalArgumentException(
+            "Resource ID " + resourceIds[i] + " could not be decoded.");
+      }
+      widths[i] = bounds[0];
+      heights[i] = bounds[1];
+    }
+    final int[] positions = new int[count * 2];
+    final int[] size = layout(widths, heights, maxSize, positions);
+
+    final Context appContext = context.getApplicationContext();
+    final int textureId = streamer.request(gl, new TextureStreamer.Decoder() {
+      @Override public Bitmap decode() {
+        final Bitmap[] bitmaps = new Bitmap[count];
+        try {
+          for (int i = 0; i < count; i++) {
+            bitmaps[i] = TextureHelper.decodeResource(appContext, resourceIds[i]);
+            if (bitmaps[i] == null) {
+              return null;
+            }
+          }
+          return compose(bitmaps, positions, size);
+        } finally {
+          for (Bitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+              bitmap.recycle();
+            }
+          }
+        }
+      }
+    });
+    if (textureId == 0) {
+      throw new IllegalStateException("Could not create the atlas texture.");
+    }
+    return newAtlas(textureId, resourceIds, widths, heights, positions, size);
+  }
+
+  /**
+   * 确定图集尺寸与每张图片的位置
+   *
+   * @param positions 输出每张图片左上角的 x、y
+   * @return 图集的宽度与高度
+   */
+  private static int[] layout(final int[] widths, final int[] heights, int maxSize,
+      int[] positions) {
+    final int count = widths.length;
+
+    // 从高到低放置，skyline 留下的空隙最少
+    final Integer[] order = new Integer[count];
+    int maxWidth = 1;
+    int maxHeight = 1;
+    long area = 0L;
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+      maxWidth = Math.max(maxWidth, widths[i] + PADDING);
+      maxHeight = Math.max(maxHeight, heights[i] + PADDING);
+      area += (long) (widths[i] + PADDING) * (heights[i] + PADDING);
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override public int compare(Integer a, Integer b) {
+        return heights[b] - heights[a];
+      }
+    });
+
+    // 从能容纳最大图片与总面积的尺寸开始，放不下时把较短的一边加倍
+    int width = nextPowerOfTwo(maxWidth);
+    int height = nextPowerOfTwo(maxHeight);
+    while ((long) width * height < area) {
+      if (width <= height) {
+        width <<= 1;
+      } else {
+        height <<= 1;
+      }
+    }
+    while (true) {
+      if (width > maxSize || height > maxSize) {
+        throw new IllegalStateException(
+            "Images do not fit in a " + maxSize + "x" + maxSize + " atlas.");
+      }
+      if (place(widths, heights, order, width, height, positions)) {
+        return new int[] { width, height };
+      }
+      if (width <= height) {
+        width <<= 1;
+      } else {
+        height <<= 1;
+      }
+    }
+  }
+
+  private static Bitmap compose(Bitmap[] bitmaps, int[] positions, int[] size) {
+    final Bitmap atlasBitmap = Bitmap.createBitmap(size[0], size[1], Bitmap.Config.ARGB_8888);
+    final Canvas canvas = new Canvas(atlasBitmap);
+    for (int i = 0; i < bitmaps.length; i++) {
+      canvas.drawBitmap(bitmaps[i], positions[i * 2], positions[i * 2 + 1], null);
+    }
+    return atlasBitmap;
+  }
+
+  private static TextureAtlas newAtlas(int textureId, int[] resourceIds, int[] widths,
+      int[] heights, int[] positions, int[] size) {
+    final int width = size[0];
+    final int height = size[1];
+    final Map<Integer, Region> regions = new HashMap<>(resourceIds.length * 2);
+    for (int i = 0; i < resourceIds.length; i++) {
+      final int x = positions[i * 2];
+      final int y = positions[i * 2 + 1];
+      // Bitmap 的第一行即纹理的 t = 0，与 Table 的纹理坐标方向一致
+      regions.put(resourceIds[i],
+          new Region((x + 0.5f) / width, (y + 0.5f) / height,
+              (x + widths[i] - 0.5f) / width, (y + heights[i] - 0.5f) / height));
+    }
+    if (LoggerConfig.ON) {
+      Log.i(TAG, "Packed " + resourceIds.length + " images into " + width + "x" + height);
+    }
+    return new TextureAtlas(textureId, width, height, regions);
+  }
+
+  private static boolean place(int[] widths, int[] heights, Integer[] order, int width,
+      int height, int[] positions) {
+    final SkylinePacker packer = new SkylinePacker(width, height, PADDING);
+    for (Integer index : order) {
+      if (!packer.insert(widths[index], heights[index], positions, index * 2)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int nextPowerOfTwo(int value) {
+    return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  public int getTextureId() {
+    return mTextureId;
+  }
+
+  public int getWidth() {
+    return mWidth;
+  }
+
+  public int getHeight() {
+    return mHeight;
+  }
+
+  /**
+   * @param resourceId 创建图集时传入的图片资源 id
+   * @return 图片所在的区域
+   * @throws IllegalArgumentException 图集中没有这张图片
+   */
+  public Region getRegion(int resourceId) {
+    final Region region = mRegions.get(resourceId);
+    if (region == null) {
+      throw new IllegalArgumentException("Resource ID " + resourceId + " is not in the atlas.");
+    }
+    return region;
+  }
+}
@@ -4,18 +4,18 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.util.Log;
-
-import static android.opengl.GLES20.GL_LINEAR;
-import static android.opengl.GLES20.GL_LINEAR_MIPMAP_LINEAR;
-import static android.opengl.GLES20.GL_TEXTURE_2D;
-import static android.opengl.GLES20.GL_TEXTURE_MAG_FILTER;
-import static android.opengl.GLES20.GL_TEXTURE_MIN_FILTER;
-import static android.opengl.GLES20.glBindTexture;
-import static android.opengl.GLES20.glDeleteTextures;
-import static android.opengl.GLES20.glGenTextures;
-import static android.opengl.GLES20.glGenerateMipmap;
-import static android.opengl.GLES20.glTexParameteri;
-import static android.opengl.GLUtils.texImage2D;
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.profile.Profiler;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.zac4j.opengl.gl.GL.GL_LINEAR;
+import static com.zac4j.opengl.gl.GL.GL_LINEAR_MIPMAP_LINEAR;
+import static com.zac4j.opengl.gl.GL.GL_RGBA;
+import static com.zac4j.opengl.gl.GL.GL_TEXTURE_2D;
+import static com.zac4j.opengl.gl.GL.GL_TEXTURE_MAG_FILTER;
+import static com.zac4j.opengl.gl.GL.GL_TEXTURE_MIN_FILTER;
+import static com.zac4j.opengl.gl.GL.GL_UNSIGNED_BYTE;
 
 /**
  * Texture utility class help to load image file data
@@ -25,57 +25,152 @@ public class TextureHelper {
 
   private static final String TAG = "TextureHelper";
 
-  public static int loadTexture(Context context, int resourceId) {
+  /**
+   * 加载图片资源并生成纹理
+   * @param gl GL 调用接口
+   * @param context 上下文
+   * @param resourceId 图片资源 id
+   * @return 纹理对象 id，失败时返回 0
+   */
+  public static int loadTexture(GL gl, Context context, int resourceId) {
+    final long start = Profiler.begin();
+    final int texture = decodeAndUpload(gl, context, resourceId);
+    Profiler.end(Profiler.TIMER_TEXTURE_LOAD, start);
+    return texture;
+  }
+
+  /**
+   * 把 bitmap 上传为纹理并生成纹理映射，不回收 bitmap
+   * @param gl GL 调用接口
+   * @param bitmap 图片，不是 ARGB_8888 格式时先转换
+   * @return 纹理对象 id，失败时返回 0
+   * @throws IllegalArgumentException 图片无法转换为 ARGB_8888
+   */
+  public static int loadTexture(GL gl, Bitmap bitmap) {
+    final Bitmap argb = toArgb8888(bitmap);
+
     final int[] textureObjectIds = new int[1];
     // 生成1个 texture 对象引用到 textureObjectIds，偏移量为0.
-    glGenTextures(1, textureObjectIds, 0);
+    gl.glGenTextures(1, textureObjectIds, 0);
 
-    if (textureObjectIds[0] == 0) {
-      if (LoggerConfig.ON) {
-        Log.w(TAG, "Could not generate a new OpenGL texture object.");
-      }
-      return 0;
+    if (textureObjectIds[0] != 0) {
+      upload(gl, textureObjectIds[0], argb.getWidth(), argb.getHeight(), copyPixels(argb));
+    } else if (LoggerConfig.ON) {
+      Log.w(TAG, "Could not generate a new OpenGL texture object.");
+    }
+
+    // 只回收转换时创建的副本
+    if (argb != bitmap) {
+      argb.recycle();
     }
+    return textureObjectIds[0];
+  }
+
+  /**
+   * 把 RGBA 像素载入已有的纹理对象并生成纹理映射，纹理原有的内容被替换
+   * @param gl GL 调用接口
+   * @param texture 纹理对象 id
+   * @param width 宽度
+   * @param height 高度
+   * @param pixels 每像素 4 字节的 RGBA 数据
+   */
+  static void upload(GL gl, int texture, int width, int height, ByteBuffer pixels) {
+    // 绑定纹理对象
+    gl.glBindTexture(GL_TEXTURE_2D, texture);
+
+    // 对缩小纹理使用纹理映射三线性插值算法
+    gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
+
+    // 对放大纹理使用双线性插值算法
+    gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+
+    gl.glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, width, height, 0, GL_RGBA, GL_UNSIGNED_BYTE,
+        pixels);
+
+    // 生成纹理映射
+    gl.glGenerateMipmap(GL_TEXTURE_2D);
 
+    // a good practise --> 解绑纹理
+    gl.glBindTexture(GL_TEXTURE_2D, 0);
+  }
+
+  /**
+   * copyPixelsToBuffer 按 bitmap 自身的格式拷贝，只有 ARGB_8888 是 GL_RGBA/GL_UNSIGNED_BYTE，
+   * 其他格式(如 RGB_565、ALPHA_8)转换为 ARGB_8888 的副本，可在任意线程调用
+   * @param bitmap 图片
+   * @return ARGB_8888 格式时返回 bitmap 本身，否则返回新的副本，由调用者回收
+   * @throws IllegalArgumentException 图片无法转换为 ARGB_8888
+   */
+  static Bitmap toArgb8888(Bitmap bitmap) {
+    if (bitmap.getConfig() == Bitmap.Config.ARGB_8888) {
+      return bitmap;
+    }
+    final Bitmap copy = bitmap.copy(Bitmap.Config.ARGB_8888, false);
+    if (copy == null) {
+      throw new IllegalArgumentException("Unsupported bitmap config: " + bitmap.getConfig());
+    }
+    return copy;
+  }
+
+  /**
+   * 将 bitmap 的像素拷贝到 Native 层，可在任意线程调用
+   * @param bitmap ARGB_8888 格式的图片
+   * @return 每像素 4 字节的 RGBA 数据，position 为 0
+   */
+  static ByteBuffer copyPixels(Bitmap bitmap) {
+    final ByteBuffer pixels = ByteBuffer.allocateDirect(bitmap.getWidth() * bitmap.getHeight() * 4)
+        .order(ByteOrder.nativeOrder());
+    bitmap.copyPixelsToBuffer(pixels);
+    pixels.position(0);
+    return pixels;
+  }
+
+  /**
+   * 按原图尺寸以 ARGB_8888 解码图片资源
+   * @return 解码失败时返回 null
+   */
+  static Bitmap decodeResource(Context context, int resourceId) {
     // 借助 BitmapFactory 加载未经压缩的图片文件(OpenGL无法直接加载未经压缩的PNG、JPEG文件)
     final BitmapFactory.Options options = new BitmapFactory.Options();
     // 设置为未伸缩类型，即原图
     options.inScaled = false;
+    // 以 RGBA 每通道 8 位解码，像素数据可直接按 GL_RGBA 上传
+    options.inPreferredConfig = Bitmap.Config.ARGB_8888;
 
     final Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), resourceId, options);
 
-    if (bitmap == null) {
-      if (LoggerConfig.ON) {
-        Log.w(TAG, "Resource ID " + resourceId + "could not be decoded.");
-      }
-
-      // 移除 texture 对象
-      glDeleteTextures(1, textureObjectIds, 0);
-      return 0;
+    if (bitmap == null && LoggerConfig.ON) {
+      Log.w(TAG, "Resource ID " + resourceId + "could not be decoded.");
     }
+    return bitmap;
+  }
 
-    // 绑定纹理对象
-    glBindTexture(GL_TEXTURE_2D, textureObjectIds[0]);
-
-    // 对缩小纹理使用纹理映射三线性插值算法
-    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR_MIPMAP_LINEAR);
+  /**
+   * 只读取图片资源的尺寸，不解码像素
+   * @param size 输出宽度与高度
+   * @return 无法读取时返回 false
+   */
+  static boolean decodeBounds(Context context, int resourceId, int[] size) {
+    final BitmapFactory.Options options = new BitmapFactory.Options();
+    options.inScaled = false;
+    options.inJustDecodeBounds = true;
+    BitmapFactory.decodeResource(context.getResources(), resourceId, options);
+    size[0] = options.outWidth;
+    size[1] = options.outHeight;
+    return options.outWidth > 0 && options.outHeight > 0;
+  }
 
-    // 对放大纹理使用双线性插值算法
-    glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+  private static int decodeAndUpload(GL gl, Context context, int resourceId) {
+    final Bitmap bitmap = decodeResource(context, resourceId);
+    if (bitmap == null) {
+      return 0;
+    }
 
-    // 向 OpenGL中载入 bitmap by GLUtils.texImage2D(...)
-    texImage2D(GL_TEXTURE_2D, 0, bitmap, 0);
+    final int texture = loadTexture(gl, bitmap);
 
     // 回收 bitmap
     bitmap.recycle();
-
-    // 生成纹理映射
-    glGenerateMipmap(GL_TEXTURE_2D);
-
-    // a good practise --> 解绑纹理
-    glBindTexture(GL_TEXTURE_2D, 0);
-
-    return textureObjectIds[0];
+    return texture;
   }
 
 }
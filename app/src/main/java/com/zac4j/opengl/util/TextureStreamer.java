@@ -0,0 +1,230 @@
+package com.zac4j.opengl.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.profile.Profiler;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.zac4j.opengl.gl.GL.GL_LINEAR;
+import static com.zac4j.opengl.gl.GL.GL_RGBA;
+import static com.zac4j.opengl.gl.GL.GL_TEXTURE_2D;
+import static com.zac4j.opengl.gl.GL.GL_TEXTURE_MAG_FILTER;
+import static com.zac4j.opengl.gl.GL.GL_TEXTURE_MIN_FILTER;
+import static com.zac4j.opengl.gl.GL.GL_UNSIGNED_BYTE;
+
+/**
+ * 在后台线程解码纹理，GL 线程按每帧的时间预算上传
+ *
+ * request 在 GL 线程立即创建纹理对象并填入 1x1 的占位颜色，返回的 id 可以直接用于绘制；
+ * 解码与像素拷贝在线程池中执行，结果放入有界的上传队列。GL 线程每帧调用 processUploads，
+ * 在预算内把队列中的像素载入原来的纹理对象并生成纹理映射，纹理 id 不变，绘制代码不需要感知加载状态
+ *
+ * 上传队列已满时解码线程阻塞等待，同时存在的已解码像素不超过队列容量加线程数；
+ * 与其他任务共用线程池时，容量应不小于同时请求的纹理数。
+ * EGL context 重建后需调用 clear，丢弃属于旧 context 的上传
+ */
+public class TextureStreamer {
+
+  private static final String TAG = "TextureStreamer";
+
+  /**
+   * 在后台线程产生纹理图片
+   */
+  public interface Decoder {
+
+    /**
+     * @return 图片，由调用者回收，不是 ARGB_8888 格式时在后台线程转换；
+     * 失败时返回 null，纹理保持占位颜色
+     */
+    Bitmap decode();
+  }
+
+  // 已解码、等待上传的纹理
+  private static final class Upload {
+
+    final int texture;
+    final int generation;
+    final int width;
+    final int height;
+    final ByteBuffer pixels;
+
+    Upload(int texture, int generation, int width, int height, ByteBuffer pixels) {
+      this.texture = texture;
+      this.generation = generation;
+      this.width = width;
+      this.height = height;
+      this.pixels = pixels;
+    }
+  }
+
+  private final Executor mExecutor;
+  private final BlockingQueue<Upload> mUploads;
+
+  // 占位纹理的 1 个 RGBA 像素
+  private final ByteBuffer mPlaceholder;
+
+  // 已请求但尚未上传的纹理数
+  private final AtomicInteger mPendingCount = new AtomicInteger();
+
+  // 每次 clear 递增，旧 context 的上传被丢弃
+  private volatile int mGeneration;
+
+  /**
+   * @param executor 执行解码任务的线程池，可传入 AsyncTask.THREAD_POOL_EXECUTOR
+   * @param capacity 上传队列的容量
+   * @param placeholderColor 占位颜色，与 android.graphics.Color 相同的 ARGB 格式
+   */
+  public TextureStreamer(Executor executor, int capacity, int placeholderColor) {
+    mExecutor = executor;
+    mUploads = new ArrayBlockingQueue<>(capacity);
+    mPlaceholder = ByteBuffer.allocateDirect(4).order(ByteOrder.nativeOrder());
+    mPlaceholder.put((byte) (placeholderColor >> 16))
+        .put((byte) (placeholderColor >> 8))
+        .put((byte) placeholderColor)
+        .put((byte) (placeholderColor >>> 24));
+    mPlaceholder.position(0);
+  }
+
+  /**
+   * 在后台加载图片资源，需在 GL 线程调用
+   *
+   * @param gl GL 调用接口
+   * @param context 上下文
+   * @param resourceId 图片资源 id
+   * @return 纹理对象 id，加载完成前显示占位颜色；失败时返回 0
+   */
+  public int request(GL gl, Context context, final int resourceId) {
+    final Context appContext = context.getApplicationContext();
+    return request(gl, new Decoder() {
+      @Override public Bitmap decode() {
+        return TextureHelper.decodeResource(appContext, resourceId);
+      }
+    });
+  }
+
+  /**
+   * 在后台产生纹理图片，需在 GL 线程调用
+   *
+   * @param gl GL 调用接口
+   * @param decoder 在线程池中执行
+   * @return 纹理对象 id，加载完成前显示占位颜色；失败时返回 0
+   */
+  public int request(GL gl, final Decoder decoder) {
+    final int[] textureObjectIds = new int[1];
+    gl.glGenTextures(1, textureObjectIds, 0);
+    final int texture = textureObjectIds[0];
+    if (texture == 0) {
+      if (LoggerConfig.ON) {
+        Log.w(TAG, "Could not generate a new OpenGL texture object.");
+      }
+      return 0;
+    }
+
+    // 占位纹理没有纹理映射，缩小时也只能使用双线性过滤
+    gl.glBindTexture(GL_TEXTURE_2D, texture);
+    gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_LINEAR);
+    gl.glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_LINEAR);
+    gl.glTexImage2D(GL_TEXTURE_2D, 0, GL_RGBA, 1, 1, 0, GL_RGBA, GL_UNSIGNED_BYTE, mPlaceholder);
+    gl.glBindTexture(GL_TEXTURE_2D, 0);
+
+    mPendingCount.incrementAndGet();
+    final int generation = mGeneration;
+    mExecutor.execute(new Runnable() {
+      @Override public void run() {
+        decode(decoder, texture, generation);
+      }
+    });
+    return texture;
+  }
+
+  private void decode(Decoder decoder, int texture, int generation) {
+    boolean queued = false;
+    try {
+      final Bitmap bitmap = decoder.decode();
+      if (bitmap == null) {
+        if (LoggerConfig.ON) {
+          Log.w(TAG, "Texture " + texture + " could not be decoded.");
+        }
+        return;
+      }
+      final Bitmap argb;
+      try {
+        argb = TextureHelper.toArgb8888(bitmap);
+      } catch (IllegalArgumentException e) {
+        // 无法转换的格式与解码失败一样处理
+        if (LoggerConfig.ON) {
+          Log.w(TAG, "Texture " + texture + " has an unsupported bitmap config.", e);
+        }
+        bitmap.recycle();
+        return;
+      }
+      final Upload upload = new Upload(texture, generation, argb.getWidth(), argb.getHeight(),
+          TextureHelper.copyPixels(argb));
+      if (argb != bitmap) {
+        argb.recycle();
+      }
+      bitmap.recycle();
+      if (generation != mGeneration) {
+        return;
+      }
+      mUploads.put(upload);
+      queued = true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (!queued) {
+        mPendingCount.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * 上传已解码的纹理，需在 GL 线程每帧调用；每次至少上传一个，超出预算后留到下一帧
+   *
+   * @param gl GL 调用接口
+   * @param budgetNanos 本帧用于上传的时间，纳秒
+   * @return 本次上传的纹理数
+   */
+  public int processUploads(GL gl, long budgetNanos) {
+    final long start = System.nanoTime();
+    int uploaded = 0;
+    Upload upload;
+    while ((upload = mUploads.poll()) != null) {
+      if (upload.generation == mGeneration) {
+        final long uploadStart = Profiler.begin();
+        TextureHelper.upload(gl, upload.texture, upload.width, upload.height, upload.pixels);
+        Profiler.end(Profiler.TIMER_TEXTURE_LOAD, uploadStart);
+        uploaded++;
+      }
+      mPendingCount.decrementAndGet();
+      if (System.nanoTime() - start >= budgetNanos) {
+        break;
+      }
+    }
+    return uploaded;
+  }
+
+  /**
+   * 丢弃所有未完成的加载，EGL context 重建后在 GL 线程调用，之后重新请求纹理
+   */
+  public void clear() {
+    mGeneration++;
+    while (mUploads.poll() != null) {
+      mPendingCount.decrementAndGet();
+    }
+  }
+
+  /**
+   * @return 已请求但尚未上传的纹理数，包括正在解码的
+   */
+  public int getPendingCount() {
+    return mPendingCount.get();
+  }
+}
@@ -0,0 +1,195 @@
+package com.zac4j.opengl.util;
+
+/**
+ * 不分配内存的变换工具，矩阵为列主序的 float[16]，与 android.opengl.Matrix 的布局相同
+ *
+ * 物体的模型矩阵只有平移或旋转时，不必先 setIdentityM 再 translateM / rotateM，
+ * 然后做完整的 4x4 multiplyMM：
+ * - multiplyTranslation: lhs * T(x, y, z)，只计算最后一列
+ * - multiplyRotation: lhs * R，R 只读取左上 3x3，最后一列直接复制
+ * - multiplyAffine: lhs * A，A 最后一行为 (0, 0, 0, 1)，省去与该行相乘的项
+ *
+ * 每个元素的加法顺序与 multiplyMM 相同，省去的只是与 0 或 1 相乘的项，
+ * 因此结果与 setIdentityM / translateM / rotateM / multiplyMM 的组合一致(除 0 的符号外)
+ * 调用方持有结果数组并在每帧复用，这里不保存任何状态
+ */
+public final class Transform {
+
+  private Transform() {
+  }
+
+  /**
+   * m = T(x, y, z)
+   *
+   * @param m 结果矩阵容器
+   * @param offset 矩阵在容器中的偏移量
+   */
+  public static void setTranslation(float[] m, int offset, float x, float y, float z) {
+    m[offset] = 1f;
+    m[offset + 1] = 0f;
+    m[offset + 2] = 0f;
+    m[offset + 3] = 0f;
+
+    m[offset + 4] = 0f;
+    m[offset + 5] = 1f;
+    m[offset + 6] = 0f;
+    m[offset + 7] = 0f;
+
+    m[offset + 8] = 0f;
+    m[offset + 9] = 0f;
+    m[offset + 10] = 1f;
+    m[offset + 11] = 0f;
+
+    m[offset + 12] = x;
+    m[offset + 13] = y;
+    m[offset + 14] = z;
+    m[offset + 15] = 1f;
+  }
+
+  /**
+   * m = R(angle, axis)，与 Matrix.setRotateM 相同，沿坐标轴旋转时没有归一化误差
+   *
+   * @param m 结果矩阵容器
+   * @param offset 矩阵在容器中的偏移量
+   * @param angleInDegrees 旋转角度
+   */
+  public static void setRotation(float[] m, int offset, float angleInDegrees, float x, float y,
+      float z) {
+    m[offset + 3] = 0f;
+    m[offset + 7] = 0f;
+    m[offset + 11] = 0f;
+    m[offset + 12] = 0f;
+    m[offset + 13] = 0f;
+    m[offset + 14] = 0f;
+    m[offset + 15] = 1f;
+
+    final float angleInRadians = angleInDegrees * (float) (Math.PI / 180.0f);
+    final float s = (float) Math.sin(angleInRadians);
+    final float c = (float) Math.cos(angleInRadians);
+
+    if (x == 1f && y == 0f && z == 0f) {
+      m[offset] = 1f;
+      m[offset + 1] = 0f;
+      m[offset + 2] = 0f;
+      m[offset + 4] = 0f;
+      m[offset + 5] = c;
+      m[offset + 6] = s;
+      m[offset + 8] = 0f;
+      m[offset + 9] = -s;
+      m[offset + 10] = c;
+    } else if (x == 0f && y == 1f && z == 0f) {
+      m[offset] = c;
+      m[offset + 1] = 0f;
+      m[offset + 2] = -s;
+      m[offset + 4] = 0f;
+      m[offset + 5] = 1f;
+      m[offset + 6] = 0f;
+      m[offset + 8] = s;
+      m[offset + 9] = 0f;
+      m[offset + 10] = c;
+    } else if (x == 0f && y == 0f && z == 1f) {
+      m[offset] = c;
+      m[offset + 1] = s;
+      m[offset + 2] = 0f;
+      m[offset + 4] = -s;
+      m[offset + 5] = c;
+      m[offset + 6] = 0f;
+      m[offset + 8] = 0f;
+      m[offset + 9] = 0f;
+      m[offset + 10] = 1f;
+    } else {
+      final float length = (float) Math.sqrt(x * x + y * y + z * z);
+      if (length != 1f) {
+        final float recipLength = 1f / length;
+        x *= recipLength;
+        y *= recipLength;
+        z *= recipLength;
+      }
+      final float nc = 1f - c;
+      final float xy = x * y;
+      final float yz = y * z;
+      final float zx = z * x;
+      final float xs = x * s;
+      final float ys = y * s;
+      final float zs = z * s;
+      m[offset] = x * x * nc + c;
+      m[offset + 4] = xy * nc - zs;
+      m[offset + 8] = zx * nc + ys;
+      m[offset + 1] = xy * nc + zs;
+      m[offset + 5] = y * y * nc + c;
+      m[offset + 9] = yz * nc - xs;
+      m[offset + 2] = zx * nc - ys;
+      m[offset + 6] = yz * nc + xs;
+      m[offset + 10] = z * z * nc + c;
+    }
+  }
+
+  /**
+   * result = lhs * T(x, y, z)，前三列与 lhs 相同，result 可以与 lhs 为同一矩阵
+   *
+   * @param result 结果矩阵容器
+   * @param resultOffset 结果矩阵的偏移量
+   * @param lhs 左侧矩阵容器，通常为视图投影矩阵
+   * @param lhsOffset 左侧矩阵的偏移量
+   */
+  public static void multiplyTranslation(float[] result, int resultOffset, float[] lhs,
+      int lhsOffset, float x, float y, float z) {
+    if (result != lhs || resultOffset != lhsOffset) {
+      System.arraycopy(lhs, lhsOffset, result, resultOffset, 12);
+    }
+    for (int j = 0; j < 4; j++) {
+      result[resultOffset + 12 + j] = lhs[lhsOffset + j] * x
+          + lhs[lhsOffset + 4 + j] * y
+          + lhs[lhsOffset + 8 + j] * z
+          + lhs[lhsOffset + 12 + j];
+    }
+  }
+
+  /**
+   * result = lhs * rotation，rotation 只读取左上 3x3，最后一列与 lhs 相同
+   * result 不能与 lhs 或 rotation 为同一矩阵
+   *
+   * @param result 结果矩阵容器
+   * @param resultOffset 结果矩阵的偏移量
+   * @param lhs 左侧矩阵容器
+   * @param lhsOffset 左侧矩阵的偏移量
+   * @param rotation 旋转矩阵容器，可由 setRotation 生成
+   * @param rotationOffset 旋转矩阵的偏移量
+   */
+  public static void multiplyRotation(float[] result, int resultOffset, float[] lhs,
+      int lhsOffset, float[] rotation, int rotationOffset) {
+    for (int i = 0; i < 3; i++) {
+      final float r0 = rotation[rotationOffset + i * 4];
+      final float r1 = rotation[rotationOffset + i * 4 + 1];
+      final float r2 = rotation[rotationOffset + i * 4 + 2];
+      for (int j = 0; j < 4; j++) {
+        result[resultOffset + i * 4 + j] = lhs[lhsOffset + j] * r0
+            + lhs[lhsOffset + 4 + j] * r1
+            + lhs[lhsOffset + 8 + j] * r2;
+      }
+    }
+    System.arraycopy(lhs, lhsOffset + 12, result, resultOffset + 12, 4);
+  }
+
+  /**
+   * result = lhs * affine，affine 的最后一行视为 (0, 0, 0, 1)，如视图矩阵或模型矩阵
+   * result 不能与 lhs 或 affine 为同一矩阵
+   *
+   * @param result 结果矩阵容器
+   * @param resultOffset 结果矩阵的偏移量
+   * @param lhs 左侧矩阵容器
+   * @param lhsOffset 左侧矩阵的偏移量
+   * @param affine 仿射矩阵容器
+   * @param affineOffset 仿射矩阵的偏移量
+   */
+  public static void multiplyAffine(float[] result, int resultOffset, float[] lhs,
+      int lhsOffset, float[] affine, int affineOffset) {
+    multiplyRotation(result, resultOffset, lhs, lhsOffset, affine, affineOffset);
+    for (int j = 0; j < 4; j++) {
+      result[resultOffset + 12 + j] = lhs[lhsOffset + j] * affine[affineOffset + 12]
+          + lhs[lhsOffset + 4 + j] * affine[affineOffset + 13]
+          + lhs[lhsOffset + 8 + j] * affine[affineOffset + 14]
+          + lhs[lhsOffset + 12 + j];
+    }
+  }
+}
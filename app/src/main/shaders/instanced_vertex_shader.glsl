@@ -0,0 +1,14 @@
+uniform mat4 u_Matrix;
+
+attribute vec4 a_Position;
+attribute vec4 a_Color;
+// 每个实例的模型矩阵，占用四个连续的 attribute location
+attribute mat4 a_ModelMatrix;
+
+varying vec4 v_Color;
+
+void main()
+{
+  v_Color = a_Color;
+  gl_Position = u_Matrix * a_ModelMatrix * a_Position;
+}
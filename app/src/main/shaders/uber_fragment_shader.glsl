@@ -0,0 +1,27 @@
+// 按特性定义生成变体: UNIFORM_COLOR 统一颜色，VERTEX_COLOR 顶点颜色，TEXTURE 纹理，
+// 各颜色来源相乘，都没有时输出白色
+precision mediump float;
+
+#ifdef UNIFORM_COLOR
+uniform vec4 u_Color;
+#endif
+#ifdef TEXTURE
+uniform sampler2D u_TextureUnit;
+#endif
+
+#include "uber_varyings"
+
+void main()
+{
+  vec4 color = vec4(1.0);
+#ifdef UNIFORM_COLOR
+  color *= u_Color;
+#endif
+#ifdef VERTEX_COLOR
+  color *= v_Color;
+#endif
+#ifdef TEXTURE
+  color *= texture2D(u_TextureUnit, v_TextureCoordinates);
+#endif
+  gl_FragColor = color;
+}
@@ -0,0 +1,7 @@
+// 顶点与片元 shader 共用的 varying 声明，两个阶段必须一致
+#ifdef VERTEX_COLOR
+varying vec4 v_Color;
+#endif
+#ifdef TEXTURE
+varying vec2 v_TextureCoordinates;
+#endif
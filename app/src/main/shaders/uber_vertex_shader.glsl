@@ -0,0 +1,32 @@
+// 按特性定义生成变体: VERTEX_COLOR 顶点颜色，TEXTURE 纹理坐标，
+// INSTANCED 每个实例的模型矩阵来自顶点属性，需要 ES 3.0 context
+uniform mat4 u_Matrix;
+
+attribute vec4 a_Position;
+#ifdef VERTEX_COLOR
+attribute vec4 a_Color;
+#endif
+#ifdef TEXTURE
+attribute vec2 a_TextureCoordinates;
+#endif
+#ifdef INSTANCED
+// 每个实例的模型矩阵，占用四个连续的 attribute location
+attribute mat4 a_ModelMatrix;
+#endif
+
+#include "uber_varyings"
+
+void main()
+{
+#ifdef VERTEX_COLOR
+  v_Color = a_Color;
+#endif
+#ifdef TEXTURE
+  v_TextureCoordinates = a_TextureCoordinates;
+#endif
+#ifdef INSTANCED
+  gl_Position = u_Matrix * a_ModelMatrix * a_Position;
+#else
+  gl_Position = u_Matrix * a_Position;
+#endif
+}
@@ -0,0 +1,177 @@
+package com.zac4j.opengl.data;
+
+import com.zac4j.opengl.gl.HeadlessGL;
+import com.zac4j.opengl.gl.StateCachingGL;
+import java.nio.Buffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.zac4j.opengl.gl.GL.GL_DYNAMIC_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_ELEMENT_ARRAY_BUFFER;
+import static com.zac4j.opengl.gl.GL.GL_STATIC_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLES;
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLE_FAN;
+import static com.zac4j.opengl.gl.GL.GL_UNSIGNED_SHORT;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * IndexArray 的缓冲区生命周期与绘制偏移，在 HeadlessGL 上记录实际发出的调用
+ */
+public class IndexArrayTest {
+
+  private static final short[] INDICES = { 0, 1, 2, 2, 1, 3, (short) 0xFFFF };
+
+  private RecordingGL mGL;
+
+  @Before public void setUp() {
+    mGL = new RecordingGL();
+  }
+
+  @Test public void uploadsIndicesIntoElementArrayBuffer() {
+    final IndexArray indexArray = new IndexArray(mGL, INDICES);
+    final int buffer = indexArray.getBufferId();
+
+    assertTrue(buffer != 0);
+    assertEquals(GL_STATIC_DRAW, indexArray.getUsage());
+    assertEquals(INDICES.length, indexArray.size());
+    assertEquals(Arrays.asList(
+        "glGenBuffers " + buffer,
+        "glBindBuffer " + GL_ELEMENT_ARRAY_BUFFER + " " + buffer,
+        "glBufferData " + GL_ELEMENT_ARRAY_BUFFER + " " + INDICES.length * 2 + " "
+            + GL_STATIC_DRAW), mGL.calls);
+    assertArrayEquals(INDICES, mGL.uploaded);
+  }
+
+  @Test public void keepsUsageHint() {
+    final IndexArray indexArray = new IndexArray(mGL, INDICES, GL_DYNAMIC_DRAW);
+    assertEquals(GL_DYNAMIC_DRAW, indexArray.getUsage());
+    assertEquals("glBufferData " + GL_ELEMENT_ARRAY_BUFFER + " " + INDICES.length * 2 + " "
+        + GL_DYNAMIC_DRAW, mGL.calls.get(2));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownUsage() {
+    new IndexArray(mGL, INDICES, GL_TRIANGLES);
+  }
+
+  @Test public void drawsWithByteOffset() {
+    final IndexArray indexArray = new IndexArray(mGL, INDICES);
+    final int buffer = indexArray.getBufferId();
+    mGL.calls.clear();
+
+    indexArray.drawElements(GL_TRIANGLE_FAN, 3, 4);
+    indexArray.drawElementsInstanced(GL_TRIANGLES, 0, 6, 12);
+
+    assertEquals(Arrays.asList(
+        "glBindBuffer " + GL_ELEMENT_ARRAY_BUFFER + " " + buffer,
+        "glDrawElements " + GL_TRIANGLE_FAN + " 4 " + GL_UNSIGNED_SHORT + " 6",
+        "glBindBuffer " + GL_ELEMENT_ARRAY_BUFFER + " " + buffer,
+        "glDrawElementsInstanced " + GL_TRIANGLES + " 6 " + GL_UNSIGNED_SHORT + " 0 12"),
+        mGL.calls);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void rejectsRangePastEnd() {
+    new IndexArray(mGL, INDICES).drawElements(GL_TRIANGLES, 4, INDICES.length - 3);
+  }
+
+  @Test public void updatesSubRange() {
+    final IndexArray indexArray = new IndexArray(mGL, INDICES, GL_DYNAMIC_DRAW);
+    final int buffer = indexArray.getBufferId();
+    mGL.calls.clear();
+
+    indexArray.update(new short[] { 7, 8, 9 }, 2, 2);
+
+    assertEquals(Arrays.asList(
+        "glBindBuffer " + GL_ELEMENT_ARRAY_BUFFER + " " + buffer,
+        "glBufferSubData " + GL_ELEMENT_ARRAY_BUFFER + " 4 4"), mGL.calls);
+    assertArrayEquals(new short[] { 7, 8 }, mGL.uploaded);
+  }
+
+  @Test public void releaseDeletesBufferOnce() {
+    final IndexArray indexArray = new IndexArray(mGL, INDICES);
+    final int buffer = indexArray.getBufferId();
+    mGL.calls.clear();
+
+    indexArray.release();
+    indexArray.release();
+
+    assertEquals(0, indexArray.getBufferId());
+    assertEquals(Arrays.asList("glDeleteBuffers " + buffer), mGL.calls);
+  }
+
+  /**
+   * 连续绘制同一网格时，StateCachingGL 丢弃重复的绑定
+   */
+  @Test public void repeatedDrawsBindOnceThroughStateCache() {
+    final StateCachingGL stateCache = new StateCachingGL(mGL);
+    final IndexArray first = new IndexArray(stateCache, INDICES);
+    final IndexArray second = new IndexArray(stateCache, INDICES);
+    mGL.calls.clear();
+
+    first.drawElements(GL_TRIANGLES, 0, 6);
+    first.drawElements(GL_TRIANGLES, 0, 6);
+    second.drawElements(GL_TRIANGLES, 0, 3);
+
+    assertEquals(Arrays.asList(
+        "glBindBuffer " + GL_ELEMENT_ARRAY_BUFFER + " " + first.getBufferId(),
+        "glDrawElements " + GL_TRIANGLES + " 6 " + GL_UNSIGNED_SHORT + " 0",
+        "glDrawElements " + GL_TRIANGLES + " 6 " + GL_UNSIGNED_SHORT + " 0",
+        "glBindBuffer " + GL_ELEMENT_ARRAY_BUFFER + " " + second.getBufferId(),
+        "glDrawElements " + GL_TRIANGLES + " 3 " + GL_UNSIGNED_SHORT + " 0"), mGL.calls);
+  }
+
+  /**
+   * 记录缓冲区与索引绘制调用，以及最近一次上传的索引
+   */
+  private static final class RecordingGL extends HeadlessGL {
+    final List<String> calls = new ArrayList<>();
+    short[] uploaded;
+
+    @Override public void glGenBuffers(int n, int[] buffers, int offset) {
+      super.glGenBuffers(n, buffers, offset);
+      calls.add("glGenBuffers " + buffers[offset]);
+    }
+
+    @Override public void glDeleteBuffers(int n, int[] buffers, int offset) {
+      calls.add("glDeleteBuffers " + buffers[offset]);
+    }
+
+    @Override public void glBindBuffer(int target, int buffer) {
+      calls.add("glBindBuffer " + target + " " + buffer);
+    }
+
+    @Override public void glBufferData(int target, int size, Buffer data, int usage) {
+      calls.add("glBufferData " + target + " " + size + " " + usage);
+      uploaded = read(data, size);
+    }
+
+    @Override public void glBufferSubData(int target, int offset, int size, Buffer data) {
+      calls.add("glBufferSubData " + target + " " + offset + " " + size);
+      uploaded = read(data, size);
+    }
+
+    @Override public void glDrawElements(int mode, int count, int type, int offset) {
+      calls.add("glDrawElements " + mode + " " + count + " " + type + " " + offset);
+    }
+
+    @Override public void glDrawElementsInstanced(int mode, int count, int type, int offset,
+        int instanceCount) {
+      calls.add("glDrawElementsInstanced " + mode + " " + count + " " + type + " " + offset + " "
+          + instanceCount);
+    }
+
+    private static short[] read(Buffer data, int size) {
+      final ShortBuffer shorts = ((ShortBuffer) data).duplicate();
+      final short[] values = new short[size / 2];
+      shorts.get(values);
+      return values;
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package com.zac4j.opengl.data;
+
+import com.zac4j.opengl.gl.HeadlessGL;
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.zac4j.opengl.gl.GL.GL_ARRAY_BUFFER;
+import static com.zac4j.opengl.gl.GL.GL_DYNAMIC_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_FLOAT;
+import static com.zac4j.opengl.gl.GL.GL_STATIC_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_STREAM_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLES;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * VertexBuffer 的缓冲区生命周期、属性字节偏移与部分更新，在 HeadlessGL 上记录实际发出的调用
+ */
+public class VertexBufferTest {
+
+  private static final float[] VERTICES = { 0f, 1f, 2f, 3f, 4f, 5f, 6f, 7f, 8f, 9f, 10f, 11f };
+
+  private RecordingGL mGL;
+
+  @Before public void setUp() {
+    mGL = new RecordingGL();
+  }
+
+  @Test public void uploadsVerticesAndUnbinds() {
+    final VertexBuffer vertexBuffer = new VertexBuffer(mGL, VERTICES, GL_STATIC_DRAW);
+    final int buffer = vertexBuffer.getBufferId();
+
+    assertTrue(buffer != 0);
+    assertEquals(Arrays.asList(
+        "glGenBuffers " + buffer,
+        "glBindBuffer " + GL_ARRAY_BUFFER + " " + buffer,
+        "glBufferData " + GL_ARRAY_BUFFER + " " + VERTICES.length * 4 + " " + GL_STATIC_DRAW,
+        "glBindBuffer " + GL_ARRAY_BUFFER + " 0"), mGL.calls);
+    assertArrayEquals(VERTICES, mGL.uploaded, 0f);
+  }
+
+  @Test public void acceptsKnownUsageHints() {
+    assertEquals(GL_STATIC_DRAW, new VertexBuffer(mGL, VERTICES, GL_STATIC_DRAW).getUsage());
+    assertEquals(GL_DYNAMIC_DRAW, new VertexBuffer(mGL, VERTICES, GL_DYNAMIC_DRAW).getUsage());
+    assertEquals(GL_STREAM_DRAW, new VertexBuffer(mGL, VERTICES, GL_STREAM_DRAW).getUsage());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownUsage() {
+    new VertexBuffer(mGL, VERTICES, GL_TRIANGLES);
+  }
+
+  /**
+   * 属性偏移以 float 传入，发给 glVertexAttribPointer 的是缓冲区内的字节偏移，步长原样传递
+   */
+  @Test public void pointsAttributeAtByteOffset() {
+    final VertexBuffer vertexBuffer = new VertexBuffer(mGL, VERTICES, GL_STATIC_DRAW);
+    final int buffer = vertexBuffer.getBufferId();
+    mGL.calls.clear();
+
+    vertexBuffer.setVertexAttributePointer(2, 1, 4, 24);
+
+    assertEquals(Arrays.asList(
+        "glBindBuffer " + GL_ARRAY_BUFFER + " " + buffer,
+        "glVertexAttribPointer 1 4 " + GL_FLOAT + " 24 8",
+        "glEnableVertexAttribArray 1",
+        "glBindBuffer " + GL_ARRAY_BUFFER + " 0"), mGL.calls);
+  }
+
+  @Test public void updatesSubRange() {
+    final VertexBuffer vertexBuffer = new VertexBuffer(mGL, VERTICES, GL_DYNAMIC_DRAW);
+    final int buffer = vertexBuffer.getBufferId();
+    mGL.calls.clear();
+
+    vertexBuffer.update(new float[] { 20f, 21f, 22f }, 3, 2);
+
+    assertEquals(Arrays.asList(
+        "glBindBuffer " + GL_ARRAY_BUFFER + " " + buffer,
+        "glBufferSubData " + GL_ARRAY_BUFFER + " 12 8",
+        "glBindBuffer " + GL_ARRAY_BUFFER + " 0"), mGL.calls);
+    assertArrayEquals(new float[] { 20f, 21f }, mGL.uploaded, 0f);
+  }
+
+  @Test public void updatesWholeArrayAtOffset() {
+    final VertexBuffer vertexBuffer = new VertexBuffer(mGL, VERTICES, GL_DYNAMIC_DRAW);
+    mGL.calls.clear();
+
+    vertexBuffer.update(new float[] { 30f, 31f }, VERTICES.length - 2);
+
+    assertEquals("glBufferSubData " + GL_ARRAY_BUFFER + " " + (VERTICES.length - 2) * 4 + " 8",
+        mGL.calls.get(1));
+    assertArrayEquals(new float[] { 30f, 31f }, mGL.uploaded, 0f);
+  }
+
+  @Test public void rejectsUpdatesOutOfBounds() {
+    final VertexBuffer vertexBuffer = new VertexBuffer(mGL, VERTICES, GL_DYNAMIC_DRAW);
+    mGL.calls.clear();
+
+    assertRejected(vertexBuffer, new float[2], -1, 2);
+    assertRejected(vertexBuffer, new float[2], 0, -1);
+    // 超出源数组
+    assertRejected(vertexBuffer, new float[2], 0, 3);
+    // 超出缓冲区
+    assertRejected(vertexBuffer, new float[2], VERTICES.length - 1, 2);
+    assertRejected(vertexBuffer, new float[VERTICES.length + 1], 0, VERTICES.length + 1);
+    assertEquals(0, mGL.calls.size());
+  }
+
+  @Test public void releaseDeletesBufferOnce() {
+    final VertexBuffer vertexBuffer = new VertexBuffer(mGL, VERTICES, GL_STATIC_DRAW);
+    final int buffer = vertexBuffer.getBufferId();
+    mGL.calls.clear();
+
+    vertexBuffer.release();
+    vertexBuffer.release();
+
+    assertEquals(0, vertexBuffer.getBufferId());
+    assertEquals(Arrays.asList("glDeleteBuffers " + buffer), mGL.calls);
+  }
+
+  private static void assertRejected(VertexBuffer vertexBuffer, float[] data, int offset,
+      int count) {
+    try {
+      vertexBuffer.update(data, offset, count);
+      fail(offset + " " + count);
+    } catch (IndexOutOfBoundsException expected) {
+      // 预期的错误
+    }
+  }
+
+  /**
+   * 记录缓冲区与属性调用，以及最近一次上传的顶点数据
+   */
+  private static final class RecordingGL extends HeadlessGL {
+    final List<String> calls = new ArrayList<>();
+    float[] uploaded;
+
+    @Override public void glGenBuffers(int n, int[] buffers, int offset) {
+      super.glGenBuffers(n, buffers, offset);
+      calls.add("glGenBuffers " + buffers[offset]);
+    }
+
+    @Override public void glDeleteBuffers(int n, int[] buffers, int offset) {
+      calls.add("glDeleteBuffers " + buffers[offset]);
+    }
+
+    @Override public void glBindBuffer(int target, int buffer) {
+      calls.add("glBindBuffer " + target + " " + buffer);
+    }
+
+    @Override public void glBufferData(int target, int size, Buffer data, int usage) {
+      calls.add("glBufferData " + target + " " + size + " " + usage);
+      uploaded = read(data, size);
+    }
+
+    @Override public void glBufferSubData(int target, int offset, int size, Buffer data) {
+      calls.add("glBufferSubData " + target + " " + offset + " " + size);
+      uploaded = read(data, size);
+    }
+
+    @Override public void glVertexAttribPointer(int index, int size, int type,
+        boolean normalized, int stride, int offset) {
+      calls.add("glVertexAttribPointer " + index + " " + size + " " + type + " " + stride + " "
+          + offset);
+    }
+
+    @Override public void glEnableVertexAttribArray(int index) {
+      calls.add("glEnableVertexAttribArray " + index);
+    }
+
+    private static float[] read(Buffer data, int size) {
+      final FloatBuffer floats = ((FloatBuffer) data).duplicate();
+      final float[] values = new float[size / 4];
+      floats.get(values);
+      return values;
+    }
+  }
+}
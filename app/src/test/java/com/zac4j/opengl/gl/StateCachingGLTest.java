@@ -0,0 +1,301 @@
+package com.zac4j.opengl.gl;
+
+import com.zac4j.opengl.data.VertexBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.zac4j.opengl.gl.GL.GL_ARRAY_BUFFER;
+import static com.zac4j.opengl.gl.GL.GL_ELEMENT_ARRAY_BUFFER;
+import static com.zac4j.opengl.gl.GL.GL_FLOAT;
+import static com.zac4j.opengl.gl.GL.GL_STATIC_DRAW;
+import static com.zac4j.opengl.gl.GL.GL_TEXTURE0;
+import static com.zac4j.opengl.gl.GL.GL_TEXTURE_2D;
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLES;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * StateCachingGL 丢弃的调用，以及删除对象与 invalidate 之后重新提交状态
+ *
+ * 调用方发出的状态切换由外层 CountingGL 统计，到达驱动的由内层 CountingGL 统计，
+ * 两者之差应等于 StateCachingGL 报告的丢弃次数
+ */
+public class StateCachingGLTest {
+
+  private RecordingGL mDriver;
+  private CountingGL mDriverCounter;
+  private StateCachingGL mCache;
+  private CountingGL mAppCounter;
+
+  @Before public void setUp() {
+    mDriver = new RecordingGL();
+    mDriverCounter = new CountingGL(mDriver);
+    mCache = new StateCachingGL(mDriverCounter);
+    mAppCounter = new CountingGL(mCache);
+  }
+
+  @Test public void skipsRedundantUseProgram() {
+    mAppCounter.glUseProgram(3);
+    mAppCounter.glUseProgram(3);
+    mAppCounter.glUseProgram(4);
+    mAppCounter.glUseProgram(4);
+
+    assertEquals(Arrays.asList("glUseProgram 3", "glUseProgram 4"), mDriver.calls);
+    assertEquals(2, mCache.getSkippedProgramCalls());
+    assertCallsAccountedFor();
+  }
+
+  @Test public void deletingCurrentProgramForgetsIt() {
+    mAppCounter.glUseProgram(3);
+    mAppCounter.glDeleteProgram(3);
+    mAppCounter.glUseProgram(3);
+
+    assertEquals(Arrays.asList("glUseProgram 3", "glUseProgram 3"), mDriver.calls);
+    assertEquals(0, mCache.getSkippedCalls());
+  }
+
+  @Test public void tracksTextureBindingPerUnit() {
+    mAppCounter.glActiveTexture(GL_TEXTURE0);
+    mAppCounter.glBindTexture(GL_TEXTURE_2D, 5);
+    mAppCounter.glActiveTexture(GL_TEXTURE0 + 1);
+    // 另一个单元，不是冗余的
+    mAppCounter.glBindTexture(GL_TEXTURE_2D, 5);
+    mAppCounter.glActiveTexture(GL_TEXTURE0 + 1);
+    mAppCounter.glActiveTexture(GL_TEXTURE0);
+    mAppCounter.glBindTexture(GL_TEXTURE_2D, 5);
+
+    assertEquals(Arrays.asList(
+        "glActiveTexture " + GL_TEXTURE0,
+        "glBindTexture 5",
+        "glActiveTexture " + (GL_TEXTURE0 + 1),
+        "glBindTexture 5",
+        "glActiveTexture " + GL_TEXTURE0), mDriver.calls);
+    assertEquals(2, mCache.getSkippedTextureCalls());
+    assertCallsAccountedFor();
+  }
+
+  @Test public void deletingTextureForgetsItsBindings() {
+    mAppCounter.glActiveTexture(GL_TEXTURE0);
+    mAppCounter.glBindTexture(GL_TEXTURE_2D, 5);
+    mAppCounter.glDeleteTextures(1, new int[] { 5 }, 0);
+    mAppCounter.glBindTexture(GL_TEXTURE_2D, 5);
+
+    assertEquals(Arrays.asList(
+        "glActiveTexture " + GL_TEXTURE0, "glBindTexture 5", "glBindTexture 5"), mDriver.calls);
+    assertEquals(0, mCache.getSkippedCalls());
+  }
+
+  @Test public void skipsRedundantEnableAndDisable() {
+    mAppCounter.glEnableVertexAttribArray(0);
+    mAppCounter.glEnableVertexAttribArray(0);
+    mAppCounter.glEnableVertexAttribArray(1);
+    mAppCounter.glDisableVertexAttribArray(0);
+    mAppCounter.glDisableVertexAttribArray(0);
+    mAppCounter.glEnableVertexAttribArray(0);
+
+    assertEquals(Arrays.asList(
+        "glEnableVertexAttribArray 0",
+        "glEnableVertexAttribArray 1",
+        "glDisableVertexAttribArray 0",
+        "glEnableVertexAttribArray 0"), mDriver.calls);
+    assertEquals(2, mCache.getSkippedAttributeCalls());
+    assertCallsAccountedFor();
+  }
+
+  /**
+   * 相同的属性指针只提交一次；缓冲区、偏移或步长不同时重新提交
+   */
+  @Test public void skipsRedundantAttribPointers() {
+    mAppCounter.glBindBuffer(GL_ARRAY_BUFFER, 7);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 12);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 24, 12);
+    mAppCounter.glBindBuffer(GL_ARRAY_BUFFER, 8);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 24, 12);
+
+    assertEquals(Arrays.asList(
+        "glBindBuffer " + GL_ARRAY_BUFFER + " 7",
+        "glVertexAttribPointer 0 0 0",
+        "glVertexAttribPointer 0 0 12",
+        "glVertexAttribPointer 0 24 12",
+        "glBindBuffer " + GL_ARRAY_BUFFER + " 8",
+        "glVertexAttribPointer 0 24 12"), mDriver.calls);
+    assertEquals(1, mCache.getSkippedAttributeCalls());
+    assertCallsAccountedFor();
+  }
+
+  /**
+   * 绑定后又解绑而没有使用的 GL_ARRAY_BUFFER 不会到达驱动，两次绑定都计为丢弃
+   */
+  @Test public void countsCollapsedArrayBufferBinds() {
+    mAppCounter.glBindBuffer(GL_ARRAY_BUFFER, 7);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+    mDriver.calls.clear();
+
+    mAppCounter.glBindBuffer(GL_ARRAY_BUFFER, 0);
+    mAppCounter.glBindBuffer(GL_ARRAY_BUFFER, 9);
+    mAppCounter.glBindBuffer(GL_ARRAY_BUFFER, 7);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+
+    assertEquals(0, mDriver.calls.size());
+    assertEquals(3, mCache.getSkippedBufferBinds());
+    assertCallsAccountedFor();
+  }
+
+  /**
+   * 每个 VertexBuffer 设置属性时绑定再解绑，稳定后每帧被省略的绑定都计入丢弃次数
+   */
+  @Test public void vertexBufferFramesAccountForEveryCall() {
+    final VertexBuffer first = new VertexBuffer(mAppCounter, new float[9], GL_STATIC_DRAW);
+    final VertexBuffer second = new VertexBuffer(mAppCounter, new float[9], GL_STATIC_DRAW);
+    drawFrame(first, second);
+
+    mAppCounter.reset();
+    mDriverCounter.reset();
+    mCache.resetCounters();
+    drawFrame(first, second);
+
+    // 每个缓冲区: 解绑被新的绑定替换，重复的启用被丢弃
+    assertEquals(8, mAppCounter.getStateChanges());
+    assertEquals(4, mDriverCounter.getStateChanges());
+    assertEquals(2, mCache.getSkippedBufferBinds());
+    assertEquals(2, mCache.getSkippedAttributeCalls());
+    assertEquals(2, mDriverCounter.getDrawCalls());
+
+    // 同一个缓冲区连续绘制，所有状态调用都不到达驱动
+    mAppCounter.reset();
+    mDriverCounter.reset();
+    mCache.resetCounters();
+    drawFrame(second, second);
+    drawFrame(second, second);
+    assertEquals(0, mDriverCounter.getStateChanges());
+    assertEquals(mAppCounter.getStateChanges(),
+        mDriverCounter.getStateChanges() + mCache.getSkippedCalls());
+  }
+
+  @Test public void skipsRedundantElementArrayBinds() {
+    mAppCounter.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 3);
+    mAppCounter.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 3);
+    mAppCounter.glDeleteBuffers(1, new int[] { 3 }, 0);
+    mAppCounter.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 3);
+
+    assertEquals(Arrays.asList(
+        "glBindBuffer " + GL_ELEMENT_ARRAY_BUFFER + " 3",
+        "glDeleteBuffers 3",
+        "glBindBuffer " + GL_ELEMENT_ARRAY_BUFFER + " 3"), mDriver.calls);
+    assertEquals(1, mCache.getSkippedBufferBinds());
+  }
+
+  /**
+   * 删除缓冲区后，引用它的属性指针不再视为已知，重新提交
+   */
+  @Test public void deletingBufferForgetsAttribPointers() {
+    mAppCounter.glBindBuffer(GL_ARRAY_BUFFER, 7);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+    mAppCounter.glDeleteBuffers(1, new int[] { 7 }, 0);
+    mDriver.calls.clear();
+
+    mAppCounter.glBindBuffer(GL_ARRAY_BUFFER, 7);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+
+    assertEquals(Arrays.asList(
+        "glBindBuffer " + GL_ARRAY_BUFFER + " 7", "glVertexAttribPointer 0 0 0"), mDriver.calls);
+  }
+
+  @Test public void invalidateResubmitsState() {
+    mAppCounter.glUseProgram(3);
+    mAppCounter.glActiveTexture(GL_TEXTURE0);
+    mAppCounter.glBindTexture(GL_TEXTURE_2D, 5);
+    mAppCounter.glEnableVertexAttribArray(0);
+    mAppCounter.glBindBuffer(GL_ARRAY_BUFFER, 7);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+    mAppCounter.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 4);
+    final List<String> first = new ArrayList<>(mDriver.calls);
+    mDriver.calls.clear();
+
+    mCache.invalidate();
+    mAppCounter.glUseProgram(3);
+    mAppCounter.glActiveTexture(GL_TEXTURE0);
+    mAppCounter.glBindTexture(GL_TEXTURE_2D, 5);
+    mAppCounter.glEnableVertexAttribArray(0);
+    mAppCounter.glBindBuffer(GL_ARRAY_BUFFER, 7);
+    mAppCounter.glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+    mAppCounter.glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 4);
+
+    assertEquals(first, mDriver.calls);
+    assertEquals(0, mCache.getSkippedCalls());
+  }
+
+  @Test public void resetCountersClearsSkippedCalls() {
+    mAppCounter.glUseProgram(3);
+    mAppCounter.glUseProgram(3);
+    mAppCounter.glEnableVertexAttribArray(0);
+    mAppCounter.glEnableVertexAttribArray(0);
+    assertEquals(2, mCache.getSkippedCalls());
+
+    mCache.resetCounters();
+
+    assertEquals(0, mCache.getSkippedCalls());
+    mAppCounter.glUseProgram(3);
+    assertEquals(1, mCache.getSkippedProgramCalls());
+  }
+
+  private void drawFrame(VertexBuffer a, VertexBuffer b) {
+    a.setVertexAttributePointer(0, 0, 3, 0);
+    mAppCounter.glDrawArrays(GL_TRIANGLES, 0, 3);
+    b.setVertexAttributePointer(0, 0, 3, 0);
+    mAppCounter.glDrawArrays(GL_TRIANGLES, 0, 3);
+  }
+
+  /**
+   * 调用方发出的每个状态切换要么到达驱动，要么计入丢弃次数；
+   * 只在最后一个 GL_ARRAY_BUFFER 绑定已提交时成立
+   */
+  private void assertCallsAccountedFor() {
+    assertEquals(mAppCounter.getStateChanges(),
+        mDriverCounter.getStateChanges() + mCache.getSkippedCalls());
+  }
+
+  /**
+   * 记录到达驱动的状态调用
+   */
+  private static final class RecordingGL extends HeadlessGL {
+    final List<String> calls = new ArrayList<>();
+
+    @Override public void glUseProgram(int program) {
+      calls.add("glUseProgram " + program);
+    }
+
+    @Override public void glActiveTexture(int texture) {
+      calls.add("glActiveTexture " + texture);
+    }
+
+    @Override public void glBindTexture(int target, int texture) {
+      calls.add("glBindTexture " + texture);
+    }
+
+    @Override public void glBindBuffer(int target, int buffer) {
+      calls.add("glBindBuffer " + target + " " + buffer);
+    }
+
+    @Override public void glDeleteBuffers(int n, int[] buffers, int offset) {
+      calls.add("glDeleteBuffers " + buffers[offset]);
+    }
+
+    @Override public void glVertexAttribPointer(int index, int size, int type,
+        boolean normalized, int stride, int offset) {
+      calls.add("glVertexAttribPointer " + index + " " + stride + " " + offset);
+    }
+
+    @Override public void glEnableVertexAttribArray(int index) {
+      calls.add("glEnableVertexAttribArray " + index);
+    }
+
+    @Override public void glDisableVertexAttribArray(int index) {
+      calls.add("glDisableVertexAttribArray " + index);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package com.zac4j.opengl.gl;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TileRasterizer 的近平面线段裁剪，以及多线程连续绘制的结果与单线程相同
+ */
+public class TileRasterizerTest {
+
+  private static final int SIZE = 64;
+  private static final float[] WHITE = { 1f, 1f, 1f, 1f };
+
+  private TileRasterizer mRasterizer;
+
+  @Before public void setUp() {
+    mRasterizer = new TileRasterizer(1);
+    mRasterizer.setSize(SIZE, SIZE);
+  }
+
+  @After public void tearDown() {
+    mRasterizer.release();
+  }
+
+  /**
+   * 第一个顶点在近平面后方: 从交点画到第二个顶点，而不是只剩交点上的一个像素
+   */
+  @Test public void lineStartingBehindNearPlaneIsClippedToIntersection() {
+    // z + w 从 -1 变为 1，交点在中间，x 为 0.25，即窗口坐标 40
+    drawLine(new float[] { 0f, 0f, -2f, 1f, 0.5f, 0f, 0f, 1f });
+    assertRow(SIZE / 2, 40, 48);
+  }
+
+  @Test public void lineEndingBehindNearPlaneIsClippedToIntersection() {
+    drawLine(new float[] { -0.5f, 0f, 0f, 1f, 0f, 0f, -2f, 1f });
+    assertRow(SIZE / 2, 16, 24);
+  }
+
+  @Test public void lineBehindNearPlaneIsDropped() {
+    drawLine(new float[] { -0.5f, 0f, -2f, 1f, 0.5f, 0f, -3f, 1f });
+    assertEquals(0, litPixels());
+  }
+
+  /**
+   * 每次 end 复用同一组辅助线程与完成计数，连续多次绘制都等待所有 tile 完成
+   */
+  @Test public void repeatedParallelDrawsMatchSingleThread() {
+    final TileRasterizer parallel = new TileRasterizer(4);
+    try {
+      parallel.setSize(SIZE * 4, SIZE * 4);
+      mRasterizer.setSize(SIZE * 4, SIZE * 4);
+      final Random random = new Random(9);
+      final SoftwareShaders.Fragment fragment = new SoftwareShaders.UniformColorFragment();
+      final float[] v = new float[12];
+      for (int draw = 0; draw < 200; draw++) {
+        final float[] color = { random.nextFloat(), random.nextFloat(), random.nextFloat(), 1f };
+        for (int i = 0; i < v.length; i += 4) {
+          v[i] = random.nextFloat() * 2f - 1f;
+          v[i + 1] = random.nextFloat() * 2f - 1f;
+          v[i + 2] = 0f;
+          v[i + 3] = 1f;
+        }
+        for (TileRasterizer rasterizer : new TileRasterizer[] { mRasterizer, parallel }) {
+          rasterizer.begin(fragment, color, 0, null, 0);
+          rasterizer.triangle(v, 0, 4, 8);
+          rasterizer.end();
+        }
+        assertArrayEquals("draw " + draw, mRasterizer.getColorBuffer(),
+            parallel.getColorBuffer());
+      }
+    } finally {
+      parallel.release();
+    }
+  }
+
+  private void drawLine(float[] v) {
+    mRasterizer.clear(0);
+    mRasterizer.begin(new SoftwareShaders.UniformColorFragment(), WHITE, 0, null, 0);
+    mRasterizer.line(v, 0, 4);
+    mRasterizer.end();
+  }
+
+  /**
+   * 只有第 y 行的 [x0, x1) 被点亮
+   */
+  private void assertRow(int y, int x0, int x1) {
+    final int[] color = mRasterizer.getColorBuffer();
+    final int[] expected = new int[SIZE];
+    Arrays.fill(expected, x0, x1, color[y * SIZE + x0]);
+    assertTrue(expected[x0] != 0);
+    assertArrayEquals(expected, Arrays.copyOfRange(color, y * SIZE, (y + 1) * SIZE));
+    assertEquals(x1 - x0, litPixels());
+  }
+
+  private int litPixels() {
+    int lit = 0;
+    for (int argb : mRasterizer.getColorBuffer()) {
+      if (argb != 0) {
+        lit++;
+      }
+    }
+    return lit;
+  }
+}
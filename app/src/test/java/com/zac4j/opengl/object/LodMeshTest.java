@@ -0,0 +1,74 @@
+package com.zac4j.opengl.object;
+
+import com.zac4j.opengl.gl.HeadlessGL;
+import com.zac4j.opengl.util.Geometry;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Mallet 与 Puck 创建的 LodMesh: 级数、误差与包围体，以及按级别创建实例化批次
+ */
+public class LodMeshTest {
+
+  private static final float MALLET_RADIUS = 0.08f;
+  private static final float MALLET_HEIGHT = 0.15f;
+  private static final float PUCK_RADIUS = 0.06f;
+  private static final float PUCK_HEIGHT = 0.02f;
+
+  @Test public void malletLodChain() {
+    final LodMesh mallet =
+        Mallet.create(new HeadlessGL(), MALLET_RADIUS, MALLET_HEIGHT, 0.0004f, 3);
+    assertLodChain(mallet, 0.0004f);
+    assertBounds(mallet.getBounds(), MALLET_RADIUS, MALLET_HEIGHT);
+  }
+
+  @Test public void puckLodChain() {
+    final LodMesh puck = Puck.create(new HeadlessGL(), PUCK_HEIGHT, PUCK_RADIUS, 0.0004f, 3);
+    assertLodChain(puck, 0.0004f);
+    assertBounds(puck.getBounds(), PUCK_RADIUS, PUCK_HEIGHT);
+  }
+
+  @Test public void fixedSubdivisionHasOneLevel() {
+    final LodMesh mallet = Mallet.create(new HeadlessGL(), MALLET_RADIUS, MALLET_HEIGHT, 32);
+    final LodMesh puck = Puck.create(new HeadlessGL(), PUCK_HEIGHT, PUCK_RADIUS, 32);
+
+    assertEquals(1, mallet.getLodCount());
+    assertEquals(1, puck.getLodCount());
+    assertEquals(ObjectBuilder.chordError(MALLET_RADIUS, 32), mallet.getLodErrors()[0], 0f);
+    assertEquals(ObjectBuilder.chordError(PUCK_RADIUS, 32), puck.getLodErrors()[0], 0f);
+    assertEquals(0, mallet.createInstanceBatch(2, true).size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsMismatchedErrors() {
+    new LodMesh(new HeadlessGL(), new ObjectBuilder.GeneratedData[] {
+        ObjectBuilder.createPuck(new Geometry.Cylinder(new Geometry.Point(0f, 0f, 0f),
+            PUCK_RADIUS, PUCK_HEIGHT), 8, true)
+    }, new float[2]);
+  }
+
+  private static void assertLodChain(LodMesh mesh, float maxChordError) {
+    final float[] errors = mesh.getLodErrors();
+    assertEquals(mesh.getLodCount(), errors.length);
+    assertTrue(errors.length > 1);
+    assertTrue(errors[0] <= maxChordError);
+    for (int lod = 1; lod < errors.length; lod++) {
+      assertTrue("error of " + lod, errors[lod] > errors[lod - 1]);
+    }
+    // 返回副本，修改不影响网格
+    errors[0] = -1f;
+    assertTrue(mesh.getLodErrors()[0] >= 0f);
+
+    for (int lod = 0; lod < mesh.getLodCount(); lod++) {
+      assertEquals(0, mesh.createInstanceBatch(4, lod % 2 == 0, lod).size());
+    }
+  }
+
+  private static void assertBounds(Geometry.Bounds bounds, float radius, float height) {
+    assertEquals(radius, bounds.maxX, 1e-5f);
+    assertEquals(-radius, bounds.minX, 1e-5f);
+    assertEquals(height, bounds.maxY - bounds.minY, 1e-5f);
+  }
+}
@@ -0,0 +1,288 @@
+package com.zac4j.opengl.object;
+
+import com.zac4j.opengl.util.Geometry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLES;
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLE_FAN;
+import static com.zac4j.opengl.gl.GL.GL_TRIANGLE_STRIP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 索引网格与原先展开的扇形/条带网格对比: 顶点数量减少，画出的三角形(含环绕方向)不变
+ */
+public class ObjectBuilderTest {
+
+  private static final int[] NUM_POINTS = { 3, 6, 7, 32, 100 };
+
+  private static final float PUCK_RADIUS = 0.06f;
+  private static final float PUCK_HEIGHT = 0.02f;
+  private static final float MALLET_RADIUS = 0.08f;
+  private static final float MALLET_HEIGHT = 0.15f;
+
+  // 位置按该精度量化后比较，吸收 cos(2π) 与 cos(0) 之类的舍入差
+  private static final float QUANTUM = 1e-4f;
+
+  @Test public void puckSharesRingVertices() {
+    for (int numPoints : NUM_POINTS) {
+      final ObjectBuilder.GeneratedData data = ObjectBuilder.createPuck(puck(), numPoints);
+      final Expanded expanded = Expanded.puck(puck(), numPoints);
+      // 中心点、顶面圆环(与侧面上边缘共享)、侧面下边缘
+      assertEquals(1 + numPoints * 2, vertexCount(data));
+      assertEquals(3 * numPoints + 4, expanded.vertexCount());
+    }
+  }
+
+  @Test public void malletSharesRingVertices() {
+    for (int numPoints : NUM_POINTS) {
+      final ObjectBuilder.GeneratedData data =
+          ObjectBuilder.createMallet(malletCenter(), MALLET_RADIUS, MALLET_HEIGHT, numPoints);
+      final Expanded expanded =
+          Expanded.mallet(malletCenter(), MALLET_RADIUS, MALLET_HEIGHT, numPoints);
+      assertEquals(2 * (1 + numPoints * 2), vertexCount(data));
+      assertEquals(2 * (3 * numPoints + 4), expanded.vertexCount());
+    }
+  }
+
+  @Test public void puckDrawsSameTriangles() {
+    for (int numPoints : NUM_POINTS) {
+      final List<String> expected = Expanded.puck(puck(), numPoints).triangles();
+      assertEquals("numPoints=" + numPoints, expected,
+          triangles(ObjectBuilder.createPuck(puck(), numPoints, false)));
+      assertEquals("numPoints=" + numPoints + " merged", expected,
+          triangles(ObjectBuilder.createPuck(puck(), numPoints, true)));
+    }
+  }
+
+  @Test public void malletDrawsSameTriangles() {
+    for (int numPoints : NUM_POINTS) {
+      final List<String> expected =
+          Expanded.mallet(malletCenter(), MALLET_RADIUS, MALLET_HEIGHT, numPoints).triangles();
+      assertEquals("numPoints=" + numPoints, expected, triangles(
+          ObjectBuilder.createMallet(malletCenter(), MALLET_RADIUS, MALLET_HEIGHT, numPoints,
+              false)));
+      assertEquals("numPoints=" + numPoints + " merged", expected, triangles(
+          ObjectBuilder.createMallet(malletCenter(), MALLET_RADIUS, MALLET_HEIGHT, numPoints,
+              true)));
+    }
+  }
+
+  @Test public void mergedDrawListIsOneTriangleList() {
+    final ObjectBuilder.GeneratedData data = ObjectBuilder.createPuck(puck(), 32, true);
+    assertEquals(1, data.drawList.size());
+    assertEquals(GL_TRIANGLES, data.drawList.get(0).mode);
+    assertEquals(data.indexData.length, data.drawList.get(0).indexCount);
+    // 扇形 32 个三角形，条带 64 个
+    assertEquals((32 + 64) * 3, data.indexData.length);
+  }
+
+  /**
+   * 条带中奇数个三角形交换了前两个顶点，展开后每个侧面三角形的法线仍然朝外
+   */
+  @Test public void mergedStripTrianglesFaceOutward() {
+    for (int numPoints : NUM_POINTS) {
+      final ObjectBuilder.GeneratedData data = ObjectBuilder.createPuck(puck(), numPoints, true);
+      final float[] v = data.vertexData;
+      final short[] indices = data.indexData;
+      int sideTriangles = 0;
+      for (int i = 0; i < indices.length; i += 3) {
+        final int a = indices[i] * 3;
+        final int b = indices[i + 1] * 3;
+        final int c = indices[i + 2] * 3;
+        final float e1x = v[b] - v[a], e1y = v[b + 1] - v[a + 1], e1z = v[b + 2] - v[a + 2];
+        final float e2x = v[c] - v[a], e2y = v[c + 1] - v[a + 1], e2z = v[c + 2] - v[a + 2];
+        final float nx = e1y * e2z - e1z * e2y;
+        final float ny = e1z * e2x - e1x * e2z;
+        final float nz = e1x * e2y - e1y * e2x;
+        if (v[a + 1] == v[b + 1] && v[b + 1] == v[c + 1]) {
+          // 顶面的扇形
+          continue;
+        }
+        assertEquals(0f, ny, 1e-6f);
+        // 三角形中心的径向与法线同向，冰球中心位于原点
+        final float radialX = v[a] + v[b] + v[c];
+        final float radialZ = v[a + 2] + v[b + 2] + v[c + 2];
+        assertTrue("triangle " + i / 3 + " faces inward, numPoints=" + numPoints,
+            nx * radialX + nz * radialZ > 0f);
+        sideTriangles++;
+      }
+      assertEquals(numPoints * 2, sideTriangles);
+    }
+  }
+
+  private static Geometry.Cylinder puck() {
+    return new Geometry.Cylinder(new Geometry.Point(0f, 0f, 0f), PUCK_RADIUS, PUCK_HEIGHT);
+  }
+
+  private static Geometry.Point malletCenter() {
+    return new Geometry.Point(0f, 0f, 0f);
+  }
+
+  private static int vertexCount(ObjectBuilder.GeneratedData data) {
+    return data.vertexData.length / 3;
+  }
+
+  /**
+   * 按绘制命令展开索引网格的三角形
+   */
+  private static List<String> triangles(ObjectBuilder.GeneratedData data) {
+    final List<String> triangles = new ArrayList<>();
+    final int[] vertices = new int[data.indexData.length];
+    for (int i = 0; i < vertices.length; i++) {
+      vertices[i] = data.indexData[i] & 0xffff;
+    }
+    for (ObjectBuilder.DrawCommand command : data.drawList) {
+      appendTriangles(triangles, data.vertexData, vertices, command.mode, command.firstIndex,
+          command.indexCount);
+    }
+    Collections.sort(triangles);
+    return triangles;
+  }
+
+  /**
+   * 按 GL 的图元规则把一段顶点序列拆成三角形，每个三角形写成旋转到最小顶点开头的字符串，
+   * 因此相同的三角形无论从哪个顶点开始都相等，而环绕方向不同则不相等
+   */
+  private static void appendTriangles(List<String> out, float[] positions, int[] vertices,
+      int mode, int first, int count) {
+    switch (mode) {
+      case GL_TRIANGLES:
+        for (int i = first; i + 2 < first + count; i += 3) {
+          out.add(triangle(positions, vertices[i], vertices[i + 1], vertices[i + 2]));
+        }
+        break;
+      case GL_TRIANGLE_FAN:
+        for (int i = first + 2; i < first + count; i++) {
+          out.add(triangle(positions, vertices[first], vertices[i - 1], vertices[i]));
+        }
+        break;
+      case GL_TRIANGLE_STRIP:
+        for (int i = first + 2; i < first + count; i++) {
+          if (((i - first) & 1) == 0) {
+            out.add(triangle(positions, vertices[i - 2], vertices[i - 1], vertices[i]));
+          } else {
+            out.add(triangle(positions, vertices[i - 1], vertices[i - 2], vertices[i]));
+          }
+        }
+        break;
+      default:
+        throw new AssertionError("Unexpected mode " + mode);
+    }
+  }
+
+  private static String triangle(float[] positions, int a, int b, int c) {
+    final String[] keys = { position(positions, a), position(positions, b),
+        position(positions, c) };
+    int start = 0;
+    for (int i = 1; i < 3; i++) {
+      if (keys[i].compareTo(keys[start]) < 0) {
+        start = i;
+      }
+    }
+    return keys[start] + " " + keys[(start + 1) % 3] + " " + keys[(start + 2) % 3];
+  }
+
+  private static String position(float[] positions, int vertex) {
+    return "(" + quantize(positions[vertex * 3]) + "," + quantize(positions[vertex * 3 + 1]) + ","
+        + quantize(positions[vertex * 3 + 2]) + ")";
+  }
+
+  private static long quantize(float value) {
+    return Math.round(value / QUANTUM);
+  }
+
+  /**
+   * 原先的生成方式: 每个扇形与条带各自写出全部顶点(包括闭合时重复的起始点)，
+   * 以 glDrawArrays 绘制。条带按原意闭合，不保留原先最后一对顶点落在原点的问题
+   */
+  private static final class Expanded {
+    private final List<Float> mPositions = new ArrayList<>();
+    private final List<int[]> mDraws = new ArrayList<>();
+
+    static Expanded puck(Geometry.Cylinder puck, int numPoints) {
+      final Expanded expanded = new Expanded();
+      expanded.appendCircle(
+          new Geometry.Circle(puck.center.translateY(puck.height / 2.0f), puck.radius),
+          numPoints);
+      expanded.appendOpenCylinder(puck, numPoints);
+      return expanded;
+    }
+
+    static Expanded mallet(Geometry.Point center, float radius, float height, int numPoints) {
+      final Expanded expanded = new Expanded();
+      final float baseHeight = height * 0.25f;
+      final Geometry.Circle baseCircle =
+          new Geometry.Circle(center.translateY(-baseHeight), radius);
+      expanded.appendCircle(baseCircle, numPoints);
+      expanded.appendOpenCylinder(
+          new Geometry.Cylinder(baseCircle.center.translateY(-baseHeight / 2.0f), radius,
+              baseHeight), numPoints);
+
+      final float handleHeight = height * 0.75f;
+      final float handleRadius = radius / 3f;
+      final Geometry.Circle handleCircle =
+          new Geometry.Circle(center.translateY(height * 0.5f), handleRadius);
+      expanded.appendCircle(handleCircle, numPoints);
+      expanded.appendOpenCylinder(
+          new Geometry.Cylinder(handleCircle.center.translateY(-handleHeight / 2.0f),
+              handleRadius, handleHeight), numPoints);
+      return expanded;
+    }
+
+    int vertexCount() {
+      return mPositions.size() / 3;
+    }
+
+    List<String> triangles() {
+      final float[] positions = new float[mPositions.size()];
+      for (int i = 0; i < positions.length; i++) {
+        positions[i] = mPositions.get(i);
+      }
+      final int[] vertices = new int[vertexCount()];
+      for (int i = 0; i < vertices.length; i++) {
+        vertices[i] = i;
+      }
+      final List<String> triangles = new ArrayList<>();
+      for (int[] draw : mDraws) {
+        appendTriangles(triangles, positions, vertices, draw[0], draw[1], draw[2]);
+      }
+      Collections.sort(triangles);
+      return triangles;
+    }
+
+    private void appendCircle(Geometry.Circle circle, int numPoints) {
+      final int startVertex = vertexCount();
+      add(circle.center.x, circle.center.y, circle.center.z);
+      for (int i = 0; i <= numPoints; i++) {
+        final float angle = ((float) i / (float) numPoints) * ((float) Math.PI * 2.0f);
+        add(circle.center.x + circle.radius * ((float) Math.cos(angle)), circle.center.y,
+            circle.center.z + circle.radius * ((float) Math.sin(angle)));
+      }
+      mDraws.add(new int[] { GL_TRIANGLE_FAN, startVertex, vertexCount() - startVertex });
+    }
+
+    private void appendOpenCylinder(Geometry.Cylinder cylinder, int numPoints) {
+      final int startVertex = vertexCount();
+      final float yStart = cylinder.center.y - (cylinder.height / 2.0f);
+      final float yEnd = cylinder.center.y + (cylinder.height / 2.0f);
+      for (int i = 0; i <= numPoints; i++) {
+        final float angle = ((float) i / (float) numPoints) * ((float) Math.PI * 2.0f);
+        final float x = cylinder.center.x + cylinder.radius * ((float) Math.cos(angle));
+        final float z = cylinder.center.z + cylinder.radius * ((float) Math.sin(angle));
+        add(x, yStart, z);
+        add(x, yEnd, z);
+      }
+      mDraws.add(new int[] { GL_TRIANGLE_STRIP, startVertex, vertexCount() - startVertex });
+    }
+
+    private void add(float x, float y, float z) {
+      mPositions.add(x);
+      mPositions.add(y);
+      mPositions.add(z);
+    }
+  }
+}
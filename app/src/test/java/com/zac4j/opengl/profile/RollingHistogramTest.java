@@ -0,0 +1,133 @@
+package com.zac4j.opengl.profile;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * RollingHistogram 的桶边界、相对误差、窗口淘汰与百分位数
+ */
+public class RollingHistogramTest {
+
+  // 每个 2 的幂区间的子桶数
+  private static final int SUB_BUCKETS = 32;
+
+  @Test public void keepsSmallValuesExact() {
+    for (int value = 0; value < SUB_BUCKETS * 2; value++) {
+      assertEquals(value, RollingHistogram.upperBoundOf(RollingHistogram.bucketOf(value)));
+    }
+    assertEquals(0, RollingHistogram.bucketOf(-5L));
+  }
+
+  /**
+   * 每个值落在所在桶的上界与前一个桶的上界之间，桶序号单调且能用 short 保存
+   */
+  @Test public void bucketsAreContiguousAndFitShort() {
+    final Random random = new Random(5);
+    for (int i = 0; i < 100000; i++) {
+      final long value = random.nextLong() >>> random.nextInt(64);
+      assertBucketBounds(value);
+    }
+    for (int magnitude = 0; magnitude < 63; magnitude++) {
+      final long power = 1L << magnitude;
+      assertBucketBounds(power - 1L);
+      assertBucketBounds(power);
+      assertBucketBounds(power + 1L);
+    }
+    assertBucketBounds(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE,
+        RollingHistogram.upperBoundOf(RollingHistogram.bucketOf(Long.MAX_VALUE)));
+    assertTrue(RollingHistogram.bucketOf(Long.MAX_VALUE) <= Short.MAX_VALUE);
+  }
+
+  @Test public void relativeErrorIsUnderOneSubBucket() {
+    final Random random = new Random(9);
+    for (int i = 0; i < 100000; i++) {
+      final long value = SUB_BUCKETS + (random.nextLong() >>> (1 + random.nextInt(40)));
+      final long upperBound = RollingHistogram.upperBoundOf(RollingHistogram.bucketOf(value));
+      assertTrue(value + " -> " + upperBound,
+          (upperBound - value) * (double) SUB_BUCKETS < value);
+    }
+  }
+
+  @Test public void percentilesOfUniformSamples() {
+    final RollingHistogram histogram = new RollingHistogram(1000);
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+
+    assertEquals(1000, histogram.size());
+    assertEquals(1000000L, histogram.getLast());
+    assertNear(500000L, histogram.percentile(50));
+    assertNear(990000L, histogram.percentile(99));
+    assertNear(1000000L, histogram.percentile(100));
+    assertNear(1000L, histogram.percentile(0));
+  }
+
+  /**
+   * 窗口满后最旧的样本被挤掉，不再影响百分位数
+   */
+  @Test public void evictsOldestSamples() {
+    final RollingHistogram histogram = new RollingHistogram(4);
+    for (int i = 0; i < 4; i++) {
+      histogram.record(1000000L);
+    }
+    histogram.record(5L);
+    histogram.record(6L);
+
+    assertEquals(4, histogram.size());
+    assertEquals(6L, histogram.percentile(50));
+    assertNear(1000000L, histogram.percentile(75));
+
+    histogram.record(7L);
+    histogram.record(8L);
+    assertEquals(8L, histogram.percentile(100));
+  }
+
+  @Test public void clearEmptiesWindow() {
+    final RollingHistogram histogram = new RollingHistogram(8);
+    histogram.record(100L);
+    histogram.clear();
+
+    assertEquals(0, histogram.size());
+    assertEquals(0L, histogram.percentile(50));
+    assertEquals(0L, histogram.getLast());
+
+    histogram.record(3L);
+    assertEquals(3L, histogram.percentile(100));
+  }
+
+  @Test public void rejectsWindowsOutOfRange() {
+    assertRejected(0);
+    assertRejected(Short.MAX_VALUE + 1);
+    assertEquals(0, new RollingHistogram(Short.MAX_VALUE).size());
+  }
+
+  private static void assertBucketBounds(long value) {
+    final int bucket = RollingHistogram.bucketOf(value);
+    assertTrue(value + " above bucket " + bucket,
+        value <= RollingHistogram.upperBoundOf(bucket));
+    if (bucket > 0) {
+      assertTrue(value + " below bucket " + bucket,
+          value > RollingHistogram.upperBoundOf(bucket - 1));
+    }
+  }
+
+  // 结果为桶上界，不小于真实值且相差不超过一个子桶
+  private static void assertNear(long expected, long actual) {
+    assertTrue(expected + " > " + actual, actual >= expected);
+    assertTrue(expected + " << " + actual, (actual - expected) * SUB_BUCKETS < expected);
+  }
+
+  private static void assertRejected(int windowSize) {
+    try {
+      new RollingHistogram(windowSize);
+      fail(String.valueOf(windowSize));
+    } catch (IllegalArgumentException expected) {
+      // 预期的错误
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.zac4j.opengl.render;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * FrameScheduler 的帧率限制只在能整除刷新率时生效，以及空闲后切换渲染模式
+ */
+public class FrameSchedulerTest {
+
+  private RecordingSurface mSurface;
+  private FrameScheduler mScheduler;
+
+  @Before public void setUp() {
+    mSurface = new RecordingSurface();
+    mScheduler = new FrameScheduler(mSurface, 3);
+  }
+
+  @Test public void followsVsyncByDefault() {
+    mScheduler.setDisplayRefreshRate(120f);
+    assertEquals(0L, mScheduler.getTargetFrameInterval());
+  }
+
+  @Test public void capsAtDivisorsOfRefreshRate() {
+    mScheduler.setDisplayRefreshRate(120f);
+    mScheduler.setTargetFrameRate(60);
+    assertEquals(2L * 8333333L, mScheduler.getTargetFrameInterval());
+
+    mScheduler.setTargetFrameRate(30);
+    assertEquals(4L * 8333333L, mScheduler.getTargetFrameInterval());
+
+    // 刷新率略低于标称值
+    mScheduler.setDisplayRefreshRate(59.94f);
+    assertEquals(2L * 16683350L, mScheduler.getTargetFrameInterval());
+  }
+
+  @Test public void ignoresCapsThatDoNotDivideRefreshRate() {
+    mScheduler.setDisplayRefreshRate(90f);
+    mScheduler.setTargetFrameRate(60);
+    assertEquals(0L, mScheduler.getTargetFrameInterval());
+
+    mScheduler.setTargetFrameRate(30);
+    assertEquals(3L * 11111111L, mScheduler.getTargetFrameInterval());
+  }
+
+  /**
+   * 目标帧率不低于刷新率或刷新率未知时不限制
+   */
+  @Test public void ignoresCapsAtOrAboveRefreshRate() {
+    mScheduler.setTargetFrameRate(60);
+    assertEquals(0L, mScheduler.getTargetFrameInterval());
+
+    mScheduler.setDisplayRefreshRate(60f);
+    assertEquals(0L, mScheduler.getTargetFrameInterval());
+
+    mScheduler.setTargetFrameRate(144);
+    assertEquals(0L, mScheduler.getTargetFrameInterval());
+  }
+
+  @Test public void stopsAfterIdleFramesAndResumesOnRequest() {
+    mScheduler.endFrame(false);
+    mScheduler.endFrame(true);
+    mScheduler.endFrame(false);
+    mScheduler.endFrame(false);
+    assertTrue(mScheduler.isContinuous());
+
+    mScheduler.endFrame(false);
+    assertFalse(mScheduler.isContinuous());
+    assertFalse(mSurface.continuous);
+
+    mScheduler.requestFrames();
+    assertTrue(mScheduler.isContinuous());
+    assertTrue(mSurface.continuous);
+    assertEquals(1, mSurface.renderRequests);
+  }
+
+  private static final class RecordingSurface implements FrameScheduler.Surface {
+    boolean continuous = true;
+    int renderRequests;
+
+    @Override public void setRenderContinuously(boolean continuously) {
+      continuous = continuously;
+    }
+
+    @Override public void requestRender() {
+      renderRequests++;
+    }
+  }
+}
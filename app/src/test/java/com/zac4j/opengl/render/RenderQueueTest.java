@@ -0,0 +1,125 @@
+package com.zac4j.opengl.render;
+
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.gl.HeadlessGL;
+import com.zac4j.opengl.program.ShaderProgram;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * RenderQueue 按层、program、纹理与网格排序后的绘制顺序与切换次数
+ */
+public class RenderQueueTest {
+
+  private static final float[] MATRIX = new float[16];
+
+  private final List<String> mDrawn = new ArrayList<>();
+  private GL mGL;
+  private RenderQueue mQueue;
+
+  @Before public void setUp() {
+    mGL = new HeadlessGL();
+    mQueue = new RenderQueue(1);
+  }
+
+  /**
+   * 后注册的 program 在较低的层中仍然先绘制
+   */
+  @Test public void drawsLowerLayersFirst() {
+    final Program objects = new Program(mGL);
+    final Program table = new Program(mGL);
+    final Mesh mallet = new Mesh("mallet");
+    final Mesh tableMesh = new Mesh("table");
+
+    mQueue.submit(1, objects, 0, mallet, MATRIX, 1f, 1f, 1f);
+    mQueue.submit(0, table, 5, tableMesh, MATRIX, 1f, 1f, 1f);
+    mQueue.flush();
+
+    assertEquals(Arrays.asList("table", "mallet"), mDrawn);
+    assertEquals(2, mQueue.getProgramSwitches());
+  }
+
+  @Test public void keepsSubmissionOrderForEqualState() {
+    final Program program = new Program(mGL);
+    final Mesh mesh = new Mesh("mesh");
+    final float[] matrix = new float[16];
+
+    for (int i = 0; i < 3; i++) {
+      matrix[0] = i;
+      mQueue.submit(program, 0, mesh, matrix, i, 0f, 0f);
+    }
+    mQueue.flush();
+
+    assertEquals(Arrays.asList("mesh", "mesh", "mesh"), mDrawn);
+    assertEquals(Arrays.asList(0f, 1f, 2f), program.reds);
+    assertEquals(1, mQueue.getMeshSwitches());
+    assertEquals(0, mQueue.size());
+  }
+
+  /**
+   * 同一层内相同 program、纹理与网格的绘制项相邻，层之间的状态不合并
+   */
+  @Test public void groupsStateWithinLayer() {
+    final Program first = new Program(mGL);
+    final Program second = new Program(mGL);
+    final Mesh a = new Mesh("a");
+    final Mesh b = new Mesh("b");
+
+    mQueue.submit(0, first, 1, a, MATRIX, 1f, 1f, 1f);
+    mQueue.submit(0, second, 1, b, MATRIX, 1f, 1f, 1f);
+    mQueue.submit(0, first, 2, b, MATRIX, 1f, 1f, 1f);
+    mQueue.submit(0, first, 1, a, MATRIX, 1f, 1f, 1f);
+    mQueue.submit(2, first, 1, a, MATRIX, 1f, 1f, 1f);
+    mQueue.flush();
+
+    assertEquals(Arrays.asList("a", "a", "b", "b", "a"), mDrawn);
+    assertEquals(3, mQueue.getProgramSwitches());
+    assertEquals(4, mQueue.getTextureSwitches());
+    assertEquals(4, mQueue.getMeshSwitches());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsLayerOutOfRange() {
+    mQueue.submit(RenderQueue.LAYER_COUNT, new Program(mGL), 0, new Mesh("mesh"), MATRIX, 1f,
+        1f, 1f);
+  }
+
+  /**
+   * 记录每次绘制的红色分量
+   */
+  private static final class Program extends ShaderProgram {
+    final List<Float> reds = new ArrayList<>();
+
+    Program(GL gl) {
+      super(gl, null, "void main() {}", "void main() {}");
+    }
+
+    @Override public void setUniforms(float[] matrix, int matrixOffset, float[] color,
+        int colorOffset, int textureId) {
+      reds.add(color[colorOffset]);
+    }
+  }
+
+  /**
+   * 绘制时记录名称
+   */
+  private final class Mesh implements Renderable<ShaderProgram> {
+    private final String mName;
+
+    Mesh(String name) {
+      mName = name;
+    }
+
+    @Override public void bindData(ShaderProgram program) {
+    }
+
+    @Override public void draw() {
+      mDrawn.add(mName);
+    }
+  }
+}
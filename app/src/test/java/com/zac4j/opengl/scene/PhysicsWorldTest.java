@@ -0,0 +1,237 @@
+package com.zac4j.opengl.scene;
+
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * PhysicsWorld 的确定性、桌边反弹、圆与圆碰撞，以及均匀网格粗略检测与逐对检测的一致性
+ */
+public class PhysicsWorldTest {
+
+  private static final float HALF_WIDTH = 0.5f;
+  private static final float HALF_LENGTH = 0.8f;
+  private static final float RADIUS = 0.05f;
+
+  @Test public void sameInputGivesBitIdenticalResult() {
+    final Scene first = randomScene(new Random(7), 200);
+    final Scene second = randomScene(new Random(7), 200);
+    final PhysicsWorld firstWorld = newWorld(first);
+    final PhysicsWorld secondWorld = newWorld(second);
+
+    // 帧间隔不均匀，累积的剩余时间也参与比较
+    final Random frames = new Random(11);
+    int contacts = 0;
+    for (int frame = 0; frame < 600; frame++) {
+      final float elapsed = (8 + frames.nextInt(30)) / 1000f;
+      assertEquals(firstWorld.advance(elapsed), secondWorld.advance(elapsed));
+      assertEquals(firstWorld.getContactCount(), secondWorld.getContactCount());
+      contacts += firstWorld.getContactCount();
+    }
+
+    assertTrue(contacts > 0);
+    assertEquals(firstWorld.getStepCount(), secondWorld.getStepCount());
+    for (int i = 0; i < first.size(); i++) {
+      assertBitsEqual("x of " + i, first.getX(i), second.getX(i));
+      assertBitsEqual("z of " + i, first.getZ(i), second.getZ(i));
+      assertBitsEqual("velocity x of " + i, first.getVelocityX(i), second.getVelocityX(i));
+      assertBitsEqual("velocity z of " + i, first.getVelocityZ(i), second.getVelocityZ(i));
+    }
+  }
+
+  /**
+   * 桌边使用 mWallRestitution 而不是圆与圆的恢复系数
+   */
+  @Test public void wallBounceUsesWallRestitution() {
+    final Scene scene = new Scene(2);
+    final int right = addBody(scene, HALF_WIDTH - RADIUS - 0.001f, 0f, RADIUS, 1f);
+    final int near = addBody(scene, 0f, HALF_LENGTH - RADIUS - 0.001f, RADIUS, 1f);
+    scene.setVelocity(right, 1f, 0f, 0.25f);
+    scene.setVelocity(near, -0.25f, 0f, 2f);
+    final PhysicsWorld world = newWorld(scene);
+    world.setFriction(0f);
+    world.setRestitution(0.9f, 0.5f);
+
+    world.step();
+
+    assertEquals(HALF_WIDTH - RADIUS, scene.getX(right), 0f);
+    assertEquals(-0.5f, scene.getVelocityX(right), 0f);
+    assertEquals(0.25f, scene.getVelocityZ(right), 0f);
+    assertEquals(HALF_LENGTH - RADIUS, scene.getZ(near), 0f);
+    assertEquals(-1f, scene.getVelocityZ(near), 0f);
+    assertEquals(-0.25f, scene.getVelocityX(near), 0f);
+    assertEquals(0, world.getContactCount());
+  }
+
+  @Test public void headOnEqualMassCollisionConservesMomentum() {
+    final Scene scene = new Scene(2);
+    final int left = addBody(scene, -0.2f, 0f, RADIUS, 1f);
+    final int right = addBody(scene, 0.2f, 0f, RADIUS, 1f);
+    scene.setVelocity(left, 1f, 0f, 0f);
+    scene.setVelocity(right, -1f, 0f, 0f);
+    final PhysicsWorld world = newWorld(scene);
+    world.setFriction(0f);
+    world.setRestitution(1f, 1f);
+
+    int contacts = 0;
+    for (int step = 0; step < 30; step++) {
+      world.step();
+      contacts += world.getContactCount();
+      assertEquals("momentum at step " + step, 0f,
+          scene.getVelocityX(left) + scene.getVelocityX(right), 1e-6f);
+      assertEquals(0f, scene.getVelocityZ(left), 0f);
+      assertEquals(0f, scene.getVelocityZ(right), 0f);
+    }
+
+    // 完全弹性且质量相等，两者交换速度
+    assertEquals(1, contacts);
+    assertEquals(-1f, scene.getVelocityX(left), 1e-5f);
+    assertEquals(1f, scene.getVelocityX(right), 1e-5f);
+    assertTrue(scene.getX(left) < scene.getX(right));
+  }
+
+  /**
+   * 不同半径的实体随机分布在多个单元中，网格找到的碰撞数量与逐对检测相同
+   *
+   * 相交的实体两两成对且互不相邻，位置修正不会产生新的相交，结果与检测顺序无关
+   */
+  @Test public void gridFindsSameContactsAsBruteForce() {
+    final Random random = new Random(3);
+    for (int round = 0; round < 20; round++) {
+      final Scene scene = new Scene(16);
+      final int bodies = 100 + random.nextInt(200);
+      // 最大半径决定单元边长，最小边长也参与
+      final float maxRadius = 0.01f + random.nextFloat() * 0.02f;
+      final float minCellSize = random.nextBoolean() ? 0.01f : 0.1f;
+      for (int attempt = 0; attempt < 20000 && scene.size() < bodies; attempt++) {
+        placeRandomBody(scene, random, maxRadius);
+      }
+      // 不参与碰撞的实体
+      scene.add(0, 0f, 0f, 0f, 1f, 1f, 1f, 1f);
+
+      final int expected = bruteForceContacts(scene);
+      final PhysicsWorld world = new PhysicsWorld(scene, -HALF_WIDTH, HALF_WIDTH, -HALF_LENGTH,
+          HALF_LENGTH, minCellSize);
+      world.step();
+
+      assertTrue("round " + round, expected > 0);
+      assertEquals("round " + round, expected, world.getContactCount());
+      assertEquals("round " + round + " after correction", 0, bruteForceContacts(scene));
+    }
+  }
+
+  @Test public void immovableMalletIsNeverDisplaced() {
+    final Scene scene = new Scene(2);
+    final float malletX = 0.1f;
+    final float malletZ = -0.2f;
+    final int mallet = addBody(scene, malletX, malletZ, 0.08f, 0f);
+    // 冰球一开始就与棒槌相交，之后被反复弹回
+    final int puck = addBody(scene, malletX - 0.1f, malletZ, RADIUS, 1f);
+    scene.setVelocity(puck, 3f, 0f, 0.5f);
+    final PhysicsWorld world = newWorld(scene);
+    world.setFriction(0f);
+    world.setRestitution(1f, 1f);
+
+    int contacts = 0;
+    for (int step = 0; step < 2000; step++) {
+      world.step();
+      contacts += world.getContactCount();
+      assertEquals(malletX, scene.getX(mallet), 0f);
+      assertEquals(malletZ, scene.getZ(mallet), 0f);
+      assertEquals(0f, scene.getVelocityX(mallet), 0f);
+      assertEquals(0f, scene.getVelocityZ(mallet), 0f);
+    }
+    assertTrue(contacts > 1);
+  }
+
+  private static PhysicsWorld newWorld(Scene scene) {
+    return new PhysicsWorld(scene, -HALF_WIDTH, HALF_WIDTH, -HALF_LENGTH, HALF_LENGTH,
+        RADIUS * 2f);
+  }
+
+  private static int addBody(Scene scene, float x, float z, float radius, float inverseMass) {
+    final int entity = scene.add(0, x, 0f, z, 1f, 1f, 1f, 1f);
+    scene.setBody(entity, radius, inverseMass);
+    return entity;
+  }
+
+  private static Scene randomScene(Random random, int count) {
+    final Scene scene = new Scene(count);
+    for (int i = 0; i < count; i++) {
+      final float radius = RADIUS * (0.5f + random.nextFloat());
+      // 少数不受碰撞影响的实体
+      final float inverseMass = i % 20 == 0 ? 0f : 0.5f + random.nextFloat();
+      final int entity = addBody(scene, (random.nextFloat() * 2f - 1f) * HALF_WIDTH,
+          (random.nextFloat() * 2f - 1f) * HALF_LENGTH, radius, inverseMass);
+      scene.setVelocity(entity, (random.nextFloat() * 2f - 1f) * 2f, 0f,
+          (random.nextFloat() * 2f - 1f) * 2f);
+    }
+    return scene;
+  }
+
+  /**
+   * 放置一个随机实体: 与已有实体要么明显相交(与对方组成一对)，要么间隔足够大，
+   * 使位置修正不会产生新的相交；离桌边足够远，不受桌边修正影响
+   */
+  private static void placeRandomBody(Scene scene, Random random, float maxRadius) {
+    final float radius = maxRadius * (0.25f + 0.75f * random.nextFloat());
+    final float margin = maxRadius * 2f;
+    final float x = (random.nextFloat() * 2f - 1f) * (HALF_WIDTH - margin);
+    final float z = (random.nextFloat() * 2f - 1f) * (HALF_LENGTH - margin);
+
+    int partner = -1;
+    for (int j = 0; j < scene.size(); j++) {
+      final float dx = scene.getX(j) - x;
+      final float dz = scene.getZ(j) - z;
+      final float distance = (float) Math.sqrt(dx * dx + dz * dz);
+      final float r = radius + scene.getRadius(j);
+      if (distance < r) {
+        if (partner >= 0 || distance > r * 0.9f || distance < r * 0.5f || hasContact(scene, j)) {
+          return;
+        }
+        partner = j;
+      } else if (distance < r + margin) {
+        return;
+      }
+    }
+    addBody(scene, x, z, radius, 0.5f + random.nextFloat());
+  }
+
+  private static boolean hasContact(Scene scene, int entity) {
+    for (int j = 0; j < scene.size(); j++) {
+      if (j != entity && overlaps(scene, entity, j)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int bruteForceContacts(Scene scene) {
+    int contacts = 0;
+    for (int i = 0; i < scene.size(); i++) {
+      for (int j = i + 1; j < scene.size(); j++) {
+        if (overlaps(scene, i, j)) {
+          contacts++;
+        }
+      }
+    }
+    return contacts;
+  }
+
+  private static boolean overlaps(Scene scene, int i, int j) {
+    if (scene.getRadius(i) <= 0f || scene.getRadius(j) <= 0f) {
+      return false;
+    }
+    final float dx = scene.getX(j) - scene.getX(i);
+    final float dz = scene.getZ(j) - scene.getZ(i);
+    final float r = scene.getRadius(i) + scene.getRadius(j);
+    // 修正后两圆恰好相切，留出舍入误差
+    return dx * dx + dz * dz < r * r * 0.999f;
+  }
+
+  private static void assertBitsEqual(String message, float expected, float actual) {
+    assertEquals(message, Float.floatToIntBits(expected), Float.floatToIntBits(actual));
+  }
+}
@@ -0,0 +1,307 @@
+package com.zac4j.opengl.util;
+
+import com.zac4j.opengl.gl.HeadlessGL;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static com.zac4j.opengl.gl.GL.GL_PROGRAM_BINARY_LENGTH;
+import static com.zac4j.opengl.gl.GL.GL_RENDERER;
+import static com.zac4j.opengl.gl.GL.GL_VERSION;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ProgramBinaryCache 在 HeadlessGL 上的命中、失效与回退
+ */
+public class ProgramBinaryCacheTest {
+
+  private static final String VERTEX_SHADER =
+      "uniform mat4 u_Matrix;\nattribute vec4 a_Position;\n"
+          + "void main() {\n  gl_Position = u_Matrix * a_Position;\n}\n";
+  private static final String FRAGMENT_SHADER =
+      "precision mediump float;\nuniform vec4 u_Color;\n"
+          + "void main() {\n  gl_FragColor = u_Color;\n}\n";
+
+  private File mDirectory;
+
+  @Before public void setUp() throws IOException {
+    mDirectory = Files.createTempDirectory("program-cache").toFile();
+  }
+
+  @After public void tearDown() {
+    final File[] files = mDirectory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    mDirectory.delete();
+  }
+
+  @Test public void missSavesBinaryAndNextSessionHits() throws IOException {
+    final DriverGL gl = new DriverGL("GPU A");
+    final ProgramBinaryCache cache = new ProgramBinaryCache(gl, mDirectory);
+
+    assertTrue(cache.isSupported());
+    assertTrue(cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER) != 0);
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(2, gl.compiledShaders);
+    final File file = singleCacheFile();
+
+    // 新的进程: 同一驱动、同一源码，直接加载 binary，不再编译
+    final DriverGL nextGL = new DriverGL("GPU A");
+    final ProgramBinaryCache next = new ProgramBinaryCache(nextGL, mDirectory);
+    assertTrue(next.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER) != 0);
+    assertEquals(1, next.getHits());
+    assertEquals(0, next.getMisses());
+    assertEquals(0, nextGL.compiledShaders);
+    assertEquals(file, singleCacheFile());
+  }
+
+  @Test public void changedSourceMisses() throws IOException {
+    final ProgramBinaryCache cache = new ProgramBinaryCache(new DriverGL("GPU A"), mDirectory);
+    cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER.replace("u_Color", "u_Tint"));
+
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(2, cacheFiles().size());
+  }
+
+  @Test public void changedDriverIdentityMisses() throws IOException {
+    new ProgramBinaryCache(new DriverGL("GPU A"), mDirectory)
+        .buildProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    final File oldFile = singleCacheFile();
+
+    // 驱动升级后重新编译，写入新的文件，旧驱动的文件被删除
+    final DriverGL upgraded = new DriverGL("GPU A rev 2");
+    final ProgramBinaryCache cache = new ProgramBinaryCache(upgraded, mDirectory);
+    assertTrue(cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER) != 0);
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(2, upgraded.compiledShaders);
+    assertFalse(oldFile.exists());
+    assertEquals("GPU A rev 2", readIdentity(singleCacheFile()).split("\n")[1]);
+  }
+
+  /**
+   * 首次使用时删除其他驱动写入的与文件头无效的文件，当前驱动的文件与其他文件保留
+   */
+  @Test public void firstUseRemovesStaleFiles() throws IOException {
+    new ProgramBinaryCache(new DriverGL("GPU B"), mDirectory)
+        .buildProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    final File fileB = singleCacheFile();
+    final byte[] contentB = Files.readAllBytes(fileB.toPath());
+
+    // 另一个驱动的缓存首次使用时删除了 fileB，再写回
+    final ProgramBinaryCache old = new ProgramBinaryCache(new DriverGL("GPU A"), mDirectory);
+    old.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    old.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER.replace("u_Color", "u_Tint"));
+    assertFalse(fileB.exists());
+    Files.write(fileB.toPath(), contentB);
+    final File corrupt = new File(mDirectory, "corrupt.bin");
+    Files.write(corrupt.toPath(), new byte[] { 1, 2 });
+    final File other = new File(mDirectory, "other.txt");
+    Files.write(other.toPath(), new byte[] { 1, 2 });
+    assertEquals(4, cacheFiles().size());
+
+    final ProgramBinaryCache cache = new ProgramBinaryCache(new DriverGL("GPU B"), mDirectory);
+    assertTrue(cache.isSupported());
+
+    assertEquals(fileB, singleCacheFile());
+    assertTrue(other.isFile());
+    assertTrue(cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER) != 0);
+    assertEquals(1, cache.getHits());
+  }
+
+  /**
+   * 文件名相同而文件头中的驱动标识不同(哈希碰撞或被替换的文件)时丢弃该文件
+   */
+  @Test public void mismatchedIdentityInFileIsDiscarded() throws IOException {
+    new ProgramBinaryCache(new DriverGL("GPU A"), mDirectory)
+        .buildProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    final File fileA = singleCacheFile();
+    final byte[] contentA = Files.readAllBytes(fileA.toPath());
+    fileA.delete();
+
+    new ProgramBinaryCache(new DriverGL("GPU B"), mDirectory)
+        .buildProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    final File fileB = singleCacheFile();
+    Files.write(fileB.toPath(), contentA);
+
+    final DriverGL gl = new DriverGL("GPU B");
+    final ProgramBinaryCache cache = new ProgramBinaryCache(gl, mDirectory);
+    assertTrue(cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER) != 0);
+    assertEquals(1, cache.getMisses());
+    assertEquals(2, gl.compiledShaders);
+    assertEquals("GPU B", readIdentity(fileB).split("\n")[1]);
+  }
+
+  @Test public void badMagicIsDiscardedAndRewritten() throws IOException {
+    new ProgramBinaryCache(new DriverGL("GPU A"), mDirectory)
+        .buildProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    final File file = singleCacheFile();
+    final byte[] valid = Files.readAllBytes(file.toPath());
+    final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.writeInt(0xDEADBEEF);
+    } finally {
+      raf.close();
+    }
+
+    final DriverGL gl = new DriverGL("GPU A");
+    final ProgramBinaryCache cache = new ProgramBinaryCache(gl, mDirectory);
+    assertTrue(cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER) != 0);
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(2, gl.compiledShaders);
+    assertEquals(valid.length, file.length());
+  }
+
+  @Test public void truncatedFileIsDiscardedAndRewritten() throws IOException {
+    new ProgramBinaryCache(new DriverGL("GPU A"), mDirectory)
+        .buildProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    final File file = singleCacheFile();
+    final byte[] valid = Files.readAllBytes(file.toPath());
+
+    // 截断在文件头、驱动标识与 binary 中间
+    for (int length : new int[] { 0, 2, 9, valid.length - 3 }) {
+      final byte[] truncated = new byte[length];
+      System.arraycopy(valid, 0, truncated, 0, length);
+      Files.write(file.toPath(), truncated);
+
+      final DriverGL gl = new DriverGL("GPU A");
+      final ProgramBinaryCache cache = new ProgramBinaryCache(gl, mDirectory);
+      assertTrue(cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER) != 0);
+      assertEquals("length " + length, 1, cache.getMisses());
+      assertEquals("length " + length, 2, gl.compiledShaders);
+      assertEquals("length " + length, valid.length, file.length());
+    }
+  }
+
+  @Test public void rejectedBinaryDeletesFileAndRecompiles() throws IOException {
+    new ProgramBinaryCache(new DriverGL("GPU A"), mDirectory)
+        .buildProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+    final File file = singleCacheFile();
+
+    // 拒绝所有 binary(GL_LINK_STATUS 为 0)，且不再提供新的 binary，便于观察文件被删除
+    final DriverGL gl = new DriverGL("GPU A");
+    gl.rejectBinaries = true;
+    final ProgramBinaryCache cache = new ProgramBinaryCache(gl, mDirectory);
+    final int program = cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+
+    assertTrue(program != 0);
+    assertEquals(0, cache.getHits());
+    assertEquals(1, cache.getMisses());
+    assertEquals(2, gl.compiledShaders);
+    assertEquals(1, gl.deletedPrograms.size());
+    assertNotEquals(program, (int) gl.deletedPrograms.get(0));
+    assertFalse(file.exists());
+  }
+
+  @Test public void es2ContextBypassesCache() {
+    final DriverGL gl = new DriverGL("GPU A");
+    gl.version = "OpenGL ES 2.0 HeadlessGL";
+    final ProgramBinaryCache cache = new ProgramBinaryCache(gl, mDirectory);
+
+    assertFalse(cache.isSupported());
+    assertTrue(cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER) != 0);
+    assertTrue(cache.buildProgram(VERTEX_SHADER, FRAGMENT_SHADER) != 0);
+    assertEquals(0, cache.getHits());
+    assertEquals(0, cache.getMisses());
+    assertEquals(4, gl.compiledShaders);
+    assertEquals(0, cacheFiles().size());
+  }
+
+  private List<File> cacheFiles() {
+    final List<File> files = new ArrayList<>();
+    final File[] all = mDirectory.listFiles();
+    if (all != null) {
+      for (File file : all) {
+        if (file.getName().endsWith(".bin")) {
+          files.add(file);
+        }
+      }
+    }
+    return files;
+  }
+
+  private File singleCacheFile() {
+    final List<File> files = cacheFiles();
+    assertEquals(1, files.size());
+    return files.get(0);
+  }
+
+  private static String readIdentity(File file) throws IOException {
+    final DataInputStream in = new DataInputStream(new FileInputStream(file));
+    try {
+      in.readInt();
+      return in.readUTF();
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * 可以改变驱动标识与版本，统计编译次数，并可拒绝所有 program binary 的 HeadlessGL
+   */
+  private static final class DriverGL extends HeadlessGL {
+    final String renderer;
+    String version;
+    boolean rejectBinaries;
+    int compiledShaders;
+    final List<Integer> deletedPrograms = new ArrayList<>();
+
+    DriverGL(String renderer) {
+      this.renderer = renderer;
+    }
+
+    @Override public String glGetString(int name) {
+      if (name == GL_RENDERER) {
+        return renderer;
+      }
+      if (name == GL_VERSION && version != null) {
+        return version;
+      }
+      return super.glGetString(name);
+    }
+
+    @Override public void glCompileShader(int shader) {
+      compiledShaders++;
+      super.glCompileShader(shader);
+    }
+
+    @Override public void glProgramBinary(int program, int binaryFormat, Buffer binary,
+        int length) {
+      // 格式不符的 binary 会被 HeadlessGL 拒绝
+      super.glProgramBinary(program, rejectBinaries ? ~binaryFormat : binaryFormat, binary,
+          length);
+    }
+
+    @Override public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+      if (rejectBinaries && pname == GL_PROGRAM_BINARY_LENGTH) {
+        params[offset] = 0;
+        return;
+      }
+      super.glGetProgramiv(program, pname, params, offset);
+    }
+
+    @Override public void glDeleteProgram(int program) {
+      deletedPrograms.add(program);
+      super.glDeleteProgram(program);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package com.zac4j.opengl.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * ShaderPreprocessor 的条件编译、#include 与错误报告
+ */
+public class ShaderPreprocessorTest {
+
+  @Test public void keepsBlocksByDefinition() {
+    final String source = "#ifdef TEXTURE\na\n#else\nb\n#endif\nc\n";
+    assertEquals("a\nc\n", ShaderPreprocessor.process(source, null, "TEXTURE"));
+    assertEquals("b\nc\n", ShaderPreprocessor.process(source, null));
+  }
+
+  /**
+   * '#' 与指令名之间的空白不影响指令名与参数
+   */
+  @Test public void acceptsSpacesAfterHash() {
+    final String ifdef = "# ifdef TEXTURE\na\n#  else\nb\n# endif\n";
+    assertEquals("a\n", ShaderPreprocessor.process(ifdef, null, "TEXTURE"));
+    assertEquals("b\n", ShaderPreprocessor.process(ifdef, null));
+
+    final String ifndef = "#  ifndef TEXTURE\na\n#\telse\nb\n#\tendif\n";
+    assertEquals("b\n", ShaderPreprocessor.process(ifndef, null, "TEXTURE"));
+    assertEquals("a\n", ShaderPreprocessor.process(ifndef, null));
+
+    assertEquals("# define COLOR\na\n",
+        ShaderPreprocessor.process("# define COLOR\n#ifdef COLOR\na\n#endif\n", null));
+  }
+
+  @Test public void nestsBlocks() {
+    final String source = "#ifdef A\n"
+        + "#ifndef B\nab\n#else\naB\n#endif\n"
+        + "#else\n"
+        + "#ifdef B\nAB\n#else\nAb\n#endif\n"
+        + "#endif\n";
+    assertEquals("ab\n", ShaderPreprocessor.process(source, null, "A"));
+    assertEquals("aB\n", ShaderPreprocessor.process(source, null, "A", "B"));
+    assertEquals("AB\n", ShaderPreprocessor.process(source, null, "B"));
+    assertEquals("Ab\n", ShaderPreprocessor.process(source, null));
+  }
+
+  @Test public void defineAndUndefAffectLaterBlocks() {
+    final String source = "#define A\n#ifdef A\na\n#endif\n#undef A\n#ifdef A\nb\n#endif\n";
+    assertEquals("#define A\na\n#undef A\n", ShaderPreprocessor.process(source, null));
+  }
+
+  /**
+   * 删除的代码块中的 #define 与 #include 不生效
+   */
+  @Test public void ignoresDirectivesInRemovedBlocks() {
+    final Resolver resolver = new Resolver().put("common", "common\n");
+    final String source = "#ifdef A\n#define B\n#include \"common\"\n#endif\n"
+        + "#ifdef B\nb\n#endif\n";
+    assertEquals("", ShaderPreprocessor.process(source, resolver));
+    assertEquals(0, resolver.requested.size());
+  }
+
+  @Test public void includesEachFileOnce() {
+    final Resolver resolver = new Resolver().put("common", "uniform mat4 u_Matrix;\n");
+    final String source = "#include \"common\"\n#include \"common.glsl\"\nmain\n";
+    assertEquals("uniform mat4 u_Matrix;\nmain\n", ShaderPreprocessor.process(source, resolver));
+    assertEquals(1, resolver.requested.size());
+  }
+
+  @Test public void ignoresCyclicIncludes() {
+    final Resolver resolver = new Resolver()
+        .put("a", "#include \"b\"\na\n")
+        .put("b", "#include \"a\"\nb\n");
+    assertEquals("b\na\nmain\n", ShaderPreprocessor.process("#include \"a\"\nmain\n", resolver));
+  }
+
+  /**
+   * 被 #include 的文件使用外层的定义，其中的 #define 也影响外层之后的代码
+   */
+  @Test public void includesShareDefinitions() {
+    final Resolver resolver = new Resolver().put("features", "#ifdef A\n#define B\n#endif\n");
+    final String source = "#include \"features\"\n#ifdef B\nb\n#endif\n";
+    assertEquals("#define B\nb\n", ShaderPreprocessor.process(source, resolver, "A"));
+    assertEquals("", ShaderPreprocessor.process(source, resolver));
+  }
+
+  @Test public void rejectsUnbalancedBlocks() {
+    assertRejected("#ifdef A\na\n");
+    assertRejected("#ifdef A\n#ifdef B\n#endif\n");
+    assertRejected("a\n#endif\n");
+    assertRejected("#else\n");
+    assertRejected("#ifdef A\n#else\n#else\n#endif\n");
+    // 被 #include 的文件中的代码块必须在同一个文件中结束
+    final Resolver resolver = new Resolver().put("open", "#ifdef A\n");
+    try {
+      ShaderPreprocessor.process("#include \"open\"\n#endif\n", resolver);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertEquals("Missing #endif at open:2", expected.getMessage());
+    }
+  }
+
+  @Test public void rejectsUnsupportedAndMalformedDirectives() {
+    assertRejected("#if A\n#endif\n");
+    assertRejected("# elif A\n");
+    assertRejected("#ifdef\n#endif\n");
+    assertRejected("#include common\n");
+    // 没有 IncludeResolver
+    assertRejected("#include \"common\"\n");
+  }
+
+  private static void assertRejected(String source) {
+    try {
+      ShaderPreprocessor.process(source, null);
+      fail(source);
+    } catch (IllegalArgumentException expected) {
+      // 预期的错误
+    }
+  }
+
+  /**
+   * 按名称返回源码，并记录请求过的名称
+   */
+  private static final class Resolver implements ShaderPreprocessor.IncludeResolver {
+    final Map<String, String> sources = new HashMap<>();
+    final List<String> requested = new ArrayList<>();
+
+    Resolver put(String name, String source) {
+      sources.put(name, source);
+      return this;
+    }
+
+    @Override public String getSource(String name) {
+      requested.add(name);
+      return sources.get(name);
+    }
+  }
+}
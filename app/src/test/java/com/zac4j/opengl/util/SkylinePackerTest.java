@@ -0,0 +1,116 @@
+package com.zac4j.opengl.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SkylinePacker 放置的矩形互不重叠、不超出区域且保留间距，放不下时不修改状态
+ */
+public class SkylinePackerTest {
+
+  @Test public void placedRectanglesStayInBoundsWithoutOverlap() {
+    final Random random = new Random(5);
+    for (int round = 0; round < 50; round++) {
+      final int width = 64 + random.nextInt(512);
+      final int height = 64 + random.nextInt(512);
+      final int padding = random.nextInt(4);
+      final SkylinePacker packer = new SkylinePacker(width, height, padding);
+      final List<int[]> placed = new ArrayList<>();
+      final int[] position = new int[4];
+      long area = 0L;
+
+      for (int n = 0; n < 400; n++) {
+        final int w = 1 + random.nextInt(width / 4);
+        final int h = 1 + random.nextInt(height / 4);
+        if (!packer.insert(w, h, position, 2)) {
+          continue;
+        }
+        final int[] rect = { position[2], position[3], w, h };
+        assertTrue(rect[0] >= 0 && rect[1] >= 0);
+        assertTrue(rect[0] + w <= width && rect[1] + h <= height);
+        // 每个矩形右侧与下方的间距内也不能有其他矩形
+        for (int[] other : placed) {
+          assertFalse(overlaps(rect, other, padding) || overlaps(other, rect, padding));
+        }
+        placed.add(rect);
+        area += (long) w * h;
+      }
+
+      assertTrue(placed.size() > 1);
+      assertEquals((float) area / ((float) width * height), packer.getOccupancy(), 1e-6f);
+      assertTrue(packer.getUsedHeight() <= height);
+    }
+  }
+
+  @Test public void rejectedInsertDoesNotChangeState() {
+    final SkylinePacker packer = new SkylinePacker(100, 60, 2);
+    final int[] position = new int[2];
+    assertTrue(packer.insert(60, 40, position, 0));
+    final float occupancy = packer.getOccupancy();
+    final int usedHeight = packer.getUsedHeight();
+
+    // 含间距，右侧只剩 38 宽，下方只剩 18 高
+    position[0] = -1;
+    position[1] = -1;
+    assertFalse(packer.insert(50, 30, position, 0));
+    assertFalse(packer.insert(101, 1, position, 0));
+    assertFalse(packer.insert(1, 61, position, 0));
+    assertArrayEquals(new int[] { -1, -1 }, position);
+    assertEquals(occupancy, packer.getOccupancy(), 0f);
+    assertEquals(usedHeight, packer.getUsedHeight());
+
+    // 失败的插入之后，天际线与之前相同
+    assertTrue(packer.insert(36, 40, position, 0));
+    assertArrayEquals(new int[] { 62, 0 }, position);
+    assertTrue(packer.insert(98, 16, position, 0));
+    assertArrayEquals(new int[] { 0, 42 }, position);
+  }
+
+  /**
+   * 与区域等宽或等高的矩形省略超出区域的间距
+   */
+  @Test public void fullSizeRectangleFits() {
+    final SkylinePacker packer = new SkylinePacker(32, 16, 4);
+    final int[] position = new int[2];
+    assertTrue(packer.insert(32, 16, position, 0));
+    assertArrayEquals(new int[] { 0, 0 }, position);
+    assertEquals(1f, packer.getOccupancy(), 0f);
+    assertFalse(packer.insert(1, 1, position, 0));
+  }
+
+  @Test public void resetClearsPlacedRectangles() {
+    final SkylinePacker packer = new SkylinePacker(64, 64, 1);
+    final int[] position = new int[2];
+    while (packer.insert(20, 20, position, 0)) {
+      // 填满
+    }
+    assertTrue(packer.getOccupancy() > 0f);
+
+    packer.reset();
+
+    assertEquals(0f, packer.getOccupancy(), 0f);
+    assertEquals(0, packer.getUsedHeight());
+    assertTrue(packer.insert(64, 64, position, 0));
+    assertArrayEquals(new int[] { 0, 0 }, position);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmptyRectangle() {
+    new SkylinePacker(64, 64, 0).insert(0, 8, new int[2], 0);
+  }
+
+  /**
+   * @return b 与 a 加上右侧、下方间距后的区域相交
+   */
+  private static boolean overlaps(int[] a, int[] b, int padding) {
+    return b[0] < a[0] + a[2] + padding && a[0] < b[0] + b[2]
+        && b[1] < a[1] + a[3] + padding && a[1] < b[1] + b[3];
+  }
+}
@@ -0,0 +1,75 @@
+package com.zac4j.opengl.data;
+
+import com.zac4j.opengl.gl.GL;
+import com.zac4j.opengl.gl.HeadlessGL;
+import com.zac4j.opengl.gl.StateCachingGL;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 顶点数据打包进 native buffer 的耗时，以及绑定顶点属性的 Java 侧开销
+ * GL 调用由 HeadlessGL 代替，只测量 CPU 部分
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VertexArrayBenchmark {
+
+  private static final int POSITION_COMPONENT_COUNT = 3;
+
+  // 顶点数量，130 为 numPoints = 32 时棒槌的顶点数
+  @Param({ "130", "1024", "16384" })
+  public int vertexCount;
+
+  private final GL mGL = new HeadlessGL();
+  private final StateCachingGL mCachingGL = new StateCachingGL(new HeadlessGL());
+
+  private float[] mVertexData;
+  private VertexArray mVertexArray;
+  private VertexBuffer mVertexBuffer;
+  private VertexBuffer mCachedVertexBuffer;
+
+  @Setup
+  public void setUp() {
+    mVertexData = new float[vertexCount * POSITION_COMPONENT_COUNT];
+    for (int i = 0; i < mVertexData.length; i++) {
+      mVertexData[i] = i * 0.001f;
+    }
+    mVertexArray = new VertexArray(mGL, mVertexData);
+    mVertexBuffer = new VertexBuffer(mGL, mVertexData, GL.GL_STATIC_DRAW);
+    mCachedVertexBuffer = new VertexBuffer(mCachingGL, mVertexData, GL.GL_STATIC_DRAW);
+  }
+
+  @Benchmark
+  public VertexArray newVertexArray() {
+    return new VertexArray(mGL, mVertexData);
+  }
+
+  @Benchmark
+  public VertexBuffer newVertexBuffer() {
+    return new VertexBuffer(mGL, mVertexData, GL.GL_STATIC_DRAW);
+  }
+
+  @Benchmark
+  public void clientArrayAttributeSetup() {
+    mVertexArray.setVertexAttributePointer(0, 0, POSITION_COMPONENT_COUNT, 0);
+  }
+
+  @Benchmark
+  public void bufferAttributeSetup() {
+    mVertexBuffer.setVertexAttributePointer(0, 0, POSITION_COMPONENT_COUNT, 0);
+  }
+
+  // 与渲染器相同，经过 StateCachingGL 过滤重复的绑定
+  @Benchmark
+  public void cachedBufferAttributeSetup() {
+    mCachedVertexBuffer.setVertexAttributePointer(0, 0, POSITION_COMPONENT_COUNT, 0);
+  }
+}
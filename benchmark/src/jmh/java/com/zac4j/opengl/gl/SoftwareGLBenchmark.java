@@ -0,0 +1,234 @@
+package com.zac4j.opengl.gl;
+
+import com.zac4j.opengl.util.MatrixHelper;
+import com.zac4j.opengl.util.TextResourceReader;
+import com.zac4j.opengl.util.Transform;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * SoftwareGL 的吞吐量，结果为每秒的操作数
+ * triangles: 每秒光栅化的三角形数，顶点颜色插值，每个三角形约覆盖 700 个像素
+ * frame: 每秒渲染的帧数，场景与 AirHockeyCylinderRenderer 相同: 带纹理的桌面，两个棒槌与一个冰球
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SoftwareGLBenchmark {
+
+  private static final int WIDTH = 720;
+  private static final int HEIGHT = 1280;
+
+  private static final int TRIANGLE_COUNT = 1024;
+  // 三角形的边长，NDC 单位
+  private static final float TRIANGLE_SIZE = 0.08f;
+
+  private static final int TEXTURE_SIZE = 512;
+  private static final int CIRCLE_POINTS = 32;
+
+  // 坐标的顺序: X, Y, S, T，与 Table 相同
+  private static final float[] TABLE_DATA = {
+      0f, 0f, 0.5f, 0.5f, -0.5f, -0.8f, 0f, 0.9f, 0.5f, -0.8f, 1f, 0.9f, 0.5f, 0.8f, 1f, 0.1f,
+      -0.5f, 0.8f, 0f, 0.1f, -0.5f, -0.8f, 0f, 0.9f
+  };
+
+  // 棒槌与冰球在桌面上的位置 x, z，颜色 r, g, b 与半径
+  private static final float[][] DISCS = {
+      { 0f, -0.4f, 1f, 0f, 0f, 0.08f }, { 0f, 0.4f, 0f, 0f, 1f, 0.08f },
+      { 0f, 0f, 0.8f, 0.8f, 1f, 0.06f }
+  };
+
+  // 光栅化线程数，包括调用线程
+  @Param({ "1", "2", "4" })
+  public int threads;
+
+  private SoftwareGL mGL;
+
+  private int mColorProgram;
+  private int mTextureProgram;
+  private int mMatrixLocation;
+  private int mTextureMatrixLocation;
+  private int mTextureUnitLocation;
+  private int mTexture;
+
+  private FloatBuffer mTriangles;
+  private FloatBuffer mTable;
+  private final FloatBuffer[] mDiscs = new FloatBuffer[DISCS.length];
+
+  private final float[] mViewProjectionMatrix = new float[16];
+  private final float[] mTableMatrix = new float[16];
+  private final float[] mDiscMatrix = new float[16];
+  private final float[] mIdentity = {
+      1f, 0f, 0f, 0f, 0f, 1f, 0f, 0f, 0f, 0f, 1f, 0f, 0f, 0f, 0f, 1f
+  };
+
+  @Setup
+  public void setUp() throws IOException {
+    mGL = new SoftwareGL(WIDTH, HEIGHT, threads);
+    mGL.glViewport(0, 0, WIDTH, HEIGHT);
+    mGL.glClearColor(0f, 0f, 0f, 1f);
+
+    mColorProgram = createProgram("matrix_vertex_shader.glsl", "vary_fragment_shader.glsl");
+    mMatrixLocation = mGL.glGetUniformLocation(mColorProgram, "u_Matrix");
+    mTextureProgram = createProgram("texture_vertex_shader.glsl", "texture_fragment_shader.glsl");
+    mTextureMatrixLocation = mGL.glGetUniformLocation(mTextureProgram, "u_Matrix");
+    mTextureUnitLocation = mGL.glGetUniformLocation(mTextureProgram, "u_TextureUnit");
+
+    // X, Y, Z, R, G, B
+    final Random random = new Random(42);
+    final float[] triangles = new float[TRIANGLE_COUNT * 3 * 6];
+    for (int i = 0; i < TRIANGLE_COUNT; i++) {
+      final float x = random.nextFloat() * 2f - 1f;
+      final float y = random.nextFloat() * 2f - 1f;
+      for (int v = 0; v < 3; v++) {
+        final int offset = (i * 3 + v) * 6;
+        triangles[offset] = x + (v == 1 ? TRIANGLE_SIZE : 0f);
+        triangles[offset + 1] = y + (v == 2 ? TRIANGLE_SIZE : 0f);
+        triangles[offset + 3] = random.nextFloat();
+        triangles[offset + 4] = random.nextFloat();
+        triangles[offset + 5] = random.nextFloat();
+      }
+    }
+    mTriangles = floatBuffer(triangles);
+    mTable = floatBuffer(TABLE_DATA);
+
+    // 棒槌与冰球简化为 XZ 平面上的圆盘: 中心加圆周，三角扇形，X, Y, Z, R, G, B
+    for (int d = 0; d < DISCS.length; d++) {
+      final float[] disc = new float[(CIRCLE_POINTS + 2) * 6];
+      for (int i = 0; i < CIRCLE_POINTS + 2; i++) {
+        final double angle = 2.0 * Math.PI * (i - 1) / CIRCLE_POINTS;
+        final float radius = i == 0 ? 0f : DISCS[d][5];
+        disc[i * 6] = radius * (float) Math.cos(angle);
+        disc[i * 6 + 2] = radius * (float) Math.sin(angle);
+        System.arraycopy(DISCS[d], 2, disc, i * 6 + 3, 3);
+      }
+      mDiscs[d] = floatBuffer(disc);
+    }
+
+    // 纹理: 随机像素，双线性采样
+    final int[] textures = new int[1];
+    mGL.glGenTextures(1, textures, 0);
+    mTexture = textures[0];
+    final byte[] pixels = new byte[TEXTURE_SIZE * TEXTURE_SIZE * 4];
+    random.nextBytes(pixels);
+    mGL.glBindTexture(GL.GL_TEXTURE_2D, mTexture);
+    mGL.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MAG_FILTER, GL.GL_LINEAR);
+    mGL.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA, TEXTURE_SIZE, TEXTURE_SIZE, 0, GL.GL_RGBA,
+        GL.GL_UNSIGNED_BYTE, ByteBuffer.wrap(pixels));
+
+    // 与 AirHockeyCylinderRenderer 相同的视角: 相机位于 (0, 1.2, 2.2) 看向原点，桌面旋转到 XZ 平面
+    final float[] projection = new float[16];
+    final float[] view = new float[16];
+    final float[] rotation = new float[16];
+    MatrixHelper.perspectiveM(projection, 45, (float) WIDTH / (float) HEIGHT, 1f, 10f);
+    Transform.setTranslation(view, 0, 0f, 0f, -2.5f);
+    Transform.setRotation(rotation, 0, 28.6f, 1f, 0f, 0f);
+    final float[] viewRotation = new float[16];
+    Transform.multiplyRotation(viewRotation, 0, view, 0, rotation, 0);
+    Transform.multiplyAffine(mViewProjectionMatrix, 0, projection, 0, viewRotation, 0);
+    Transform.setRotation(rotation, 0, -90f, 1f, 0f, 0f);
+    Transform.multiplyRotation(mTableMatrix, 0, mViewProjectionMatrix, 0, rotation, 0);
+  }
+
+  @TearDown
+  public void tearDown() {
+    mGL.release();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(TRIANGLE_COUNT)
+  public void triangles() {
+    mGL.glUseProgram(mColorProgram);
+    mGL.glUniformMatrix4fv(mMatrixLocation, 1, false, mIdentity, 0);
+    bindColorAttributes(mTriangles, 6);
+    mGL.glDrawArrays(GL.GL_TRIANGLES, 0, TRIANGLE_COUNT * 3);
+  }
+
+  @Benchmark
+  public void frame() {
+    mGL.glClear(GL.GL_COLOR_BUFFER_BIT);
+
+    mGL.glUseProgram(mTextureProgram);
+    mGL.glUniformMatrix4fv(mTextureMatrixLocation, 1, false, mTableMatrix, 0);
+    mGL.glActiveTexture(GL.GL_TEXTURE0);
+    mGL.glBindTexture(GL.GL_TEXTURE_2D, mTexture);
+    mGL.glUniform1i(mTextureUnitLocation, 0);
+    mTable.position(0);
+    mGL.glVertexAttribPointer(0, 2, GL.GL_FLOAT, false, 16, mTable);
+    mGL.glEnableVertexAttribArray(0);
+    mTable.position(2);
+    mGL.glVertexAttribPointer(1, 2, GL.GL_FLOAT, false, 16, mTable);
+    mGL.glEnableVertexAttribArray(1);
+    mGL.glDrawArrays(GL.GL_TRIANGLE_FAN, 0, TABLE_DATA.length / 4);
+
+    mGL.glUseProgram(mColorProgram);
+    for (int d = 0; d < DISCS.length; d++) {
+      Transform.multiplyTranslation(mDiscMatrix, 0, mViewProjectionMatrix, 0, DISCS[d][0], 0f,
+          DISCS[d][1]);
+      mGL.glUniformMatrix4fv(mMatrixLocation, 1, false, mDiscMatrix, 0);
+      bindColorAttributes(mDiscs[d], 6);
+      mGL.glDrawArrays(GL.GL_TRIANGLE_FAN, 0, CIRCLE_POINTS + 2);
+    }
+  }
+
+  private void bindColorAttributes(FloatBuffer data, int floatsPerVertex) {
+    data.position(0);
+    mGL.glVertexAttribPointer(0, 3, GL.GL_FLOAT, false, floatsPerVertex * 4, data);
+    mGL.glEnableVertexAttribArray(0);
+    data.position(3);
+    mGL.glVertexAttribPointer(1, 3, GL.GL_FLOAT, false, floatsPerVertex * 4, data);
+    mGL.glEnableVertexAttribArray(1);
+  }
+
+  private int createProgram(String vertexShader, String fragmentShader) throws IOException {
+    final int program = mGL.glCreateProgram();
+    mGL.glAttachShader(program, compile(GL.GL_VERTEX_SHADER, vertexShader));
+    mGL.glAttachShader(program, compile(GL.GL_FRAGMENT_SHADER, fragmentShader));
+    mGL.glLinkProgram(program);
+    final int[] status = new int[1];
+    mGL.glGetProgramiv(program, GL.GL_LINK_STATUS, status, 0);
+    if (status[0] == 0) {
+      throw new IllegalStateException(mGL.glGetProgramInfoLog(program));
+    }
+    return program;
+  }
+
+  private int compile(int type, String name) throws IOException {
+    final InputStream is = SoftwareGLBenchmark.class.getResourceAsStream("/" + name);
+    if (is == null) {
+      throw new IOException("Missing shader resource: " + name);
+    }
+    final int shader = mGL.glCreateShader(type);
+    try {
+      mGL.glShaderSource(shader, TextResourceReader.readText(is));
+    } finally {
+      is.close();
+    }
+    mGL.glCompileShader(shader);
+    return shader;
+  }
+
+  private static FloatBuffer floatBuffer(float[] data) {
+    final FloatBuffer buffer = ByteBuffer.allocateDirect(data.length * 4)
+        .order(ByteOrder.nativeOrder())
+        .asFloatBuffer();
+    buffer.put(data);
+    buffer.position(0);
+    return buffer;
+  }
+}
@@ -0,0 +1,50 @@
+package com.zac4j.opengl.input;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 一帧内写入若干移动采样后取出合并的耗时，模拟高采样率的触摸屏
+ * 与 gc profiler 一起运行，应为 0 B/op
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TouchQueueBenchmark {
+
+  // 每帧的采样数，240 Hz 触摸采样在 60 Hz 渲染下约为 4
+  @Param({ "1", "4", "16" })
+  public int samplesPerFrame;
+
+  private final TouchQueue mQueue = new TouchQueue(256);
+  private long mTime;
+  private float mLastX;
+
+  private final TouchQueue.Listener mListener = new TouchQueue.Listener() {
+    @Override public void onTouchDown(float normalizedX, float normalizedY) {
+    }
+
+    @Override public void onTouchMove(float normalizedX, float normalizedY) {
+      mLastX = normalizedX;
+    }
+
+    @Override public void onTouchUp(float normalizedX, float normalizedY) {
+    }
+  };
+
+  @Benchmark
+  public float offerAndDrain() {
+    for (int i = 0; i < samplesPerFrame; i++) {
+      mTime += 4L;
+      mQueue.offer(TouchQueue.ACTION_MOVE, (mTime % 1000L) / 1000f, 0.5f, mTime);
+    }
+    mQueue.drain(mListener);
+    return mLastX + mQueue.getVelocityX();
+  }
+}
@@ -0,0 +1,40 @@
+package com.zac4j.opengl.object;
+
+import com.zac4j.opengl.util.Geometry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 冰球与棒槌网格的生成耗时，与 AirHockeyCylinderRenderer 中使用的尺寸相同
+ * 放在 object 包中以访问 ObjectBuilder 的包内方法
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObjectBuilderBenchmark {
+
+  @Param({ "8", "32", "128", "512" })
+  public int numPoints;
+
+  @Param({ "false", "true" })
+  public boolean mergeDrawList;
+
+  private final Geometry.Point mCenter = new Geometry.Point(0f, 0f, 0f);
+  private final Geometry.Cylinder mPuck = new Geometry.Cylinder(mCenter, 0.06f, 0.02f);
+
+  @Benchmark
+  public Object createPuck() {
+    return ObjectBuilder.createPuck(mPuck, numPoints, mergeDrawList);
+  }
+
+  @Benchmark
+  public Object createMallet() {
+    return ObjectBuilder.createMallet(mCenter, 0.08f, 0.15f, numPoints, mergeDrawList);
+  }
+}
@@ -0,0 +1,52 @@
+package com.zac4j.opengl.profile;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 每帧报告一次计时与五个计数的开销，关闭时应接近空方法
+ * 与 gc profiler 一起运行，两种情况都应为 0 B/op
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProfilerBenchmark {
+
+  @Param({ "false", "true" })
+  public boolean enabled;
+
+  private final RollingHistogram mHistogram = new RollingHistogram(256);
+  private long mValue;
+
+  @Setup
+  public void setUp() {
+    Profiler.setEnabled(enabled);
+    Profiler.reset();
+  }
+
+  @Benchmark
+  public void reportFrame() {
+    final long start = Profiler.begin();
+    Profiler.count(Profiler.COUNTER_DRAW_CALLS, 3);
+    Profiler.count(Profiler.COUNTER_VERTICES, 400);
+    Profiler.count(Profiler.COUNTER_STATE_CHANGES, 12);
+    Profiler.count(Profiler.COUNTER_UPLOADS, 2);
+    Profiler.count(Profiler.COUNTER_UPLOADED_BYTES, 160);
+    Profiler.end(Profiler.TIMER_FRAME, start);
+    Profiler.endFrame();
+  }
+
+  @Benchmark
+  public long histogramPercentile() {
+    mValue = mValue * 6364136223846793005L + 1442695040888963407L;
+    mHistogram.record((mValue >>> 40) & 0xFFFFF);
+    return mHistogram.percentile(99);
+  }
+}
@@ -0,0 +1,165 @@
+package com.zac4j.opengl.scene;
+
+import com.zac4j.opengl.util.Geometry;
+import com.zac4j.opengl.util.MatrixHelper;
+import com.zac4j.opengl.util.Transform;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 视锥体剔除的耗时随实体数量的变化，相机与 AirHockeyCylinderRenderer 相同，
+ * 实体随机分布在比桌面大四倍的区域中，约一半位于视锥体外
+ *
+ * cullSpheres: 只测平面测试，包围球已连续存放
+ * cullScene: 一帧的完整剔除，包括从 Scene 写入世界包围球
+ * cullAndPack: 剔除后打包可见实体，对照 packAll 打包所有实体
+ * cullAndSelectLods: 剔除后为可见实体选择 LOD 级别，三级，与棒槌的 LOD 链相同
+ * objectsCull: 对照组，每个实体一个对象，逐个测试六个平面并在第一个外侧平面处退出
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrustumCullerBenchmark {
+
+  private static final int MESH = 0;
+  private static final float MESH_RADIUS = 0.08f;
+  // 实体分布的范围，XZ 平面上的半边长
+  private static final float EXTENT = 2f;
+
+  @Param({ "1000", "10000", "100000", "1000000" })
+  public int entityCount;
+
+  private final float[] mViewProjectionMatrix = new float[16];
+  private final float[] mPlanes = new float[FrustumCuller.PLANE_COUNT
+      * FrustumCuller.FLOATS_PER_PLANE];
+
+  private Scene mScene;
+  private FrustumCuller mCuller;
+  private LodSelector mLodSelector;
+  private float[] mInstanceData;
+
+  private float[] mX;
+  private float[] mY;
+  private float[] mZ;
+  private float[] mRadius;
+  private float[] mDistance;
+  private boolean[] mVisible;
+
+  private Sphere[] mSpheres;
+
+  /**
+   * 对照组: 每个实体一个对象
+   */
+  static final class Sphere {
+    float x, y, z, radius;
+    boolean visible;
+  }
+
+  @Setup
+  public void setUp() {
+    final float[] projection = new float[16];
+    final float[] view = new float[16];
+    final float[] rotation = new float[16];
+    final float[] viewRotation = new float[16];
+    MatrixHelper.perspectiveM(projection, 45, 720f / 1280f, 1f, 10f);
+    Transform.setTranslation(view, 0, 0f, 0f, -2.5f);
+    Transform.setRotation(rotation, 0, 28.6f, 1f, 0f, 0f);
+    Transform.multiplyRotation(viewRotation, 0, view, 0, rotation, 0);
+    Transform.multiplyAffine(mViewProjectionMatrix, 0, projection, 0, viewRotation, 0);
+    MatrixHelper.frustumPlanes(mPlanes, mViewProjectionMatrix, 0);
+
+    final Random random = new Random(42);
+    mScene = new Scene(entityCount);
+    for (int i = 0; i < entityCount; i++) {
+      mScene.add(MESH, (random.nextFloat() * 2f - 1f) * EXTENT, 0f,
+          (random.nextFloat() * 2f - 1f) * EXTENT, 1f, 1f, 0f, 0f);
+    }
+    mCuller = new FrustumCuller();
+    mCuller.setViewProjection(mViewProjectionMatrix, 0);
+    mCuller.setMeshBounds(MESH,
+        new Geometry.Bounds(-MESH_RADIUS, 0f, -MESH_RADIUS, MESH_RADIUS, 0f, MESH_RADIUS,
+            MESH_RADIUS));
+    mLodSelector = new LodSelector();
+    mLodSelector.setCamera(mViewProjectionMatrix, 0, 1280);
+    mLodSelector.setMeshLods(MESH, new float[] { 0.000385f, 0.00154f, 0.00609f });
+    mInstanceData = new float[entityCount * Scene.FLOATS_PER_INSTANCE];
+
+    mX = new float[entityCount];
+    mY = new float[entityCount];
+    mZ = new float[entityCount];
+    mRadius = new float[entityCount];
+    mDistance = new float[entityCount];
+    mVisible = new boolean[entityCount];
+    mSpheres = new Sphere[entityCount];
+    for (int i = 0; i < entityCount; i++) {
+      mX[i] = mScene.getX(i);
+      mY[i] = mScene.getY(i);
+      mZ[i] = mScene.getZ(i);
+      mRadius[i] = MESH_RADIUS;
+
+      final Sphere sphere = new Sphere();
+      sphere.x = mX[i];
+      sphere.y = mY[i];
+      sphere.z = mZ[i];
+      sphere.radius = MESH_RADIUS;
+      mSpheres[i] = sphere;
+    }
+  }
+
+  @Benchmark
+  public int cullSpheres() {
+    return FrustumCuller.cullSpheres(mPlanes, mX, mY, mZ, mRadius, entityCount, mDistance,
+        mVisible);
+  }
+
+  @Benchmark
+  public int cullScene() {
+    return mCuller.cull(mScene);
+  }
+
+  @Benchmark
+  public int cullAndPack() {
+    mCuller.cull(mScene);
+    return mScene.packInstances(MESH, mCuller.getVisible(), mInstanceData, 0);
+  }
+
+  @Benchmark
+  public int[] cullAndSelectLods() {
+    mCuller.cull(mScene);
+    return mLodSelector.select(mScene, mCuller.getVisible());
+  }
+
+  @Benchmark
+  public int packAll() {
+    return mScene.packInstances(MESH, mInstanceData, 0);
+  }
+
+  @Benchmark
+  public int objectsCull() {
+    final float[] planes = mPlanes;
+    int visibleCount = 0;
+    for (Sphere sphere : mSpheres) {
+      boolean visible = true;
+      for (int p = 0; p < planes.length; p += FrustumCuller.FLOATS_PER_PLANE) {
+        if (planes[p] * sphere.x + planes[p + 1] * sphere.y + planes[p + 2] * sphere.z
+            + planes[p + 3] < -sphere.radius) {
+          visible = false;
+          break;
+        }
+      }
+      sphere.visible = visible;
+      if (visible) {
+        visibleCount++;
+      }
+    }
+    return visibleCount;
+  }
+}
@@ -0,0 +1,77 @@
+package com.zac4j.opengl.scene;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 大量圆盘时一步物理模拟的耗时，桌面按实体数量放大，使密度保持不变
+ * bruteForcePairs 为不使用网格、两两检测相交的对照组
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PhysicsBenchmark {
+
+  private static final float RADIUS = 0.03f;
+
+  // 每个实体平均占据的面积约为 (4r)^2
+  private static final float SPACING = RADIUS * 4f;
+
+  @Param({ "100", "1000", "10000" })
+  public int bodyCount;
+
+  private Scene mScene;
+  private PhysicsWorld mWorld;
+
+  // 每次迭代都从相同的初始状态开始，步数相同时结果相同
+  @Setup(Level.Iteration)
+  public void setUp() {
+    final float halfSize = (float) Math.sqrt(bodyCount) * SPACING / 2f;
+    final Random random = new Random(42);
+
+    mScene = new Scene(bodyCount);
+    for (int i = 0; i < bodyCount; i++) {
+      final int entity = mScene.add(0, (random.nextFloat() * 2f - 1f) * halfSize, 0f,
+          (random.nextFloat() * 2f - 1f) * halfSize, 1f, 1f, 1f, 1f);
+      mScene.setVelocity(entity, random.nextFloat() - 0.5f, 0f, random.nextFloat() - 0.5f);
+      mScene.setBody(entity, RADIUS, 1f);
+    }
+    mWorld = new PhysicsWorld(mScene, -halfSize, halfSize, -halfSize, halfSize, RADIUS * 2f);
+  }
+
+  @Benchmark
+  public int step() {
+    mWorld.step();
+    return mWorld.getContactCount();
+  }
+
+  @Benchmark
+  public int bruteForcePairs() {
+    final Scene scene = mScene;
+    final int count = scene.mCount;
+    final float[] x = scene.mX;
+    final float[] z = scene.mZ;
+    final float[] radius = scene.mRadius;
+    int contacts = 0;
+    for (int i = 0; i < count; i++) {
+      for (int j = i + 1; j < count; j++) {
+        final float dx = x[j] - x[i];
+        final float dz = z[j] - z[i];
+        final float r = radius[i] + radius[j];
+        if (dx * dx + dz * dz < r * r) {
+          contacts++;
+        }
+      }
+    }
+    return contacts;
+  }
+}
@@ -0,0 +1,106 @@
+package com.zac4j.opengl.scene;
+
+import com.zac4j.opengl.util.Transform;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 每帧更新位置并打包实例数据的耗时随实体数量的变化
+ * 对照组为每个实体一个对象、各自保存模型矩阵的写法，与之前棒槌逐个 add 的方式相同
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SceneBenchmark {
+
+  private static final int MESH = 0;
+  private static final float DELTA_SECONDS = 1f / 60f;
+
+  @Param({ "10", "100", "1000", "10000", "100000" })
+  public int entityCount;
+
+  private Scene mScene;
+  private Entity[] mEntities;
+  private float[] mInstanceData;
+
+  /**
+   * 对照组: 每个实体一个对象
+   */
+  static final class Entity {
+    float x, y, z;
+    float vx, vy, vz;
+    float scale = 1f;
+    float r, g, b;
+    final float[] modelMatrix = new float[16];
+  }
+
+  @Setup
+  public void setUp() {
+    mScene = new Scene(entityCount);
+    mEntities = new Entity[entityCount];
+    for (int i = 0; i < entityCount; i++) {
+      final float x = (i % 100) * 0.01f;
+      final float z = (i / 100) * 0.01f;
+      final int entity = mScene.add(MESH, x, 0f, z, 1f, 1f, 0f, 0f);
+      mScene.setVelocity(entity, 0.1f, 0f, -0.1f);
+
+      final Entity e = new Entity();
+      e.x = x;
+      e.z = z;
+      e.vx = 0.1f;
+      e.vz = -0.1f;
+      e.r = 1f;
+      mEntities[i] = e;
+    }
+    mInstanceData = new float[entityCount * Scene.FLOATS_PER_INSTANCE];
+  }
+
+  @Benchmark
+  public void integrate() {
+    mScene.integrate(DELTA_SECONDS);
+  }
+
+  @Benchmark
+  public int packInstances() {
+    return mScene.packInstances(MESH, mInstanceData, 0);
+  }
+
+  // 一帧的完整 CPU 工作: 移动并打包
+  @Benchmark
+  public int integrateAndPack() {
+    mScene.integrate(DELTA_SECONDS);
+    return mScene.packInstances(MESH, mInstanceData, 0);
+  }
+
+  @Benchmark
+  public int objectsIntegrateAndPack() {
+    final Entity[] entities = mEntities;
+    for (Entity e : entities) {
+      e.x += e.vx * DELTA_SECONDS;
+      e.y += e.vy * DELTA_SECONDS;
+      e.z += e.vz * DELTA_SECONDS;
+    }
+
+    int offset = 0;
+    for (Entity e : entities) {
+      Transform.setTranslation(e.modelMatrix, 0, e.x, e.y, e.z);
+      e.modelMatrix[0] = e.scale;
+      e.modelMatrix[5] = e.scale;
+      e.modelMatrix[10] = e.scale;
+      System.arraycopy(e.modelMatrix, 0, mInstanceData, offset, 16);
+      mInstanceData[offset + 16] = e.r;
+      mInstanceData[offset + 17] = e.g;
+      mInstanceData[offset + 18] = e.b;
+      mInstanceData[offset + 19] = 1f;
+      offset += Scene.FLOATS_PER_INSTANCE;
+    }
+    return entities.length;
+  }
+}
@@ -0,0 +1,68 @@
+package com.zac4j.opengl.util;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 触摸拾取: 反投影为射线后与两个棒槌的圆柱相交，以及拖动时与桌面相交
+ * 与 gc profiler 一起运行，两者都应为 0 B/op
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeometryBenchmark {
+
+  private static final float MALLET_RADIUS = 0.08f;
+  private static final float MALLET_HEIGHT = 0.15f;
+
+  private final float[] mInvertedViewProjectionMatrix = new float[16];
+  private final Geometry.Ray mRay = new Geometry.Ray();
+
+  private float mX;
+
+  @Setup
+  public void setUp() {
+    // 与 MatrixBenchmark 相同的视图投影矩阵: P * T(0, -1.2, -2.2)，其逆为 T(0, 1.2, 2.2) * P^-1
+    final float[] projection = new float[16];
+    MatrixHelper.perspectiveM(projection, 45, 1080f / 1920f, 1f, 10f);
+    final float[] m = mInvertedViewProjectionMatrix;
+    m[0] = 1f / projection[0];
+    m[5] = 1f / projection[5];
+    m[11] = 1f / projection[14];
+    m[14] = -1f;
+    m[15] = projection[10] / projection[14];
+    for (int column = 0; column < 4; column++) {
+      m[column * 4 + 1] += 1.2f * m[column * 4 + 3];
+      m[column * 4 + 2] += 2.2f * m[column * 4 + 3];
+    }
+  }
+
+  // 每次改变触摸点，避免 JIT 把整个计算当作常量折叠
+  private float nextX() {
+    mX = mX > 0.5f ? -0.5f : mX + 0.01f;
+    return mX;
+  }
+
+  @Benchmark
+  public float pickMallet() {
+    Geometry.unproject(mRay, mInvertedViewProjectionMatrix, 0, nextX(), -0.3f);
+    final float red = Geometry.intersectCylinder(mRay, 0f, MALLET_HEIGHT / 2f, -0.4f,
+        MALLET_RADIUS, MALLET_HEIGHT);
+    final float blue = Geometry.intersectCylinder(mRay, 0f, MALLET_HEIGHT / 2f, 0.4f,
+        MALLET_RADIUS, MALLET_HEIGHT);
+    return red + blue;
+  }
+
+  @Benchmark
+  public float dragOnTable() {
+    Geometry.unproject(mRay, mInvertedViewProjectionMatrix, 0, nextX(), -0.3f);
+    final float distance = Geometry.intersectPlane(mRay, 0f, 0f, 0f, 0f, 1f, 0f);
+    return mRay.pointX(distance) + mRay.pointZ(distance);
+  }
+}
@@ -0,0 +1,98 @@
+package com.zac4j.opengl.util;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 透视矩阵，以及每帧摆放物体的矩阵运算：
+ * reference* 为原先 setIdentityM / translateM / rotateM / multiplyMM 的组合，
+ * transform* 为 Transform 的特化版本，两者结果相同
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MatrixBenchmark {
+
+  private final float[] mProjectionMatrix = new float[16];
+  private final float[] mViewMatrix = new float[16];
+  private final float[] mViewProjectionMatrix = new float[16];
+  private final float[] mModelMatrix = new float[16];
+  private final float[] mModelViewProjectionMatrix = new float[16];
+  private final float[] mTableRotationMatrix = new float[16];
+  private final float[] mTemp = new float[32];
+
+  private float mZ;
+
+  @Setup
+  public void setUp() {
+    MatrixHelper.perspectiveM(mProjectionMatrix, 45, 1080f / 1920f, 1f, 10f);
+    ReferenceMatrix.setIdentityM(mViewMatrix, 0);
+    ReferenceMatrix.translateM(mViewMatrix, 0, 0f, -1.2f, -2.2f);
+    ReferenceMatrix.multiplyMM(mViewProjectionMatrix, 0, mProjectionMatrix, 0, mViewMatrix, 0);
+    Transform.setRotation(mTableRotationMatrix, 0, -90f, 1f, 0f, 0f);
+  }
+
+  // 每次改变位置，避免 JIT 把整个计算当作常量折叠
+  private float nextZ() {
+    mZ = mZ > 0.4f ? -0.4f : mZ + 0.01f;
+    return mZ;
+  }
+
+  @Benchmark
+  public float[] perspectiveM() {
+    MatrixHelper.perspectiveM(mProjectionMatrix, 45, 1080f / 1920f, 1f, 10f);
+    return mProjectionMatrix;
+  }
+
+  @Benchmark
+  public float[] referenceViewProjection() {
+    ReferenceMatrix.multiplyMM(mViewProjectionMatrix, 0, mProjectionMatrix, 0, mViewMatrix, 0);
+    return mViewProjectionMatrix;
+  }
+
+  @Benchmark
+  public float[] transformViewProjection() {
+    Transform.multiplyAffine(mViewProjectionMatrix, 0, mProjectionMatrix, 0, mViewMatrix, 0);
+    return mViewProjectionMatrix;
+  }
+
+  @Benchmark
+  public float[] referencePositionObjectInScene() {
+    ReferenceMatrix.setIdentityM(mModelMatrix, 0);
+    ReferenceMatrix.translateM(mModelMatrix, 0, 0f, 0.075f, nextZ());
+    ReferenceMatrix.multiplyMM(mModelViewProjectionMatrix, 0, mViewProjectionMatrix, 0,
+        mModelMatrix, 0);
+    return mModelViewProjectionMatrix;
+  }
+
+  @Benchmark
+  public float[] transformPositionObjectInScene() {
+    final float z = nextZ();
+    Transform.setTranslation(mModelMatrix, 0, 0f, 0.075f, z);
+    Transform.multiplyTranslation(mModelViewProjectionMatrix, 0, mViewProjectionMatrix, 0, 0f,
+        0.075f, z);
+    return mModelViewProjectionMatrix;
+  }
+
+  @Benchmark
+  public float[] referencePositionTableInScene() {
+    ReferenceMatrix.setIdentityM(mModelMatrix, 0);
+    ReferenceMatrix.rotateM(mModelMatrix, 0, -90f, 1f, 0f, 0f, mTemp);
+    ReferenceMatrix.multiplyMM(mModelViewProjectionMatrix, 0, mViewProjectionMatrix, 0,
+        mModelMatrix, 0);
+    return mModelViewProjectionMatrix;
+  }
+
+  @Benchmark
+  public float[] transformPositionTableInScene() {
+    Transform.multiplyRotation(mModelViewProjectionMatrix, 0, mViewProjectionMatrix, 0,
+        mTableRotationMatrix, 0);
+    return mModelViewProjectionMatrix;
+  }
+}
@@ -0,0 +1,121 @@
+package com.zac4j.opengl.util;
+
+/**
+ * android.opengl.Matrix 中 setIdentityM / translateM / setRotateM / rotateM / multiplyMM 的 JVM 移植，
+ * 算法与 AOSP 的 Java 实现一致；SDK 的 android.jar 只包含抛出异常的桩方法，
+ * 基准测试无法直接调用框架中的实现
+ */
+final class ReferenceMatrix {
+
+  private ReferenceMatrix() {
+  }
+
+  static void setIdentityM(float[] sm, int smOffset) {
+    for (int i = 0; i < 16; i++) {
+      sm[smOffset + i] = 0;
+    }
+    for (int i = 0; i < 16; i += 5) {
+      sm[smOffset + i] = 1.0f;
+    }
+  }
+
+  static void translateM(float[] m, int mOffset, float x, float y, float z) {
+    for (int i = 0; i < 4; i++) {
+      int mi = mOffset + i;
+      m[12 + mi] += m[mi] * x + m[4 + mi] * y + m[8 + mi] * z;
+    }
+  }
+
+  static void setRotateM(float[] rm, int rmOffset, float a, float x, float y, float z) {
+    rm[rmOffset + 3] = 0;
+    rm[rmOffset + 7] = 0;
+    rm[rmOffset + 11] = 0;
+    rm[rmOffset + 12] = 0;
+    rm[rmOffset + 13] = 0;
+    rm[rmOffset + 14] = 0;
+    rm[rmOffset + 15] = 1;
+    a *= (float) (Math.PI / 180.0f);
+    float s = (float) Math.sin(a);
+    float c = (float) Math.cos(a);
+    if (1.0f == x && 0.0f == y && 0.0f == z) {
+      rm[rmOffset + 5] = c;
+      rm[rmOffset + 10] = c;
+      rm[rmOffset + 6] = s;
+      rm[rmOffset + 9] = -s;
+      rm[rmOffset + 1] = 0;
+      rm[rmOffset + 2] = 0;
+      rm[rmOffset + 4] = 0;
+      rm[rmOffset + 8] = 0;
+      rm[rmOffset + 0] = 1;
+    } else if (0.0f == x && 1.0f == y && 0.0f == z) {
+      rm[rmOffset + 0] = c;
+      rm[rmOffset + 10] = c;
+      rm[rmOffset + 8] = s;
+      rm[rmOffset + 2] = -s;
+      rm[rmOffset + 1] = 0;
+      rm[rmOffset + 4] = 0;
+      rm[rmOffset + 6] = 0;
+      rm[rmOffset + 9] = 0;
+      rm[rmOffset + 5] = 1;
+    } else if (0.0f == x && 0.0f == y && 1.0f == z) {
+      rm[rmOffset + 0] = c;
+      rm[rmOffset + 5] = c;
+      rm[rmOffset + 1] = s;
+      rm[rmOffset + 4] = -s;
+      rm[rmOffset + 2] = 0;
+      rm[rmOffset + 6] = 0;
+      rm[rmOffset + 8] = 0;
+      rm[rmOffset + 9] = 0;
+      rm[rmOffset + 10] = 1;
+    } else {
+      float len = (float) Math.sqrt(x * x + y * y + z * z);
+      if (1.0f != len) {
+        float recipLen = 1.0f / len;
+        x *= recipLen;
+        y *= recipLen;
+        z *= recipLen;
+      }
+      float nc = 1.0f - c;
+      float xy = x * y;
+      float yz = y * z;
+      float zx = z * x;
+      float xs = x * s;
+      float ys = y * s;
+      float zs = z * s;
+      rm[rmOffset + 0] = x * x * nc + c;
+      rm[rmOffset + 4] = xy * nc - zs;
+      rm[rmOffset + 8] = zx * nc + ys;
+      rm[rmOffset + 1] = xy * nc + zs;
+      rm[rmOffset + 5] = y * y * nc + c;
+      rm[rmOffset + 9] = yz * nc - xs;
+      rm[rmOffset + 2] = zx * nc - ys;
+      rm[rmOffset + 6] = yz * nc + xs;
+      rm[rmOffset + 10] = z * z * nc + c;
+    }
+  }
+
+  // 框架中使用同步的静态临时数组，这里由调用方提供
+  static void rotateM(float[] m, int mOffset, float a, float x, float y, float z,
+      float[] temp) {
+    setRotateM(temp, 0, a, x, y, z);
+    multiplyMM(temp, 16, m, mOffset, temp, 0);
+    System.arraycopy(temp, 16, m, mOffset, 16);
+  }
+
+  // 框架中的 multiplyMM 为 native 方法，这里是等价的列主序矩阵乘法
+  static void multiplyMM(float[] result, int resultOffset, float[] lhs, int lhsOffset,
+      float[] rhs, int rhsOffset) {
+    for (int i = 0; i < 4; i++) {
+      final float rhs0 = rhs[rhsOffset + i * 4];
+      final float rhs1 = rhs[rhsOffset + i * 4 + 1];
+      final float rhs2 = rhs[rhsOffset + i * 4 + 2];
+      final float rhs3 = rhs[rhsOffset + i * 4 + 3];
+      for (int j = 0; j < 4; j++) {
+        result[resultOffset + i * 4 + j] = lhs[lhsOffset + j] * rhs0
+            + lhs[lhsOffset + 4 + j] * rhs1
+            + lhs[lhsOffset + 8 + j] * rhs2
+            + lhs[lhsOffset + 12 + j] * rhs3;
+      }
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.zac4j.opengl.util;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 把一组随机尺寸的矩形打包进 2048 宽的区域
+ * pack 与 TextureAtlas 一样先按高度从高到低排序，packUnsorted 按原顺序放置作为对照
+ *
+ * 打包效率与耗时无关，作为辅助计数 occupancy 写入结果: 矩形总面积 / (区域宽度 * 实际用到的高度)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SkylinePackerBenchmark {
+
+  private static final int SIZE = 2048;
+  private static final int PADDING = 2;
+  private static final int MIN_SIDE = 16;
+  private static final int MAX_SIDE = 256;
+
+  @Param({ "16", "64", "256" })
+  public int rectCount;
+
+  // 原顺序与按高度排序后的宽高
+  private int[] mWidths;
+  private int[] mHeights;
+  private int[] mSortedWidths;
+  private int[] mSortedHeights;
+  // 所有矩形的总面积
+  private long mArea;
+
+  private final int[] mPosition = new int[2];
+  private SkylinePacker mPacker;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(42);
+    mWidths = new int[rectCount];
+    mHeights = new int[rectCount];
+    final long[] keys = new long[rectCount];
+    mArea = 0L;
+    for (int i = 0; i < rectCount; i++) {
+      mWidths[i] = MIN_SIDE + random.nextInt(MAX_SIDE - MIN_SIDE);
+      mHeights[i] = MIN_SIDE + random.nextInt(MAX_SIDE - MIN_SIDE);
+      mArea += (long) mWidths[i] * mHeights[i];
+      // 高度取反放在高位，升序排序即按高度降序
+      keys[i] = ((long) (MAX_SIDE - mHeights[i]) << 32) | i;
+    }
+    Arrays.sort(keys);
+    mSortedWidths = new int[rectCount];
+    mSortedHeights = new int[rectCount];
+    for (int i = 0; i < rectCount; i++) {
+      final int index = (int) keys[i];
+      mSortedWidths[i] = mWidths[index];
+      mSortedHeights[i] = mHeights[index];
+    }
+
+    // 高度不限，所有矩形都能放下
+    mPacker = new SkylinePacker(SIZE, MAX_SIDE * rectCount, PADDING);
+  }
+
+  /**
+   * 最近一次打包的效率，JMH 在每次迭代结束时读取，与耗时一同写入结果
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Occupancy {
+    public double occupancy;
+  }
+
+  private int pack(int[] widths, int[] heights) {
+    final SkylinePacker packer = mPacker;
+    packer.reset();
+    for (int i = 0; i < widths.length; i++) {
+      packer.insert(widths[i], heights[i], mPosition, 0);
+    }
+    return packer.getUsedHeight();
+  }
+
+  private int pack(int[] widths, int[] heights, Occupancy occupancy) {
+    final int usedHeight = pack(widths, heights);
+    occupancy.occupancy = (double) mArea / ((double) SIZE * usedHeight);
+    return usedHeight;
+  }
+
+  @Benchmark
+  public int pack(Occupancy occupancy) {
+    return pack(mSortedWidths, mSortedHeights, occupancy);
+  }
+
+  @Benchmark
+  public int packUnsorted(Occupancy occupancy) {
+    return pack(mWidths, mHeights, occupancy);
+  }
+}
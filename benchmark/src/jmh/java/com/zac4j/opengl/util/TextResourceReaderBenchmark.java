@@ -0,0 +1,66 @@
+package com.zac4j.opengl.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * shader 源码的读取吞吐量，输入为 app/src/main/shaders 中的 shader 源文件
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TextResourceReaderBenchmark {
+
+  // 重复拼接的次数，模拟更大的 shader
+  @Param({ "1", "64" })
+  public int repeat;
+
+  @Param({ "texture_vertex_shader.glsl", "matrix_vertex_shader.glsl" })
+  public String shader;
+
+  private byte[] mSource;
+
+  @Setup
+  public void setUp() throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final byte[] bytes = readResource(shader);
+    for (int i = 0; i < repeat; i++) {
+      out.write(bytes);
+    }
+    mSource = out.toByteArray();
+  }
+
+  @Benchmark
+  public String readText() throws IOException {
+    return TextResourceReader.readText(new ByteArrayInputStream(mSource));
+  }
+
+  private static byte[] readResource(String name) throws IOException {
+    final InputStream is = TextResourceReaderBenchmark.class.getResourceAsStream("/" + name);
+    if (is == null) {
+      throw new IOException("Missing shader resource: " + name);
+    }
+    try {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[4096];
+      int count;
+      while ((count = is.read(buffer)) != -1) {
+        out.write(buffer, 0, count);
+      }
+      return out.toByteArray();
+    } finally {
+      is.close();
+    }
+  }
+}
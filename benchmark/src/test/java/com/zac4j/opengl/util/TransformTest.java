@@ -0,0 +1,222 @@
+package com.zac4j.opengl.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Transform 与原先 setIdentityM / translateM / rotateM / multiplyMM 组合(ReferenceMatrix)的对比，
+ * 以及每帧路径不分配内存
+ *
+ * 元素用 == 比较: 加法顺序相同，只有 0 的符号可能不同
+ */
+public class TransformTest {
+
+  private static final int CASES = 20000;
+  private static final int ALLOCATION_ITERATIONS = 1000000;
+
+  private final Random mRandom = new Random(42);
+
+  @Test public void setTranslationMatchesTranslateM() {
+    final float[] expected = new float[16];
+    final float[] actual = new float[32];
+    for (int n = 0; n < CASES; n++) {
+      final float x = nextCoordinate();
+      final float y = nextCoordinate();
+      final float z = nextCoordinate();
+      ReferenceMatrix.setIdentityM(expected, 0);
+      ReferenceMatrix.translateM(expected, 0, x, y, z);
+      Transform.setTranslation(actual, 16, x, y, z);
+      assertMatrixEquals("case " + n, expected, 0, actual, 16);
+    }
+  }
+
+  @Test public void setRotationMatchesSetRotateM() {
+    final float[] expected = new float[16];
+    final float[] actual = new float[16];
+    for (int n = 0; n < CASES; n++) {
+      final float angle = nextAngle();
+      final float[] axis = nextAxis();
+      ReferenceMatrix.setRotateM(expected, 0, angle, axis[0], axis[1], axis[2]);
+      Transform.setRotation(actual, 0, angle, axis[0], axis[1], axis[2]);
+      assertMatrixEquals("case " + n, expected, 0, actual, 0);
+    }
+  }
+
+  /**
+   * 物体的 MVP: setIdentityM + translateM + multiplyMM
+   */
+  @Test public void multiplyTranslationMatchesMultiplyMM() {
+    final float[] lhs = new float[16];
+    final float[] model = new float[16];
+    final float[] expected = new float[16];
+    final float[] actual = new float[32];
+    for (int n = 0; n < CASES; n++) {
+      nextMatrix(lhs);
+      final float x = nextCoordinate();
+      final float y = nextCoordinate();
+      final float z = nextCoordinate();
+      ReferenceMatrix.setIdentityM(model, 0);
+      ReferenceMatrix.translateM(model, 0, x, y, z);
+      ReferenceMatrix.multiplyMM(expected, 0, lhs, 0, model, 0);
+
+      Transform.multiplyTranslation(actual, 16, lhs, 0, x, y, z);
+      assertMatrixEquals("case " + n, expected, 0, actual, 16);
+
+      // result 与 lhs 为同一矩阵
+      System.arraycopy(lhs, 0, actual, 0, 16);
+      Transform.multiplyTranslation(actual, 0, actual, 0, x, y, z);
+      assertMatrixEquals("in place, case " + n, expected, 0, actual, 0);
+    }
+  }
+
+  /**
+   * 桌面的 MVP: setIdentityM + rotateM + multiplyMM
+   */
+  @Test public void multiplyRotationMatchesRotateM() {
+    final float[] lhs = new float[16];
+    final float[] model = new float[16];
+    final float[] rotation = new float[16];
+    final float[] temp = new float[32];
+    final float[] expected = new float[16];
+    final float[] actual = new float[16];
+    for (int n = 0; n < CASES; n++) {
+      nextMatrix(lhs);
+      final float angle = nextAngle();
+      final float[] axis = nextAxis();
+      ReferenceMatrix.setIdentityM(model, 0);
+      ReferenceMatrix.rotateM(model, 0, angle, axis[0], axis[1], axis[2], temp);
+      ReferenceMatrix.multiplyMM(expected, 0, lhs, 0, model, 0);
+
+      Transform.setRotation(rotation, 0, angle, axis[0], axis[1], axis[2]);
+      Transform.multiplyRotation(actual, 0, lhs, 0, rotation, 0);
+      assertMatrixEquals("case " + n, expected, 0, actual, 0);
+    }
+  }
+
+  /**
+   * 视图投影矩阵: multiplyMM(projection, view)，视图矩阵最后一行为 (0, 0, 0, 1)
+   */
+  @Test public void multiplyAffineMatchesMultiplyMM() {
+    final float[] lhs = new float[16];
+    final float[] affine = new float[16];
+    final float[] expected = new float[16];
+    final float[] actual = new float[48];
+    for (int n = 0; n < CASES; n++) {
+      nextMatrix(lhs);
+      nextMatrix(affine);
+      affine[3] = 0f;
+      affine[7] = 0f;
+      affine[11] = 0f;
+      affine[15] = 1f;
+      ReferenceMatrix.multiplyMM(expected, 0, lhs, 0, affine, 0);
+
+      System.arraycopy(lhs, 0, actual, 16, 16);
+      Transform.multiplyAffine(actual, 32, actual, 16, affine, 0);
+      assertMatrixEquals("case " + n, expected, 0, actual, 32);
+    }
+  }
+
+  @Test public void perFramePathDoesNotAllocate() {
+    final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assertTrue(threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+    final long thread = Thread.currentThread().getId();
+
+    final float[] projection = new float[16];
+    final float[] view = new float[16];
+    final float[] viewProjection = new float[16];
+    final float[] tableRotation = new float[16];
+    final float[] modelViewProjection = new float[16];
+    MatrixHelper.perspectiveM(projection, 45, 1080f / 1920f, 1f, 10f);
+    Transform.setTranslation(view, 0, 0f, -1.2f, -2.2f);
+    Transform.multiplyAffine(viewProjection, 0, projection, 0, view, 0);
+    Transform.setRotation(tableRotation, 0, -90f, 1f, 0f, 0f);
+
+    // 先让 JIT 编译，再扣除读取计数本身的分配
+    float checksum = runFrames(viewProjection, tableRotation, modelViewProjection, 20000);
+    final long probeStart = threads.getThreadAllocatedBytes(thread);
+    final long probeOverhead = threads.getThreadAllocatedBytes(thread) - probeStart;
+
+    final long start = threads.getThreadAllocatedBytes(thread);
+    checksum += runFrames(viewProjection, tableRotation, modelViewProjection,
+        ALLOCATION_ITERATIONS);
+    final long allocated = threads.getThreadAllocatedBytes(thread) - start - probeOverhead;
+
+    assertTrue(!Float.isNaN(checksum));
+    assertEquals("bytes allocated over " + ALLOCATION_ITERATIONS + " frames", 0L, allocated);
+  }
+
+  /**
+   * 渲染器每帧的矩阵运算: 三个实体的平移与桌面的旋转
+   */
+  private static float runFrames(float[] viewProjection, float[] tableRotation,
+      float[] modelViewProjection, int frames) {
+    float checksum = 0f;
+    for (int frame = 0; frame < frames; frame++) {
+      final float z = (frame % 80) * 0.01f - 0.4f;
+      Transform.multiplyRotation(modelViewProjection, 0, viewProjection, 0, tableRotation, 0);
+      checksum += modelViewProjection[5];
+      for (int entity = 0; entity < 3; entity++) {
+        Transform.multiplyTranslation(modelViewProjection, 0, viewProjection, 0, 0f,
+            0.075f * entity, z);
+        checksum += modelViewProjection[14];
+      }
+    }
+    return checksum;
+  }
+
+  private void nextMatrix(float[] m) {
+    for (int i = 0; i < 16; i++) {
+      // 偶尔出现 0、1 与 -0，覆盖单位矩阵与坐标轴旋转中的特殊值
+      switch (mRandom.nextInt(8)) {
+        case 0:
+          m[i] = 0f;
+          break;
+        case 1:
+          m[i] = -0f;
+          break;
+        case 2:
+          m[i] = 1f;
+          break;
+        default:
+          m[i] = nextCoordinate();
+          break;
+      }
+    }
+  }
+
+  private float nextCoordinate() {
+    return (mRandom.nextFloat() * 2f - 1f) * 10f;
+  }
+
+  private float nextAngle() {
+    return mRandom.nextInt(4) == 0 ? 90f * (mRandom.nextInt(9) - 4)
+        : (mRandom.nextFloat() * 2f - 1f) * 360f;
+  }
+
+  private float[] nextAxis() {
+    switch (mRandom.nextInt(4)) {
+      case 0:
+        return new float[] { 1f, 0f, 0f };
+      case 1:
+        return new float[] { 0f, 1f, 0f };
+      case 2:
+        return new float[] { 0f, 0f, 1f };
+      default:
+        return new float[] { nextCoordinate(), nextCoordinate(), nextCoordinate() };
+    }
+  }
+
+  private static void assertMatrixEquals(String message, float[] expected, int expectedOffset,
+      float[] actual, int actualOffset) {
+    for (int i = 0; i < 16; i++) {
+      assertEquals(message + ", element " + i, expected[expectedOffset + i],
+          actual[actualOffset + i], 0f);
+    }
+  }
+}
@@ -0,0 +1,515 @@
+package com.zac4j.opengl.build;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * GLSL ES 1.0 shader 的精简，在构建时执行
+ *
+ * 1. 删除注释与多余的空白，预处理指令保留为单独的一行
+ * 2. 折叠两个浮点字面量之间的四则运算，只在不改变运算顺序时折叠
+ * 3. 删除源码中未引用的 uniform 与 varying 声明
+ * 4. 删除链接在一起的片元 shader 都不读取的 varying，以及顶点 shader 中对它的赋值
+ *
+ * 不重命名任何变量: attribute 与 uniform 在运行时按名称查询，局部变量改名的收益也很小。
+ * 3 与 4 只用于完整的 shader: 被 #include 的片段，或带 #include、#define 与条件编译块的
+ * shader 在运行时才确定最终内容，只做 1 与 2
+ *
+ * 目前的 shader 没有可折叠的常量与未使用的声明，体积的减少全部来自 1；
+ * 2 到 4 防止以后修改 shader 时留下这些内容，报告中的 folded 与 removed 列会显示出来
+ */
+public final class GlslMinifier {
+
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+  private static final Pattern FLOAT_LITERAL =
+      Pattern.compile("(?:[0-9]+\\.[0-9]*|\\.[0-9]+)(?:[eE][+-]?[0-9]+)?|[0-9]+[eE][+-]?[0-9]+");
+
+  private static final Set<String> PRECISIONS = new HashSet<>(Arrays.asList(
+      "lowp", "mediump", "highp"));
+
+  private static final String[] OPERATORS = {
+      "<<=", ">>=", "++", "--", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "==", "!=",
+      "<=", ">=", "&&", "||", "^^", "<<", ">>"
+  };
+
+  // 加减运算的左右两侧为这些记号时，折叠不改变运算顺序
+  private static final Set<String> ADDITIVE_BEFORE = new HashSet<>(Arrays.asList(
+      "(", "[", ",", "=", "+=", "-=", "*=", "/=", "?", ":", ";", "{", "}", "return"));
+  private static final Set<String> ADDITIVE_AFTER = new HashSet<>(Arrays.asList(
+      ")", "]", ",", ";", "+", "-", "?", ":"));
+
+  private GlslMinifier() {
+  }
+
+  /**
+   * 一个 shader 的精简过程，tokens 在各步骤之间修改
+   */
+  public static final class Shader {
+
+    final String name;
+    final String source;
+    final List<String> tokens;
+    final int originalTokenCount;
+
+    // 折叠的常量表达式数与删除的声明
+    int foldedConstants;
+    final List<String> removed = new ArrayList<>();
+
+    public Shader(String name, String source) {
+      this.name = name;
+      this.source = source;
+      this.tokens = tokenize(source);
+      this.originalTokenCount = tokens.size();
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getOriginalTokenCount() {
+      return originalTokenCount;
+    }
+
+    public int getTokenCount() {
+      return tokens.size();
+    }
+
+    public int getFoldedConstants() {
+      return foldedConstants;
+    }
+
+    /**
+     * @return 删除的声明，如 "uniform u_Color"
+     */
+    public List<String> getRemoved() {
+      return removed;
+    }
+
+    public String getSource() {
+      return source;
+    }
+
+    public String getMinifiedSource() {
+      return join(tokens);
+    }
+  }
+
+  /**
+   * 精简单个 shader 的内容，不依赖链接关系
+   */
+  public static void minify(Shader shader) {
+    shader.foldedConstants += fold(shader.tokens);
+    if (isComplete(shader.tokens)) {
+      removeUnused(shader, "uniform");
+      removeUnused(shader, "varying");
+    }
+  }
+
+  /**
+   * 删除顶点 shader 中没有被任何链接的片元 shader 读取的 varying，需在 minify 之后调用
+   *
+   * @param vertex 顶点 shader
+   * @param fragments 与之链接的所有片元 shader，为空时不做任何修改
+   */
+  public static void removeUnreadVaryings(Shader vertex, Collection<Shader> fragments) {
+    if (fragments.isEmpty() || !isComplete(vertex.tokens)) {
+      return;
+    }
+    final Set<String> read = new HashSet<>();
+    for (Shader fragment : fragments) {
+      if (!isComplete(fragment.tokens)) {
+        return;
+      }
+      read.addAll(declared(fragment.tokens, "varying"));
+    }
+    for (String varying : declared(vertex.tokens, "varying")) {
+      if (!read.contains(varying) && removeAssignments(vertex.tokens, varying)) {
+        removeDeclaration(vertex.tokens, "varying", varying);
+        vertex.removed.add("varying " + varying);
+      }
+    }
+  }
+
+  /**
+   * 拆分为记号，删除注释与空白；预处理指令整行作为一个记号，以 '#' 开头
+   */
+  static List<String> tokenize(String source) {
+    final List<String> tokens = new ArrayList<>();
+    final int length = source.length();
+    boolean lineStart = true;
+    int i = 0;
+    while (i < length) {
+      final char c = source.charAt(i);
+      if (c == '\n') {
+        lineStart = true;
+        i++;
+      } else if (Character.isWhitespace(c)) {
+        i++;
+      } else if (source.startsWith("//", i)) {
+        i = lineEnd(source, i);
+      } else if (source.startsWith("/*", i)) {
+        final int end = source.indexOf("*/", i + 2);
+        if (end < 0) {
+          throw new IllegalArgumentException("Unterminated comment");
+        }
+        i = end + 2;
+      } else if (c == '#' && lineStart) {
+        // 指令可以用 '\' 续行，其中的注释同样删除
+        final StringBuilder directive = new StringBuilder();
+        int end = lineEnd(source, i);
+        while (end > i && source.charAt(end - 1) == '\\' && end < length) {
+          directive.append(source, i, end - 1).append(' ');
+          i = end + 1;
+          end = lineEnd(source, i);
+        }
+        directive.append(source, i, end);
+        tokens.add(stripComment(directive.toString()).trim().replaceAll("\\s+", " "));
+        i = end;
+      } else {
+        final int end = tokenEnd(source, i);
+        tokens.add(source.substring(i, end));
+        i = end;
+        lineStart = false;
+      }
+    }
+    return tokens;
+  }
+
+  private static int lineEnd(String source, int from) {
+    final int end = source.indexOf('\n', from);
+    return end < 0 ? source.length() : end;
+  }
+
+  private static String stripComment(String directive) {
+    final int comment = directive.indexOf("//");
+    String result = comment < 0 ? directive : directive.substring(0, comment);
+    int start;
+    while ((start = result.indexOf("/*")) >= 0) {
+      final int end = result.indexOf("*/", start + 2);
+      result = result.substring(0, start) + ' ' + (end < 0 ? "" : result.substring(end + 2));
+    }
+    return result;
+  }
+
+  private static int tokenEnd(String source, int start) {
+    final int length = source.length();
+    final char c = source.charAt(start);
+    int i = start + 1;
+    if (Character.isLetter(c) || c == '_') {
+      while (i < length && isIdentifierPart(source.charAt(i))) {
+        i++;
+      }
+      return i;
+    }
+    if (Character.isDigit(c) || (c == '.' && i < length && Character.isDigit(source.charAt(i)))) {
+      while (i < length) {
+        final char d = source.charAt(i);
+        if (isIdentifierPart(d) || d == '.') {
+          i++;
+        } else if ((d == '+' || d == '-') && isExponent(source.charAt(i - 1), source, start)) {
+          i++;
+        } else {
+          break;
+        }
+      }
+      return i;
+    }
+    for (String operator : OPERATORS) {
+      if (source.startsWith(operator, start)) {
+        return start + operator.length();
+      }
+    }
+    return i;
+  }
+
+  // 十进制浮点数中的 e 之后可以有符号，0x 开头的十六进制整数中的 e 是数字
+  private static boolean isExponent(char previous, String source, int start) {
+    return (previous == 'e' || previous == 'E')
+        && !(source.startsWith("0x", start) || source.startsWith("0X", start));
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  /**
+   * 合并记号，只在必要处保留空格
+   */
+  static String join(List<String> tokens) {
+    final StringBuilder out = new StringBuilder();
+    String previous = null;
+    for (String token : tokens) {
+      if (token.startsWith("#")) {
+        if (out.length() > 0 && out.charAt(out.length() - 1) != '\n') {
+          out.append('\n');
+        }
+        out.append(token).append('\n');
+        previous = null;
+        continue;
+      }
+      if (previous != null && needsSpace(previous, token)) {
+        out.append(' ');
+      }
+      out.append(token);
+      previous = token;
+    }
+    if (out.length() > 0 && out.charAt(out.length() - 1) != '\n') {
+      out.append('\n');
+    }
+    return out.toString();
+  }
+
+  private static boolean needsSpace(String previous, String next) {
+    final char last = previous.charAt(previous.length() - 1);
+    final char first = next.charAt(0);
+    if (isIdentifierPart(last) && isIdentifierPart(first)) {
+      return true;
+    }
+    // 数字会吞掉之后的 '.' 与字母，'.' 之后的数字会成为浮点字面量，如 "1.0 .x" 与 ". 5"；
+    // 成员访问 "u_Color.x" 不需要空格
+    if (isNumber(previous) ? first == '.' || isIdentifierPart(first)
+        : previous.equals(".") && Character.isDigit(first)) {
+      return true;
+    }
+    // "a - -b" 不能写成 "a--b"
+    return (last == '+' || last == '-') && (first == '+' || first == '-');
+  }
+
+  private static boolean isNumber(String token) {
+    final char first = token.charAt(0);
+    return Character.isDigit(first) || (first == '.' && token.length() > 1);
+  }
+
+  /**
+   * 折叠两个浮点字面量之间的运算，如 "2.0 * 0.5" 折叠为 "1.0"
+   *
+   * @return 折叠的次数
+   */
+  static int fold(List<String> tokens) {
+    int folded = 0;
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int i = 0; i + 2 < tokens.size(); i++) {
+        if (isParenthesizedLiteral(tokens, i)) {
+          tokens.remove(i + 2);
+          tokens.remove(i);
+          changed = true;
+          continue;
+        }
+        final String result = foldAt(tokens, i);
+        if (result != null) {
+          tokens.set(i, result);
+          tokens.remove(i + 1);
+          tokens.remove(i + 1);
+          folded++;
+          changed = true;
+        }
+      }
+    }
+    return folded;
+  }
+
+  /**
+   * "(1.0)" 可以去掉括号，函数调用与构造函数的参数除外，如 "vec4(1.0)"
+   */
+  private static boolean isParenthesizedLiteral(List<String> tokens, int i) {
+    if (!tokens.get(i).equals("(") || !isFloatLiteral(tokens.get(i + 1))
+        || !tokens.get(i + 2).equals(")")) {
+      return false;
+    }
+    if (i == 0) {
+      return true;
+    }
+    final String before = tokens.get(i - 1);
+    return !IDENTIFIER.matcher(before).matches() && !before.equals(")") && !before.equals("]");
+  }
+
+  private static String foldAt(List<String> tokens, int i) {
+    final String left = tokens.get(i);
+    final String operator = tokens.get(i + 1);
+    final String right = tokens.get(i + 2);
+    if (!isFloatLiteral(left) || !isFloatLiteral(right)) {
+      return null;
+    }
+    final String before = i > 0 ? tokens.get(i - 1) : ";";
+    final String after = i + 3 < tokens.size() ? tokens.get(i + 3) : ";";
+    final float a = Float.parseFloat(left);
+    final float b = Float.parseFloat(right);
+    final float value;
+    switch (operator) {
+      case "*":
+      case "/":
+        // "x / 2.0 * 3.0" 为 (x / 2.0) * 3.0，不能折叠；前面的加减不影响结果，
+        // 一元正负号之前还有乘除时同样不能折叠，如 "x / -2.0 * 3.0"
+        if (isMultiplicative(before) || isMultiplicative(beforeSign(tokens, i))) {
+          return null;
+        }
+        if (operator.equals("/") && b == 0f) {
+          return null;
+        }
+        value = operator.equals("*") ? a * b : a / b;
+        break;
+      case "+":
+      case "-":
+        if (!ADDITIVE_BEFORE.contains(before) || !ADDITIVE_AFTER.contains(after)) {
+          return null;
+        }
+        value = operator.equals("+") ? a + b : a - b;
+        break;
+      default:
+        return null;
+    }
+    if (Float.isNaN(value) || Float.isInfinite(value)) {
+      return null;
+    }
+    // 负数结果只来自减法，此时 before 在 ADDITIVE_BEFORE 中，写为一元负号不改变含义
+    return Float.toString(value);
+  }
+
+  private static boolean isMultiplicative(String token) {
+    return token.equals("*") || token.equals("/");
+  }
+
+  /**
+   * @return 位置 i 之前连续的 '+' 与 '-' 之前的记号，没有时为 ";"
+   */
+  private static String beforeSign(List<String> tokens, int i) {
+    int j = i - 1;
+    while (j >= 0 && (tokens.get(j).equals("+") || tokens.get(j).equals("-"))) {
+      j--;
+    }
+    return j >= 0 ? tokens.get(j) : ";";
+  }
+
+  static boolean isFloatLiteral(String token) {
+    return FLOAT_LITERAL.matcher(token).matches();
+  }
+
+  /**
+   * @return 按 "限定符 [精度] 类型 名称 ;" 声明的变量名
+   */
+  static List<String> declared(List<String> tokens, String qualifier) {
+    final List<String> names = new ArrayList<>();
+    for (int i = 0; i < tokens.size(); i++) {
+      final int end = declarationEnd(tokens, i, qualifier);
+      if (end > 0) {
+        names.add(tokens.get(end - 2));
+      }
+    }
+    return names;
+  }
+
+  /**
+   * @return 从 start 开始的声明之后的位置，不是单个变量的声明时返回 -1
+   */
+  private static int declarationEnd(List<String> tokens, int start, String qualifier) {
+    if (!tokens.get(start).equals(qualifier) || (start > 0 && !isStatementStart(tokens, start))) {
+      return -1;
+    }
+    int i = start + 1;
+    if (i < tokens.size() && PRECISIONS.contains(tokens.get(i))) {
+      i++;
+    }
+    if (i + 2 >= tokens.size() || !IDENTIFIER.matcher(tokens.get(i)).matches()
+        || !IDENTIFIER.matcher(tokens.get(i + 1)).matches() || !tokens.get(i + 2).equals(";")) {
+      return -1;
+    }
+    return i + 3;
+  }
+
+  private static boolean isStatementStart(List<String> tokens, int i) {
+    final String previous = tokens.get(i - 1);
+    return previous.equals(";") || previous.equals("{") || previous.equals("}")
+        || previous.startsWith("#");
+  }
+
+  private static void removeDeclaration(List<String> tokens, String qualifier, String name) {
+    for (int i = 0; i < tokens.size(); i++) {
+      final int end = declarationEnd(tokens, i, qualifier);
+      if (end > 0 && tokens.get(end - 2).equals(name)) {
+        tokens.subList(i, end).clear();
+        return;
+      }
+    }
+  }
+
+  /**
+   * 是否为完整的 shader: 定义了 main，且预处理指令只有 #version、#extension 与 #pragma，
+   * 源码中的声明与引用就是编译时的全部
+   */
+  static boolean isComplete(List<String> tokens) {
+    boolean hasMain = false;
+    for (String token : tokens) {
+      if (token.startsWith("#")) {
+        final String directive = token.substring(1).trim();
+        if (!directive.startsWith("version") && !directive.startsWith("extension")
+            && !directive.startsWith("pragma")) {
+          return false;
+        }
+      } else if (token.equals("main")) {
+        hasMain = true;
+      }
+    }
+    return hasMain;
+  }
+
+  /**
+   * 删除声明之外没有被引用的变量
+   */
+  private static void removeUnused(Shader shader, String qualifier) {
+    for (String name : declared(shader.tokens, qualifier)) {
+      if (count(shader.tokens, name) == 1) {
+        removeDeclaration(shader.tokens, qualifier, name);
+        shader.removed.add(qualifier + ' ' + name);
+      }
+    }
+  }
+
+  private static int count(List<String> tokens, String name) {
+    int count = 0;
+    for (String token : tokens) {
+      if (token.equals(name)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * 删除形如 "name = ...;" 的语句
+   *
+   * @return 删除后声明之外不再引用该变量时返回 true；有其他用法时不做任何修改，返回 false
+   */
+  private static boolean removeAssignments(List<String> tokens, String name) {
+    final List<int[]> statements = new ArrayList<>();
+    int references = 0;
+    for (int i = 0; i < tokens.size(); i++) {
+      if (!tokens.get(i).equals(name)) {
+        continue;
+      }
+      references++;
+      if (i > 0 && isStatementStart(tokens, i) && i + 1 < tokens.size()
+          && tokens.get(i + 1).equals("=")) {
+        final int end = tokens.subList(i, tokens.size()).indexOf(";");
+        if (end < 0 || tokens.subList(i + 2, i + end).contains(name)) {
+          return false;
+        }
+        statements.add(new int[] { i, i + end + 1 });
+      }
+    }
+    // 声明占一次引用
+    if (references - 1 != statements.size()) {
+      return false;
+    }
+    for (int i = statements.size() - 1; i >= 0; i--) {
+      tokens.subList(statements.get(i)[0], statements.get(i)[1]).clear();
+    }
+    return true;
+  }
+}
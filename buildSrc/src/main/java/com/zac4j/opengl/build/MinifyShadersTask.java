@@ -0,0 +1,207 @@
+package com.zac4j.opengl.build;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * 精简 sourceDir 中的 .glsl 文件，写入 outputDir，并生成报告
+ *
+ * 报告列出每个 shader 精简前后的字节数与记号数、折叠的常量与删除的声明；
+ * 记号数近似于驱动编译器词法与语法分析的工作量，运行时的编译耗时见 Profiler 的 shader 计时
+ */
+public class MinifyShadersTask extends DefaultTask {
+
+  private static final String EXTENSION = ".glsl";
+  private static final String CHARSET = "UTF-8";
+
+  private File mSourceDir;
+  private File mOutputDir;
+  private File mReportFile;
+  // 每项为 {顶点 shader, 片元 shader}，不含扩展名
+  private final ArrayList<List<String>> mPrograms = new ArrayList<>();
+
+  @InputDirectory
+  public File getSourceDir() {
+    return mSourceDir;
+  }
+
+  public void setSourceDir(File sourceDir) {
+    mSourceDir = sourceDir;
+  }
+
+  @OutputDirectory
+  public File getOutputDir() {
+    return mOutputDir;
+  }
+
+  public void setOutputDir(File outputDir) {
+    mOutputDir = outputDir;
+  }
+
+  @OutputFile
+  public File getReportFile() {
+    return mReportFile;
+  }
+
+  public void setReportFile(File reportFile) {
+    mReportFile = reportFile;
+  }
+
+  @Input
+  public List<List<String>> getPrograms() {
+    return mPrograms;
+  }
+
+  /**
+   * 声明链接在一起的一对 shader，片元 shader 都不读取的 varying 从顶点 shader 中删除；
+   * 没有声明的顶点 shader 保留所有 varying
+   *
+   * @param vertexShader 顶点 shader 的文件名，不含扩展名
+   * @param fragmentShader 片元 shader 的文件名，不含扩展名
+   */
+  public void program(String vertexShader, String fragmentShader) {
+    mPrograms.add(Arrays.asList(vertexShader, fragmentShader));
+  }
+
+  @TaskAction
+  public void minify() throws IOException {
+    final File[] files = mSourceDir.listFiles();
+    if (files == null) {
+      throw new GradleException("Cannot list shaders in " + mSourceDir);
+    }
+    Arrays.sort(files);
+
+    final Map<String, GlslMinifier.Shader> shaders = new LinkedHashMap<>();
+    final Map<String, Long> nanos = new LinkedHashMap<>();
+    for (File file : files) {
+      final String fileName = file.getName();
+      if (!fileName.endsWith(EXTENSION)) {
+        continue;
+      }
+      final String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+      final long start = System.nanoTime();
+      final GlslMinifier.Shader shader = new GlslMinifier.Shader(name, read(file));
+      GlslMinifier.minify(shader);
+      nanos.put(name, System.nanoTime() - start);
+      shaders.put(name, shader);
+    }
+
+    for (String vertex : programVertexShaders()) {
+      final List<GlslMinifier.Shader> fragments = new ArrayList<>();
+      for (List<String> program : mPrograms) {
+        if (program.get(0).equals(vertex)) {
+          fragments.add(require(shaders, program.get(1)));
+        }
+      }
+      GlslMinifier.removeUnreadVaryings(require(shaders, vertex), fragments);
+    }
+
+    // 删除已不存在的源文件对应的输出
+    final File[] stale = mOutputDir.listFiles();
+    if (stale != null) {
+      for (File file : stale) {
+        if (!file.delete()) {
+          throw new GradleException("Cannot delete " + file);
+        }
+      }
+    }
+    for (GlslMinifier.Shader shader : shaders.values()) {
+      write(new File(mOutputDir, shader.getName() + EXTENSION), shader.getMinifiedSource());
+    }
+    writeReport(shaders, nanos);
+  }
+
+  private List<String> programVertexShaders() {
+    final List<String> vertexShaders = new ArrayList<>();
+    for (List<String> program : mPrograms) {
+      if (!vertexShaders.contains(program.get(0))) {
+        vertexShaders.add(program.get(0));
+      }
+    }
+    return vertexShaders;
+  }
+
+  private GlslMinifier.Shader require(Map<String, GlslMinifier.Shader> shaders, String name) {
+    final GlslMinifier.Shader shader = shaders.get(name);
+    if (shader == null) {
+      throw new GradleException("Program references missing shader " + name + EXTENSION
+          + " in " + mSourceDir);
+    }
+    return shader;
+  }
+
+  private void writeReport(Map<String, GlslMinifier.Shader> shaders, Map<String, Long> nanos)
+      throws IOException {
+    final File parent = mReportFile.getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new GradleException("Cannot create " + parent);
+    }
+    final PrintWriter report = new PrintWriter(mReportFile, CHARSET);
+    try {
+      report.printf("%-28s %8s %8s %7s %8s %8s %6s %8s  %s%n", "shader", "bytes", "minified",
+          "saved", "tokens", "minified", "folded", "time(us)", "removed");
+      long totalBytes = 0L;
+      long totalMinified = 0L;
+      for (GlslMinifier.Shader shader : shaders.values()) {
+        final int bytes = shader.getSource().getBytes(CHARSET).length;
+        final int minified = shader.getMinifiedSource().getBytes(CHARSET).length;
+        totalBytes += bytes;
+        totalMinified += minified;
+        report.printf("%-28s %8d %8d %6.1f%% %8d %8d %6d %8d  %s%n", shader.getName(), bytes,
+            minified, saved(bytes, minified), shader.getOriginalTokenCount(),
+            shader.getTokenCount(), shader.getFoldedConstants(),
+            nanos.get(shader.getName()) / 1000L, shader.getRemoved());
+      }
+      report.printf("%-28s %8d %8d %6.1f%%%n", "total", totalBytes, totalMinified,
+          saved(totalBytes, totalMinified));
+    } finally {
+      report.close();
+    }
+    getLogger().info("Shader report: " + mReportFile);
+  }
+
+  private static double saved(long bytes, long minified) {
+    return bytes == 0L ? 0.0 : 100.0 * (bytes - minified) / bytes;
+  }
+
+  private static String read(File file) throws IOException {
+    final InputStream in = new FileInputStream(file);
+    try {
+      final byte[] bytes = new byte[(int) file.length()];
+      int offset = 0;
+      int count;
+      while (offset < bytes.length && (count = in.read(bytes, offset, bytes.length - offset)) > 0) {
+        offset += count;
+      }
+      return new String(bytes, 0, offset, CHARSET);
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void write(File file, String text) throws IOException {
+    final OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(text.getBytes(CHARSET));
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.zac4j.opengl.build;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * GlslMinifier 的常量折叠只在不改变运算顺序时进行，合并后的源码与原记号一致
+ */
+public class GlslMinifierTest {
+
+  private static final File SHADERS = new File("../app/src/main/shaders");
+
+  @Test public void foldsLiteralArithmetic() {
+    assertEquals("v=vec4(1.0);\n", fold("v = vec4(2.0 * 0.5);", 1));
+    assertEquals("v=a-6.0;\n", fold("v = a - 2.0 * 3.0;", 1));
+    assertEquals("v=0.5+a;\n", fold("v = (0.25 + 0.25) + a;", 1));
+    assertEquals("v=-6.0;\n", fold("v = -2.0 * 3.0;", 1));
+  }
+
+  /**
+   * 一元负号之前的乘除决定了运算顺序: "x / -2.0 * 3.0" 为 (x / -2.0) * 3.0
+   */
+  @Test public void doesNotFoldPastUnarySignAfterMultiplication() {
+    assertEquals("v=x/-2.0*3.0;\n", fold("v = x / -2.0 * 3.0;", 0));
+    assertEquals("v=x*-2.0*3.0;\n", fold("v = x * -2.0 * 3.0;", 0));
+    assertEquals("v=x/- -2.0*3.0;\n", fold("v = x / - -2.0 * 3.0;", 0));
+    assertEquals("v=x*+2.0/4.0;\n", fold("v = x * +2.0 / 4.0;", 0));
+    // 减法之后的乘法仍可折叠
+    assertEquals("v=x- -6.0;\n", fold("v = x - -2.0 * 3.0;", 1));
+  }
+
+  @Test public void doesNotFoldAcrossPrecedence() {
+    assertEquals("v=x/2.0*3.0;\n", fold("v = x / 2.0 * 3.0;", 0));
+    assertEquals("v=x*1.0+2.0;\n", fold("v = x * 1.0 + 2.0;", 0));
+    assertEquals("v=1.0+2.0*x;\n", fold("v = 1.0 + 2.0 * x;", 0));
+    assertEquals("v=1.0/0.0;\n", fold("v = 1.0 / 0.0;", 0));
+  }
+
+  @Test public void memberAccessHasNoSpaces() {
+    assertEquals("gl_FragColor=vec4(u_Color.xyz,1.0).bgra;\n",
+        GlslMinifier.join(GlslMinifier.tokenize("gl_FragColor = vec4(u_Color . xyz, 1.0) .bgra;")));
+  }
+
+  @Test public void keepsSpacesThatSeparateTokens() {
+    assertEquals("float f=a- -b;vec2 v=vec2(.5).xy;\n",
+        GlslMinifier.join(GlslMinifier.tokenize("float f = a - -b; vec2 v = vec2(.5).xy;")));
+  }
+
+  /**
+   * 精简后的 shader 重新拆分得到相同的记号
+   */
+  @Test public void minifiedShadersTokenizeToSameTokens() throws IOException {
+    final File[] files = SHADERS.listFiles();
+    assertNotNull(files);
+    assertTrue(files.length > 0);
+    for (File file : files) {
+      final String source = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+      final GlslMinifier.Shader shader = new GlslMinifier.Shader(file.getName(), source);
+      GlslMinifier.minify(shader);
+      final String minified = shader.getMinifiedSource();
+      assertEquals(file.getName(), shader.tokens, GlslMinifier.tokenize(minified));
+      assertTrue(file.getName(), minified.length() < source.length());
+    }
+  }
+
+  private static String fold(String source, int expectedFolds) {
+    final List<String> tokens = GlslMinifier.tokenize(source);
+    assertEquals(source, expectedFolds, GlslMinifier.fold(tokens));
+    return GlslMinifier.join(tokens);
+  }
+}